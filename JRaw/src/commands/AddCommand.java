@@ -0,0 +1,35 @@
+package commands;
+
+import java.util.Collections;
+import java.util.List;
+
+import gfx.Canvas;
+import shapes.MyShape;
+
+/**
+ * Adds shapes to the canvas.
+ * @author DavidKramer
+ *
+ */
+public class AddCommand extends ShapeListCommand {
+	
+	public AddCommand(Canvas canvas, MyShape shape) {
+		this(canvas, Collections.singletonList(shape));
+	}
+	
+	public AddCommand(Canvas canvas, List<MyShape> shapes) {
+		super(canvas, shapes);
+	}
+	
+	public void execute() {
+		restoreShapes();
+	}
+	
+	public void undo() {
+		removeShapes();
+	}
+	
+	public String getName() {
+		return "Add";
+	}
+}
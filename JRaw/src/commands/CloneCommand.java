@@ -0,0 +1,22 @@
+package commands;
+
+import java.util.List;
+
+import gfx.Canvas;
+import shapes.MyShape;
+
+/**
+ * Adds clones of shapes to the canvas.
+ * @author DavidKramer
+ *
+ */
+public class CloneCommand extends AddCommand {
+	
+	public CloneCommand(Canvas canvas, List<MyShape> clones) {
+		super(canvas, clones);
+	}
+	
+	public String getName() {
+		return "Clone";
+	}
+}
@@ -0,0 +1,72 @@
+package commands;
+
+import shapes.LazyShape;
+import shapes.MyPoly;
+import shapes.MyShape;
+
+/**
+ * Base class for every change to the canvas that can be undone. Commands only store
+ * what is needed to go back and forth between the state before and after the change
+ * (such as how far shapes were moved), rather than copies of the shapes.
+ * @author DavidKramer
+ *
+ */
+public abstract class Command {
+	protected static final int OBJECT_SIZE = 16;	// rough size of an object header
+	protected static final int REF_SIZE = 8;		// rough size of a reference
+	protected static final int SHAPE_SIZE = 512;	// rough size of a shape and the objects it owns
+	protected static final int PT_SIZE = 32;		// rough size of one pt of a poly
+	
+	/**
+	 * Does the command. This is called by the history to redo a command that was undone,
+	 * or to do a command the first time if it is executed through the history.
+	 */
+	public abstract void execute();
+	
+	/**
+	 * Reverts everything that the command did.
+	 */
+	public abstract void undo();
+	
+	/**
+	 * @return the name of the command, such as "Move"
+	 */
+	public abstract String getName();
+	
+	/**
+	 * @return roughly how many bytes of memory the command holds on to
+	 */
+	public abstract long getSize();
+	
+	//********************************************************
+	//* 			  STATIC UTILITY METHODS				 *
+	//********************************************************
+	
+	/**
+	 * @param shape
+	 * @return roughly how many bytes of memory a shape takes
+	 */
+	protected static long sizeOf(MyShape shape) {
+		if (shape instanceof MyPoly) {
+			return SHAPE_SIZE + (long)((MyPoly)shape).getPtCount() * PT_SIZE;
+		} else if (shape instanceof LazyShape) {
+			return OBJECT_SIZE * 4;
+		}
+		return SHAPE_SIZE;
+	}
+	
+	/**
+	 * @param coords
+	 * @return how many bytes an array of coords takes, some of which may be null
+	 */
+	protected static long sizeOf(int[][] coords) {
+		long size = OBJECT_SIZE + (long)coords.length * REF_SIZE;
+		
+		for (int i = 0; i < coords.length; i++) {
+			if (coords[i] != null) {
+				size += OBJECT_SIZE + coords[i].length * 4L;
+			}
+		}
+		return size;
+	}
+}
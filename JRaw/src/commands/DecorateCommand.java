@@ -0,0 +1,65 @@
+package commands;
+
+import java.util.List;
+
+import gfx.Style;
+import shapes.MyShape;
+
+/**
+ * Changes the style of shapes. Styles are frozen and shared by the shapes on the canvas
+ * (a shape is given another style rather than changing its own), so only references to
+ * them are stored.
+ * @author DavidKramer
+ *
+ */
+public class DecorateCommand extends Command {
+	private MyShape[] shapes;
+	private Style[] before;
+	private Style[] after;
+	
+	/**
+	 * Creates a decorate command, which remembers the styles of the shapes before
+	 * they are changed. Call captureAfter() once they have been changed.
+	 * @param shapes
+	 */
+	public DecorateCommand(List<MyShape> shapes) {
+		this.shapes = shapes.toArray(new MyShape[shapes.size()]);
+		before = capture();
+	}
+	
+	/**
+	 * Remembers the styles of the shapes after they have been changed.
+	 */
+	public void captureAfter() {
+		after = capture();
+	}
+	
+	private Style[] capture() {
+		Style[] styles = new Style[shapes.length];
+		
+		for (int i = 0; i < shapes.length; i++) {
+			styles[i] = shapes[i].getStyle();
+		}
+		return styles;
+	}
+	
+	public void execute() {
+		for (int i = 0; i < shapes.length; i++) {
+			shapes[i].setStyle(after[i]);
+		}
+	}
+	
+	public void undo() {
+		for (int i = 0; i < shapes.length; i++) {
+			shapes[i].setStyle(before[i]);
+		}
+	}
+	
+	public String getName() {
+		return "Decorate";
+	}
+	
+	public long getSize() {
+		return OBJECT_SIZE * 3 + (long)shapes.length * REF_SIZE * 3;	// the styles are kept by the canvas
+	}
+}
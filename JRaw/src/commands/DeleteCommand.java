@@ -0,0 +1,30 @@
+package commands;
+
+import java.util.List;
+
+import gfx.Canvas;
+import shapes.MyShape;
+
+/**
+ * Removes shapes from the canvas.
+ * @author DavidKramer
+ *
+ */
+public class DeleteCommand extends ShapeListCommand {
+	
+	public DeleteCommand(Canvas canvas, List<MyShape> shapes) {
+		super(canvas, shapes);
+	}
+	
+	public void execute() {
+		removeShapes();
+	}
+	
+	public void undo() {
+		restoreShapes();
+	}
+	
+	public String getName() {
+		return "Delete";
+	}
+}
@@ -0,0 +1,160 @@
+package commands;
+
+import java.util.ArrayDeque;
+
+/**
+ * This class keeps track of the commands that have been done on the canvas, so that
+ * they can be undone and redone. The history only holds on to a limited amount of
+ * memory. Once it gets too big, the oldest commands are forgotten. The limit can be
+ * set with the jraw.history.bytes system property.
+ * @author DavidKramer
+ *
+ */
+public class History {
+	public static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+	
+	private ArrayDeque<Command> undoStack;		// most recent command first
+	private ArrayDeque<Command> redoStack;
+	private long size;							// rough size of every command in the history
+	private long maxSize;
+	
+	public History() {
+		undoStack = new ArrayDeque<>();
+		redoStack = new ArrayDeque<>();
+		maxSize = Long.getLong("jraw.history.bytes", DEFAULT_MAX_BYTES);
+	}
+	
+	//********************************************************
+	//* 				  HISTORY METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Adds a command that has already been done to the history. Anything that was
+	 * undone can't be redone after this.
+	 * @param command
+	 */
+	public void record(Command command) {
+		clearRedo();
+		undoStack.push(command);
+		size += command.getSize();
+		trim();
+	}
+	
+	/**
+	 * Does a command and adds it to the history.
+	 * @param command
+	 */
+	public void execute(Command command) {
+		command.execute();
+		record(command);
+	}
+	
+	/**
+	 * Undoes the most recent command.
+	 * @return false if there was nothing to undo
+	 */
+	public boolean undo() {
+		Command command = undoStack.poll();
+		
+		if (command == null) {
+			return false;
+		}
+		command.undo();
+		redoStack.push(command);
+		return true;
+	}
+	
+	/**
+	 * Redoes the most recently undone command.
+	 * @return false if there was nothing to redo
+	 */
+	public boolean redo() {
+		Command command = redoStack.poll();
+		
+		if (command == null) {
+			return false;
+		}
+		command.execute();
+		undoStack.push(command);
+		return true;
+	}
+	
+	/**
+	 * Forgets every command.
+	 */
+	public void clear() {
+		undoStack.clear();
+		redoStack.clear();
+		size = 0;
+	}
+	
+	private void clearRedo() {
+		while (!redoStack.isEmpty()) {
+			size -= redoStack.pop().getSize();
+		}
+	}
+	
+	/**
+	 * Forgets the oldest commands until the history fits in its max size. The most
+	 * recent command is always kept, even if it is too big by itself.
+	 */
+	private void trim() {
+		while (size > maxSize && undoStack.size() > 1) {
+			size -= undoStack.removeLast().getSize();
+		}
+	}
+	
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Sets roughly how many bytes of memory the history can hold on to.
+	 * @param bytes
+	 */
+	public void setMaxSize(long bytes) {
+		maxSize = bytes;
+		trim();
+	}
+	
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+	
+	public boolean canUndo() {
+		return !undoStack.isEmpty();
+	}
+	
+	public boolean canRedo() {
+		return !redoStack.isEmpty();
+	}
+	
+	/**
+	 * @return the name of the command that would be undone, or null
+	 */
+	public String getUndoName() {
+		return canUndo() ? undoStack.peek().getName() : null;
+	}
+	
+	/**
+	 * @return the name of the command that would be redone, or null
+	 */
+	public String getRedoName() {
+		return canRedo() ? redoStack.peek().getName() : null;
+	}
+	
+	public int getUndoCount() {
+		return undoStack.size();
+	}
+	
+	/**
+	 * @return roughly how many bytes of memory the history is holding on to
+	 */
+	public long getSize() {
+		return size;
+	}
+	
+	public long getMaxSize() {
+		return maxSize;
+	}
+}
@@ -0,0 +1,43 @@
+package commands;
+
+import java.util.List;
+
+import shapes.MyShape;
+
+/**
+ * Moves shapes by the same distance. Only the distance is stored, so a move takes
+ * the same memory no matter how complex the shapes are.
+ * @author DavidKramer
+ *
+ */
+public class MoveCommand extends Command {
+	private MyShape[] shapes;
+	private int dx;
+	private int dy;
+	
+	public MoveCommand(List<MyShape> shapes, int dx, int dy) {
+		this.shapes = shapes.toArray(new MyShape[shapes.size()]);
+		this.dx = dx;
+		this.dy = dy;
+	}
+	
+	public void execute() {
+		for (int i = 0; i < shapes.length; i++) {
+			shapes[i].translate(dx, dy);
+		}
+	}
+	
+	public void undo() {
+		for (int i = 0; i < shapes.length; i++) {
+			shapes[i].translate(-dx, -dy);
+		}
+	}
+	
+	public String getName() {
+		return "Move";
+	}
+	
+	public long getSize() {
+		return OBJECT_SIZE * 2 + (long)shapes.length * REF_SIZE;
+	}
+}
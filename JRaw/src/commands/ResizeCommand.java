@@ -0,0 +1,168 @@
+package commands;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+import shapes.MyLine;
+import shapes.MyRect;
+import shapes.MyShape;
+import shapes.RectHandle;
+
+/**
+ * Resizes shapes by dragging one of the handles of the selection. Only the handle and how
+ * far it was dragged are stored, so resizing rects, circles and lines takes the same
+ * memory no matter how many times it is redone. Redoing the resize drags the handle again,
+ * and undoing it drags the handle back. The old bounds of a shape are only kept if the
+ * resize turned it inside out, which can't be dragged back. Polys are scaled by the drag
+ * in a way that can't be worked out again afterwards, so their pts are stored from both
+ * before and after the resize.
+ * @author DavidKramer
+ *
+ */
+public class ResizeCommand extends Command {
+	private MyShape[] shapes;
+	private int direction;		// handle that was dragged
+	private int dx;
+	private int dy;
+	private int[][] before;		// pts of the shapes that can't be resized back, or null
+	private int[][] after;		// pts of the shapes that can't be resized again, or null
+	private boolean didChange;
+	
+	/**
+	 * Creates a resize command, which remembers the pts of the shapes before they are
+	 * resized. Call captureAfter() once the resize is done.
+	 * @param shapes
+	 * @param direction handle that is being dragged, such as RectHandle.NORTH
+	 */
+	public ResizeCommand(List<MyShape> shapes, int direction) {
+		this.shapes = shapes.toArray(new MyShape[shapes.size()]);
+		this.direction = direction;
+		before = new int[this.shapes.length][];
+		after = new int[this.shapes.length][];
+		
+		for (int i = 0; i < this.shapes.length; i++) {
+			before[i] = this.shapes[i].getGeometry();
+		}
+	}
+	
+	/**
+	 * Remembers how far the handle was dragged, and lets go of the pts of every shape that
+	 * can be resized back and forth from that alone.
+	 * @param offset how far the handle was dragged
+	 */
+	public void captureAfter(Point offset) {
+		dx = offset.x;
+		dy = offset.y;
+		
+		for (int i = 0; i < shapes.length; i++) {
+			int[] coords = shapes[i].getGeometry();
+			didChange |= !Arrays.equals(before[i], coords);
+			
+			if (isReplayable(shapes[i])) {
+				int[] resized = resize(before[i]);
+				
+				if (Arrays.equals(resized, coords)) {	// not turned inside out
+					before[i] = null;
+				} else if (!Arrays.equals(putInOrder(resized), coords)) {
+					after[i] = coords;	// resized from somewhere else, so it can't be redone
+				}
+			} else {
+				after[i] = coords;
+			}
+		}
+	}
+	
+	public void execute() {
+		for (int i = 0; i < shapes.length; i++) {
+			if (after[i] != null) {
+				shapes[i].setGeometry(after[i]);
+			} else {
+				shapes[i].resizeBy(dx, dy, direction);
+			}
+		}
+	}
+	
+	public void undo() {
+		for (int i = 0; i < shapes.length; i++) {
+			if (before[i] != null) {
+				shapes[i].setGeometry(before[i]);
+			} else {
+				shapes[i].resizeBy(-dx, -dy, direction);
+			}
+		}
+	}
+	
+	/**
+	 * @param shape
+	 * @return true if resizing the shape only depends on its pts and how far the handle
+	 * was dragged
+	 */
+	private static boolean isReplayable(MyShape shape) {
+		return shape instanceof MyRect || shape instanceof MyLine;
+	}
+	
+	/**
+	 * @param coords pts of a rect or a line
+	 * @return the pts after the handle is dragged, before they are put back in order
+	 */
+	private int[] resize(int[] coords) {
+		int[] resized = coords.clone();
+		
+		switch (direction) {
+		case RectHandle.NORTH:
+			resized[1] += dy;
+			break;
+		case RectHandle.SOUTH:
+			resized[3] += dy;
+			break;
+		case RectHandle.EAST:
+			resized[2] += dx;
+			break;
+		case RectHandle.WEST:
+			resized[0] += dx;
+			break;
+		case RectHandle.NORTH_EAST:
+			resized[1] += dy;
+			resized[2] += dx;
+			break;
+		case RectHandle.NORTH_WEST:
+			resized[0] += dx;
+			resized[1] += dy;
+			break;
+		case RectHandle.SOUTH_EAST:
+			resized[2] += dx;
+			resized[3] += dy;
+			break;
+		case RectHandle.SOUTH_WEST:
+			resized[0] += dx;
+			resized[3] += dy;
+			break;
+		}
+		return resized;
+	}
+	
+	/**
+	 * @param coords
+	 * @return the same pts as a rect puts them, with the smaller pt first
+	 */
+	private static int[] putInOrder(int[] coords) {
+		return new int[] { Math.min(coords[0], coords[2]), Math.min(coords[1], coords[3]),
+						   Math.max(coords[0], coords[2]), Math.max(coords[1], coords[3]) };
+	}
+	
+	/**
+	 * @return true if resizing actually changed any of the shapes
+	 */
+	public boolean didChange() {
+		return didChange;
+	}
+	
+	public String getName() {
+		return "Resize";
+	}
+	
+	public long getSize() {
+		return OBJECT_SIZE * 2 + (long)shapes.length * REF_SIZE + sizeOf(before) + sizeOf(after);
+	}
+}
@@ -0,0 +1,48 @@
+package commands;
+
+import gfx.Canvas;
+import gfx.Decoration;
+import gfx.Style;
+
+/**
+ * Changes the decoration of a style of the canvas, which restyles every shape that uses
+ * it at once. Only the old and new decorations of the style are stored, however many
+ * shapes use it.
+ * @author DavidKramer
+ *
+ */
+public class RestyleCommand extends Command {
+	private Canvas canvas;
+	private Style style;
+	private Decoration before;
+	private Decoration after;
+	
+	/**
+	 * Creates a restyle command, which remembers the decoration that the style has now.
+	 * @param canvas
+	 * @param style a style from canvas.getStyles()
+	 * @param decoration new decoration of the style
+	 */
+	public RestyleCommand(Canvas canvas, Style style, Decoration decoration) {
+		this.canvas = canvas;
+		this.style = style;
+		before = style.getDecoration();
+		after = decoration.toFrozen();
+	}
+	
+	public void execute() {
+		canvas.restyle(style, after);
+	}
+	
+	public void undo() {
+		canvas.restyle(style, before);
+	}
+	
+	public String getName() {
+		return "Restyle";
+	}
+	
+	public long getSize() {
+		return OBJECT_SIZE * 5 + REF_SIZE * 4;	// one of the decorations is only kept alive by the command
+	}
+}
@@ -0,0 +1,82 @@
+package commands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import gfx.Canvas;
+import shapes.MyShape;
+
+/**
+ * Base class for commands that add shapes to, or remove shapes from, the canvas. When
+ * shapes are removed, the position and stacking order of each shape is remembered so
+ * that putting them back doesn't change the order that shapes are drawn in.
+ * @author DavidKramer
+ *
+ */
+public abstract class ShapeListCommand extends Command {
+	protected Canvas canvas;
+	protected MyShape[] shapes;
+	private int[] positions;		// where each shape was in the canvas shape list
+	private long[] orders;			// stacking order of each shape
+	
+	public ShapeListCommand(Canvas canvas, List<MyShape> shapes) {
+		this.canvas = canvas;
+		this.shapes = shapes.toArray(new MyShape[shapes.size()]);
+		positions = new int[this.shapes.length];
+		orders = new long[this.shapes.length];
+	}
+	
+	/**
+	 * Removes the shapes from the canvas, and remembers where they were.
+	 */
+	protected void removeShapes() {
+		IdentityHashMap<MyShape, Integer> found = new IdentityHashMap<>();
+		List<MyShape> canvasShapes = canvas.getShapes();
+		
+		for (int i = 0; i < shapes.length; i++) {
+			found.put(shapes[i], -1);
+		}
+		for (int i = 0; i < canvasShapes.size(); i++) {
+			MyShape shape = canvasShapes.get(i);
+			if (found.containsKey(shape)) {
+				found.put(shape, i);
+			}
+		}
+		
+		Arrays.sort(shapes, (s1, s2) -> Integer.compare(found.get(s1), found.get(s2)));
+		for (int i = 0; i < shapes.length; i++) {
+			positions[i] = found.get(shapes[i]);
+			orders[i] = canvas.getShapeOrder(shapes[i]);
+		}
+		canvas.removeShapes(Arrays.asList(shapes));
+	}
+	
+	/**
+	 * Puts the shapes back on the canvas where they were.
+	 */
+	protected void restoreShapes() {
+		ArrayList<MyShape> restored = new ArrayList<>(shapes.length);
+		int count = 0;
+		
+		for (int i = 0; i < shapes.length; i++) {
+			if (positions[i] >= 0) {	// skip shapes that weren't on the canvas
+				restored.add(shapes[i]);
+				positions[count] = positions[i];
+				orders[count] = orders[i];
+				count++;
+			}
+		}
+		canvas.insertShapes(restored, positions, orders);
+	}
+	
+	public long getSize() {
+		long size = OBJECT_SIZE + (long)shapes.length * (REF_SIZE + 12);
+		
+		for (int i = 0; i < shapes.length; i++) {
+			size += sizeOf(shapes[i]);		// removed shapes are only kept alive by the command
+		}
+		return size;
+	}
+}
@@ -23,6 +23,7 @@ import javax.swing.SpinnerNumberModel;
 import gfx.Canvas;
 import gfx.Decoration;
 import shapes.MyPoly;
+import utils.Trace;
 
 /**
  * This class allows the user to specify n-pts and a radius to create a perfect
@@ -107,7 +108,7 @@ public class MyPolyDialog extends JDialog {
 		unitsLabel = new JLabel("px");
 		
 		radiusSpinner.addChangeListener( e -> {
-			System.out.println("Radius changed!");
+			Trace.debug("Radius changed!");
 		});
 		
 		// add components to radius panel
@@ -217,7 +218,6 @@ public class MyPolyDialog extends JDialog {
 		
 		public void paint(Graphics g) {
 			final Graphics2D g2d = (Graphics2D)g.create();
-			System.out.println("Previewing Poly Render");
 			try {
 				g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 				g2d.setStroke(decoration.getStroke());
@@ -254,9 +254,6 @@ public class MyPolyDialog extends JDialog {
 			for (int i = 0; i < nSides; i++) {
 				x[i] = (int) (radius * Math.cos(2 * Math.PI * i/nSides + theta) + center[0]);
 				y[i] = (int) (radius * Math.sin(2 * Math.PI * i/nSides + theta) + center[1]);
-				System.out.println("X [" + i + "] = " + x[i]);
-				System.out.println("Y [" + i + "] = " + y[i]);
-				System.out.println("Theta: " + theta);
 			}
 			
 			return new Polygon(x, y, nSides);
@@ -1,17 +1,36 @@
 package gfx;
 
 import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 
 import javax.swing.BoxLayout;
 import javax.swing.JPanel;
-import javax.swing.JScrollPane;
+import javax.swing.Timer;
 
+import commands.History;
+import jfr.RenderEvent;
 import managers.CanvasManager;
 import panels.SwatchPanel;
+import shapes.LazyShape;
+import shapes.MyPoly;
 import shapes.MyShape;
+import shapes.RectHandle;
 import shapes.Selection;
+import shapes.ShapeObserver;
+import shapes.ShapeRecord;
+import shapes.ShapeVector;
 
 /**
  * This class is responsible for providing every object with a graphics object
@@ -19,22 +38,71 @@ import shapes.Selection;
  * @author DavidKramer
  *
  */
-public class Canvas extends JPanel {
+public class Canvas extends JPanel implements ShapeObserver {
 	public static final int DRAW_WIREFRAME = 0;
 	public static final int DRAW_FILLED = 1;
+	public static final int RENDER_DIRECT = 0;		// render every visible shape each frame
+	public static final int RENDER_LAYERED = 1;		// render shapes once into a cached layer
+	public static final int RENDER_TILED = 2;		// render shapes into cached tiles for each zoom level
+	public static final float MITER_PAD = 5.0f;		// how far (in stroke widths) a mitered corner can stick out
+	public static final int HUD_REFRESH = 500;		// milliseconds between repaints of the HUD
+	private static final Font HUD_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+	private static final Color HUD_BACKGROUND = new Color(0, 0, 0, 160);
 	
 	private CanvasManager canvasManager;
 	private Decoration decoration;
 	private Selection selection;
 	
-	private JScrollPane scrollPane;
 	private SwatchPanel swatchPanel;
 	
 	private int drawMode;
+	private int renderMode;
 	private boolean isConstructing;					// are we currently dragging a shape?
 	private boolean hasSelection;
+	private boolean isDragging;						// are selected shapes being dragged right now?
 	private MyShape activeShape;					// shape that is currently being constructed
 	private ArrayList<MyShape> shapes;	
+	private ShapeIndex shapeIndex;					// spatial index of shapes for hit testing
+	private History history;						// undo / redo history of shape changes
+	
+	private DamageRegion damage;					// area that needs to be repainted
+	private Rectangle overlayBounds;				// last painted area of the active shape and selection
+	private Rectangle oldBounds;
+	private Rectangle clipBounds;
+	private ArrayList<MyShape> visibleShapes;		// shapes that intersect the area being painted
+	private int maxPad;								// largest stroke pad of any canvas shape
+	private Rectangle viewBounds;
+	private ViewTransform view;						// zoom and pan of the document on screen
+	private int drawnCount;							// shapes drawn in the last frame
+	private int culledCount;						// shapes skipped in the last frame
+	
+	private BufferedImage layer;					// cached image of the committed shapes
+	private Rectangle layerBounds;					// area of the canvas that the layer covers
+	private Rectangle layerArea;
+	private DamageRegion layerDamage;				// area of the layer that is out of date
+	private double layerZoom;						// view that the layer was last drawn at
+	private double layerTranslateX;
+	private double layerTranslateY;
+	private TileCache tileCache;					// cached tiles of the committed shapes
+	private IdentityHashMap<MyShape, ShapeRecord> records;	// snapshots of shapes that haven't changed since
+	private StyleTable styles;						// styles shared by the shapes
+	
+	private List<MyShape> shapesView;				// read only view of the shapes
+	private ShapeVector document;					// snapshot of the shapes, as of the last update
+	private volatile ShapeVector publishedDocument;	// last document handed out, for other threads
+	private long documentBytes;						// heap taken up by the records of the document
+	private volatile long publishedBytes;
+	private IdentityHashMap<MyShape, Integer> positions;		// position of each shape in the document
+	private IdentityHashMap<MyShape, Boolean> changedShapes;	// shapes changed since the document was updated
+	private boolean isListChanged;					// have shapes been removed or inserted since?
+	
+	private FrameScheduler frameScheduler;			// runs input and repaints at most once a frame
+	private Runnable repaintTask;
+	private Runnable publishTask;					// brings the published document up to date
+	private CanvasMetrics metrics;					// where the time of each frame goes
+	private boolean isHudVisible;					// are the metrics shown over the canvas?
+	private Timer hudTimer;
+	private Rectangle hudBounds;					// last painted area of the HUD
 	
 	public Canvas() {
 		init();
@@ -45,8 +113,34 @@ public class Canvas extends JPanel {
 		requestFocus();
 		requestFocusInWindow();
 		setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+		view = new ViewTransform();
+		frameScheduler = new FrameScheduler();
+		repaintTask = this::repaint;
+		publishTask = this::publishDocument;
+		metrics = new CanvasMetrics(this);
+		hudBounds = new Rectangle();
+		hudTimer = new Timer(HUD_REFRESH, e -> repaint(hudBounds));
 		canvasManager = new CanvasManager(this);
 		shapes = new ArrayList<>();
+		shapesView = Collections.unmodifiableList(shapes);
+		shapeIndex = new ShapeIndex();
+		history = new History();
+		damage = new DamageRegion();
+		overlayBounds = new Rectangle();
+		oldBounds = new Rectangle();
+		clipBounds = new Rectangle();
+		viewBounds = new Rectangle();
+		layerBounds = new Rectangle();
+		layerArea = new Rectangle();
+		layerDamage = new DamageRegion();
+		tileCache = new TileCache(this);
+		records = new IdentityHashMap<>();
+		styles = new StyleTable();
+		document = ShapeVector.EMPTY;
+		publishedDocument = document;
+		changedShapes = new IdentityHashMap<>();
+		renderMode = RENDER_TILED;
+		visibleShapes = new ArrayList<>();
 		
 		isConstructing = false;
 		
@@ -63,7 +157,6 @@ public class Canvas extends JPanel {
 		
 		// Keyboard input
 		addKeyListener(canvasManager.getKeyboard());
-		System.out.println("Has Focus ? " + hasFocus());
 	}
 	
 	//********************************************************
@@ -74,24 +167,512 @@ public class Canvas extends JPanel {
 		render(g);
 	}
 	
+	/**
+	 * Renders the part of the canvas inside of the clip area. The committed shapes are 
+	 * either rendered directly, or copied from the cached layer or tiles, and then the shape
+	 * under construction and the selection are rendered on top. Everything after the layer is
+	 * drawn through the view transform, which is applied once to a copy of g.
+	 * @param g
+	 */
 	public void render(Graphics g) {
-		g.clearRect(0, 0, getWidth(), getHeight());
+		RenderEvent event = new RenderEvent();
+		event.begin();
+		metrics.beginFrame();
+		clipBounds.setBounds(0, 0, getWidth(), getHeight());
+		g.getClipBounds(clipBounds);
+		
+		g.clearRect(clipBounds.x, clipBounds.y, clipBounds.width, clipBounds.height);
 		g.setColor(getBackground());
-		g.fillRect(0, 0, getWidth(), getHeight());
+		g.fillRect(clipBounds.x, clipBounds.y, clipBounds.width, clipBounds.height);
 		g.setColor(Color.BLACK);
-		for (int i = 0; i < shapes.size(); i++) {
-			MyShape shape = shapes.get(i);
-			shape.render(g);
+		
+		if (renderMode == RENDER_LAYERED) {
+			renderLayer(g);
+		} else if (renderMode == RENDER_TILED) {
+			renderTiles(g);
+		}
+		
+		final Graphics2D g2d = (Graphics2D)g.create();
+		try {
+			g2d.transform(view.getTransform());
+			g2d.setRenderingHint(MyShape.KEY_RENDER_SCALE, view.getScaleHint());
+			
+			if (renderMode == RENDER_DIRECT) {
+				Rectangle.intersect(clipBounds, getViewBounds(), clipBounds);
+				renderShapes(g2d, view.toDocument(clipBounds));
+			}
+			
+			if (isConstructing && activeShape != null) {
+				activeShape.render(g2d);
+			}
+			
+			if (hasSelection) {
+				selection.render(g2d);
+			}
+		} finally {
+			g2d.dispose();
+		}
+		
+		if (isHudVisible) {
+			renderHud(g);
+		}
+		metrics.endFrame();
+		
+		if (event.shouldCommit()) {
+			event.operation = RenderEvent.MODE_NAMES[renderMode];
+			event.shapeCount = shapes.size();
+			event.shapesDrawn = renderMode == RENDER_DIRECT ? drawnCount : 0;
+			event.tilesRendered = renderMode == RENDER_TILED ? tileCache.getRenderedCount() : 0;
+			event.tilesCopied = renderMode == RENDER_TILED ? tileCache.getCopiedCount() : 0;
+			event.clipWidth = clipBounds.width;
+			event.clipHeight = clipBounds.height;
+			event.zoom = view.getZoom();
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Renders the latest metrics in the top left corner of the canvas, in screen space.
+	 * @param g
+	 */
+	private void renderHud(Graphics g) {
+		String[] lines = metrics.getHudLines();
+		g.setFont(HUD_FONT);
+		FontMetrics fm = g.getFontMetrics();
+		int width = 0;
+		for (String line : lines) {
+			width = Math.max(width, fm.stringWidth(line));
+		}
+		hudBounds.setBounds(0, 0, width + 12, lines.length * fm.getHeight() + 8);
+		
+		g.setColor(HUD_BACKGROUND);
+		g.fillRect(hudBounds.x, hudBounds.y, hudBounds.width, hudBounds.height);
+		g.setColor(Color.WHITE);
+		for (int i = 0; i < lines.length; i++) {
+			g.drawString(lines[i], 6, 4 + fm.getAscent() + i * fm.getHeight());
+		}
+	}
+	
+	/**
+	 * Renders the committed shapes that intersect Rectangle area, and culls the rest.
+	 * @param g
+	 * @param area
+	 */
+	void renderShapes(Graphics g, Rectangle area) {
+		drawnCount = 0;
+		
+		if (!area.isEmpty()) {
+			area.grow(maxPad, maxPad);	// include strokes that reach into the area
+			shapeIndex.searchIntersecting(area, visibleShapes);
+			area.grow(-maxPad, -maxPad);
+			
+			for (int i = 0; i < visibleShapes.size(); i++) {
+				MyShape shape = visibleShapes.get(i);
+				
+				if (isVisible(shape, area)) {
+					shape.render(g);
+					drawnCount++;
+				}
+			}
+			visibleShapes.clear();
+		}
+		culledCount = shapes.size() - drawnCount;
+	}
+	
+	/**
+	 * Takes a snapshot of the committed shapes that could be drawn in Rectangle area, in
+	 * the order they are drawn in, for rendering on another thread. The record of each
+	 * shape is kept until the shape changes, so only shapes that have changed since the
+	 * last snapshot have to be copied again.
+	 * @param area
+	 * @return
+	 */
+	List<ShapeRecord> snapshotShapes(Rectangle area) {
+		area.grow(maxPad, maxPad);
+		shapeIndex.searchIntersecting(area, visibleShapes);
+		area.grow(-maxPad, -maxPad);
+		
+		ArrayList<ShapeRecord> snapshot = new ArrayList<>(visibleShapes.size());
+		for (int i = 0; i < visibleShapes.size(); i++) {
+			snapshot.add(getRecord(visibleShapes.get(i)));
+		}
+		visibleShapes.clear();
+		return snapshot;
+	}
+	
+	/**
+	 * Copies the committed shapes from the cached layer. The layer covers the visible part
+	 * of the canvas, and only the parts of it that have been damaged since it was last 
+	 * drawn are re-rendered. Panning shifts what is already in the layer and only renders
+	 * the strips that come into view, while zooming or resizing redraws the whole layer.
+	 * @param g
+	 */
+	private void renderLayer(Graphics g) {
+		Rectangle bounds = getViewBounds();
+		
+		if (bounds.isEmpty()) {
+			return;
+		}
+		
+		if (layer == null || layer.getWidth() != bounds.width || layer.getHeight() != bounds.height) {
+			layer = createLayer(bounds.width, bounds.height);
+			layerDamage.addAll();
+		}
+		
+		if (!layerBounds.equals(bounds)) {
+			layerBounds.setBounds(bounds);
+			layerDamage.addAll();
+		} else if (layerZoom != view.getZoom() || layerTranslateX != view.getTranslateX()
+				   || layerTranslateY != view.getTranslateY()) {
+			if (layerDamage.isFull() || !scrollLayer()) {
+				layerDamage.addAll();
+			}
+		}
+		layerZoom = view.getZoom();
+		layerTranslateX = view.getTranslateX();
+		layerTranslateY = view.getTranslateY();
+		
+		if (!layerDamage.isEmpty()) {
+			updateLayer();
+		}
+		g.drawImage(layer, layerBounds.x, layerBounds.y, null);
+	}
+	
+	/**
+	 * Shifts the layer by however far the view has been panned since the layer was last
+	 * drawn, and renders the strips along the edges that have just come into view.
+	 * @return false if the layer can't be shifted, because the zoom has changed or it has
+	 * been panned by part of a pixel or by more than the whole layer
+	 */
+	private boolean scrollLayer() {
+		double shiftX = view.getTranslateX() - layerTranslateX;
+		double shiftY = view.getTranslateY() - layerTranslateY;
+		int dx = (int)shiftX;
+		int dy = (int)shiftY;
+		
+		if (layerZoom != view.getZoom() || dx != shiftX || dy != shiftY
+			|| Math.abs(dx) >= layerBounds.width || Math.abs(dy) >= layerBounds.height) {
+			return false;
+		}
+		
+		final Graphics2D lg = layer.createGraphics();
+		try {
+			lg.copyArea(0, 0, layerBounds.width, layerBounds.height, dx, dy);
+		} finally {
+			lg.dispose();
+		}
+		
+		if (dx != 0) {
+			int x = dx > 0 ? layerBounds.x : layerBounds.x + layerBounds.width + dx;
+			layerArea.setBounds(x, layerBounds.y, Math.abs(dx), layerBounds.height);
+			renderLayerArea(layerArea);
+		}
+		if (dy != 0) {
+			int y = dy > 0 ? layerBounds.y : layerBounds.y + layerBounds.height + dy;
+			layerArea.setBounds(layerBounds.x, y, layerBounds.width, Math.abs(dy));
+			renderLayerArea(layerArea);
+		}
+		return true;
+	}
+	
+	/**
+	 * Re-renders the damaged area of the layer. The damage is kept in document space, and 
+	 * is mapped onto the screen to find the part of the layer to redraw.
+	 */
+	private void updateLayer() {
+		if (layerDamage.isFull()) {
+			layerArea.setBounds(layerBounds);
+		} else {
+			view.toScreen(layerDamage.getBounds(layerArea));
+			Rectangle.intersect(layerArea, layerBounds, layerArea);
+		}
+		layerDamage.clear();
+		
+		if (!layerArea.isEmpty()) {
+			renderLayerArea(layerArea);
+		}
+	}
+	
+	/**
+	 * Clears and re-renders Rectangle area of the layer, which is in canvas (screen) space.
+	 * @param area
+	 */
+	private void renderLayerArea(Rectangle area) {
+		final Graphics2D lg = layer.createGraphics();
+		try {
+			lg.translate(-layerBounds.x, -layerBounds.y);
+			lg.setClip(area.x, area.y, area.width, area.height);
+			lg.setColor(getBackground());
+			lg.fillRect(area.x, area.y, area.width, area.height);
+			lg.setColor(Color.BLACK);
+			lg.transform(view.getTransform());
+			lg.setRenderingHint(MyShape.KEY_RENDER_SCALE, view.getScaleHint());
+			renderShapes(lg, view.toDocument(area));
+		} finally {
+			lg.dispose();
+		}
+	}
+	
+	/**
+	 * Copies the committed shapes from the tile cache, after marking the tiles that have
+	 * been damaged since the last frame as out of date.
+	 * @param g
+	 */
+	private void renderTiles(Graphics g) {
+		if (layerDamage.isFull()) {
+			tileCache.invalidateAll();
+		} else if (!layerDamage.isEmpty()) {
+			tileCache.invalidate(layerDamage.getBounds(layerArea));
 		}
+		layerDamage.clear();
+		Rectangle.intersect(clipBounds, getViewBounds(), layerArea);
+		
+		if (!layerArea.isEmpty()) {
+			tileCache.render(g, layerArea);
+		}
+	}
+	
+	private BufferedImage createLayer(int width, int height) {
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		
+		if (gc != null) {
+			return gc.createCompatibleImage(width, height);
+		}
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+	
+	/**
+	 * Checks to see if a shape, including its stroke, intersects Rectangle area.
+	 * @param shape
+	 * @param area
+	 * @return
+	 */
+	private boolean isVisible(MyShape shape, Rectangle area) {
+		Rectangle r = shape.getBoundRect();
+		int pad = getPad(shape);
+		
+		return r.x - pad < area.x + area.width && area.x < r.x + r.width + pad
+			&& r.y - pad < area.y + area.height && area.y < r.y + r.height + pad;
+	}
+	
+	/**
+	 * @return the part of the canvas that is visible on screen, in canvas (screen) space
+	 */
+	private Rectangle getViewBounds() {
+		computeVisibleRect(viewBounds);
+		return viewBounds;
+	}
+	
+	/**
+	 * Repaints only the area that has been damaged since the last repaint. This includes 
+	 * where the active shape and selection were last painted, and where they are now. The
+	 * damage is in document space, so it is mapped onto the screen first.
+	 */
+	public void repaintDamage() {
+		if (!overlayBounds.isEmpty()) {
+			damage.add(overlayBounds, 0);
+		}
+		updateOverlayBounds();
+		
+		if (!overlayBounds.isEmpty()) {
+			damage.add(overlayBounds, 0);
+		}
+		
+		if (damage.isFull()) {
+			repaint();
+		} else if (!damage.isEmpty()) {
+			view.toScreen(damage.getBounds(oldBounds));
+			repaint(oldBounds.x, oldBounds.y, oldBounds.width, oldBounds.height);
+		}
+		damage.clear();
+	}
+	
+	/**
+	 * Every repaint of the canvas comes through here, so this counts how many are asked for.
+	 */
+	public void repaint(long tm, int x, int y, int width, int height) {
+		if (metrics != null) {	// null while the panel is being constructed
+			metrics.repaintRequested();
+		}
+		super.repaint(tm, x, y, width, height);
+	}
+	
+	/**
+	 * Repaints the whole canvas on the next frame, no matter how many times this is called
+	 * before then. This can be called from any thread.
+	 */
+	public void scheduleRepaint() {
+		frameScheduler.requestFrame(repaintTask);
+	}
+	
+	/**
+	 * Finds the area that the shape under construction and the selection cover.
+	 */
+	private void updateOverlayBounds() {
+		overlayBounds.setBounds(0, 0, 0, 0);
 		
 		if (isConstructing && activeShape != null) {
-			activeShape.render(g);
+			if (activeShape instanceof MyPoly) {	// rubber band line can go anywhere
+				damage.addAll();
+			} else {
+				Rectangle r = activeShape.getBoundRect();
+				if (r.width != 0 || r.height != 0) {	// hasn't been dragged out yet
+					addOverlay(r, getPad(activeShape));
+				}
+			}
+		}
+		
+		if (hasSelection && selection != null) {
+			addOverlay(selection.getBoundRect(), RectHandle.WIDTH + 2);
+		}
+	}
+	
+	private void addOverlay(Rectangle r, int pad) {
+		if (overlayBounds.isEmpty()) {
+			overlayBounds.setBounds(r.x - pad, r.y - pad, r.width + pad * 2, r.height + pad * 2);
+		} else {
+			overlayBounds.add(r.x - pad, r.y - pad);
+			overlayBounds.add(r.x + r.width + pad, r.y + r.height + pad);
 		}
+	}
+	
+	/**
+	 * Marks the area covered by a shape (including its stroke and resize handles) as
+	 * damaged, so that it gets repainted on the next call to repaintDamage().
+	 * @param shape
+	 */
+	public void addDamage(MyShape shape) {
+		int pad = getPad(shape);
+		maxPad = Math.max(maxPad, pad);
+		damage.add(shape.getBoundRect(), pad);
+		layerDamage.add(shape.getBoundRect(), pad);
+	}
+	
+	/**
+	 * @param shape
+	 * @return how far outside of its bounds a shape can be drawn
+	 */
+	private static int getPad(MyShape shape) {
+		return getPad(shape.getDecoration());
+	}
+	
+	private static int getPad(Decoration decoration) {
+		return (int)Math.ceil(decoration.getStrokeWidth() * MITER_PAD) + RectHandle.WIDTH;
+	}
+	
+	/**
+	 * @param shape
+	 * @return the record of a shape, which is kept until the shape changes. The style of
+	 * the shape may have been restyled since, which only needs a new decoration.
+	 */
+	private ShapeRecord getRecord(MyShape shape) {
+		ShapeRecord record = records.get(shape);
 		
-		if (hasSelection) {
-			selection.render(g);
+		if (record == null) {
+			record = ShapeRecord.of(shape);
+			records.put(shape, record);
+		} else if (record.getDecoration() != shape.getDecoration()) {
+			record = record.withDecoration(shape.getDecoration());
+			records.put(shape, record);
+		}
+		return record;
+	}
+	
+	/**
+	 * Gives a shape the style in the style table that looks like its own, unless it
+	 * already has one. If the shape is on the canvas, this tells the canvas it changed.
+	 * @param shape
+	 * @return true if the style of the shape was already interned
+	 */
+	private boolean internStyle(MyShape shape) {
+		if (shape.getStyle().getTable() == styles) {
+			return true;
 		}
-		g.dispose();
+		shape.setStyle(styles.intern(shape.getStyle()));
+		return false;
+	}
+	
+	/**
+	 * @return true if shapes have been changed, added or removed since the document was
+	 * last updated
+	 */
+	private boolean isDocumentChanged() {
+		return isListChanged || !changedShapes.isEmpty() || document.size() != shapes.size();
+	}
+	
+	/**
+	 * Asks for the document to be published on the next frame, unless shapes are being
+	 * dragged, in which case it is published once the drag is over. Shapes which change
+	 * every frame don't have their records rebuilt every frame, and an edit that changes
+	 * many shapes at once only publishes the document once.
+	 */
+	private void documentChanged() {
+		if (!isDragging) {
+			frameScheduler.requestFrame(publishTask);
+		}
+	}
+	
+	/**
+	 * Publishes the document for other threads, if the shapes have changed since it was
+	 * last published.
+	 */
+	private void publishDocument() {
+		if (isDocumentChanged()) {
+			updateDocument();
+		}
+	}
+	
+	/**
+	 * Brings the document up to date with the shapes, and publishes it for other threads.
+	 * Changed shapes just have their records replaced, and new shapes are added to the end,
+	 * which both share everything else with the last document. Only removing or inserting
+	 * shapes builds the whole document again. The bytes the records take up are kept track
+	 * of along the way, so they never have to be added up again.
+	 */
+	private void updateDocument() {
+		if (isListChanged) {
+			ArrayList<ShapeRecord> list = new ArrayList<>(shapes.size());
+			documentBytes = 0;
+			for (int i = 0; i < shapes.size(); i++) {
+				ShapeRecord record = getRecord(shapes.get(i));
+				list.add(record);
+				documentBytes += record.getByteSize();
+			}
+			document = ShapeVector.of(list);
+			positions = null;
+			isListChanged = false;
+		} else {
+			if (!changedShapes.isEmpty()) {
+				if (positions == null) {
+					positions = new IdentityHashMap<>(shapes.size());
+					for (int i = 0; i < document.size(); i++) {
+						positions.put(shapes.get(i), i);
+					}
+				}
+				for (MyShape shape : changedShapes.keySet()) {
+					Integer i = positions.get(shape);
+					
+					if (i != null) {	// shapes that were just added have no position yet
+						ShapeRecord record = getRecord(shape);
+						documentBytes += record.getByteSize() - document.get(i).getByteSize();
+						document = document.with(i, record);
+					}
+				}
+			}
+			for (int i = document.size(); i < shapes.size(); i++) {
+				MyShape shape = shapes.get(i);
+				ShapeRecord record = getRecord(shape);
+				documentBytes += record.getByteSize();
+				document = document.plus(record);
+				
+				if (positions != null) {
+					positions.put(shape, i);
+				}
+			}
+		}
+		changedShapes.clear();
+		publishedBytes = documentBytes;
+		publishedDocument = document;
 	}
 	
 	//********************************************************
@@ -99,14 +680,226 @@ public class Canvas extends JPanel {
 	//********************************************************
 	
 	public void addShape(MyShape shape) {
+		internStyle(shape);
 		shapes.add(shape);
-		System.out.println("Shape added");
+		shapeIndex.insert(shape);
+		shape.setObserver(this);
+		addDamage(shape);
+		documentChanged();
+	}
+	
+	/**
+	 * Adds a list of shapes (such as a document that was just opened) to the canvas all
+	 * at once, which bulk loads the spatial index instead of inserting one shape at a time.
+	 * Shapes that were read together share styles, so each style is only interned once.
+	 * @param list
+	 */
+	public void addShapes(List<MyShape> list) {
+		IdentityHashMap<Style, Style> interned = new IdentityHashMap<>();
+		int start = shapes.size();
+		shapes.addAll(list);
+		shapeIndex.insertAll(list);
+		
+		for (int i = 0; i < list.size(); i++) {
+			MyShape shape = list.get(i);
+			Style style = interned.get(shape.getStyle());
+			
+			if (style == null) {
+				style = styles.intern(shape.getStyle());
+				interned.put(shape.getStyle(), style);
+			}
+			if (style != shape.getStyle()) {
+				shape.setStyle(style);		// before it has an observer, so nothing is fired
+			}
+			shape.setObserver(this);
+			
+			if (shape instanceof LazyShape) {
+				((LazyShape)shape).setLoadIndex(start + i);
+			}
+			maxPad = Math.max(maxPad, getPad(shape));
+		}
+		isListChanged = true;	// quicker to build the document again than to add to it
+		documentChanged();
+		damage.addAll();
+		layerDamage.addAll();
+	}
+	
+	public void removeShape(MyShape shape) {
+		shapes.remove(shape);
+		shapeIndex.remove(shape);
+		records.remove(shape);
+		shape.setObserver(null);
+		addDamage(shape);
+		isListChanged = true;
+		documentChanged();
+	}
+	
+	/**
+	 * Removes a group of shapes from the canvas in a single pass over the shape list.
+	 * @param list
+	 */
+	public void removeShapes(List<MyShape> list) {
+		IdentityHashMap<MyShape, Boolean> removed = new IdentityHashMap<>();
+		
+		for (int i = 0; i < list.size(); i++) {
+			MyShape shape = list.get(i);
+			removed.put(shape, Boolean.TRUE);
+			shapeIndex.remove(shape);
+			records.remove(shape);
+			shape.setObserver(null);
+			addDamage(shape);
+		}
+		shapes.removeIf(shape -> removed.containsKey(shape));
+		isListChanged = true;
+		documentChanged();
+	}
+	
+	/**
+	 * Puts shapes back into the canvas at the positions in the shape list and the
+	 * stacking orders that they had before they were removed.
+	 * @param list shapes sorted by position
+	 * @param positions position in the shape list of each shape
+	 * @param orders stacking order of each shape
+	 */
+	public void insertShapes(List<MyShape> list, int[] positions, long[] orders) {
+		ArrayList<MyShape> merged = new ArrayList<>(shapes.size() + list.size());
+		int next = 0;
+		
+		for (int i = 0; i < list.size(); i++) {
+			while (merged.size() < positions[i] && next < shapes.size()) {
+				merged.add(shapes.get(next++));
+			}
+			MyShape shape = list.get(i);
+			internStyle(shape);
+			merged.add(shape);
+			shapeIndex.insert(shape, orders[i]);
+			shape.setObserver(this);
+			addDamage(shape);
+		}
+		while (next < shapes.size()) {
+			merged.add(shapes.get(next++));
+		}
+		shapes.clear();
+		shapes.addAll(merged);	// keep the same list, since others hold on to it
+		isListChanged = true;
+		documentChanged();
+	}
+	
+	/**
+	 * Removes every shape from the canvas.
+	 */
+	public void clearShapes() {
+		for (int i = 0; i < shapes.size(); i++) {
+			shapes.get(i).setObserver(null);
+		}
+		shapes.clear();
+		shapeIndex.clear();
+		records.clear();
+		isListChanged = true;
+		documentChanged();
+		damage.addAll();
+		layerDamage.addAll();
+	}
+	
+	/**
+	 * Throws away anything that has been cached and repaints the whole canvas.
+	 */
+	public void redraw() {
+		layerDamage.addAll();
+		repaint();
+	}
+	
+	/**
+	 * Changes the look of every shape that uses style at once, by giving the style itself
+	 * a new decoration. None of the shapes are touched, so this takes the same time however
+	 * many shapes use the style, though all of them are repainted on the next call to
+	 * repaintDamage().
+	 * @param style a style from getStyles()
+	 * @param decoration
+	 */
+	public void restyle(Style style, Decoration decoration) {
+		styles.restyle(style, decoration);
+		maxPad = Math.max(maxPad, getPad(style.getDecoration()));
+		isListChanged = true;	// records of the shapes pick up the new decoration lazily
+		documentChanged();
+		damage.addAll();
+		layerDamage.addAll();
+	}
+	
+	/**
+	 * Keeps the spatial index up to date whenever a canvas shape is moved, resized, or
+	 * redecorated, and marks where the shape was and where it is now as damaged. Shapes
+	 * that were given a style of their own get the interned style that looks like it.
+	 */
+	public void shapeChanged(MyShape shape) {
+		if (!internStyle(shape)) {
+			return;		// which changed the shape again, with the interned style
+		}
+		records.remove(shape);
+		changedShapes.put(shape, Boolean.TRUE);
+		
+		if (shapeIndex.getBounds(shape, oldBounds)) {
+			damage.add(oldBounds, maxPad);
+			layerDamage.add(oldBounds, maxPad);
+		}
+		if (isDragging) {	// the index is tidied up when the drag is over
+			shapeIndex.updateLazily(shape);
+		} else {
+			shapeIndex.update(shape);
+		}
+		addDamage(shape);
+		documentChanged();
+	}
+	
+	/**
+	 * Swaps a placeholder shape that has just been loaded for the real shape, in both 
+	 * the shape list and the spatial index.
+	 */
+	public void shapeMaterialized(MyShape placeholder, MyShape shape) {
+		int i = -1;
+		
+		if (placeholder instanceof LazyShape) {		// try where it was loaded first
+			i = ((LazyShape)placeholder).getLoadIndex();
+		}
+		if (i < 0 || i >= shapes.size() || shapes.get(i) != placeholder) {
+			i = shapes.indexOf(placeholder);
+		}
+		if (i < 0) {
+			return;
+		}
+		
+		shapes.set(i, shape);
+		shapeIndex.replace(placeholder, shape);
+		records.remove(placeholder);
+		
+		if (positions != null && positions.remove(placeholder) != null) {
+			positions.put(shape, i);
+			changedShapes.put(shape, Boolean.TRUE);
+		}
+		placeholder.setObserver(null);
+		internStyle(shape);
+		shape.setObserver(this);
 	}
 	
 	public void setIsConstructing(boolean b) {
 		isConstructing = b;
 	}
 	
+	/**
+	 * Lets the canvas know that shapes are being dragged, so that it can put off the work
+	 * of re-indexing them and publishing the document until the drag is over.
+	 * @param b
+	 */
+	public void setIsDragging(boolean b) {
+		boolean isDragOver = isDragging && !b;
+		isDragging = b;
+		
+		if (isDragOver) {
+			shapeIndex.commitUpdates();
+			documentChanged();
+		}
+	}
+	
 	public void setActiveShape(MyShape shape) {
 		activeShape = shape;
 	}
@@ -123,8 +916,66 @@ public class Canvas extends JPanel {
 		decoration = d;
 	}
 	
-	public void setScrollPane(JScrollPane s) {
-		scrollPane = s;
+	/**
+	 * Sets how the committed shapes are rendered. Either RENDER_DIRECT, RENDER_LAYERED or
+	 * RENDER_TILED.
+	 * @param mode
+	 */
+	public void setRenderMode(int mode) {
+		renderMode = mode;
+		layer = null;
+		layerDamage.addAll();	// the cache that is switched to missed any changes since
+		repaint();
+	}
+	
+	/**
+	 * Zooms the view in (or out) by factor, keeping whatever is under screen point p where
+	 * it is. None of the shapes are touched.
+	 * @param factor
+	 * @param p
+	 */
+	public void zoomAt(double factor, Point p) {
+		if (view.zoomAt(factor, p.x, p.y)) {
+			repaint();
+		}
+	}
+	
+	/**
+	 * Pans the view by dx, dy screen pixels. The cached layer is shifted rather than 
+	 * redrawn, so this is cheap enough to do on every mouse drag event.
+	 * @param dx
+	 * @param dy
+	 */
+	public void pan(int dx, int dy) {
+		if (dx != 0 || dy != 0) {
+			view.pan(dx, dy);
+			repaint();
+		}
+	}
+	
+	/**
+	 * Goes back to 100% zoom with the document origin in the top left corner.
+	 */
+	public void resetView() {
+		view.reset();
+		repaint();
+	}
+	
+	/**
+	 * Shows (or hides) the metrics of the canvas in the top left corner. The HUD is
+	 * repainted every HUD_REFRESH milliseconds while it is showing.
+	 * @param visible
+	 */
+	public void setHudVisible(boolean visible) {
+		isHudVisible = visible;
+		
+		if (visible) {
+			hudTimer.start();
+			repaint();		// the HUD doesn't know its size until it has been painted
+		} else {
+			hudTimer.stop();
+			repaint(hudBounds);
+		}
 	}
 	
 	public void setSwatchPanel(SwatchPanel p) {
@@ -139,6 +990,21 @@ public class Canvas extends JPanel {
 		return isConstructing;
 	}
 	
+	public boolean isDragging() {
+		return isDragging;
+	}
+	
+	public boolean isHudVisible() {
+		return isHudVisible;
+	}
+	
+	/**
+	 * @return the largest stroke pad of any committed shape
+	 */
+	int getMaxPad() {
+		return maxPad;
+	}
+	
 	public CanvasManager getCanvasManager() {
 		return canvasManager;
 	}
@@ -151,8 +1017,88 @@ public class Canvas extends JPanel {
 		return selection;
 	}
 	
-	public ArrayList<MyShape> getShapes() {
-		return shapes;
+	/**
+	 * @return a read only view of the shapes on the canvas, which changes along with them.
+	 * It can only be used on the event thread, so other threads should take a snapshot.
+	 */
+	public List<MyShape> getShapes() {
+		return shapesView;
+	}
+	
+	/**
+	 * Takes a snapshot of the shapes on the canvas, as they are right now. This has to be
+	 * called on the event thread, and only costs as much as the shapes that have changed
+	 * since the last snapshot. It also publishes the snapshot.
+	 * @return
+	 */
+	public ShapeVector getSnapshot() {
+		if (isDocumentChanged()) {
+			updateDocument();
+		}
+		return document;
+	}
+	
+	/**
+	 * @return the last snapshot of the shapes that the event thread published, which it
+	 * does on the frame after each edit, or when a drag is over. This can be called from
+	 * any thread, and never waits on the event thread.
+	 */
+	public ShapeVector getPublishedSnapshot() {
+		return publishedDocument;
+	}
+	
+	/**
+	 * @return roughly how many bytes of heap the records of the published snapshot take up.
+	 * This can be called from any thread.
+	 */
+	public long getPublishedBytes() {
+		return publishedBytes;
+	}
+	
+	public int getRenderMode() {
+		return renderMode;
+	}
+	
+	public CanvasMetrics getMetrics() {
+		return metrics;
+	}
+	
+	public FrameScheduler getFrameScheduler() {
+		return frameScheduler;
+	}
+	
+	public TileCache getTileCache() {
+		return tileCache;
+	}
+	
+	public ShapeIndex getShapeIndex() {
+		return shapeIndex;
+	}
+	
+	/**
+	 * @param shape
+	 * @return the stacking order of a canvas shape, or -1 if it isn't on the canvas
+	 */
+	public long getShapeOrder(MyShape shape) {
+		return shapeIndex.getOrder(shape);
+	}
+	
+	public History getHistory() {
+		return history;
+	}
+	
+	/**
+	 * @return how many shapes were drawn in the last frame
+	 */
+	public int getDrawnCount() {
+		return drawnCount;
+	}
+	
+	/**
+	 * @return how many shapes were culled because they were outside the view in the last frame
+	 */
+	public int getCulledCount() {
+		return culledCount;
 	}
 
 	public boolean hasSelection() {
@@ -163,8 +1109,15 @@ public class Canvas extends JPanel {
 		return decoration;
 	}
 	
-	public JScrollPane getScrollPane() {
-		return scrollPane;
+	/**
+	 * @return the table of styles that the shapes on the canvas share
+	 */
+	public StyleTable getStyles() {
+		return styles;
+	}
+	
+	public ViewTransform getView() {
+		return view;
 	}
 
 	public void resetDecoration() {
@@ -0,0 +1,415 @@
+package gfx;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import utils.Trace;
+
+/**
+ * This class keeps track of where the time of the canvas goes: how long frames take to
+ * paint, how many shapes and tiles each one draws, how many repaints are asked for compared
+ * to how many happen, how many input events come in per frame and how long their handlers
+ * take, and how much memory is being used. Everything is counted on the event thread as it
+ * happens, which is cheap, and once a second the counts are turned into rates and
+ * percentiles, which is what the HUD shows and what JMX clients see.
+ * @author DavidKramer
+ *
+ */
+public class CanvasMetrics implements CanvasMetricsMBean {
+	public static final String OBJECT_NAME = "jraw:type=CanvasMetrics";
+	public static final int HANDLER_SELECTION = 0;		// kinds of mouse handler that are timed
+	public static final int HANDLER_SHAPE = 1;
+	public static final int HANDLER_VIEW = 2;
+	private static final long SAMPLE_NANOS = 1000000000L;	// how often counts are turned into rates
+	private static final int MAX_FRAME_TIMES = 1024;		// most frame times kept per sample
+
+	private Canvas canvas;
+	private com.sun.management.ThreadMXBean threadBean;	// null if allocations can't be counted
+
+	// Counted on the event thread
+	private long frameStart;
+	private long[] frameTimes;							// frame times of this sample, in nanoseconds
+	private int frameTimeCount;
+	private long sampleStart;
+	private long sampleFrames;
+	private long sampleRepaints;
+	private long sampleInput;
+	private long[] handlerNanos;
+	private long sampleAllocated;						// bytes the event thread had allocated at the start
+	private volatile boolean isResetRequested;
+
+	// Published once a sample, for other threads
+	private volatile long frameCount;
+	private volatile long repaintRequests;
+	private volatile long inputEvents;
+	private volatile long inputEventsHandled;
+	private volatile Sample sample;
+
+	public CanvasMetrics(Canvas canvas) {
+		this.canvas = canvas;
+		frameTimes = new long[MAX_FRAME_TIMES];
+		handlerNanos = new long[3];
+		sample = new Sample();
+
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()) {
+			threadBean = (com.sun.management.ThreadMXBean)bean;
+		}
+	}
+
+	//********************************************************
+	//* 				 COUNTING METHODS					 *
+	//********************************************************
+
+	/**
+	 * Called when the canvas starts painting a frame.
+	 */
+	void beginFrame() {
+		frameStart = System.nanoTime();
+
+		if (sampleStart == 0 || isResetRequested) {
+			startSample(frameStart);
+		}
+	}
+
+	/**
+	 * Called when the canvas is done painting a frame. Once a second has gone by since the
+	 * last sample, the counts are turned into a new sample.
+	 */
+	void endFrame() {
+		long now = System.nanoTime();
+		frameTimes[frameTimeCount++ % MAX_FRAME_TIMES] = now - frameStart;
+		sampleFrames++;
+		frameCount++;
+
+		if (now - sampleStart >= SAMPLE_NANOS) {
+			publishSample(now);
+			startSample(now);
+		}
+	}
+
+	/**
+	 * Called whenever a repaint of the canvas is asked for, whether or not it is merged
+	 * into another one.
+	 */
+	void repaintRequested() {
+		sampleRepaints++;
+		repaintRequests++;
+	}
+
+	/**
+	 * Called for every mouse event that comes in, whether or not it is handled right away.
+	 */
+	public void inputEvent() {
+		sampleInput++;
+		inputEvents++;
+	}
+
+	/**
+	 * Called after a mouse event has been handled.
+	 * @param handler which kind of handler took it, such as HANDLER_SELECTION
+	 * @param nanos how long the handler took
+	 */
+	public void inputHandled(int handler, long nanos) {
+		handlerNanos[handler] += nanos;
+		inputEventsHandled++;
+	}
+
+	/**
+	 * Throws away everything counted so far. This can be called from any thread, and takes
+	 * effect on the next frame.
+	 */
+	public void reset() {
+		isResetRequested = true;
+	}
+
+	//********************************************************
+	//* 				  SAMPLING METHODS					 *
+	//********************************************************
+
+	private void startSample(long now) {
+		if (isResetRequested) {
+			isResetRequested = false;
+			frameCount = 0;
+			repaintRequests = 0;
+			inputEvents = 0;
+			inputEventsHandled = 0;
+			sample = new Sample();
+		}
+		sampleStart = now;
+		sampleFrames = 0;
+		sampleRepaints = 0;
+		sampleInput = 0;
+		frameTimeCount = 0;
+		Arrays.fill(handlerNanos, 0);
+		sampleAllocated = getAllocatedBytes();
+	}
+
+	/**
+	 * Turns the counts since the sample started into rates and percentiles.
+	 * @param now
+	 */
+	private void publishSample(long now) {
+		double seconds = (now - sampleStart) / 1e9;
+		int times = Math.min(frameTimeCount, MAX_FRAME_TIMES);
+		Arrays.sort(frameTimes, 0, times);
+
+		Sample s = new Sample();
+		s.framesPerSecond = sampleFrames / seconds;
+		s.frameTimeP50 = getPercentile(times, 0.50);
+		s.frameTimeP95 = getPercentile(times, 0.95);
+		s.frameTimeP99 = getPercentile(times, 0.99);
+		s.frameTimeMax = times > 0 ? frameTimes[times - 1] / 1e6 : 0;
+		s.repaintsPerSecond = sampleRepaints / seconds;
+		s.inputPerFrame = sampleFrames > 0 ? (double)sampleInput / sampleFrames : 0;
+		s.selectionMillis = handlerNanos[HANDLER_SELECTION] / 1e6 / seconds;
+		s.shapeMillis = handlerNanos[HANDLER_SHAPE] / 1e6 / seconds;
+		s.viewMillis = handlerNanos[HANDLER_VIEW] / 1e6 / seconds;
+
+		long allocated = getAllocatedBytes();
+		s.allocationRate = allocated >= 0 && sampleAllocated >= 0 ? (allocated - sampleAllocated) / seconds : -1;
+		Runtime runtime = Runtime.getRuntime();
+		s.heapUsed = runtime.totalMemory() - runtime.freeMemory();
+
+		TileCache tileCache = canvas.getTileCache();
+		s.shapeCount = canvas.getShapes().size();
+		s.drawnCount = canvas.getDrawnCount();
+		s.culledCount = canvas.getCulledCount();
+		s.tilesRendered = tileCache.getRenderedCount();
+		s.tilesCopied = tileCache.getCopiedCount();
+		s.tilesPending = tileCache.getPendingCount();
+		
+		if (canvas.isHudVisible()) {	// nobody sees the lines otherwise
+			s.hudLines = getHudLines(s, canvas.getPublishedBytes());
+		}
+		sample = s;
+	}
+
+	/**
+	 * @param count how many frame times there are, sorted
+	 * @param p
+	 * @return the frame time that p of the frames were at least as fast as, in milliseconds
+	 */
+	private double getPercentile(int count, double p) {
+		if (count == 0) {
+			return 0;
+		}
+		int i = Math.max(0, (int)Math.ceil(p * count) - 1);
+		return frameTimes[i] / 1e6;
+	}
+
+	/**
+	 * @return how many bytes the event thread has allocated since it started, or -1 if
+	 * that isn't known
+	 */
+	private long getAllocatedBytes() {
+		if (threadBean == null) {
+			return -1;
+		}
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static String[] getHudLines(Sample s, long documentBytes) {
+		return new String[] {
+			String.format("%.0f fps   frame p50 %.1f  p95 %.1f  p99 %.1f  max %.1f ms",
+						  s.framesPerSecond, s.frameTimeP50, s.frameTimeP95, s.frameTimeP99, s.frameTimeMax),
+			String.format("shapes %d   drawn %d   culled %d", s.shapeCount, s.drawnCount, s.culledCount),
+			String.format("tiles rendered %d   copied %d   pending %d", s.tilesRendered, s.tilesCopied, s.tilesPending),
+			String.format("repaints %.0f/s   paints %.0f/s   input %.1f/frame",
+						  s.repaintsPerSecond, s.framesPerSecond, s.inputPerFrame),
+			String.format("selection %.1f   shape %.1f   view %.1f ms/s",
+						  s.selectionMillis, s.shapeMillis, s.viewMillis),
+			String.format("alloc %s/s   heap %s   document %s",
+						  formatBytes(s.allocationRate), formatBytes(s.heapUsed), formatBytes(documentBytes))
+		};
+	}
+
+	private static String formatBytes(double bytes) {
+		if (bytes < 0) {
+			return "?";
+		} else if (bytes < 1024 * 1024) {
+			return String.format("%.0f KB", bytes / 1024);
+		}
+		return String.format("%.1f MB", bytes / (1024 * 1024));
+	}
+
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
+
+	/**
+	 * Makes the metrics visible to JMX clients, such as JConsole, under OBJECT_NAME.
+	 */
+	public void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			Trace.error("Couldn't register canvas metrics", e);
+		}
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * @return lines of text for the HUD to show, as of the last sample
+	 */
+	public String[] getHudLines() {
+		return sample.hudLines;
+	}
+
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	public double getFramesPerSecond() {
+		return sample.framesPerSecond;
+	}
+
+	/**
+	 * @return median frame time, in milliseconds
+	 */
+	public double getFrameTimeP50() {
+		return sample.frameTimeP50;
+	}
+
+	public double getFrameTimeP95() {
+		return sample.frameTimeP95;
+	}
+
+	public double getFrameTimeP99() {
+		return sample.frameTimeP99;
+	}
+
+	public double getFrameTimeMax() {
+		return sample.frameTimeMax;
+	}
+
+	public int getShapeCount() {
+		return sample.shapeCount;
+	}
+
+	public int getDrawnCount() {
+		return sample.drawnCount;
+	}
+
+	public int getCulledCount() {
+		return sample.culledCount;
+	}
+
+	public int getTilesRendered() {
+		return sample.tilesRendered;
+	}
+
+	public int getTilesCopied() {
+		return sample.tilesCopied;
+	}
+
+	public int getTilesPending() {
+		return sample.tilesPending;
+	}
+
+	public long getRepaintRequests() {
+		return repaintRequests;
+	}
+
+	/**
+	 * @return how many frames were actually painted
+	 */
+	public long getPaints() {
+		return frameCount;
+	}
+
+	public double getRepaintRequestsPerSecond() {
+		return sample.repaintsPerSecond;
+	}
+
+	public double getPaintsPerSecond() {
+		return sample.framesPerSecond;
+	}
+
+	public long getInputEvents() {
+		return inputEvents;
+	}
+
+	/**
+	 * @return how many mouse events were handled, which is less than getInputEvents() when
+	 * events are merged
+	 */
+	public long getInputEventsHandled() {
+		return inputEventsHandled;
+	}
+
+	public double getInputEventsPerFrame() {
+		return sample.inputPerFrame;
+	}
+
+	/**
+	 * @return bytes allocated per second on the event thread, or -1 if that isn't known
+	 */
+	public double getAllocationRate() {
+		return sample.allocationRate;
+	}
+
+	public long getHeapUsed() {
+		return sample.heapUsed;
+	}
+
+	/**
+	 * @return roughly how many bytes of heap the snapshot of the document takes up, which
+	 * the canvas keeps track of as the document changes
+	 */
+	public long getDocumentBytes() {
+		return canvas.getPublishedBytes();
+	}
+
+	/**
+	 * @return milliseconds per second spent in the selection manager's mouse handlers
+	 */
+	public double getSelectionMillisPerSecond() {
+		return sample.selectionMillis;
+	}
+
+	public double getShapeMillisPerSecond() {
+		return sample.shapeMillis;
+	}
+
+	public double getViewMillisPerSecond() {
+		return sample.viewMillis;
+	}
+
+	//********************************************************
+	//* 				   SAMPLE CLASS						 *
+	//********************************************************
+
+	/**
+	 * Rates and percentiles over one second. A new sample is made each time, so that other
+	 * threads always see a whole one.
+	 */
+	private static class Sample {
+		double framesPerSecond;
+		double frameTimeP50;
+		double frameTimeP95;
+		double frameTimeP99;
+		double frameTimeMax;
+		int shapeCount;
+		int drawnCount;
+		int culledCount;
+		int tilesRendered;
+		int tilesCopied;
+		int tilesPending;
+		double repaintsPerSecond;
+		double inputPerFrame;
+		double selectionMillis;
+		double shapeMillis;
+		double viewMillis;
+		double allocationRate;
+		long heapUsed;
+		String[] hudLines = { "Measuring..." };
+	}
+}
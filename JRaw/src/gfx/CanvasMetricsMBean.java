@@ -0,0 +1,72 @@
+package gfx;
+
+/**
+ * Management interface of CanvasMetrics, which is what shows up in JConsole (or any other
+ * JMX client) under jraw:type=CanvasMetrics. Rates and percentiles are over the last full
+ * second that the canvas was painting in.
+ * @author DavidKramer
+ *
+ */
+public interface CanvasMetricsMBean {
+
+	//********************************************************
+	//* 				   FRAME METHODS					 *
+	//********************************************************
+
+	public long getFrameCount();
+	public double getFramesPerSecond();
+	public double getFrameTimeP50();
+	public double getFrameTimeP95();
+	public double getFrameTimeP99();
+	public double getFrameTimeMax();
+
+	//********************************************************
+	//* 				   SHAPE METHODS					 *
+	//********************************************************
+
+	public int getShapeCount();
+	public int getDrawnCount();
+	public int getCulledCount();
+	public int getTilesRendered();
+	public int getTilesCopied();
+	public int getTilesPending();
+
+	//********************************************************
+	//* 				  REPAINT METHODS					 *
+	//********************************************************
+
+	public long getRepaintRequests();
+	public long getPaints();
+	public double getRepaintRequestsPerSecond();
+	public double getPaintsPerSecond();
+
+	//********************************************************
+	//* 				   INPUT METHODS					 *
+	//********************************************************
+
+	public long getInputEvents();
+	public long getInputEventsHandled();
+	public double getInputEventsPerFrame();
+
+	//********************************************************
+	//* 				  MEMORY METHODS					 *
+	//********************************************************
+
+	public double getAllocationRate();
+	public long getHeapUsed();
+	public long getDocumentBytes();
+
+	//********************************************************
+	//* 				  HANDLER METHODS					 *
+	//********************************************************
+
+	public double getSelectionMillisPerSecond();
+	public double getShapeMillisPerSecond();
+	public double getViewMillisPerSecond();
+
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+
+	public void reset();
+}
@@ -0,0 +1,95 @@
+package gfx;
+
+import java.awt.Rectangle;
+
+/**
+ * This class keeps track of the area of the canvas that has been changed (damaged) since
+ * the last time it was repainted. Every damaged rectangle is merged into one bounding
+ * rectangle, so that the canvas only has to repaint the part that actually changed.
+ * @author DavidKramer
+ *
+ */
+public class DamageRegion {
+	private int minX;
+	private int minY;
+	private int maxX;
+	private int maxY;
+
+	private boolean isEmpty;
+	private boolean isFull;			// has everything been damaged?
+
+	public DamageRegion() {
+		clear();
+	}
+
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * Adds a damaged rectangle, grown on every side by pad.
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 * @param pad
+	 */
+	public void add(int x, int y, int width, int height, int pad) {
+		if (isEmpty) {
+			minX = x - pad;
+			minY = y - pad;
+			maxX = x + width + pad;
+			maxY = y + height + pad;
+			isEmpty = false;
+		} else {
+			minX = Math.min(minX, x - pad);
+			minY = Math.min(minY, y - pad);
+			maxX = Math.max(maxX, x + width + pad);
+			maxY = Math.max(maxY, y + height + pad);
+		}
+	}
+
+	/**
+	 * Adds a damaged rectangle, grown on every side by pad.
+	 * @param r
+	 * @param pad
+	 */
+	public void add(Rectangle r, int pad) {
+		add(r.x, r.y, r.width, r.height, pad);
+	}
+
+	/**
+	 * Marks everything as damaged.
+	 */
+	public void addAll() {
+		isFull = true;
+		isEmpty = false;
+	}
+
+	public void clear() {
+		isEmpty = true;
+		isFull = false;
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public boolean isEmpty() {
+		return isEmpty;
+	}
+
+	public boolean isFull() {
+		return isFull;
+	}
+
+	/**
+	 * Copies the damaged area into Rectangle r.
+	 * @param r
+	 * @return r
+	 */
+	public Rectangle getBounds(Rectangle r) {
+		r.setBounds(minX, minY, maxX - minX, maxY - minY);
+		return r;
+	}
+}
@@ -4,14 +4,20 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.GradientPaint;
 import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Objects;
 
+import commands.DecorateCommand;
+import jfr.DecorateEvent;
 import shapes.MyShape;
 import shapes.Selection;
+import utils.Trace;
 
 /**
  * This class defines the decoration or appearance of a shape, which consists of a 
  * fill color, stroke color, and the actual stroke itself. The fill color can
- * also become a gradient.
+ * also become a gradient. Decorations that are used by shapes are frozen (see Style),
+ * so they can be shared; the ones that are edited, such as the brush of the canvas, aren't.
  * @author DavidKramer
  *
  */
@@ -19,6 +25,7 @@ public class Decoration implements Serializable, Cloneable {
 	public static final Color DEFAULT_FILL_COLOR = Color.WHITE;
 	public static final Color DEFAULT_STROKE_COLOR = Color.BLACK;
 	public static final BasicStroke DEFAULT_STROKE = new BasicStroke(6.0f);
+	public static final BasicStroke HANDLE_STROKE = new BasicStroke(2.0f);	// shared by handles and guides
 	
 	private Color fillColor;
 	transient private GradientPaint gradient;
@@ -32,6 +39,7 @@ public class Decoration implements Serializable, Cloneable {
 	private int cap;
 	private int join;
 	private float strokeWidth;
+	transient private boolean isFrozen;		// can it no longer be changed?
 	
 	public Decoration(Color fillColor, Color strokeColor, BasicStroke stroke) {
 		this.fillColor = fillColor;
@@ -63,37 +71,77 @@ public class Decoration implements Serializable, Cloneable {
 	//********************************************************
 	
 	/**
-	 * Decorates all shapes contained in a selection with the specified decoration
+	 * Decorates all shapes contained in a selection with the specified decoration. The
+	 * shapes all share the one style of the canvas that looks like it.
 	 * @param selection - active selection
 	 * @param decoration - decoration context to apply to shapes
 	 */
 	public static void decorateSelection(Selection selection, Decoration decoration) {
+		DecorateEvent event = new DecorateEvent();
+		event.begin();
+		DecorateCommand command = new DecorateCommand(selection.getSelectedShapes());
+		Style style = selection.getCanvas().getStyles().intern(decoration);
+		
 		for (int i = 0; i < selection.getSelectedShapes().size(); i++) {
-			MyShape shape = selection.getSelectedShapes().get(i);
-			shape.setDecoration((Decoration)decoration.clone());	
+			selection.getSelectedShapes().get(i).setStyle(style);
 		}
+		recordDecorate(selection, command);
+		commitDecorate(event, "fill and stroke", selection);
 	}
 	
 	/**
 	 * Decorates all shapes contained in a selection with the specified fill / stroke. 
 	 * Generally fill / stroke should be false, otherwise the other decorateSelection
-	 * method should be called because it will apply everything.
+	 * method should be called because it will apply everything. Styles are frozen, so each
+	 * distinct style of the selected shapes is copied and changed once, and all of its shapes
+	 * share the result.
 	 * @param selection - active selection
 	 * @param decoration - decoration context to apply to shapes
 	 * @param fill - if true, the fill style is applied
 	 * @param stroke - if true, the stroke style is applied
 	 */
 	public static void decorateSelection(Selection selection, Decoration decoration, boolean fill, boolean stroke) {
-		for (int i = 0; i < selection.getSelectedShapes().size(); i++) {
+		DecorateEvent event = new DecorateEvent();
+		event.begin();
+		DecorateCommand command = new DecorateCommand(selection.getSelectedShapes());
+		StyleTable styles = selection.getCanvas().getStyles();
+		IdentityHashMap<Style, Style> restyled = new IdentityHashMap<>();	// new style for each old one
+		
+		for (int i = 0; i < selection.getSelectedShapes().size() && (fill || stroke); i++) {
 			MyShape shape = selection.getSelectedShapes().get(i);
-			if (fill && stroke) {
-				shape.setDecoration((Decoration)decoration.clone());	
-			} else if (fill) {
-				shape.getDecoration().setFillColor(decoration.getFillColor());
-			} else if (stroke) {
-				shape.getDecoration().setStroke(decoration.getStroke());
-				shape.getDecoration().setStrokeColor(decoration.getStrokeColor());
+			Style style = restyled.get(shape.getStyle());
+			
+			if (style == null) {
+				Decoration d = decoration;
+				if (!stroke) {
+					d = (Decoration)shape.getDecoration().clone();
+					d.setFillColor(decoration.getFillColor());
+				} else if (!fill) {
+					d = (Decoration)shape.getDecoration().clone();
+					d.setStroke(decoration.getStroke());
+					d.setStrokeColor(decoration.getStrokeColor());
+				}
+				style = styles.intern(d);
+				restyled.put(shape.getStyle(), style);
 			}
+			shape.setStyle(style);
+		}
+		recordDecorate(selection, command);
+		commitDecorate(event, fill && stroke ? "fill and stroke" : fill ? "fill" : "stroke", selection);
+	}
+	
+	private static void recordDecorate(Selection selection, DecorateCommand command) {
+		if (selection.getSelectedShapes().size() > 0) {
+			command.captureAfter();
+			selection.getCanvas().getHistory().record(command);
+		}
+	}
+	
+	private static void commitDecorate(DecorateEvent event, String operation, Selection selection) {
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.shapeCount = selection.getSelectedShapes().size();
+			event.commit();
 		}
 	}
 	
@@ -101,43 +149,73 @@ public class Decoration implements Serializable, Cloneable {
 	//* 				  MUTATOR METHODS					 *
 	//********************************************************
 	
+	/**
+	 * @return this decoration if it is frozen, otherwise a frozen copy of it. A frozen
+	 * decoration can't be changed, so it can be shared by any number of shapes and threads.
+	 */
+	public Decoration toFrozen() {
+		if (isFrozen) {
+			return this;
+		}
+		Decoration d = (Decoration)clone();
+		d.getStroke();		// build the stroke now, since it can't be built later
+		d.isFrozen = true;
+		return d;
+	}
+	
+	private void checkNotFrozen() {
+		if (isFrozen) {
+			throw new UnsupportedOperationException("Decoration is frozen; change a copy of it instead");
+		}
+	}
+	
 	public void setFillColor(Color c) {
+		checkNotFrozen();
 		fillColor = c;
 	}
 	
 	public void setStrokeColor(Color c) {
+		checkNotFrozen();
 		strokeColor = c;
 	}
 	
 	public void setStroke(BasicStroke stroke) {
+		checkNotFrozen();
 		this.stroke = stroke;
 	}
 	
 	public void setStrokeWidth(float f) {
+		checkNotFrozen();
 		strokeWidth = f;
 	}
 	
 	public void setHasFill(boolean b) {
+		checkNotFrozen();
 		hasFill = b;
 	}
 	
 	public void setHasGradient(boolean b) {
+		checkNotFrozen();
 		hasGradient = b;
 	}
 	
 	public void setHasStroke(boolean b) {
+		checkNotFrozen();
 		hasStroke = b;
 	}
 	
 	public void setGradient(GradientPaint g) {
+		checkNotFrozen();
 		gradient = g;
 	}
 	
 	public void setJoinType(int joinType) {
+		checkNotFrozen();
 		this.join = joinType;
 	}
 	
 	public void setCapType(int capType) {
+		checkNotFrozen();
 		this.cap = capType;
 	}
 	
@@ -157,9 +235,26 @@ public class Decoration implements Serializable, Cloneable {
 		return strokeColor;
 	}
 	
+	/**
+	 * @return the stroke for the width, cap and join of the decoration. The stroke is kept
+	 * until one of them changes, so that drawing a shape doesn't create a new one.
+	 */
 	public BasicStroke getStroke() {
-		return stroke = new BasicStroke(getStrokeWidth(), getCap(), getJoin());
-//		return stroke;
+		if (isFrozen) {		// already built, and shared between threads
+			return stroke;
+		}
+		if (stroke == null || stroke.getLineWidth() != strokeWidth || stroke.getEndCap() != cap
+				|| stroke.getLineJoin() != join || stroke.getMiterLimit() != 10.0f || stroke.getDashArray() != null) {
+			stroke = new BasicStroke(getStrokeWidth(), getCap(), getJoin());
+		}
+		return stroke;
+	}
+	
+	/**
+	 * @return true if the decoration can no longer be changed
+	 */
+	public boolean isFrozen() {
+		return isFrozen;
 	}
 	
 	public boolean hasFill() {
@@ -192,13 +287,19 @@ public class Decoration implements Serializable, Cloneable {
 	 * @return
 	 */
 	public boolean equals(Decoration d) {
-		if (!this.getFillColor().equals(d.getFillColor())) {	// are fills same?
+		if (d == null) {
+			return false;
+		} else if (!Objects.equals(this.getFillColor(), d.getFillColor())) {	// are fills same?
+			return false;
+		} else if (this.hasFill() != d.hasFill()) {
 			return false;
-		} else if (!this.hasFill() == d.hasFill()) {
+		} else if (this.hasStroke() != d.hasStroke()) {
 			return false;
-		} else if (!this.hasStroke() == d.hasStroke()) {
+		} else if (this.hasGradient() != d.hasGradient()) {
 			return false;
-		} else if (!this.getStrokeColor().equals(d.getStrokeColor())) { // is stroke color same?
+		} else if (!gradientEquals(this.getGradient(), d.getGradient())) {
+			return false;
+		} else if (!Objects.equals(this.getStrokeColor(), d.getStrokeColor())) { // is stroke color same?
 			return false;
 		} else if (this.getJoin() != d.getJoin()) { // is stroke same?
 			return false;
@@ -206,13 +307,42 @@ public class Decoration implements Serializable, Cloneable {
 			return false;
 		} else if (this.getStrokeWidth() != d.getStrokeWidth()) {
 			return false;
-		} else if (!this.getStroke().equals(getStroke())) {
-			return false;
 		} else {
 			return true;
 		}
 	}
 	
+	public boolean equals(Object o) {
+		return o instanceof Decoration && equals((Decoration)o);
+	}
+	
+	public int hashCode() {
+		int gradientHash = 0;
+		if (gradient != null) {
+			gradientHash = Objects.hash(gradient.getPoint1(), gradient.getColor1(), gradient.getPoint2(), 
+										gradient.getColor2(), gradient.isCyclic());
+		}
+		return Objects.hash(fillColor, strokeColor, gradientHash, hasFill, hasStroke, hasGradient, 
+							cap, join, strokeWidth);
+	}
+	
+	/**
+	 * GradientPaint doesn't override equals, so compare what the gradient is made of.
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	private static boolean gradientEquals(GradientPaint a, GradientPaint b) {
+		if (a == b) {
+			return true;
+		} else if (a == null || b == null) {
+			return false;
+		}
+		return a.getPoint1().equals(b.getPoint1()) && a.getColor1().equals(b.getColor1())
+			&& a.getPoint2().equals(b.getPoint2()) && a.getColor2().equals(b.getColor2())
+			&& a.isCyclic() == b.isCyclic();
+	}
+	
 	public String toString() {
 		String str = "Decoration[hasFill=" + hasFill + ", hasStroke=" + hasStroke 
 				+ ", fillColor=" + fillColor + "strokeColor=" + strokeColor
@@ -221,15 +351,15 @@ public class Decoration implements Serializable, Cloneable {
 	}
 	
 	/**
-	 * Useful so that each shape object will have its own decoration, when referencing
-	 * decoration objects from other classes. This ensures that each decoration will
-	 * be unique to each shape.
+	 * Makes a copy of the decoration that can be changed, even if this one is frozen.
 	 */
 	public Object clone() {
 		try {
-			return (Decoration)super.clone();
+			Decoration d = (Decoration)super.clone();
+			d.isFrozen = false;
+			return d;
 		} catch (CloneNotSupportedException e) {
-			System.out.println("Clone not supported!");
+			Trace.error("Clone not supported!", e);
 		}
 		return null;
 	}
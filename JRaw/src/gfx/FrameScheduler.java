@@ -0,0 +1,143 @@
+package gfx;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+
+import javax.swing.Timer;
+
+import utils.Trace;
+
+/**
+ * This class runs work that only needs to happen once per frame, such as handling the
+ * latest mouse position or repainting the canvas, at most as often as the display can show
+ * it. Tasks that are asked for more than once before the next frame only run once. The
+ * frame is run by a Swing timer, so it happens on the event thread after the events that
+ * were already queued, which lets a frame pick up every one of them at once. If the last
+ * frame was long enough ago, the next one is run right away, so that a single event is
+ * never held back.
+ * @author DavidKramer
+ *
+ */
+public class FrameScheduler implements ActionListener {
+	public static final int DEFAULT_RATE = 60;		// frames per second, if the display doesn't say
+	public static final int FRAME_RATE = Integer.getInteger("jraw.frame.rate", getDisplayRate());
+
+	private Timer timer;
+	private long frameNanos;						// shortest time between the start of two frames
+	private long lastFrame;							// when the last frame started, in nanoseconds
+	private ArrayList<Runnable> tasks;				// tasks to run on the next frame
+	private ArrayList<Runnable> runningTasks;		// tasks of the frame being run right now
+	private int frameCount;
+
+	public FrameScheduler() {
+		this(FRAME_RATE);
+	}
+
+	public FrameScheduler(int frameRate) {
+		timer = new Timer(0, this);
+		timer.setRepeats(false);
+		timer.setCoalesce(true);
+		tasks = new ArrayList<>();
+		runningTasks = new ArrayList<>();
+		setFrameRate(frameRate);
+		lastFrame = System.nanoTime() - frameNanos;
+	}
+
+	//********************************************************
+	//* 				  SCHEDULING METHODS				 *
+	//********************************************************
+
+	/**
+	 * Runs task on the event thread at the start of the next frame, unless it is already
+	 * waiting for it. This can be called from any thread.
+	 * @param task
+	 */
+	public synchronized void requestFrame(Runnable task) {
+		for (int i = 0; i < tasks.size(); i++) {
+			if (tasks.get(i) == task) {
+				return;
+			}
+		}
+		tasks.add(task);
+
+		if (tasks.size() == 1) {	// otherwise the next frame has been started already
+			long wait = lastFrame + frameNanos - System.nanoTime();
+			timer.setInitialDelay(wait > 0 ? (int)((wait + 999999) / 1000000) : 0);
+			timer.start();
+		}
+	}
+
+	/**
+	 * Runs the tasks of this frame. Tasks that ask for another frame while they run are
+	 * put off until that frame.
+	 */
+	public void actionPerformed(ActionEvent e) {
+		synchronized (this) {
+			ArrayList<Runnable> frameTasks = tasks;		// swap, so that nothing is allocated
+			tasks = runningTasks;
+			runningTasks = frameTasks;
+			lastFrame = System.nanoTime();
+			frameCount++;
+		}
+
+		for (int i = 0; i < runningTasks.size(); i++) {
+			try {
+				runningTasks.get(i).run();
+			} catch (RuntimeException ex) {		// one failed task shouldn't stop the others
+				Trace.error("Frame task failed", ex);
+			}
+		}
+		runningTasks.clear();
+	}
+
+	//********************************************************
+	//* 			  STATIC UTILITY METHODS				 *
+	//********************************************************
+
+	/**
+	 * @return refresh rate of the screen, or DEFAULT_RATE if there isn't one, or it isn't known
+	 */
+	private static int getDisplayRate() {
+		if (GraphicsEnvironment.isHeadless()) {
+			return DEFAULT_RATE;
+		}
+		try {
+			DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+												  .getDefaultScreenDevice().getDisplayMode();
+			int rate = mode.getRefreshRate();
+			return rate != DisplayMode.REFRESH_RATE_UNKNOWN ? rate : DEFAULT_RATE;
+		} catch (HeadlessException e) {
+			return DEFAULT_RATE;
+		}
+	}
+
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * @param frameRate most frames to run per second
+	 */
+	public synchronized void setFrameRate(int frameRate) {
+		frameNanos = 1000000000L / Math.max(1, frameRate);
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public int getFrameRate() {
+		return (int)(1000000000L / frameNanos);
+	}
+
+	/**
+	 * @return how many frames have been run
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+}
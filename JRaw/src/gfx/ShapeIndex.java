@@ -0,0 +1,657 @@
+package gfx;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import shapes.MyShape;
+
+/**
+ * This class is an R-tree that keeps track of the bounds of every shape on the canvas,
+ * so that point hits and rectangular queries only have to look at the shapes that are
+ * near the area of interest, rather than every shape on the canvas. Each shape also
+ * keeps the stacking order that it was added in, so that results can be returned
+ * from back to front.
+ * @author DavidKramer
+ *
+ */
+public class ShapeIndex {
+	private static final int MAX_ENTRIES = 16;			// max children per node before it splits
+	private static final int MIN_ENTRIES = 6;			// min children per node before it is condensed
+
+	private static final Comparator<Entry> Z_ORDER = new Comparator<Entry>() {
+		public int compare(Entry e1, Entry e2) {
+			return Long.compare(e1.order, e2.order);
+		}
+	};
+
+	private static final Comparator<Bounds> CENTER_X = new Comparator<Bounds>() {
+		public int compare(Bounds b1, Bounds b2) {
+			return Long.compare((long)b1.minX + b1.maxX, (long)b2.minX + b2.maxX);
+		}
+	};
+
+	private static final Comparator<Bounds> CENTER_Y = new Comparator<Bounds>() {
+		public int compare(Bounds b1, Bounds b2) {
+			return Long.compare((long)b1.minY + b1.maxY, (long)b2.minY + b2.maxY);
+		}
+	};
+
+	private Node root;
+	private IdentityHashMap<MyShape, Entry> entries;	// lookup of the entry for each indexed shape
+	private ArrayList<Entry> results;					// reusable buffer for query results
+	private ArrayList<Entry> staleEntries;				// entries that were updated lazily
+	private long nextOrder;
+
+	public ShapeIndex() {
+		root = new Node(0);
+		entries = new IdentityHashMap<>();
+		results = new ArrayList<>();
+		staleEntries = new ArrayList<>();
+	}
+
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * Adds a shape to the index, on top of every shape that is already indexed.
+	 * @param shape
+	 */
+	public void insert(MyShape shape) {
+		insert(shape, nextOrder);
+	}
+
+	/**
+	 * Adds a shape to the index with a specific stacking order, such as the order that
+	 * a shape had before it was removed.
+	 * @param shape
+	 * @param order
+	 */
+	public void insert(MyShape shape, long order) {
+		if (entries.containsKey(shape)) {
+			update(shape);
+			return;
+		}
+		Entry e = new Entry(shape, order);
+		e.setBounds(shape.getBoundRect());
+		entries.put(shape, e);
+		insert(e, 0);
+		nextOrder = Math.max(nextOrder, order + 1);
+	}
+
+	/**
+	 * Removes a shape from the index.
+	 * @param shape
+	 */
+	public void remove(MyShape shape) {
+		Entry e = entries.remove(shape);
+
+		if (e != null) {
+			remove(e);
+		}
+	}
+
+	/**
+	 * Re-indexes a shape after it has been moved or resized. The shape keeps its
+	 * stacking order. Shapes that aren't indexed are ignored.
+	 * @param shape
+	 */
+	public void update(MyShape shape) {
+		Entry e = entries.get(shape);
+
+		if (e != null) {
+			remove(e);
+			e.setBounds(shape.getBoundRect());
+			insert(e, 0);
+		}
+	}
+
+	/**
+	 * Re-indexes a shape that is being dragged, without changing the shape of the tree.
+	 * The nodes above the shape are only ever enlarged to fit it, so searches still find
+	 * it, but they get looser until commitUpdates() puts the shape where it belongs. This
+	 * is much cheaper than update() when the same shapes change on every mouse event.
+	 * @param shape
+	 */
+	public void updateLazily(MyShape shape) {
+		Entry e = entries.get(shape);
+
+		if (e != null) {
+			e.setBounds(shape.getBoundRect());
+
+			for (Node n = e.leaf; n != null; n = n.parent) {
+				n.include(e);
+			}
+
+			if (!e.isStale) {
+				e.isStale = true;
+				staleEntries.add(e);
+			}
+		}
+	}
+
+	/**
+	 * Re-indexes every shape that was updated lazily since the last commit.
+	 */
+	public void commitUpdates() {
+		for (int i = 0; i < staleEntries.size(); i++) {
+			Entry e = staleEntries.get(i);
+			e.isStale = false;
+
+			if (e.leaf != null) {	// still indexed
+				remove(e);
+				e.setBounds(e.shape.getBoundRect());
+				insert(e, 0);
+			}
+		}
+		staleEntries.clear();
+	}
+
+	/**
+	 * Adds a list of shapes to the index, in order. If the index is empty, the tree is
+	 * bulk loaded by sorting the shapes into tiles (sort tile recursive), which is much
+	 * faster than inserting shapes one at a time and gives better packed nodes.
+	 * @param shapes
+	 */
+	public void insertAll(List<MyShape> shapes) {
+		if (!entries.isEmpty() || shapes.size() <= MAX_ENTRIES) {
+			for (int i = 0; i < shapes.size(); i++) {
+				insert(shapes.get(i));
+			}
+			return;
+		}
+
+		ArrayList<Bounds> level = new ArrayList<>(shapes.size());
+		for (int i = 0; i < shapes.size(); i++) {
+			MyShape shape = shapes.get(i);
+
+			if (!entries.containsKey(shape)) {
+				Entry e = new Entry(shape, nextOrder++);
+				e.setBounds(shape.getBoundRect());
+				entries.put(shape, e);
+				level.add(e);
+			}
+		}
+
+		int height = 0;
+		while (level.size() > MAX_ENTRIES) {
+			level = pack(level, height);
+			height++;
+		}
+
+		root = new Node(height);
+		for (int i = 0; i < level.size(); i++) {
+			root.add(level.get(i));
+		}
+		root.recalculate();
+	}
+
+	/**
+	 * Packs one level of the tree into nodes of the specified height. The children are
+	 * sorted into vertical slices by x, and each slice is sorted by y and cut up into nodes.
+	 * The children are spread evenly over the nodes, rather than filling each node up and
+	 * leaving the rest for the last one, so that every node gets at least MIN_ENTRIES of
+	 * them (there are always more than MAX_ENTRIES children to pack).
+	 */
+	private ArrayList<Bounds> pack(ArrayList<Bounds> children, int height) {
+		int nodeCount = (children.size() + MAX_ENTRIES - 1) / MAX_ENTRIES;
+		int nodeSize = children.size() / nodeCount;
+		int biggerNodes = children.size() % nodeCount;		// the last nodes get one extra child
+		int nodesPerSlice = (int)Math.ceil((double)nodeCount / Math.ceil(Math.sqrt(nodeCount)));
+		ArrayList<Bounds> nodes = new ArrayList<>(nodeCount);
+
+		Collections.sort(children, CENTER_X);
+		int start = 0;
+		for (int first = 0; first < nodeCount; first += nodesPerSlice) {
+			int last = Math.min(first + nodesPerSlice, nodeCount);
+			int end = start;
+			for (int i = first; i < last; i++) {
+				end += getPackedSize(i, nodeCount, nodeSize, biggerNodes);
+			}
+			List<Bounds> slice = children.subList(start, end);
+			Collections.sort(slice, CENTER_Y);
+
+			int j = 0;
+			for (int i = first; i < last; i++) {
+				Node node = new Node(height);
+				int size = getPackedSize(i, nodeCount, nodeSize, biggerNodes);
+
+				for (int k = 0; k < size; k++) {
+					node.add(slice.get(j++));
+				}
+				node.recalculate();
+				nodes.add(node);
+			}
+			start = end;
+		}
+		return nodes;
+	}
+
+	private static int getPackedSize(int node, int nodeCount, int nodeSize, int biggerNodes) {
+		return node >= nodeCount - biggerNodes ? nodeSize + 1 : nodeSize;
+	}
+
+	/**
+	 * Swaps the shape of an indexed entry for another shape, which keeps the stacking 
+	 * order of the old shape.
+	 * @param oldShape
+	 * @param newShape
+	 */
+	public void replace(MyShape oldShape, MyShape newShape) {
+		Entry e = entries.remove(oldShape);
+
+		if (e != null) {
+			e.shape = newShape;
+			entries.put(newShape, e);
+
+			Rectangle r = newShape.getBoundRect();
+			if (r.x != e.minX || r.y != e.minY || r.x + r.width != e.maxX || r.y + r.height != e.maxY) {
+				update(newShape);
+			}
+		}
+	}
+
+	/**
+	 * Removes every shape from the index.
+	 */
+	public void clear() {
+		root = new Node(0);
+		entries.clear();
+		staleEntries.clear();
+		nextOrder = 0;
+	}
+
+	//********************************************************
+	//* 				   QUERY METHODS					 *
+	//********************************************************
+
+	/**
+	 * Finds the top most shape (highest stacking order) whose bound rect contains Point p.
+	 * @param p
+	 * @return the shape that was hit, or null if no shape contains the point
+	 */
+	public MyShape hitTest(Point p) {
+		results.clear();
+		search(root, p.x, p.y, p.x, p.y, false, results);
+
+		Entry hit = null;
+		for (int i = 0; i < results.size(); i++) {
+			Entry e = results.get(i);
+			if ((hit == null || e.order > hit.order) && e.shape.getBoundRect().contains(p)) {
+				hit = e;
+			}
+		}
+		results.clear();
+		return hit != null ? hit.shape : null;
+	}
+
+	/**
+	 * Adds every shape whose bounds intersect Rectangle r to the out list, from back to front.
+	 * @param r
+	 * @param out
+	 */
+	public void searchIntersecting(Rectangle r, ArrayList<MyShape> out) {
+		query(r, false, out);
+	}
+
+	/**
+	 * Adds every shape whose bounds are inside of Rectangle r to the out list, from back to front.
+	 * @param r
+	 * @param out
+	 */
+	public void searchContained(Rectangle r, ArrayList<MyShape> out) {
+		query(r, true, out);
+	}
+
+	private void query(Rectangle r, boolean contained, ArrayList<MyShape> out) {
+		results.clear();
+		search(root, r.x, r.y, r.x + r.width, r.y + r.height, contained, results);
+		Collections.sort(results, Z_ORDER);
+
+		for (int i = 0; i < results.size(); i++) {
+			out.add(results.get(i).shape);
+		}
+		results.clear();
+	}
+
+	private void search(Node node, int minX, int minY, int maxX, int maxY, boolean contained, ArrayList<Entry> out) {
+		for (int i = 0; i < node.count; i++) {
+			Bounds child = node.children[i];
+
+			if (!child.intersects(minX, minY, maxX, maxY)) {
+				continue;
+			}
+
+			if (node.isLeaf) {
+				if (!contained || child.isInside(minX, minY, maxX, maxY)) {
+					out.add((Entry)child);
+				}
+			} else {
+				search((Node)child, minX, minY, maxX, maxY, contained, out);
+			}
+		}
+	}
+
+	//********************************************************
+	//* 				   TREE METHODS						 *
+	//********************************************************
+
+	/**
+	 * Inserts a child (an entry, or a node when reinserting orphaned subtrees) at the
+	 * specified level of the tree, where level 0 is the leaf level.
+	 */
+	private void insert(Bounds child, int level) {
+		Node target = chooseNode(child, level);
+		target.add(child);
+
+		Node n = target;
+		while (n != null) {
+			if (n.count > MAX_ENTRIES) {
+				split(n);
+			} else {
+				n.include(child);
+			}
+			n = n.parent;
+		}
+	}
+
+	/**
+	 * Walks down from the root, always following the child that needs the least
+	 * enlargement to hold the new bounds, until the requested level is reached.
+	 */
+	private Node chooseNode(Bounds b, int level) {
+		Node node = root;
+
+		while (node.height > level) {
+			Node best = null;
+			long bestGrowth = Long.MAX_VALUE;
+			long bestArea = Long.MAX_VALUE;
+
+			for (int i = 0; i < node.count; i++) {
+				Node child = (Node)node.children[i];
+				long area = child.area();
+				long growth = child.areaWith(b) - area;
+
+				if (growth < bestGrowth || (growth == bestGrowth && area < bestArea)) {
+					best = child;
+					bestGrowth = growth;
+					bestArea = area;
+				}
+			}
+			node = best;
+		}
+		return node;
+	}
+
+	/**
+	 * Splits an overflowing node in two using the quadratic split algorithm.
+	 */
+	private void split(Node node) {
+		Bounds[] children = new Bounds[node.count];
+		System.arraycopy(node.children, 0, children, 0, node.count);
+
+		// pick the two children that would waste the most area together as seeds
+		int seed1 = 0;
+		int seed2 = 1;
+		long worst = Long.MIN_VALUE;
+		for (int i = 0; i < children.length; i++) {
+			for (int j = i + 1; j < children.length; j++) {
+				long waste = children[i].areaWith(children[j]) - children[i].area() - children[j].area();
+				if (waste > worst) {
+					worst = waste;
+					seed1 = i;
+					seed2 = j;
+				}
+			}
+		}
+
+		Node sibling = new Node(node.height);
+		node.clear();
+		node.add(children[seed1]);
+		sibling.add(children[seed2]);
+		node.setBounds(children[seed1]);
+		sibling.setBounds(children[seed2]);
+
+		int remaining = children.length - 2;
+		for (int i = 0; i < children.length; i++) {
+			if (i == seed1 || i == seed2) {
+				continue;
+			}
+			Bounds b = children[i];
+			Node group;
+
+			if (node.count + remaining == MIN_ENTRIES) {	// make sure each node gets its minimum
+				group = node;
+			} else if (sibling.count + remaining == MIN_ENTRIES) {
+				group = sibling;
+			} else {
+				long growth1 = node.areaWith(b) - node.area();
+				long growth2 = sibling.areaWith(b) - sibling.area();
+				group = growth1 < growth2 || (growth1 == growth2 && node.count <= sibling.count) ? node : sibling;
+			}
+			group.add(b);
+			group.include(b);
+			remaining--;
+		}
+
+		if (node == root) {
+			root = new Node(node.height + 1);
+			root.add(node);
+			root.add(sibling);
+			root.setBounds(node);
+			root.include(sibling);
+		} else {
+			node.parent.add(sibling);
+		}
+	}
+
+	/**
+	 * Removes an entry from its leaf, and condenses the tree by reinserting the
+	 * children of any node that has too few children left.
+	 */
+	private void remove(Entry e) {
+		Node node = e.leaf;
+		node.removeChild(e);
+		e.leaf = null;
+
+		ArrayList<Node> orphans = null;
+		while (node != root) {
+			Node parent = node.parent;
+
+			if (node.count < MIN_ENTRIES) {
+				parent.removeChild(node);
+				if (orphans == null) {
+					orphans = new ArrayList<>();
+				}
+				orphans.add(node);
+			} else {
+				node.recalculate();
+			}
+			node = parent;
+		}
+		root.recalculate();
+
+		if (orphans != null) {
+			for (int i = 0; i < orphans.size(); i++) {
+				Node orphan = orphans.get(i);
+				for (int j = 0; j < orphan.count; j++) {
+					insert(orphan.children[j], orphan.height);
+				}
+			}
+		}
+
+		while (!root.isLeaf && root.count == 1) {	// shorten tree if root only has one child
+			root = (Node)root.children[0];
+			root.parent = null;
+		}
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public int size() {
+		return entries.size();
+	}
+
+	public boolean contains(MyShape shape) {
+		return entries.containsKey(shape);
+	}
+
+	/**
+	 * @param shape
+	 * @return the stacking order of a shape, or -1 if it isn't indexed
+	 */
+	public long getOrder(MyShape shape) {
+		Entry e = entries.get(shape);
+		return e != null ? e.order : -1;
+	}
+	
+	/**
+	 * Copies the bounds that a shape was last indexed with into Rectangle r. This is 
+	 * useful to find out where a shape used to be before it was changed.
+	 * @param shape
+	 * @param r
+	 * @return true if the shape is indexed
+	 */
+	public boolean getBounds(MyShape shape, Rectangle r) {
+		Entry e = entries.get(shape);
+		
+		if (e == null) {
+			return false;
+		}
+		r.setBounds(e.minX, e.minY, e.maxX - e.minX, e.maxY - e.minY);
+		return true;
+	}
+
+	//********************************************************
+	//* 				    NODE CLASSES					 *
+	//********************************************************
+
+	/**
+	 * An axis aligned bounding rectangle, stored as min and max coordinates.
+	 */
+	private static class Bounds {
+		int minX;
+		int minY;
+		int maxX;
+		int maxY;
+		Node parent;
+
+		void setBounds(Bounds b) {
+			minX = b.minX;
+			minY = b.minY;
+			maxX = b.maxX;
+			maxY = b.maxY;
+		}
+
+		void include(Bounds b) {
+			minX = Math.min(minX, b.minX);
+			minY = Math.min(minY, b.minY);
+			maxX = Math.max(maxX, b.maxX);
+			maxY = Math.max(maxY, b.maxY);
+		}
+
+		boolean intersects(int x1, int y1, int x2, int y2) {
+			return minX <= x2 && x1 <= maxX && minY <= y2 && y1 <= maxY;
+		}
+
+		boolean isInside(int x1, int y1, int x2, int y2) {
+			return minX >= x1 && minY >= y1 && maxX <= x2 && maxY <= y2;
+		}
+
+		long area() {
+			return (long)(maxX - minX) * (maxY - minY);
+		}
+
+		long areaWith(Bounds b) {
+			long w = Math.max(maxX, b.maxX) - Math.min(minX, b.minX);
+			long h = Math.max(maxY, b.maxY) - Math.min(minY, b.minY);
+			return w * h;
+		}
+	}
+
+	/**
+	 * A leaf entry, which holds a single indexed shape.
+	 */
+	private static class Entry extends Bounds {
+		MyShape shape;
+		final long order;		// stacking order (higher values are on top)
+		Node leaf;
+		boolean isStale;		// updated lazily, and waiting to be reinserted
+
+		Entry(MyShape shape, long order) {
+			this.shape = shape;
+			this.order = order;
+		}
+
+		void setBounds(Rectangle r) {
+			minX = r.x;
+			minY = r.y;
+			maxX = r.x + r.width;
+			maxY = r.y + r.height;
+		}
+	}
+
+	/**
+	 * A node of the tree, which holds either entries (if it is a leaf) or other nodes.
+	 */
+	private static class Node extends Bounds {
+		final int height;		// number of levels below this node (0 for a leaf)
+		final boolean isLeaf;
+		Bounds[] children;
+		int count;
+
+		Node(int height) {
+			this.height = height;
+			isLeaf = height == 0;
+			children = new Bounds[MAX_ENTRIES + 1];	// room for one extra before splitting
+		}
+
+		void add(Bounds b) {
+			children[count++] = b;
+
+			if (isLeaf) {
+				((Entry)b).leaf = this;
+			} else {
+				b.parent = this;
+			}
+		}
+
+		void removeChild(Bounds b) {
+			for (int i = 0; i < count; i++) {
+				if (children[i] == b) {
+					children[i] = children[--count];
+					children[count] = null;
+					return;
+				}
+			}
+		}
+
+		void clear() {
+			for (int i = 0; i < count; i++) {
+				children[i] = null;
+			}
+			count = 0;
+		}
+
+		/**
+		 * Shrinks the bounds of the node down to fit its children.
+		 */
+		void recalculate() {
+			if (count == 0) {
+				minX = minY = maxX = maxY = 0;
+				return;
+			}
+			setBounds(children[0]);
+			for (int i = 1; i < count; i++) {
+				include(children[i]);
+			}
+		}
+	}
+}
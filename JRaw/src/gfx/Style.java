@@ -0,0 +1,77 @@
+package gfx;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * This class is a handle to a frozen decoration, which any number of shapes can share
+ * instead of each having its own copy. Shapes on a canvas use the styles that are interned
+ * in its StyleTable, so that all shapes that look the same share one style, and changing
+ * that style (with Canvas.restyle()) changes all of them at once. A style can also be
+ * private, which is what a shape gets when it is given a decoration of its own.
+ * @author DavidKramer
+ *
+ */
+public final class Style implements Serializable {
+	private Decoration decoration;		// always frozen
+	transient private StyleTable table;	// table that the style is interned in, if any
+	
+	Style(Decoration decoration, StyleTable table) {
+		this.decoration = decoration.toFrozen();
+		this.table = table;
+	}
+	
+	//********************************************************
+	//* 			  STATIC UTILITY METHODS				 *
+	//********************************************************
+	
+	/**
+	 * @param decoration
+	 * @return a private style for decoration, which isn't interned anywhere. The decoration
+	 * is copied, unless it is already frozen.
+	 */
+	public static Style of(Decoration decoration) {
+		return new Style(decoration, null);
+	}
+	
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Only the table that the style is interned in may change it, since it is keyed by
+	 * its decoration.
+	 * @param decoration
+	 */
+	void setDecoration(Decoration decoration) {
+		this.decoration = decoration.toFrozen();
+	}
+	
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+	
+	/**
+	 * @return the decoration of the style, which is frozen, so it can't be changed
+	 */
+	public Decoration getDecoration() {
+		return decoration;
+	}
+	
+	/**
+	 * @return the table that the style is interned in, or null if it is private
+	 */
+	public StyleTable getTable() {
+		return table;
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		decoration = decoration.toFrozen();		// frozen isn't serialized, and neither is the stroke
+	}
+	
+	public String toString() {
+		return "Style[" + decoration + "]";
+	}
+}
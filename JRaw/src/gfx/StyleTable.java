@@ -0,0 +1,86 @@
+package gfx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class interns the styles of the shapes on a canvas, so that shapes which look the
+ * same share one Style (and one frozen Decoration) rather than each having a copy. Since
+ * shapes only hold a handle to their style, restyling every shape that uses a style is
+ * done by changing the style itself, without touching any of the shapes.
+ * @author DavidKramer
+ *
+ */
+public class StyleTable {
+	private HashMap<Decoration, Style> styles;		// styles by their decoration
+	
+	public StyleTable() {
+		styles = new HashMap<>();
+	}
+	
+	//********************************************************
+	//* 				  INTERNING METHODS					 *
+	//********************************************************
+	
+	/**
+	 * @param decoration
+	 * @return the style in the table that looks like decoration, which is added if there
+	 * isn't one yet. decoration itself is copied if it isn't frozen, so it can still be
+	 * changed afterwards.
+	 */
+	public Style intern(Decoration decoration) {
+		Style style = styles.get(decoration);
+		
+		if (style == null) {
+			style = new Style(decoration, this);
+			styles.put(style.getDecoration(), style);
+		}
+		return style;
+	}
+	
+	/**
+	 * @param style
+	 * @return style if it is interned in this table already, otherwise the style in the
+	 * table that looks like it
+	 */
+	public Style intern(Style style) {
+		return style.getTable() == this ? style : intern(style.getDecoration());
+	}
+	
+	/**
+	 * Gives style a new decoration, which changes the look of every shape that uses it.
+	 * If another style already looks like decoration, the two stay separate, but the
+	 * other one is what new shapes get interned to.
+	 * @param style a style that is interned in this table
+	 * @param decoration
+	 */
+	public void restyle(Style style, Decoration decoration) {
+		if (style.getTable() != this) {
+			throw new IllegalArgumentException("Style isn't interned in this table: " + style);
+		}
+		if (styles.get(style.getDecoration()) == style) {
+			styles.remove(style.getDecoration());
+		}
+		style.setDecoration(decoration);
+		styles.putIfAbsent(style.getDecoration(), style);
+	}
+	
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+	
+	/**
+	 * @return how many distinct styles are in the table
+	 */
+	public int size() {
+		return styles.size();
+	}
+	
+	/**
+	 * @return a copy of the list of styles in the table
+	 */
+	public List<Style> getStyles() {
+		return new ArrayList<>(styles.values());
+	}
+}
@@ -0,0 +1,613 @@
+package gfx;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import shapes.MyShape;
+import shapes.ShapeRecord;
+import utils.Trace;
+
+/**
+ * This class caches the committed shapes of the canvas as fixed size image tiles. Each zoom
+ * level has its own grid of tiles, which starts at the document origin, so panning (and
+ * zooming back to a level that was used before) mostly just copies tiles that have already
+ * been rendered. Tiles are rendered when they are first needed, re-rendered only when a
+ * shape that overlaps them changes, and thrown away least recently used first once the
+ * tiles use up more than the memory budget.
+ * <p>
+ * Tiles are rendered on a pool of worker threads, so that the event thread only has to copy
+ * tiles that are finished. Each job renders a snapshot of the shapes (taken on the event
+ * thread) into an image of its own, which is swapped into the tile on the next frame after
+ * it is done. Until then the tile keeps showing what it showed before, or is filled in from
+ * the last zoom level that was fully rendered. Jobs are thrown away if their tile changes 
+ * again or scrolls out of view before they are done.
+ * @author DavidKramer
+ *
+ */
+public class TileCache {
+	public static final int TILE_SIZE = 256;				// width and height of a tile, in pixels
+	public static final int BYTES_PER_TILE = TILE_SIZE * TILE_SIZE * 4;
+	public static final long DEFAULT_BUDGET = Long.getLong("jraw.tiles.budgetMB", 128) * 1024 * 1024;
+	public static final int DEFAULT_THREADS = Integer.getInteger("jraw.tiles.threads",
+															 Runtime.getRuntime().availableProcessors());
+	public static final double MAX_FALLBACK_SCALE = 4.0;	// most a fallback tile is stretched or shrunk
+	private static final int CANCEL_CHECK = 256;			// shapes rendered between checks for cancelling
+
+	private Canvas canvas;
+	private LinkedHashMap<TileKey, Tile> tiles;				// in least recently used order
+	private ArrayList<BufferedImage> spareImages;			// images of evicted tiles, for reuse
+	private TileKey lookupKey;
+	private Rectangle tileArea;
+	private Rectangle jobArea;
+	private long budget;									// most bytes that tiles can use
+	private int renderedCount;								// tiles rendered in the last frame
+	private int copiedCount;								// tiles copied from the cache in the last frame
+	
+	private ExecutorService workers;						// null if tiles are rendered on the event thread
+	private int threadCount;
+	private ConcurrentLinkedQueue<TileJob> finishedJobs;	// jobs that workers are done with
+	private ArrayList<Tile> pendingTiles;					// tiles that are waiting on a job
+	private ArrayList<Tile> neededTiles;					// visible tiles that need a job this frame
+	private int frame;										// counts frames, to find tiles that went out of view
+	private double fallbackZoom;							// last zoom that every visible tile was ready for
+
+	public TileCache(Canvas canvas) {
+		this.canvas = canvas;
+		tiles = new LinkedHashMap<>(64, 0.75f, true);
+		spareImages = new ArrayList<>();
+		lookupKey = new TileKey();
+		tileArea = new Rectangle();
+		jobArea = new Rectangle();
+		budget = DEFAULT_BUDGET;
+		finishedJobs = new ConcurrentLinkedQueue<>();
+		pendingTiles = new ArrayList<>();
+		neededTiles = new ArrayList<>();
+		setThreadCount(DEFAULT_THREADS);
+	}
+
+	//********************************************************
+	//* 				  DRAWING METHODS					 *
+	//********************************************************
+
+	/**
+	 * Draws the tiles that cover Rectangle area of the canvas (in screen space) at the
+	 * current zoom and pan of the view. Tiles that are missing or out of date are rendered
+	 * right away if there are no workers, and otherwise are handed to the workers, and drawn
+	 * as well as they can be until their jobs are done.
+	 * @param g
+	 * @param area
+	 */
+	public void render(Graphics g, Rectangle area) {
+		ViewTransform view = canvas.getView();
+		double zoom = view.getZoom();
+		int originX = (int)Math.floor(view.getTranslateX());	// screen position of tile 0, 0
+		int originY = (int)Math.floor(view.getTranslateY());
+		int minCol = Math.floorDiv(area.x - originX, TILE_SIZE);
+		int minRow = Math.floorDiv(area.y - originY, TILE_SIZE);
+		int maxCol = Math.floorDiv(area.x + area.width - 1 - originX, TILE_SIZE);
+		int maxRow = Math.floorDiv(area.y + area.height - 1 - originY, TILE_SIZE);
+		boolean isComplete = true;
+		renderedCount = 0;
+		copiedCount = 0;
+		frame++;
+		acceptFinishedJobs();
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int col = minCol; col <= maxCol; col++) {
+				Tile tile = getTile(zoom, col, row);
+				int x = originX + col * TILE_SIZE;
+				int y = originY + row * TILE_SIZE;
+
+				if (!tile.isDirty) {
+					copiedCount++;
+				} else if (workers == null) {
+					renderTile(tile);
+					renderedCount++;
+				} else {
+					if (tile.job == null) {
+						neededTiles.add(tile);
+					}
+					isComplete = false;
+				}
+
+				if (tile.isBlank) {
+					renderFallback(g, tile, x, y, originX, originY);
+				} else {
+					g.drawImage(tile.image, x, y, null);
+				}
+			}
+		}
+
+		if (!neededTiles.isEmpty()) {
+			submitJobs();
+		}
+		cancelHiddenJobs();
+		trim();
+
+		if (isComplete) {
+			fallbackZoom = zoom;
+		}
+	}
+
+	/**
+	 * Fills in a tile that has never been rendered with the tiles of the last zoom level
+	 * that was fully rendered, stretched or shrunk to the current zoom. This keeps zooming
+	 * from flashing the background while the workers catch up.
+	 * @param g
+	 * @param tile
+	 * @param x screen position of the tile
+	 * @param y
+	 * @param originX screen position of tile 0, 0
+	 * @param originY
+	 */
+	private void renderFallback(Graphics g, Tile tile, int x, int y, int originX, int originY) {
+		double scale = tile.key.zoom / fallbackZoom;	// size of a fallback tile pixel on screen
+
+		if (fallbackZoom == 0 || scale == 1 || scale > MAX_FALLBACK_SCALE || scale < 1 / MAX_FALLBACK_SCALE) {
+			return;
+		}
+		int minCol = (int)Math.floor(tile.key.col / scale);
+		int minRow = (int)Math.floor(tile.key.row / scale);
+		int maxCol = (int)Math.floor(((tile.key.col + 1) * TILE_SIZE - 1) / scale / TILE_SIZE);
+		int maxRow = (int)Math.floor(((tile.key.row + 1) * TILE_SIZE - 1) / scale / TILE_SIZE);
+
+		final Graphics fg = g.create();
+		try {
+			fg.clipRect(x, y, TILE_SIZE, TILE_SIZE);
+
+			for (int row = minRow; row <= maxRow; row++) {
+				for (int col = minCol; col <= maxCol; col++) {
+					Tile fallback = tiles.get(lookupKey.set(fallbackZoom, col, row));
+
+					if (fallback != null && !fallback.isBlank) {
+						int x1 = originX + (int)Math.floor(col * TILE_SIZE * scale);
+						int y1 = originY + (int)Math.floor(row * TILE_SIZE * scale);
+						int x2 = originX + (int)Math.ceil((col + 1) * TILE_SIZE * scale);
+						int y2 = originY + (int)Math.ceil((row + 1) * TILE_SIZE * scale);
+						fg.drawImage(fallback.image, x1, y1, x2, y2, 0, 0, TILE_SIZE, TILE_SIZE, null);
+					}
+				}
+			}
+		} finally {
+			fg.dispose();
+		}
+	}
+
+	/**
+	 * @param zoom
+	 * @param col
+	 * @param row
+	 * @return the tile at col, row of the grid for zoom, which is made if it doesn't exist yet
+	 */
+	private Tile getTile(double zoom, int col, int row) {
+		Tile tile = tiles.get(lookupKey.set(zoom, col, row));
+
+		if (tile == null) {
+			tile = new Tile(new TileKey().set(zoom, col, row), createImage());
+			tiles.put(tile.key, tile);
+		}
+		tile.lastFrame = frame;
+		return tile;
+	}
+
+	/**
+	 * Renders the shapes that overlap a tile into its image.
+	 * @param tile
+	 */
+	private void renderTile(Tile tile) {
+		final Graphics2D tg = tile.image.createGraphics();
+		try {
+			tg.setColor(canvas.getBackground());
+			tg.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+			tg.setColor(Color.BLACK);
+			tg.translate(-tile.key.col * TILE_SIZE, -tile.key.row * TILE_SIZE);
+			tg.scale(tile.key.zoom, tile.key.zoom);
+			tg.setRenderingHint(MyShape.KEY_RENDER_SCALE, tile.key.zoom);
+			canvas.renderShapes(tg, tile.getBounds(tileArea));
+		} finally {
+			tg.dispose();
+		}
+		tile.isDirty = false;
+		tile.isBlank = false;
+	}
+
+	//********************************************************
+	//* 				    JOB METHODS						 *
+	//********************************************************
+
+	/**
+	 * Takes one snapshot of the shapes under all the tiles that need rendering, and hands
+	 * each tile to the workers with an image of its own to render into.
+	 */
+	private void submitJobs() {
+		neededTiles.get(0).getBounds(jobArea);
+		for (int i = 1; i < neededTiles.size(); i++) {
+			jobArea.add(neededTiles.get(i).getBounds(tileArea));
+		}
+		List<ShapeRecord> records = canvas.snapshotShapes(jobArea);
+		int pad = canvas.getMaxPad();
+		Color background = canvas.getBackground();
+
+		for (int i = 0; i < neededTiles.size(); i++) {
+			Tile tile = neededTiles.get(i);
+			TileJob job = new TileJob(tile, records, pad, background, createImage());
+			tile.job = job;
+			pendingTiles.add(tile);
+			job.future = workers.submit(job);
+		}
+		neededTiles.clear();
+	}
+
+	/**
+	 * Swaps the images of the jobs that the workers have finished into their tiles, unless
+	 * the tiles have changed since the jobs were started.
+	 */
+	private void acceptFinishedJobs() {
+		TileJob job;
+
+		while ((job = finishedJobs.poll()) != null) {
+			Tile tile = job.tile;
+
+			if (job.isCancelled || tile.job != job) {
+				recycle(job.image);
+				continue;
+			}
+			recycle(tile.image);
+			tile.image = job.image;
+			tile.job = null;
+			tile.isBlank = false;
+			tile.isDirty = tile.version != job.version;
+			pendingTiles.remove(tile);
+			renderedCount++;
+		}
+	}
+
+	/**
+	 * Cancels the jobs of tiles that weren't drawn in this frame, because the view has been 
+	 * panned or zoomed away from them.
+	 */
+	private void cancelHiddenJobs() {
+		for (int i = pendingTiles.size() - 1; i >= 0; i--) {
+			Tile tile = pendingTiles.get(i);
+
+			if (tile.lastFrame != frame) {
+				cancel(tile);
+			}
+		}
+	}
+
+	private void cancel(Tile tile) {
+		if (tile.job != null) {
+			tile.job.isCancelled = true;
+			tile.job.future.cancel(false);
+			tile.job = null;
+			pendingTiles.remove(tile);
+		}
+	}
+
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * Marks every tile, at every zoom level, that overlaps Rectangle area of the document
+	 * as out of date.
+	 * @param area
+	 */
+	public void invalidate(Rectangle area) {
+		for (Tile tile : tiles.values()) {
+			if (tile.getBounds(tileArea).intersects(area)) {
+				invalidate(tile);
+			}
+		}
+	}
+
+	/**
+	 * Marks every tile as out of date, but keeps their images to render into again.
+	 */
+	public void invalidateAll() {
+		for (Tile tile : tiles.values()) {
+			invalidate(tile);
+		}
+	}
+
+	/**
+	 * Marks a tile as out of date, and cancels its job, which started from shapes that 
+	 * have changed since.
+	 * @param tile
+	 */
+	private void invalidate(Tile tile) {
+		tile.isDirty = true;
+		tile.version++;
+		cancel(tile);
+	}
+
+	/**
+	 * Throws away every tile.
+	 */
+	public void clear() {
+		for (int i = pendingTiles.size() - 1; i >= 0; i--) {
+			cancel(pendingTiles.get(i));
+		}
+		tiles.clear();
+		spareImages.clear();
+		fallbackZoom = 0;
+	}
+
+	/**
+	 * Sets how many worker threads render tiles. With no threads, tiles are rendered on the
+	 * thread that draws them, so each frame is complete when render returns. This can also be
+	 * set with the jraw.tiles.threads system property.
+	 * @param n
+	 */
+	public void setThreadCount(int n) {
+		if (workers != null) {
+			clear();
+			workers.shutdown();
+		}
+		threadCount = Math.max(n, 0);
+		workers = null;
+
+		if (threadCount > 0) {
+			workers = Executors.newFixedThreadPool(threadCount, r -> {
+				Thread t = new Thread(r, "JRaw Tiles");
+				t.setPriority(Thread.NORM_PRIORITY - 1);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Sets how many bytes of tile images can be kept, and throws away the least recently
+	 * used tiles until they fit.
+	 * @param bytes
+	 */
+	public void setBudget(long bytes) {
+		budget = Math.max(bytes, BYTES_PER_TILE);
+		trim();
+		spareImages.clear();
+	}
+
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
+
+	/**
+	 * Evicts the least recently used tiles until the rest fit into the budget. Their images
+	 * are kept to be rendered into again, rather than allocating new ones. Tiles that were
+	 * drawn in the last frame are never evicted, so the budget can be exceeded while it is
+	 * smaller than the view (otherwise their jobs would never get to finish).
+	 */
+	private void trim() {
+		Iterator<Tile> it = tiles.values().iterator();
+
+		while (getUsedBytes() > budget && it.hasNext()) {
+			Tile tile = it.next();
+
+			if (tile.lastFrame == frame) {
+				continue;
+			}
+			it.remove();
+			cancel(tile);
+			recycle(tile.image);
+		}
+	}
+
+	/**
+	 * Keeps an image that is no longer used to render into again, if there aren't enough
+	 * spare images already.
+	 * @param image
+	 */
+	private void recycle(BufferedImage image) {
+		if (spareImages.size() <= threadCount) {
+			spareImages.add(image);
+		}
+	}
+
+	private BufferedImage createImage() {
+		if (!spareImages.isEmpty()) {
+			return spareImages.remove(spareImages.size() - 1);
+		}
+		return new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * @return how many bytes the cached tile images take up
+	 */
+	public long getUsedBytes() {
+		return (long)tiles.size() * BYTES_PER_TILE;
+	}
+
+	public int getTileCount() {
+		return tiles.size();
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * @return how many tiles are waiting on the workers
+	 */
+	public int getPendingCount() {
+		return pendingTiles.size();
+	}
+
+	/**
+	 * @return how many tiles were rendered (or had their finished jobs swapped in) in the
+	 * last frame
+	 */
+	public int getRenderedCount() {
+		return renderedCount;
+	}
+
+	/**
+	 * @return how many tiles were copied straight from the cache in the last frame
+	 */
+	public int getCopiedCount() {
+		return copiedCount;
+	}
+
+	//********************************************************
+	//* 				   TILE CLASSES						 *
+	//********************************************************
+
+	/**
+	 * Identifies a tile by its zoom level and its column and row in the grid for that level.
+	 */
+	private static class TileKey {
+		private double zoom;
+		private int col;
+		private int row;
+
+		public TileKey set(double zoom, int col, int row) {
+			this.zoom = zoom;
+			this.col = col;
+			this.row = row;
+			return this;
+		}
+
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(zoom);
+			return (int)(bits ^ (bits >>> 32)) * 31 * 31 + col * 31 + row;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof TileKey)) {
+				return false;
+			}
+			TileKey k = (TileKey)o;
+			return k.zoom == zoom && k.col == col && k.row == row;
+		}
+	}
+
+	private static class Tile {
+		private TileKey key;
+		private BufferedImage image;
+		private boolean isDirty;
+		private boolean isBlank;		// has nothing been rendered into the image yet?
+		private int version;			// counts the times the tile has been marked out of date
+		private TileJob job;			// job that is rendering the tile, if any
+		private int lastFrame;			// last frame that the tile was drawn in
+
+		public Tile(TileKey key, BufferedImage image) {
+			this.key = key;
+			this.image = image;
+			isDirty = true;
+			isBlank = true;
+		}
+
+		/**
+		 * Sets Rectangle r to the area of the document that the tile covers, rounded
+		 * outwards to whole document units.
+		 * @param r
+		 * @return r
+		 */
+		public Rectangle getBounds(Rectangle r) {
+			int minX = (int)Math.floor(key.col * TILE_SIZE / key.zoom);
+			int minY = (int)Math.floor(key.row * TILE_SIZE / key.zoom);
+			int maxX = (int)Math.ceil((key.col + 1) * TILE_SIZE / key.zoom);
+			int maxY = (int)Math.ceil((key.row + 1) * TILE_SIZE / key.zoom);
+			r.setBounds(minX, minY, maxX - minX, maxY - minY);
+			return r;
+		}
+	}
+
+	/**
+	 * Renders a tile on a worker thread. The shapes are rebuilt from a snapshot of records,
+	 * so the job never touches the shapes on the canvas, and it renders into its own image, 
+	 * so it never touches what the event thread is drawing either.
+	 */
+	private class TileJob implements Runnable {
+		private final Tile tile;
+		private final TileKey key;
+		private final Rectangle bounds;
+		private final int version;
+		private final List<ShapeRecord> records;
+		private final int pad;
+		private final Color background;
+		private final BufferedImage image;
+		private volatile boolean isCancelled;
+		private Future<?> future;
+
+		public TileJob(Tile tile, List<ShapeRecord> records, int pad, Color background, BufferedImage image) {
+			this.tile = tile;
+			this.key = tile.key;
+			this.bounds = tile.getBounds(new Rectangle());
+			this.version = tile.version;
+			this.records = records;
+			this.pad = pad;
+			this.background = background;
+			this.image = image;
+		}
+
+		public void run() {
+			try {
+				render();
+			} catch (RuntimeException e) {	// keep what was rendered, rather than trying again every frame
+				Trace.error("Couldn't render tile " + key.col + ", " + key.row + " at zoom " + key.zoom, e);
+			}
+			finishedJobs.add(this);
+
+			if (!isCancelled) {
+				canvas.scheduleRepaint();
+			}
+		}
+
+		private void render() {
+			IdentityHashMap<Decoration, Style> styles = new IdentityHashMap<>();	// styles of the shared decorations
+			final Graphics2D tg = image.createGraphics();
+			try {
+				tg.setColor(background);
+				tg.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+				tg.setColor(Color.BLACK);
+				tg.translate(-key.col * TILE_SIZE, -key.row * TILE_SIZE);
+				tg.scale(key.zoom, key.zoom);
+				tg.setRenderingHint(MyShape.KEY_RENDER_SCALE, key.zoom);
+
+				for (int i = 0; i < records.size(); i++) {
+					if (i % CANCEL_CHECK == 0 && isCancelled) {
+						return;
+					}
+					ShapeRecord record = records.get(i);
+
+					if (record.intersects(bounds, pad)) {
+						Style style = styles.get(record.getDecoration());
+						if (style == null) {
+							style = Style.of(record.getDecoration());
+							styles.put(record.getDecoration(), style);
+						}
+						MyShape shape = record.toShape(style);
+
+						if (shape != null) {
+							shape.render(tg);
+						}
+					}
+				}
+			} finally {
+				tg.dispose();
+			}
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package gfx;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+/**
+ * This class keeps track of how far the canvas is zoomed and panned. Shapes always stay in
+ * document space, and the view maps document space onto the screen, so zooming and panning
+ * never have to change the shapes themselves. Only scaling and translation are used, which
+ * lets points be mapped in place without going through the AffineTransform.
+ * @author DavidKramer
+ *
+ */
+public class ViewTransform {
+	public static final double MIN_ZOOM = 0.01;
+	public static final double MAX_ZOOM = 64.0;
+	public static final int ZOOM_STEPS = 256;		// zoom levels per doubling of the zoom
+	private static final double MIN_LEVEL = log2(MIN_ZOOM);
+	private static final double MAX_LEVEL = log2(MAX_ZOOM);
+
+	private double zoom;					// screen pixels per document unit
+	private double zoomLevel;				// log2 of the zoom, before it is snapped to a level
+	private double translateX;				// where the document origin is on screen
+	private double translateY;
+	private Double scaleHint;				// zoom, boxed once for the render scale hint
+	private AffineTransform transform;
+
+	public ViewTransform() {
+		transform = new AffineTransform();
+		reset();
+	}
+
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * Goes back to 100% zoom, with the document origin in the top left corner.
+	 */
+	public void reset() {
+		setView(1.0, 0, 0);
+	}
+
+	/**
+	 * Zooms in (or out) by factor, keeping the document point under screen point x, y
+	 * where it is. The zoom is snapped to one of ZOOM_STEPS levels per doubling, so that
+	 * zooming in and back out by the same steps lands on exactly the zoom it started at, 
+	 * and can reuse the tiles cached for it. Steps too small to reach the next level still
+	 * add up, so that track pads zoom smoothly.
+	 * @param factor
+	 * @param x
+	 * @param y
+	 * @return true if the zoom changed
+	 */
+	public boolean zoomAt(double factor, int x, int y) {
+		double level = Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, zoomLevel + log2(factor)));
+		double newZoom = Math.pow(2, Math.rint(level * ZOOM_STEPS) / ZOOM_STEPS);
+
+		if (newZoom == zoom) {
+			zoomLevel = level;
+			return false;
+		}
+		double docX = (x - translateX) / zoom;
+		double docY = (y - translateY) / zoom;
+		setView(newZoom, x - docX * newZoom, y - docY * newZoom);
+		zoomLevel = level;
+		return true;
+	}
+
+	/**
+	 * Moves the view by dx, dy screen pixels.
+	 * @param dx
+	 * @param dy
+	 */
+	public void pan(double dx, double dy) {
+		setView(zoom, translateX + dx, translateY + dy);
+	}
+
+	public void setView(double zoom, double translateX, double translateY) {
+		if (scaleHint == null || scaleHint.doubleValue() != zoom) {
+			scaleHint = zoom;
+		}
+		this.zoom = zoom;
+		this.zoomLevel = log2(zoom);
+		this.translateX = translateX;
+		this.translateY = translateY;
+		transform.setTransform(zoom, 0, 0, zoom, translateX, translateY);
+	}
+
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
+
+	/**
+	 * Maps screen point p into document space, in place.
+	 * @param p
+	 * @return p
+	 */
+	public Point toDocument(Point p) {
+		p.x = (int)Math.floor((p.x - translateX) / zoom);
+		p.y = (int)Math.floor((p.y - translateY) / zoom);
+		return p;
+	}
+
+	/**
+	 * Maps document point p onto the screen, in place.
+	 * @param p
+	 * @return p
+	 */
+	public Point toScreen(Point p) {
+		p.x = (int)Math.floor(p.x * zoom + translateX);
+		p.y = (int)Math.floor(p.y * zoom + translateY);
+		return p;
+	}
+
+	/**
+	 * Maps screen rectangle r into document space, in place. The result is rounded outwards,
+	 * so that it covers all of r.
+	 * @param r
+	 * @return r
+	 */
+	public Rectangle toDocument(Rectangle r) {
+		int minX = (int)Math.floor((r.x - translateX) / zoom);
+		int minY = (int)Math.floor((r.y - translateY) / zoom);
+		int maxX = (int)Math.ceil((r.x + r.width - translateX) / zoom);
+		int maxY = (int)Math.ceil((r.y + r.height - translateY) / zoom);
+		r.setBounds(minX, minY, maxX - minX, maxY - minY);
+		return r;
+	}
+
+	/**
+	 * Maps document rectangle r onto the screen, in place. The result is rounded outwards,
+	 * so that it covers all of r.
+	 * @param r
+	 * @return r
+	 */
+	public Rectangle toScreen(Rectangle r) {
+		int minX = (int)Math.floor(r.x * zoom + translateX);
+		int minY = (int)Math.floor(r.y * zoom + translateY);
+		int maxX = (int)Math.ceil((r.x + r.width) * zoom + translateX);
+		int maxY = (int)Math.ceil((r.y + r.height) * zoom + translateY);
+		r.setBounds(minX, minY, maxX - minX, maxY - minY);
+		return r;
+	}
+
+	private static double log2(double d) {
+		return Math.log(d) / Math.log(2);
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public double getZoom() {
+		return zoom;
+	}
+
+	public double getTranslateX() {
+		return translateX;
+	}
+
+	public double getTranslateY() {
+		return translateY;
+	}
+
+	/**
+	 * @return the zoom as a Double, for MyShape.KEY_RENDER_SCALE
+	 */
+	public Double getScaleHint() {
+		return scaleHint;
+	}
+
+	/**
+	 * @return the transform from document space to screen space. This is the view's own
+	 * transform, so it shouldn't be modified.
+	 */
+	public AffineTransform getTransform() {
+		return transform;
+	}
+}
@@ -10,6 +10,7 @@ import java.awt.event.MouseWheelListener;
 import javax.swing.SwingUtilities;
 
 import managers.CanvasManager;
+import utils.Trace;
 
 /**
  * This class keeps track of all the mouse input. This is used in conjunction with the canvas
@@ -21,6 +22,7 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 	private CanvasManager canvasManager;
 	
 	// Mouse Input Constants
+	public static final int NO_EVENT = -1;
 	public static final int EVENT_CLICK = 0;
 	public static final int EVENT_RIGHT_CLICK = 1;
 	public static final int EVENT_DRAG = 2;
@@ -39,16 +41,24 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 	private Point dragPt;
 	private Point endPt;
 	private Point directionPt;				// useful to keep track of direction we are moving
+	private Point screenPt;					// where the last event was on screen, not in the document
 	
 	private boolean isDragging;
 	private boolean isPressed;
 	private boolean didRightClick;
 	private boolean isMeasuring;
+	private boolean isControlDown;
+	private boolean isShiftDown;
+	private boolean isAltDown;
 	
 	private int clickCount;
 	private int wheelRotateCount;
+	private double wheelRotation;			// precise wheel rotation, which can be part of a notch
 	private int moveDirection;				// are we moving more x, or more y?
 	
+	private int pendingMotion;				// drag or move event waiting for the next frame
+	private Runnable motionTask;
+	
 	public Mouse(CanvasManager canvasManager) {
 		this.canvasManager = canvasManager;
 		init();
@@ -58,27 +68,30 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 	//* 				    MOUSE METHODS					 *
 	//********************************************************
 
+	/**
+	 * Drag and move events only keep track of where the mouse is. They are handled once a
+	 * frame, with the latest position, however many of them came in since the last frame.
+	 */
 	public void mouseDragged(MouseEvent e) {
 		isDragging = true;
 		isPressed = true;
-		dragPt = e.getPoint();
-		canvasManager.handleMouse(Mouse.EVENT_DRAG);
-//		canvasManager.handleDrag();
+		track(e);
+		queueMotion(Mouse.EVENT_DRAG);
 //		updateMoveDirection();	// TODO move direction not quite working yet
 	}
 
 	public void mouseMoved(MouseEvent e) {
 		isDragging = false;
 		isPressed = false;
-		movePt = e.getPoint();
-		canvasManager.handleMouse(Mouse.EVENT_MOVE);
-//		canvasManager.handleMove();
+		track(e);
+		queueMotion(Mouse.EVENT_MOVE);
 	}
 
 	public void mousePressed(MouseEvent e) {
+		handleMotion();
 		isDragging = false;
 		isPressed = true;
-		clickPt = e.getPoint();
+		clickPt = toDocument(e);
 		clickCount = e.getClickCount();
 		didRightClick = SwingUtilities.isRightMouseButton(e) ? true : false;
 		
@@ -90,13 +103,22 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 	}
 
 	public void mouseReleased(MouseEvent e) {
+		handleMotion();
 		isDragging = false;
 		isPressed = false;
-		endPt = e.getPoint();
+		endPt = toDocument(e);
 		canvasManager.handleMouse(Mouse.EVENT_RELEASE);
 //		canvasManager.handleRelease();
 	}
 	
+	public void mouseWheelMoved(MouseWheelEvent e) {
+		handleMotion();
+		toDocument(e);
+		wheelRotateCount = e.getWheelRotation();
+		wheelRotation = e.getPreciseWheelRotation();
+		canvasManager.handleMouse(Mouse.EVENT_SCROLL);
+	}
+	
 	//********************************************************
 	//* 				 UNUSED MOUSE METHODS				 *
 	//********************************************************
@@ -104,7 +126,6 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 	public void mouseClicked(MouseEvent e) {}
 	public void mouseEntered(MouseEvent e) {}
 	public void mouseExited(MouseEvent e) {}
-	public void mouseWheelMoved(MouseWheelEvent e) {}
 	
 	//********************************************************
 	//* 				  UTILITY METHODS					 *
@@ -118,8 +139,70 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 		movePt = new Point(0, 0);
 		dragPt = new Point(0, 0);
 		endPt = new Point(0, 0);
+		screenPt = new Point(0, 0);
+		pendingMotion = NO_EVENT;
+		motionTask = this::handleMotion;
 	} 
 	
+	/**
+	 * Waits for the next frame to handle a drag or move event. A later drag or move event
+	 * replaces this one, if it comes in before then.
+	 * @param event
+	 */
+	private void queueMotion(int event) {
+		if (pendingMotion == NO_EVENT) {
+			canvasManager.getCanvas().getFrameScheduler().requestFrame(motionTask);
+		}
+		pendingMotion = event;
+	}
+	
+	/**
+	 * Handles the drag or move event that is waiting for the next frame, if there is one.
+	 * This is also done before any other event, so that events are always handled in the
+	 * order they came in. The mouse is mapped into document space only now, in case the
+	 * view has changed since the event came in.
+	 */
+	private void handleMotion() {
+		int event = pendingMotion;
+		
+		if (event == NO_EVENT) {
+			return;
+		}
+		pendingMotion = NO_EVENT;
+		Point p = canvasManager.getCanvas().getView().toDocument(new Point(screenPt));
+		
+		if (event == Mouse.EVENT_DRAG) {
+			dragPt = p;
+		} else {
+			movePt = p;
+		}
+		canvasManager.handleMouse(event);
+	}
+	
+	/**
+	 * Keeps track of where event e was on screen and which modifier keys were held down,
+	 * and counts it for the canvas metrics.
+	 * @param e
+	 */
+	private void track(MouseEvent e) {
+		canvasManager.getCanvas().getMetrics().inputEvent();
+		screenPt.setLocation(e.getX(), e.getY());
+		isControlDown = e.isControlDown() || e.isMetaDown();
+		isShiftDown = e.isShiftDown();
+		isAltDown = e.isAltDown();
+	}
+	
+	/**
+	 * Keeps track of event e, and maps its point into document space, which is where the
+	 * shapes are.
+	 * @param e
+	 * @return the point of e in document space
+	 */
+	private Point toDocument(MouseEvent e) {
+		track(e);
+		return canvasManager.getCanvas().getView().toDocument(e.getPoint());
+	}
+	
 	/**
 	 * Updates the direction which we are moving the mouse
 	 */
@@ -132,12 +215,11 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 		int dy = dragPt.y - directionPt.y;
 		
 		directionPt = new Point(dragPt.x + dx, dragPt.y + dy);
-		System.out.println(directionPt);
 		
 		if (directionPt.x > directionPt.y) {
 			moveDirection = MOVE_LEFT;
 		} else if (directionPt.x < directionPt.y) {
-			System.out.println("Moving On Y-Axis!");
+			Trace.debug("Moving On Y-Axis!");
 			moveDirection = MOVE_RIGHT;
 		}
 		
@@ -188,4 +270,30 @@ public class Mouse implements MouseListener, MouseMotionListener, MouseWheelList
 		return wheelRotateCount;
 	}
 	
+	/**
+	 * @return how far the wheel was turned in the last scroll event, in notches
+	 */
+	public double getWheelRotation() {
+		return wheelRotation;
+	}
+	
+	/**
+	 * @return where the last mouse event was on screen (in canvas space)
+	 */
+	public Point getScreenPt() {
+		return screenPt;
+	}
+	
+	public boolean isControlDown() {
+		return isControlDown;
+	}
+	
+	public boolean isShiftDown() {
+		return isShiftDown;
+	}
+	
+	public boolean isAltDown() {
+		return isAltDown;
+	}
+	
 }
@@ -0,0 +1,24 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded each time a decoration is applied to the selected shapes.
+ * @author DavidKramer
+ *
+ */
+@Name("jraw.Decorate")
+@Label("Decorate")
+@Category("JRaw")
+@Description("A fill and / or stroke applied to the selected shapes")
+public class DecorateEvent extends jdk.jfr.Event {
+	@Label("Operation")
+	@Description("fill, stroke or fill and stroke")
+	public String operation;
+
+	@Label("Shape Count")
+	public int shapeCount;
+}
@@ -0,0 +1,35 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded each time a document is read or written.
+ * @author DavidKramer
+ *
+ */
+@Name("jraw.File")
+@Label("File")
+@Category("JRaw")
+@Description("A document read from or written to a .jraw file")
+public class FileEvent extends jdk.jfr.Event {
+	public static final String READ = "read";
+	public static final String WRITE = "write";
+
+	@Label("Operation")
+	@Description("read or write")
+	public String operation;
+
+	@Label("Path")
+	public String path;
+
+	@Label("Shape Count")
+	public int shapeCount;
+
+	@Label("Bytes")
+	@DataAmount(DataAmount.BYTES)
+	public long bytes;
+}
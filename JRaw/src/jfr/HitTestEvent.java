@@ -0,0 +1,30 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded each time the selection checks which shapes it hits, either under a click or
+ * inside of a dragged area.
+ * @author DavidKramer
+ *
+ */
+@Name("jraw.HitTest")
+@Label("Hit Test")
+@Category("JRaw")
+@Description("Shapes found under a click, or inside of a selection area")
+public class HitTestEvent extends jdk.jfr.Event {
+	@Label("Operation")
+	@Description("point, area or parallel area")
+	public String operation;
+
+	@Label("Candidates")
+	@Description("Shapes the spatial index found, which then had to be checked")
+	public int candidates;
+
+	@Label("Shape Count")
+	@Description("Shapes that were selected")
+	public int shapeCount;
+}
@@ -0,0 +1,197 @@
+package jfr;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the JRaw events in a flight recording, so that a recording of a slow session
+ * can be looked at without any other tools. Events are grouped by type and operation, and
+ * the groups that took the most time in total are listed first, followed by the slowest
+ * single events. Run it with
+ * <pre>
+ * java -cp jraw.jar jfr.JfrAnalyzer recording.jfr [top]
+ * </pre>
+ * A recording can be made by starting JRaw with -XX:StartFlightRecording=filename=jraw.jfr,
+ * or with jcmd &lt;pid&gt; JFR.start while it is running.
+ * @author DavidKramer
+ *
+ */
+public class JfrAnalyzer {
+	public static final String EVENT_PREFIX = "jraw.";
+	public static final int DEFAULT_TOP = 10;
+
+	private HashMap<String, Operation> operations;
+	private PriorityQueue<RecordedEvent> slowest;		// fastest of the slowest events first
+	private int top;
+	private long eventCount;
+
+	public JfrAnalyzer(int top) {
+		this.top = top;
+		operations = new HashMap<>();
+		slowest = new PriorityQueue<>((a, b) -> a.getDuration().compareTo(b.getDuration()));
+	}
+
+	//********************************************************
+	//* 				  ANALYZING METHODS					 *
+	//********************************************************
+
+	/**
+	 * Reads every JRaw event in the recording at path. Other events are skipped.
+	 * @param path
+	 * @throws IOException
+	 */
+	public void read(Path path) throws IOException {
+		try (RecordingFile file = new RecordingFile(path)) {
+			while (file.hasMoreEvents()) {
+				RecordedEvent event = file.readEvent();
+
+				if (event.getEventType().getName().startsWith(EVENT_PREFIX)) {
+					add(event);
+				}
+			}
+		}
+	}
+
+	private void add(RecordedEvent event) {
+		String key = getOperationName(event);
+		Operation operation = operations.get(key);
+
+		if (operation == null) {
+			operation = new Operation(key);
+			operations.put(key, operation);
+		}
+		operation.add(event);
+		eventCount++;
+
+		slowest.add(event);
+		if (slowest.size() > top) {
+			slowest.poll();
+		}
+	}
+
+	/**
+	 * Prints the operations that took the most time, and then the slowest events.
+	 * @param out
+	 */
+	public void print(PrintStream out) {
+		ArrayList<Operation> sorted = new ArrayList<>(operations.values());
+		sorted.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+
+		out.printf("%d JRaw events, %d operations%n%n", eventCount, sorted.size());
+		out.printf("%-36s %8s %10s %9s %9s %9s %10s %10s%n",
+				   "Hottest operations", "count", "total ms", "mean ms", "p95 ms", "max ms", "shapes", "bytes");
+		for (int i = 0; i < Math.min(top, sorted.size()); i++) {
+			Operation op = sorted.get(i);
+			out.printf("%-36s %8d %10.1f %9.3f %9.3f %9.3f %10d %10d%n", op.name, op.count,
+					   op.totalNanos / 1e6, op.totalNanos / 1e6 / op.count, op.getPercentile(0.95) / 1e6,
+					   op.getPercentile(1.0) / 1e6, op.shapeCount, op.bytes);
+		}
+
+		RecordedEvent[] events = slowest.toArray(new RecordedEvent[0]);
+		Arrays.sort(events, (a, b) -> b.getDuration().compareTo(a.getDuration()));
+
+		out.printf("%n%-36s %10s  %s%n", "Slowest events", "ms", "started at");
+		for (RecordedEvent event : events) {
+			out.printf("%-36s %10.3f  %s%n", getOperationName(event),
+					   event.getDuration().toNanos() / 1e6, event.getStartTime());
+		}
+	}
+
+	/**
+	 * @param event
+	 * @return the type of event, along with its operation if it has one, such as
+	 * "MouseHandler selection drag"
+	 */
+	private static String getOperationName(RecordedEvent event) {
+		String name = event.getEventType().getName().substring(EVENT_PREFIX.length());
+
+		if (event.hasField("operation")) {
+			String operation = event.getString("operation");
+
+			if (operation != null) {
+				return name + " " + operation;
+			}
+		}
+		return name;
+	}
+
+	//********************************************************
+	//* 				    MAIN METHOD						 *
+	//********************************************************
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: java jfr.JfrAnalyzer recording.jfr [top]");
+			System.exit(2);
+		}
+		JfrAnalyzer analyzer = new JfrAnalyzer(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TOP);
+
+		try {
+			analyzer.read(Paths.get(args[0]));
+		} catch (IOException e) {
+			System.err.println("Couldn't read " + args[0] + ": " + e.getMessage());
+			System.exit(1);
+		}
+		analyzer.print(System.out);
+	}
+
+	//********************************************************
+	//* 				  OPERATION CLASS					 *
+	//********************************************************
+
+	/**
+	 * Durations and totals of every event of one operation.
+	 */
+	private static class Operation {
+		private String name;
+		private long[] durations = new long[16];		// in nanoseconds
+		private int count;
+		private long totalNanos;
+		private long shapeCount;
+		private long bytes;
+		private boolean isSorted;
+
+		public Operation(String name) {
+			this.name = name;
+		}
+
+		public void add(RecordedEvent event) {
+			long nanos = event.getDuration().toNanos();
+
+			if (count == durations.length) {
+				durations = Arrays.copyOf(durations, count * 2);
+			}
+			durations[count++] = nanos;
+			totalNanos += nanos;
+			isSorted = false;
+
+			if (event.hasField("shapeCount")) {
+				shapeCount += event.getInt("shapeCount");
+			}
+			if (event.hasField("bytes")) {
+				bytes += event.getLong("bytes");
+			}
+		}
+
+		/**
+		 * @param p
+		 * @return the duration that p of the events were at least as fast as
+		 */
+		public long getPercentile(double p) {
+			if (!isSorted) {
+				Arrays.sort(durations, 0, count);
+				isSorted = true;
+			}
+			return durations[Math.max(0, (int)Math.ceil(p * count) - 1)];
+		}
+	}
+}
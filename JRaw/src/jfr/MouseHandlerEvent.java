@@ -0,0 +1,29 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded each time the canvas manager hands a mouse event to one of its managers.
+ * @author DavidKramer
+ *
+ */
+@Name("jraw.MouseHandler")
+@Label("Mouse Handler")
+@Category("JRaw")
+@Description("A mouse event handled by the selection, shape or view manager")
+public class MouseHandlerEvent extends jdk.jfr.Event {
+	public static final String[] EVENT_NAMES = { "click", "right click", "drag", "move", "release", "scroll" };
+
+	@Label("Operation")
+	@Description("Which manager handled which kind of mouse event")
+	public String operation;
+
+	@Label("Shape Count")
+	public int shapeCount;
+
+	@Label("Selected Count")
+	public int selectedCount;
+}
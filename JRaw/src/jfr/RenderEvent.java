@@ -0,0 +1,44 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded for each frame that the canvas paints.
+ * @author DavidKramer
+ *
+ */
+@Name("jraw.Render")
+@Label("Render")
+@Category("JRaw")
+@Description("A frame painted by the canvas")
+public class RenderEvent extends jdk.jfr.Event {
+	public static final String[] MODE_NAMES = { "direct", "layered", "tiled" };	// by Canvas.RENDER_ mode
+
+	@Label("Operation")
+	@Description("How the committed shapes were rendered")
+	public String operation;
+
+	@Label("Shape Count")
+	public int shapeCount;
+
+	@Label("Shapes Drawn")
+	public int shapesDrawn;
+
+	@Label("Tiles Rendered")
+	public int tilesRendered;
+
+	@Label("Tiles Copied")
+	public int tilesCopied;
+
+	@Label("Clip Width")
+	public int clipWidth;
+
+	@Label("Clip Height")
+	public int clipHeight;
+
+	@Label("Zoom")
+	public double zoom;
+}
@@ -0,0 +1,13 @@
+package legacy;
+
+import java.awt.Point;
+
+/**
+ * The serialized form of an anchor pt saved by an older version of JRaw. Only its
+ * location is kept.
+ * @author DavidKramer
+ *
+ */
+public class AnchorPoint extends Point {
+	private static final long serialVersionUID = 8031825127924833441L;
+}
@@ -0,0 +1,13 @@
+package legacy;
+
+import java.io.Serializable;
+
+/**
+ * The serialized form of the bounding box of a shape saved by an older version of
+ * JRaw. It is built again from the pts of the shape, so none of it is kept.
+ * @author DavidKramer
+ *
+ */
+public class BoundingBox implements Serializable {
+	private static final long serialVersionUID = 4427756068366179630L;
+}
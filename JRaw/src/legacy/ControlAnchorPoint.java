@@ -0,0 +1,10 @@
+package legacy;
+
+/**
+ * The serialized form of a control pt of a curve saved by an older version of JRaw.
+ * @author DavidKramer
+ *
+ */
+public class ControlAnchorPoint extends AnchorPoint {
+	private static final long serialVersionUID = 2807498649516606485L;
+}
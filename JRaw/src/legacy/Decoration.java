@@ -0,0 +1,36 @@
+package legacy;
+
+import java.awt.Color;
+import java.io.Serializable;
+
+/**
+ * The serialized form of a decoration saved by an older version of JRaw. Its gradient
+ * and stroke were never saved, so the stroke is built again from its width, cap and join.
+ * @author DavidKramer
+ *
+ */
+public class Decoration implements Serializable {
+	private static final long serialVersionUID = -6241279863214032387L;
+	
+	private Color fillColor;
+	private Color strokeColor;
+	
+	private boolean hasGradient;
+	private boolean hasFill;
+	private boolean hasStroke;
+	
+	private int cap;
+	private int join;
+	private float strokeWidth;
+	
+	public gfx.Decoration toDecoration() {
+		gfx.Decoration d = new gfx.Decoration(fillColor, strokeColor, gfx.Decoration.DEFAULT_STROKE);
+		d.setHasFill(hasFill);
+		d.setHasStroke(hasStroke);
+		d.setHasGradient(hasGradient);
+		d.setCapType(cap);
+		d.setJoinType(join);
+		d.setStrokeWidth(strokeWidth);
+		return d;
+	}
+}
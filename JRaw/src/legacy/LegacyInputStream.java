@@ -0,0 +1,102 @@
+package legacy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import gfx.Style;
+
+/**
+ * Reads the shapes of a document that was saved with java serialization by an older
+ * version of JRaw. The classes in that stream no longer match the shapes they were named
+ * after, so each of them is read into the class of the same name in this package instead,
+ * which only knows what the old class looked like, and is then converted to a new shape.
+ * Any other class in the stream is rejected, since the old format never had one.
+ * @author DavidKramer
+ *
+ */
+public class LegacyInputStream extends ObjectInputStream {
+	// Old Classes And The Legacy Classes That They Are Read Into
+	private static final HashMap<String, Class<?>> LEGACY_CLASSES = new HashMap<>();
+	static {
+		List<Class<?>> classes = Arrays.asList(MyShape.class, MyRect.class, MyCircle.class, MyLine.class,
+				MyPoly.class, MyPath.class, MySpline.class, AnchorPoint.class, ControlAnchorPoint.class,
+				BoundingBox.class, RectHandle.class, Point2D.class);
+		for (Class<?> c : classes) {
+			LEGACY_CLASSES.put("shapes." + c.getSimpleName(), c);
+		}
+		LEGACY_CLASSES.put("gfx.Decoration", Decoration.class);
+	}
+
+	// Library Classes That Old Shapes Are Made Of
+	private static final HashSet<String> LIBRARY_CLASSES = new HashSet<>(Arrays.asList(
+			"java.util.ArrayList", "java.awt.Point", "java.awt.Rectangle", "java.awt.Color",
+			"java.awt.Cursor", "[F"));
+
+	public LegacyInputStream(InputStream in) throws IOException {
+		super(in);
+	}
+
+	/**
+	 * Reads the list of shapes that an old document consists of, and converts them. Shapes
+	 * that shared a decoration share one style.
+	 * @return the shapes of the document
+	 * @throws IOException
+	 */
+	public ArrayList<shapes.MyShape> readShapes() throws IOException {
+		Object document;
+		try {
+			document = readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+
+		if (!(document instanceof ArrayList)) {
+			throw new IOException("Not a JRaw document!");
+		}
+		ArrayList<?> oldShapes = (ArrayList<?>)document;
+		ArrayList<shapes.MyShape> shapes = new ArrayList<>(oldShapes.size());
+		IdentityHashMap<Decoration, Style> styles = new IdentityHashMap<>();	// style of each old decoration
+
+		for (int i = 0; i < oldShapes.size(); i++) {
+			if (!(oldShapes.get(i) instanceof MyShape)) {
+				throw new IOException("Not a JRaw shape: " + oldShapes.get(i));
+			}
+			MyShape oldShape = (MyShape)oldShapes.get(i);
+			shapes.MyShape shape = oldShape.toShape();
+
+			Decoration d = oldShape.getDecoration();
+			Style style = styles.get(d);
+			if (style == null) {
+				style = Style.of(d != null ? d.toDecoration() : new gfx.Decoration());
+				styles.put(d, style);
+			}
+			shape.setStyle(style);
+			shape.setZIndex(oldShape.getZIndex());
+			shapes.add(shape);
+		}
+		return shapes;
+	}
+
+	/**
+	 * Maps each old class onto the legacy class of the same name. The stream's descriptor
+	 * is still used to read it, so the fields that the legacy class doesn't declare are skipped.
+	 */
+	protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+		Class<?> c = LEGACY_CLASSES.get(desc.getName());
+		if (c != null) {
+			return c;
+		} else if (LIBRARY_CLASSES.contains(desc.getName())) {
+			return super.resolveClass(desc);
+		}
+		throw new InvalidClassException(desc.getName(), "Not part of an old JRaw document");
+	}
+}
@@ -0,0 +1,14 @@
+package legacy;
+
+/**
+ * The serialized form of a circle saved by an older version of JRaw.
+ * @author DavidKramer
+ *
+ */
+public class MyCircle extends MyShape {
+	private static final long serialVersionUID = 9011815260320260304L;
+	
+	public shapes.MyShape toShape() {
+		return withPts(new shapes.MyCircle());
+	}
+}
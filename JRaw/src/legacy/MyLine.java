@@ -0,0 +1,17 @@
+package legacy;
+
+/**
+ * The serialized form of a line saved by an older version of JRaw. Unlike the other
+ * shapes, its start pt isn't always the smaller one.
+ * @author DavidKramer
+ *
+ */
+public class MyLine extends MyShape {
+	private static final long serialVersionUID = -7102430926444999706L;
+	
+	public shapes.MyShape toShape() {
+		shapes.MyLine line = new shapes.MyLine();
+		line.setLine(startPt.x, startPt.y, endPt.x, endPt.y);
+		return line;
+	}
+}
@@ -0,0 +1,22 @@
+package legacy;
+
+import java.util.ArrayList;
+
+/**
+ * The serialized form of a path saved by an older version of JRaw.
+ * @author DavidKramer
+ *
+ */
+public class MyPath extends MyPoly {
+	private static final long serialVersionUID = -8363270405261761508L;
+	
+	private ArrayList<MySpline> curves;
+	
+	public shapes.MyShape toShape() {
+		ArrayList<shapes.MySpline> splines = new ArrayList<>(curves.size());
+		for (int i = 0; i < curves.size(); i++) {
+			splines.add(curves.get(i).toSpline());
+		}
+		return new shapes.MyPath(toPts(), splines);
+	}
+}
@@ -0,0 +1,31 @@
+package legacy;
+
+import java.util.ArrayList;
+
+import shapes.VertexStore;
+
+/**
+ * The serialized form of a poly saved by an older version of JRaw. A closed poly
+ * ends with its first pt, the same way it does now.
+ * @author DavidKramer
+ *
+ */
+public class MyPoly extends MyShape {
+	private static final long serialVersionUID = -1703395590355192476L;
+	
+	protected ArrayList<AnchorPoint> anchorPts;
+	protected boolean isClosed;
+	
+	public shapes.MyShape toShape() {
+		return shapes.MyPoly.createFromPts(toPts(), isClosed);
+	}
+	
+	protected VertexStore toPts() {
+		VertexStore pts = new VertexStore(anchorPts.size());
+		for (int i = 0; i < anchorPts.size(); i++) {
+			AnchorPoint pt = anchorPts.get(i);
+			pts.add(pt.x, pt.y);
+		}
+		return pts;
+	}
+}
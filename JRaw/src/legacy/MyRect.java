@@ -0,0 +1,14 @@
+package legacy;
+
+/**
+ * The serialized form of a rect saved by an older version of JRaw.
+ * @author DavidKramer
+ *
+ */
+public class MyRect extends MyShape {
+	private static final long serialVersionUID = -7696435552869658013L;
+	
+	public shapes.MyShape toShape() {
+		return withPts(new shapes.MyRect());
+	}
+}
@@ -0,0 +1,47 @@
+package legacy;
+
+import java.awt.Point;
+import java.io.Serializable;
+
+/**
+ * The serialized form of a shape saved by an older version of JRaw, before shapes were
+ * written in the binary .jraw format. Only the fields that are needed to convert the shape
+ * are declared, the rest of them are read and thrown away.
+ * @author DavidKramer
+ *
+ */
+public abstract class MyShape implements Serializable {
+	private static final long serialVersionUID = -5533859654146944902L;
+	
+	protected Point startPt;
+	protected Point endPt;
+	protected Decoration decoration;
+	protected int zIndex;
+	
+	/**
+	 * @return a new shape with the geometry of this one. Its style and z-index are set
+	 * by the caller.
+	 */
+	public abstract shapes.MyShape toShape();
+	
+	public Decoration getDecoration() {
+		return decoration;
+	}
+	
+	public int getZIndex() {
+		return zIndex;
+	}
+	
+	/**
+	 * Sets the geometry of a rect or circle to the start and end pts of this shape.
+	 * @param shape
+	 * @return shape
+	 */
+	protected shapes.MyShape withPts(shapes.MyShape shape) {
+		shape.setStartPt(new Point(startPt));	// checked against the (0, 0) end pt, so it is set again below
+		shape.setEndPt(new Point(endPt));
+		shape.setStartPt(new Point(startPt));
+		shape.update();
+		return shape;
+	}
+}
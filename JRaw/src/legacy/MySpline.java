@@ -0,0 +1,26 @@
+package legacy;
+
+import java.io.Serializable;
+
+/**
+ * The serialized form of a curve of a path saved by an older version of JRaw.
+ * @author DavidKramer
+ *
+ */
+public class MySpline implements Serializable {
+	private static final long serialVersionUID = 811527610016245996L;
+	
+	private AnchorPoint p0;
+	private ControlAnchorPoint c1;
+	private ControlAnchorPoint c2;
+	private AnchorPoint p3;
+	
+	public shapes.MySpline toSpline() {
+		shapes.MySpline spline = new shapes.MySpline();
+		spline.setP0(new shapes.AnchorPoint(p0.x, p0.y));
+		spline.setC1(new shapes.ControlAnchorPoint(c1.x, c1.y));
+		spline.setC2(new shapes.ControlAnchorPoint(c2.x, c2.y));
+		spline.setP3(new shapes.AnchorPoint(p3.x, p3.y));
+		return spline;
+	}
+}
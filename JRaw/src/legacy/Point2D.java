@@ -0,0 +1,13 @@
+package legacy;
+
+import java.awt.Rectangle;
+
+/**
+ * The serialized form of the last pt worked out on a curve by an older version of
+ * JRaw. None of it is kept.
+ * @author DavidKramer
+ *
+ */
+public class Point2D extends Rectangle {
+	private static final long serialVersionUID = -8844201575294844397L;
+}
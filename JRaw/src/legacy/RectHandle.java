@@ -0,0 +1,13 @@
+package legacy;
+
+import java.awt.Rectangle;
+
+/**
+ * The serialized form of a resize handle of a bounding box saved by an older version
+ * of JRaw. None of it is kept.
+ * @author DavidKramer
+ *
+ */
+public class RectHandle extends Rectangle {
+	private static final long serialVersionUID = -4952427914354537000L;
+}
@@ -0,0 +1,246 @@
+package main;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import gfx.Canvas;
+import shapes.MyShape;
+import utils.JRawCodec;
+
+/**
+ * This class renders .jraw files to PNG images without a display, such as on a build
+ * server. Each file is rendered on its own worker thread, so many files render in parallel.
+ *
+ * Usage: java -cp jraw.jar main.BatchRenderer [-scale s] [-threads n] [-out dir] files...
+ *
+ * Directories are expanded to the .jraw files in them. Images are written next to each
+ * file, or to the -out directory, with the .jraw extension replaced with .png.
+ * @author DavidKramer
+ *
+ */
+public class BatchRenderer {
+	public static final String EXTENSION = ".jraw";
+	public static final int MAX_DIMENSION = 16384;		// largest width / height of an image
+
+	private double scale;
+	private File outDir;
+	private Color background;
+
+	public BatchRenderer(double scale, File outDir) {
+		this.scale = scale;
+		this.outDir = outDir;
+		background = Color.WHITE;
+	}
+
+	//********************************************************
+	//* 				 RENDERING METHODS					 *
+	//********************************************************
+
+	/**
+	 * Renders a list of files on a pool of worker threads.
+	 * @param files
+	 * @param threads
+	 * @return the number of files that couldn't be rendered
+	 */
+	public int renderAll(List<File> files, int threads) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<File>> results = new ArrayList<>(files.size());
+		int failed = 0;
+
+		try {
+			for (int i = 0; i < files.size(); i++) {
+				File file = files.get(i);
+				results.add(pool.submit(() -> render(file)));
+			}
+
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					System.out.println(results.get(i).get().getPath());
+				} catch (ExecutionException e) {
+					System.err.println("Couldn't render " + files.get(i) + ": " + e.getCause());
+					failed++;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failed += files.size();
+		} finally {
+			pool.shutdownNow();
+		}
+		return failed;
+	}
+
+	/**
+	 * Renders a single file to a PNG image.
+	 * @param file
+	 * @return the image file that was written
+	 * @throws IOException
+	 */
+	public File render(File file) throws IOException {
+		ArrayList<MyShape> shapes = JRawCodec.read(file.getPath());
+		BufferedImage image = render(shapes);
+		File imageFile = getImageFile(file);
+
+		if (!ImageIO.write(image, "png", imageFile)) {
+			throw new IOException("No PNG writer available");
+		}
+		return imageFile;
+	}
+
+	/**
+	 * Renders shapes into an image that just fits around them (including their strokes).
+	 * @param shapes
+	 * @return
+	 */
+	public BufferedImage render(List<MyShape> shapes) {
+		Rectangle bounds = getBounds(shapes);
+		double s = Math.min(scale, (double)MAX_DIMENSION / Math.max(bounds.width, bounds.height));
+		int width = Math.max(1, (int)Math.ceil(bounds.width * s));
+		int height = Math.max(1, (int)Math.ceil(bounds.height * s));
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g2d = image.createGraphics();
+		try {
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+			g2d.setColor(background);
+			g2d.fillRect(0, 0, width, height);
+			g2d.scale(s, s);
+			g2d.translate(-bounds.x, -bounds.y);
+			g2d.setColor(Color.BLACK);
+
+			for (int i = 0; i < shapes.size(); i++) {
+				shapes.get(i).render(g2d);
+			}
+		} finally {
+			g2d.dispose();
+		}
+		return image;
+	}
+
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
+
+	/**
+	 * @param shapes
+	 * @return the area that the shapes are drawn in, which is never empty
+	 */
+	private static Rectangle getBounds(List<MyShape> shapes) {
+		Rectangle bounds = null;
+
+		for (int i = 0; i < shapes.size(); i++) {
+			MyShape shape = shapes.get(i);
+			Rectangle r = new Rectangle(shape.getBoundRect());
+			int pad = (int)Math.ceil(shape.getDecoration().getStrokeWidth() * Canvas.MITER_PAD);
+			r.grow(pad, pad);
+
+			if (bounds == null) {
+				bounds = r;
+			} else {
+				bounds.add(r);
+			}
+		}
+
+		if (bounds == null || bounds.isEmpty()) {
+			return new Rectangle(0, 0, 1, 1);
+		}
+		return bounds;
+	}
+
+	private File getImageFile(File file) {
+		String name = file.getName();
+
+		if (name.toLowerCase().endsWith(EXTENSION)) {
+			name = name.substring(0, name.length() - EXTENSION.length());
+		}
+		File dir = outDir != null ? outDir : file.getAbsoluteFile().getParentFile();
+		return new File(dir, name + ".png");
+	}
+
+	/**
+	 * Adds a file to the list, or the .jraw files in it if it is a directory.
+	 * @param file
+	 * @param files
+	 */
+	private static void addFiles(File file, ArrayList<File> files) {
+		if (file.isDirectory()) {
+			File[] list = file.listFiles((dir, name) -> name.toLowerCase().endsWith(EXTENSION));
+
+			if (list != null) {
+				Arrays.sort(list);
+				for (int i = 0; i < list.length; i++) {
+					files.add(list[i]);
+				}
+			}
+		} else {
+			files.add(file);
+		}
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: java -cp jraw.jar main.BatchRenderer [-scale s] [-threads n] [-out dir] files...");
+	}
+
+	/**
+	 * Main method that renders the files given on the command line.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");	// before anything touches AWT
+
+		double scale = 1.0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		File outDir = null;
+		ArrayList<File> files = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-scale")) {
+					scale = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("-threads")) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-out")) {
+					outDir = new File(args[++i]);
+				} else {
+					addFiles(new File(args[i]), files);
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+			printUsage();
+			System.exit(2);
+		}
+
+		if (files.isEmpty() || scale <= 0 || threads < 1) {
+			printUsage();
+			System.exit(2);
+		}
+
+		if (outDir != null && !outDir.isDirectory() && !outDir.mkdirs()) {
+			System.err.println("Couldn't create " + outDir);
+			System.exit(1);
+		}
+
+		long start = System.nanoTime();
+		int failed = new BatchRenderer(scale, outDir).renderAll(files, threads);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.err.printf("Rendered %d of %d files in %.2f s (%.1f files/sec)%n",
+						  files.size() - failed, files.size(), seconds, (files.size() - failed) / seconds);
+		System.exit(failed > 0 ? 1 : 0);
+	}
+}
@@ -4,18 +4,15 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 
 import javax.swing.JFrame;
-import javax.swing.JScrollPane;
 
 import gfx.Canvas;
 import menus.MyMenu;
 import panels.SwatchPanel;
 import tools.ToolBar;
+import utils.Trace;
 
 public class JRaw extends JFrame {
 	public static final String TITLE = "JRaw Version 2.0.1a by David Kramer";
-	private static final Dimension MAX_SIZE = new Dimension(5000, 5000);	// arbitrary value, but gives enough of a
-																			// blank canvas to scroll around
-	private JScrollPane scrollPane;
 	private SwatchPanel swatchPanel;
 	private Canvas canvas;
 	private ToolBar toolBar;
@@ -30,14 +27,13 @@ public class JRaw extends JFrame {
 	 */
 	private void init() {
 		canvas = new Canvas();
-		canvas.setPreferredSize(MAX_SIZE);
-		canvas.setMaximumSize(MAX_SIZE);
+		canvas.getMetrics().register();
 		
 		toolBar = new ToolBar(canvas);
 		swatchPanel = new SwatchPanel(canvas);
 		menu = new MyMenu(canvas);
 		
-		createScrollPane();
+		canvas.setSwatchPanel(swatchPanel);
 		addComponents();
 		
 		setTitle(TITLE);
@@ -51,26 +47,6 @@ public class JRaw extends JFrame {
 		setVisible(true);
 	}
 	
-	/**
-	 * Creates the scrollable area for the canvas so that the user can move 
-	 * around if objects are outside of the visible view. 
-	 */
-	private void createScrollPane() {
-		// scroll pane for moving around canvas view
-		scrollPane = new JScrollPane();
-		scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_ALWAYS);
-		scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
-		scrollPane.setViewportView(canvas);
-		scrollPane.getViewport().setPreferredSize(canvas.getPreferredSize());
-		scrollPane.revalidate();
-		scrollPane.invalidate();
-		scrollPane.repaint();
-		scrollPane.setWheelScrollingEnabled(true);
-		scrollPane.setOpaque(false);
-		canvas.setScrollPane(scrollPane);
-		canvas.setSwatchPanel(swatchPanel);
-	}
-	
 	/**
 	 * Adds components to the main window.
 	 */
@@ -78,7 +54,7 @@ public class JRaw extends JFrame {
 		setLayout(new BorderLayout());
 		add(toolBar, BorderLayout.WEST);
 		add(swatchPanel, BorderLayout.SOUTH);
-		add(scrollPane, BorderLayout.CENTER);
+		add(canvas, BorderLayout.CENTER);	// fills the window, and is panned by its view rather than scrolled
 	}
 
 	/**
@@ -86,6 +62,7 @@ public class JRaw extends JFrame {
 	 * @param args
 	 */
 	public static void main(String[] args) {
+		Trace.dumpOnCrash();
 		JRaw app = new JRaw();
 	}
 }
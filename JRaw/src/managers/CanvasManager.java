@@ -6,13 +6,17 @@ import java.awt.event.KeyEvent;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 
+import commands.DeleteCommand;
 import dialogs.FillStrokeDialog;
 import gfx.Canvas;
+import gfx.CanvasMetrics;
 import input.Keyboard;
 import input.Mouse;
+import jfr.MouseHandlerEvent;
 import shapes.MyShape;
 import tools.Tool;
 import tools.ToolBar;
+import utils.Trace;
 
 /**
  * This class is the heart of the application. This keeps track of the state of the canvas
@@ -22,6 +26,8 @@ import tools.ToolBar;
  *
  */
 public class CanvasManager extends Manager {	
+	private static final String[] HANDLER_NAMES = { "selection", "shape", "view" };	// by CanvasMetrics.HANDLER_ kind
+	
 	private Tool activeTool;
 	private ToolBar toolBar;
 	
@@ -29,6 +35,7 @@ public class CanvasManager extends Manager {
 	private ShapeManager shapeManager;
 	private SelectionManager selectionManager;
 	private MenuManager menuManager;
+	private ViewManager viewManager;
 	
 	public CanvasManager(Canvas canvas) {
 		this.canvas = canvas;
@@ -37,6 +44,7 @@ public class CanvasManager extends Manager {
 		shapeManager = new ShapeManager(canvas, mouse, keyboard);
 		selectionManager = new SelectionManager(canvas, mouse, keyboard);
 		menuManager = new MenuManager(canvas, mouse, keyboard);
+		viewManager = new ViewManager(canvas, mouse, keyboard);
 	}
 	
 	//********************************************************
@@ -48,8 +56,12 @@ public class CanvasManager extends Manager {
 		JMenuItem clearGuidesItem = new JMenuItem("Clear Shapes");
 		JMenuItem bringToFrontItem = new JMenuItem("Bring To Front");
 		clearGuidesItem.addActionListener(e -> {
-			canvas.getShapes().clear();
+			if (canvas.hasSelection()) {
+				canvas.getSelection().clearSelection();
+			}
+			canvas.getHistory().execute(new DeleteCommand(canvas, canvas.getShapes()));
 			canvas.setHasSelection(false);
+			canvas.repaintDamage();
 		});
 		
 		bringToFrontItem.addActionListener( e -> {
@@ -61,14 +73,21 @@ public class CanvasManager extends Manager {
 		
 		menu.add(clearGuidesItem);
 		menu.add(bringToFrontItem);
-		menu.show(canvas, mouse.getClickPt().x, mouse.getClickPt().y);
+		menu.show(canvas, mouse.getScreenPt().x, mouse.getScreenPt().y);
 	}
 	
 	public void handleMouse(int event) {
 		Manager activeManager = null;
+		int handler = 0;					// which handler the time is counted against
 		switch (activeTool.getToolID()) {
+		case Tool.TOOL_HAND:
+		case Tool.TOOL_ZOOM:
+			activeManager = viewManager;
+			handler = CanvasMetrics.HANDLER_VIEW;
+			break;
 		case Tool.TOOL_SELECT:
 			activeManager = selectionManager;
+			handler = CanvasMetrics.HANDLER_SELECTION;
 			break;
 		case Tool.TOOL_RECT:
 		case Tool.TOOL_CIRCLE:
@@ -76,13 +95,30 @@ public class CanvasManager extends Manager {
 		case Tool.TOOL_LINE:
 		case Tool.TOOL_PEN:
 			activeManager = shapeManager;
+			handler = CanvasMetrics.HANDLER_SHAPE;
 			break;
 		}
 		
+		if (event == Mouse.EVENT_SCROLL) {	// the wheel zooms and pans with any tool
+			activeManager = viewManager;
+			handler = CanvasMetrics.HANDLER_VIEW;
+		}
+		
 		if (activeManager != null) {
+			MouseHandlerEvent handlerEvent = new MouseHandlerEvent();
+			handlerEvent.begin();
+			long start = System.nanoTime();
 			activeManager.handleMouse(event);	
+			canvas.getMetrics().inputHandled(handler, System.nanoTime() - start);
+			
+			if (handlerEvent.shouldCommit()) {
+				handlerEvent.operation = HANDLER_NAMES[handler] + " " + MouseHandlerEvent.EVENT_NAMES[event];
+				handlerEvent.shapeCount = canvas.getShapes().size();
+				handlerEvent.selectedCount = canvas.hasSelection() ? canvas.getSelection().getSelectedShapes().size() : 0;
+				handlerEvent.commit();
+			}
 		}
-		canvas.repaint();
+		canvas.repaintDamage();
 	}
 	
 	
@@ -92,7 +128,6 @@ public class CanvasManager extends Manager {
 	
 	public void handleKeyPress() { //TODO handle this better later. This is a rough keyboard shortcut manager
 		menuManager.handleKeyPress();
-		System.out.println("Key Pressed!");
 		canvas.requestFocus();
 		
 		if (keyboard.getAltFlag()) {
@@ -117,6 +152,11 @@ public class CanvasManager extends Manager {
 		case KeyEvent.VK_V:			// change to selection tool
 			toolBar.setActiveTool(toolBar.getTools().get(0));
 			break;
+		case KeyEvent.VK_0:			// back to 100% zoom
+			if (keyboard.getCtrlFlag()) {
+				canvas.resetView();
+			}
+			break;
 		case KeyEvent.VK_D:			// change to default fill
 			canvas.resetDecoration();
 			toolBar.getFillStrokeBtn().repaint();
@@ -146,7 +186,7 @@ public class CanvasManager extends Manager {
 	//********************************************************
 
 	public void setActiveTool(Tool tool) {
-		System.out.println("Active Tool: " + tool);
+		if (Trace.DEBUG) Trace.debug("Active Tool: " + tool);
 		
 		if (canvas.hasSelection()) {	// clear out selection if we change tools
 			canvas.getSelection().clearSelection();
@@ -154,6 +194,7 @@ public class CanvasManager extends Manager {
 			canvas.repaint();
 		}
 		activeTool = tool;
+		viewManager.updateTool(activeTool);
 		
 		switch (tool.getToolID()) {	// TODO handle this better.
 		case Tool.TOOL_RECT:		// intentional fall through
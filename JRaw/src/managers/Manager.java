@@ -46,6 +46,10 @@ public abstract class Manager {
 	//* 				   ACCESSOR METHODS					 *
 	//********************************************************
 	
+	public Canvas getCanvas() {
+		return canvas;
+	}
+	
 	public Mouse getMouse() {
 		return mouse;
 	}
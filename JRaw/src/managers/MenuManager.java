@@ -2,10 +2,13 @@ package managers;
 
 import java.awt.event.KeyEvent;
 
+import commands.RestyleCommand;
 import gfx.Canvas;
+import gfx.Style;
 import input.Keyboard;
 import input.Mouse;
 import utils.JRawIO;
+import utils.Trace;
 
 public class MenuManager extends Manager {
 
@@ -34,11 +37,10 @@ public class MenuManager extends Manager {
 	}
 
 	public void handleKeyPress() {
-		System.out.println("Ctrl: ? " + keyboard.getCtrlFlag());
 		if (keyboard.getCtrlFlag()) {
 			switch (keyboard.getLastKey()) {
 			case KeyEvent.VK_N:
-				System.out.println("Make new document");
+				Trace.debug("Make new document");
 				break;
 			}
 		}
@@ -53,15 +55,57 @@ public class MenuManager extends Manager {
 	//********************************************************
 
 	public void saveFile() {
-		System.out.println("Attempting to save file!");
+		Trace.info("Attempting to save file!");
 //		JRawIO fWriter = new JRawIO(canvas);
 		JRawIO io = new JRawIO(canvas);
 		io.showSaveDialog();
 	}
 	
 	public void readFile() {
-		System.out.println("Attemtping to read file!");
+		Trace.info("Attempting to read file!");
 		JRawIO io = new JRawIO(canvas);
 		io.showOpenDialog();
 	}
+	
+	/**
+	 * Undoes the last change to the canvas. The selection is cleared first, since the
+	 * selected shapes might not be on the canvas anymore afterwards.
+	 */
+	public void undo() {
+		clearSelection();
+		canvas.getHistory().undo();
+		canvas.repaintDamage();
+	}
+	
+	/**
+	 * Redoes the last change to the canvas that was undone.
+	 */
+	public void redo() {
+		clearSelection();
+		canvas.getHistory().redo();
+		canvas.repaintDamage();
+	}
+	
+	/**
+	 * Gives every shape that looks like the first selected shape the current fill and
+	 * stroke, whether or not it is selected, by restyling the style they share.
+	 */
+	public void restyleMatching() {
+		if (!canvas.hasSelection() || canvas.getSelection().getSelectedShapes().isEmpty()) {
+			return;
+		}
+		Style style = canvas.getSelection().getSelectedShapes().get(0).getStyle();
+		
+		if (style.getTable() == canvas.getStyles()) {
+			canvas.getHistory().execute(new RestyleCommand(canvas, style, canvas.getDecoration()));
+			canvas.repaintDamage();
+		}
+	}
+	
+	private void clearSelection() {
+		if (canvas.hasSelection()) {
+			canvas.getSelection().clearSelection();
+			canvas.setHasSelection(false);
+		}
+	}
 }
@@ -2,10 +2,10 @@ package managers;
 
 import java.awt.event.KeyEvent;
 
+import commands.DeleteCommand;
 import gfx.Canvas;
 import input.Keyboard;
 import input.Mouse;
-import shapes.MyShape;
 import shapes.Selection;
 
 /**
@@ -25,7 +25,7 @@ public class SelectionManager extends Manager {
 
 	private void updateSelection(int event) {
 		if (!canvas.hasSelection()) { // no selection, make one
-			selection = new Selection();
+			selection = new Selection(canvas);
 			canvas.setHasSelection(true);
 			canvas.setSelection(selection);
 		} else {
@@ -51,19 +51,13 @@ public class SelectionManager extends Manager {
 				canvas.setSelection(selection);
 			}
 		}
-		canvas.repaint();	
+		canvas.repaintDamage();	
 	}
 	
 	private void deleteSelection() {
 		if (canvas.hasSelection()) {
 			selection = canvas.getSelection();
-			for (int i = 0; i < canvas.getShapes().size(); i++) {
-				MyShape shape = canvas.getShapes().get(i);
-				
-				if (shape.isSelected()) {
-					canvas.getShapes().remove(shape);
-				}
-			}
+			canvas.getHistory().execute(new DeleteCommand(canvas, selection.getSelectedShapes()));
 			selection.getSelectedShapes().clear();
 			canvas.setHasSelection(false);
 			canvas.repaint();
@@ -79,7 +73,6 @@ public class SelectionManager extends Manager {
 	}
 	
 	public void handleClick() {	
-		System.out.println("Handling click from selection manager");
 		updateSelection(Mouse.EVENT_CLICK);	
 	}
 
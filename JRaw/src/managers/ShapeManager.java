@@ -1,7 +1,7 @@
 package managers;
 
+import commands.AddCommand;
 import gfx.Canvas;
-import gfx.Decoration;
 import input.Keyboard;
 import input.Mouse;
 import shapes.MyPath;
@@ -35,7 +35,7 @@ public class ShapeManager extends Manager {
 	private void initShape() {
 		if (!canvas.isConstructing() || activeShape == null) {
 			activeShape = ShapeFactory.createShapeFromTool(activeShapeTool);
-			activeShape.setDecoration((Decoration)canvas.getDecoration().clone());
+			activeShape.setStyle(canvas.getStyles().intern(canvas.getDecoration()));
 			canUpdateCanvas = true;
 			canvas.setIsConstructing(true);
 			canvas.setActiveShape(activeShape);
@@ -63,7 +63,7 @@ public class ShapeManager extends Manager {
 				activeShape.handleRelease(mouse);
 				canvas.setIsConstructing(false);
 				activeShape.setZIndex(canvas.getShapes().size());
-				canvas.addShape(activeShape);
+				commitShape(activeShape);
 				initShape();
 				break;
 			}	
@@ -84,7 +84,7 @@ public class ShapeManager extends Manager {
 		case Mouse.EVENT_CLICK:
 			poly.handleClick(mouse);
 			if (poly.didClose()) {
-				canvas.addShape(poly);
+				commitShape(poly);
 				canvas.setIsConstructing(false);
 				initShape();
 				return;
@@ -130,13 +130,22 @@ public class ShapeManager extends Manager {
 						return;
 					}
 				}
-				canvas.addShape(activeShape);
+				commitShape(activeShape);
 				canvas.setIsConstructing(false);
 				canvas.repaint();
 			}
 		}
 	}
 	
+	/**
+	 * Adds a shape that has been constructed to the canvas, and to the undo history.
+	 * @param shape
+	 */
+	private void commitShape(MyShape shape) {
+		canvas.addShape(shape);
+		canvas.getHistory().record(new AddCommand(canvas, shape));
+	}
+	
 	//********************************************************
 	//* 				   MOUSE METHODS					 *
 	//********************************************************
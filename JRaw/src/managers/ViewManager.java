@@ -0,0 +1,113 @@
+package managers;
+
+import java.awt.Point;
+
+import gfx.Canvas;
+import input.Keyboard;
+import input.Mouse;
+import tools.Tool;
+
+/**
+ * This class handles zooming and panning the canvas, with the hand and zoom tools and the
+ * mouse wheel. Only the view of the canvas changes, so none of the shapes are touched.
+ * @author DavidKramer
+ *
+ */
+public class ViewManager extends Manager {
+	public static final double WHEEL_ZOOM = 1.1;	// zoom per notch of the mouse wheel
+	public static final double CLICK_ZOOM = 2.0;	// zoom per click of the zoom tool
+	public static final int WHEEL_PAN = 40;			// pixels panned per notch of the mouse wheel
+
+	private Tool activeViewTool;
+	private Point lastPt;							// screen point of the last drag event
+
+	public ViewManager(Canvas canvas, Mouse mouse, Keyboard keyboard) {
+		super(canvas, mouse, keyboard);
+		lastPt = new Point();
+	}
+
+	//********************************************************
+	//* 				   MOUSE METHODS					 *
+	//********************************************************
+
+	public void handleMouse(int event) {
+		switch (event) {
+		case Mouse.EVENT_CLICK:
+			handleClick();
+			break;
+		case Mouse.EVENT_DRAG:
+			handleDrag();
+			break;
+		case Mouse.EVENT_SCROLL:
+			handleScroll();
+			break;
+		}
+	}
+
+	/**
+	 * Zooms in around the click with the zoom tool, or out if alt is held down.
+	 */
+	private void handleClick() {
+		lastPt.setLocation(mouse.getScreenPt());
+
+		if (isActive(Tool.TOOL_ZOOM)) {
+			canvas.zoomAt(mouse.isAltDown() ? 1 / CLICK_ZOOM : CLICK_ZOOM, mouse.getScreenPt());
+		}
+	}
+
+	/**
+	 * Pans the view along with the mouse, with the hand tool.
+	 */
+	private void handleDrag() {
+		Point p = mouse.getScreenPt();
+
+		if (isActive(Tool.TOOL_HAND)) {
+			canvas.pan(p.x - lastPt.x, p.y - lastPt.y);
+		}
+		lastPt.setLocation(p);
+	}
+
+	/**
+	 * Zooms around the mouse if control is held down (or the zoom tool is active), and
+	 * otherwise pans up and down, or left and right if shift is held down. The precise
+	 * wheel rotation is used, so that track pads zoom smoothly.
+	 */
+	private void handleScroll() {
+		double rotation = mouse.getWheelRotation();
+
+		if (mouse.isControlDown() || isActive(Tool.TOOL_ZOOM)) {
+			canvas.zoomAt(Math.pow(WHEEL_ZOOM, -rotation), mouse.getScreenPt());
+		} else {
+			int amount = (int)Math.round(-rotation * WHEEL_PAN);
+
+			if (mouse.isShiftDown()) {
+				canvas.pan(amount, 0);
+			} else {
+				canvas.pan(0, amount);
+			}
+		}
+	}
+
+	//********************************************************
+	//* 				  KEYBOARD METHODS					 *
+	//********************************************************
+
+	public void handleKeyPress() {}
+	public void handleKeyRelease() {}
+
+	//********************************************************
+	//* 				   MUTATOR METHODS					 *
+	//********************************************************
+
+	public void updateTool(Tool tool) {
+		activeViewTool = tool;
+	}
+
+	//********************************************************
+	//* 				   ACCESSOR METHODS					 *
+	//********************************************************
+
+	private boolean isActive(int toolID) {
+		return activeViewTool != null && activeViewTool.getToolID() == toolID;
+	}
+}
@@ -1,13 +1,24 @@
 package menus;
 
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.KeyStroke;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 
+import commands.History;
 import gfx.Canvas;
 import managers.MenuManager;
 
 public class MyMenu extends JMenuBar {
+	private static final int SHORTCUT_MASK = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();	// ctrl (cmd on mac)
+	
 	private Canvas canvas;
 	private MenuManager menuManager;
 	
@@ -27,6 +38,7 @@ public class MyMenu extends JMenuBar {
 	private JMenuItem copyItem;
 	private JMenuItem pasteItem;
 	private JMenuItem duplicateItem;
+	private JMenuItem restyleItem;
 	
 	// View Menu
 	private JMenu viewMenu;
@@ -35,6 +47,7 @@ public class MyMenu extends JMenuBar {
 	private JMenuItem wireframeItem;
 	private JMenuItem bringFrontItem;
 	private JMenuItem sendBackItem;
+	private JCheckBoxMenuItem hudItem;
 	
 	// Tools Menu
 	private JMenu toolsMenu;
@@ -94,6 +107,32 @@ public class MyMenu extends JMenuBar {
 		copyItem = new JMenuItem("Copy");
 		pasteItem = new JMenuItem("Paste");
 		duplicateItem = new JMenuItem("Duplicate");
+		restyleItem = new JMenuItem("Restyle Matching Shapes");
+		
+		undoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, SHORTCUT_MASK));
+		redoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, SHORTCUT_MASK | InputEvent.SHIFT_DOWN_MASK));
+		
+		undoItem.addActionListener( e -> {
+			menuManager.undo();
+		});
+		
+		redoItem.addActionListener( e -> {
+			menuManager.redo();
+		});
+		
+		restyleItem.addActionListener( e -> {
+			menuManager.restyleMatching();
+		});
+		
+		editMenu.addMenuListener(new MenuListener() {	// show what will be undone / redone
+			public void menuSelected(MenuEvent e) {
+				History history = canvas.getHistory();
+				undoItem.setText(history.canUndo() ? "Undo " + history.getUndoName() : "Undo");
+				redoItem.setText(history.canRedo() ? "Redo " + history.getRedoName() : "Redo");
+			}
+			public void menuDeselected(MenuEvent e) {}
+			public void menuCanceled(MenuEvent e) {}
+		});
 		
 		editMenu.add(undoItem);
 		editMenu.add(redoItem);
@@ -101,6 +140,8 @@ public class MyMenu extends JMenuBar {
 		editMenu.add(copyItem);
 		editMenu.add(pasteItem);
 		editMenu.add(duplicateItem);
+		editMenu.addSeparator();
+		editMenu.add(restyleItem);
 	}
 	
 	private void buildViewMenu() {
@@ -110,12 +151,23 @@ public class MyMenu extends JMenuBar {
 		wireframeItem = new JMenuItem("Wireframe");
 		bringFrontItem = new JMenuItem("Bring Front");
 		sendBackItem = new JMenuItem("Send Back");
+		hudItem = new JCheckBoxMenuItem("Performance HUD");
+		
+		redrawItem.addActionListener( e -> {
+			canvas.redraw();
+		});
+		
+		hudItem.addActionListener( e -> {
+			canvas.setHudVisible(hudItem.isSelected());
+		});
 		
 		viewMenu.add(redrawItem);
 		viewMenu.add(filledItem);
 		viewMenu.add(wireframeItem);
 		viewMenu.add(bringFrontItem);
 		viewMenu.add(sendBackItem);
+		viewMenu.addSeparator();
+		viewMenu.add(hudItem);
 	}
 	
 	private void buildToolsMenu() {
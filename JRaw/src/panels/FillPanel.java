@@ -14,6 +14,7 @@ import javax.swing.colorchooser.AbstractColorChooserPanel;
 import javax.swing.colorchooser.ColorSelectionModel;
 
 import gfx.Decoration;
+import utils.Trace;
 
 /**
  * This class contains all of the components required to modify the
@@ -118,7 +119,7 @@ public class FillPanel extends JPanel {
 		gradientComboBox.addItem("Radial");
 		
 		gradientComboBox.addItemListener( e -> {
-			System.out.println("Gradient combo box changed!");
+			Trace.debug("Gradient combo box changed!");
 		});
 	}
 	
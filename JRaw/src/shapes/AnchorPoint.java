@@ -1,12 +1,13 @@
 package shapes;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Stroke;
 
+import gfx.Decoration;
 import input.Mouse;
 
 /**
@@ -43,7 +44,6 @@ public class AnchorPoint extends Point implements MyShapeInterface {
 		super(p.x, p.y);
 		width = WIDTH;
 		height = HEIGHT;
-		System.out.println(p);
 		boundRect = new Rectangle(p.x, p.y, WIDTH, HEIGHT);
 		color = COLOR;
 	}
@@ -53,19 +53,19 @@ public class AnchorPoint extends Point implements MyShapeInterface {
 	//********************************************************
 	
 	public void render(Graphics g) {
-		final Graphics2D g2d = (Graphics2D)g.create();
+		final Graphics2D g2d = (Graphics2D)g;	// drawn straight onto g, which is put back after
+		Color oldColor = g2d.getColor();
+		Stroke oldStroke = g2d.getStroke();
 		
-		try {
-			g2d.setColor(color);
-			g2d.setStroke(new BasicStroke(2.0f));
-			g2d.drawRect(x, y, width, height);	// outer rectangle outline
-			g2d.setColor(Color.WHITE);
-			g2d.fillRect(x, y, width, width);	// inner rectangle
-			g2d.setColor(color);
-			g2d.fillRect(x + 1, y + 1, width - 2, width - 2);
-		} finally {
-			g2d.dispose();
-		}
+		g2d.setColor(color);
+		g2d.setStroke(Decoration.HANDLE_STROKE);
+		g2d.drawRect(x, y, width, height);	// outer rectangle outline
+		g2d.setColor(Color.WHITE);
+		g2d.fillRect(x, y, width, width);	// inner rectangle
+		g2d.setColor(color);
+		g2d.fillRect(x + 1, y + 1, width - 2, width - 2);
+		g2d.setColor(oldColor);
+		g2d.setStroke(oldStroke);
 	}
 	
 	/**
@@ -92,7 +92,6 @@ public class AnchorPoint extends Point implements MyShapeInterface {
 	}
 	
 	public void handleDrag(Mouse mouse) {
-		System.out.println("Anchor pt drag");
 		setLocation(mouse.getDragPt());
 	}
 	
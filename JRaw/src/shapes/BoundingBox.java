@@ -20,8 +20,8 @@ public class BoundingBox implements Serializable {
 	private boolean isVisible;	// should the resize handles be rendered?
 
 	public BoundingBox(Point startPt, Point endPt) {
-		this.startPt = startPt;
-		this.endPt = endPt;
+		this.startPt = new Point(startPt);
+		this.endPt = new Point(endPt);
 		this.width = Math.abs(endPt.x - startPt.x);
 		this.height = Math.abs(endPt.y - startPt.y);
 		handles = new ArrayList<>();		
@@ -71,20 +71,19 @@ public class BoundingBox implements Serializable {
 	
 	/**
 	 * Updates all 8 resize handles and ensures that they are in the correct spot.
+	 * The handles are moved in place, rather than built again.
 	 */
 	public void updateRectHandles() {
-		int startX = Math.min(startPt.x, endPt.x);
-		int startY = Math.min(startPt.y, endPt.y);
-		int endX = Math.max(startPt.x, endPt.x);
-		int endY = Math.max(startPt.y, endPt.y);
+		setBounds(startPt.x, startPt.y, endPt.x, endPt.y);
 		
-		startPt = new Point(startX, startY);
-		endPt = new Point(endX, endY);	
-		width = Math.abs(startPt.x - endPt.x);
-		height = Math.abs(startPt.y - endPt.y);
-		
-		handles.clear();
-		buildHandles();
+		handles.get(0).setCenter(startPt.x + (width / 2), startPt.y);
+		handles.get(1).setCenter(startPt.x + (width / 2), endPt.y);
+		handles.get(2).setCenter(endPt.x, endPt.y - (height / 2));
+		handles.get(3).setCenter(startPt.x, endPt.y - (height / 2));
+		handles.get(4).setCenter(startPt.x, startPt.y);
+		handles.get(5).setCenter(endPt.x, startPt.y);
+		handles.get(6).setCenter(endPt.x, endPt.y);
+		handles.get(7).setCenter(startPt.x, endPt.y);
 	}
 	
 	/**
@@ -133,11 +132,25 @@ public class BoundingBox implements Serializable {
 	//********************************************************
 	
 	public void setStartPt(Point p) {
-		startPt = p;
+		startPt.setLocation(p);
 	}
 	
 	public void setEndPt(Point p) {
-		endPt = p;
+		endPt.setLocation(p);
+	}
+	
+	/**
+	 * Sets the corners of the box from any two opposite corners, in place.
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
+	 */
+	public void setBounds(int x1, int y1, int x2, int y2) {
+		startPt.setLocation(Math.min(x1, x2), Math.min(y1, y2));
+		endPt.setLocation(Math.max(x1, x2), Math.max(y1, y2));
+		width = endPt.x - startPt.x;
+		height = endPt.y - startPt.y;
 	}
 	
 	public void setVisible(boolean b) {
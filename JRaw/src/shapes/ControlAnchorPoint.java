@@ -1,10 +1,12 @@
 package shapes;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Stroke;
+
+import gfx.Decoration;
 
 public class ControlAnchorPoint extends AnchorPoint {
 
@@ -18,19 +20,19 @@ public class ControlAnchorPoint extends AnchorPoint {
 	}
 	
 	public void render(Graphics g) {
-		final Graphics2D g2d = (Graphics2D)g.create();
+		final Graphics2D g2d = (Graphics2D)g;	// drawn straight onto g, which is put back after
+		Color oldColor = g2d.getColor();
+		Stroke oldStroke = g2d.getStroke();
 		
-		try {
-			g2d.setColor(color);
-			g2d.setStroke(new BasicStroke(2.0f));
-			g2d.drawOval(x, y, width, height);	// outer rectangle outline
-			g2d.setColor(Color.WHITE);
-			g2d.fillOval(x, y, width, width);	// inner rectangle
-			g2d.setColor(color);
-			g2d.fillOval(x + 1, y + 1, width - 2, width - 2);
-		} finally {
-			g2d.dispose();
-		}
+		g2d.setColor(color);
+		g2d.setStroke(Decoration.HANDLE_STROKE);
+		g2d.drawOval(x, y, width, height);	// outer rectangle outline
+		g2d.setColor(Color.WHITE);
+		g2d.fillOval(x, y, width, width);	// inner rectangle
+		g2d.setColor(color);
+		g2d.fillOval(x + 1, y + 1, width - 2, width - 2);
+		g2d.setColor(oldColor);
+		g2d.setStroke(oldStroke);
 	}
 	
 	public void setColor(Color color) {
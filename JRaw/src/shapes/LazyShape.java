@@ -0,0 +1,195 @@
+package shapes;
+
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import gfx.Style;
+import input.Mouse;
+import utils.Trace;
+
+/**
+ * This class is a placeholder for a shape that is stored in a (memory mapped) file, but
+ * hasn't been read yet. It only knows the bounds, style and stacking index of the
+ * shape, which is enough to index and cull it. The real shape is decoded the first time
+ * it is rendered or hit, and the observer of the placeholder is told to swap it in.
+ * @author DavidKramer
+ *
+ */
+public class LazyShape extends MyShape {
+	private ByteBuffer source;		// buffer that holds the encoded shape record
+	private int offset;
+	private int length;
+	private Decoder decoder;
+	private MyShape shape;			// the real shape, once it has been decoded
+	private boolean didSwap;		// has the observer been told about the real shape?
+	private int loadIndex;			// position of the shape in the list it was loaded into
+
+	/**
+	 * Decodes the real shape from its record.
+	 */
+	public interface Decoder {
+		public MyShape decode(ByteBuffer record) throws IOException;
+	}
+
+	public LazyShape(ByteBuffer source, int offset, int length, Rectangle bounds,
+					 Style style, Decoder decoder) {
+		super(bounds, style);
+		this.source = source;
+		this.offset = offset;
+		this.length = length;
+		this.decoder = decoder;
+	}
+
+	//********************************************************
+	//* 				  DRAWING METHODS					 *
+	//********************************************************
+
+	public void render(Graphics g) {
+		MyShape s = materialize();
+
+		if (s != null) {
+			s.render(g);
+		}
+	}
+
+	//********************************************************
+	//* 				   MOUSE METHODS					 *
+	//********************************************************
+
+	public void handleClick(Mouse mouse) {}
+	public void handleRelease(Mouse mouse) {}
+	public void handleMove(Mouse mouse) {}
+	public void handleDrag(Mouse mouse) {}
+
+	//********************************************************
+	//* 			  SHAPE MANIPULATION METHODS			 *
+	//********************************************************
+
+	/**
+	 * Decodes the real shape if it hasn't been decoded already, and lets the observer
+	 * know so that it can replace this placeholder with it.
+	 * @return the real shape, or null if it couldn't be read
+	 */
+	public MyShape materialize() {
+		if (decode() != null && !didSwap) {
+			didSwap = true;
+			shape.style = style;	// in case it changed while the shape was being decoded
+
+			if (observer != null) {
+				observer.shapeMaterialized(this, shape);
+			}
+		}
+		return shape;
+	}
+
+	/**
+	 * Decodes the real shape if it hasn't been decoded already, without letting the
+	 * observer know. This only touches the placeholder itself, so different placeholders
+	 * can be decoded on worker threads, as long as materialize() is called afterwards on
+	 * the event thread to swap the real shape in.
+	 * @return the real shape, or null if it couldn't be read
+	 */
+	public MyShape decode() {
+		if (shape == null) {
+			try {
+				shape = decoder.decode(getRecord());
+			} catch (IOException e) {
+				Trace.error("Couldn't decode shape at offset " + offset, e);
+				return null;
+			}
+			shape.setZIndex(zIndex);
+			shape.style = style;		// the style may have been interned since the file was read
+		}
+		return shape;
+	}
+
+	public void update() {
+		if (materialize() != null) {
+			shape.update();
+		}
+	}
+
+	public void move(Point p) {
+		if (materialize() != null) {
+			shape.move(p);
+		}
+	}
+
+	public void resize(Point p, int direction) {
+		if (materialize() != null) {
+			shape.resize(p, direction);
+		}
+	}
+
+	public void translate(int dx, int dy) {
+		if (materialize() != null) {
+			shape.translate(dx, dy);
+		}
+	}
+	
+	public void setGeometry(int[] coords) {
+		if (materialize() != null) {
+			shape.setGeometry(coords);
+		}
+	}
+	
+	public int[] getGeometry() {
+		return materialize() != null ? shape.getGeometry() : new int[0];
+	}
+
+	/**
+	 * Changes the style of the real shape if it has been swapped in, otherwise just the
+	 * style of the placeholder, which the real shape gets when it is.
+	 */
+	public void setStyle(Style style) {
+		if (didSwap) {
+			shape.setStyle(style);
+		} else {		// no need to load the shape just to change its style
+			super.setStyle(style);
+		}
+	}
+
+	public Object clone() {
+		return materialize() != null ? shape.clone() : null;
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * @return a read only view of the encoded record of the shape
+	 */
+	public ByteBuffer getRecord() {
+		ByteBuffer record = source.duplicate();
+		record.limit(offset + length);
+		record.position(offset);
+		return record.slice();
+	}
+
+	public Decoder getDecoder() {
+		return decoder;
+	}
+
+	/**
+	 * @return the real shape, or null if it hasn't been decoded yet
+	 */
+	public MyShape getShape() {
+		return shape;
+	}
+
+	public boolean isMaterialized() {
+		return shape != null;
+	}
+
+	public int getLoadIndex() {
+		return loadIndex;
+	}
+
+	public void setLoadIndex(int i) {
+		loadIndex = i;
+	}
+}
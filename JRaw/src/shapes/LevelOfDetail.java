@@ -0,0 +1,74 @@
+package shapes;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps simplified copies of the pts of a poly, for drawing it when it is too
+ * small on screen for all of its pts to be seen. Each level allows twice as much error as
+ * the one before it, and is only built the first time that it's needed. The levels are
+ * thrown away whenever the shape they were built from changes.
+ * @author DavidKramer
+ *
+ */
+public class LevelOfDetail {
+	public static final double PIXEL_TOLERANCE = 0.5;	// most that a simplified line may be off by on screen
+	public static final int LEVEL_COUNT = 8;			// levels allow 1, 2, 4 ... 128 units of error
+	public static final int MIN_PTS = 32;				// fewer pts than this are always drawn in full
+	
+	private VertexStore[] levels;
+	private int version;								// shape version that the levels were built from
+	
+	public LevelOfDetail() {
+		levels = new VertexStore[LEVEL_COUNT];
+	}
+	
+	/**
+	 * Picks the pts to draw a shape with at a scale, building the level if it hasn't
+	 * been built since the shape last changed.
+	 * @param pts the full pts of the shape
+	 * @param version the version of the shape that the pts belong to
+	 * @param scale size of one unit of the shape on screen
+	 * @return a simplified copy of the pts, or pts itself if every pt is needed
+	 */
+	public VertexStore getPts(VertexStore pts, int version, double scale) {
+		int level = getLevel(pts.size(), scale);
+		
+		if (level < 0) {
+			return pts;
+		}
+		
+		if (this.version != version) {
+			Arrays.fill(levels, null);
+			this.version = version;
+		}
+		
+		if (levels[level] == null) {
+			levels[level] = pts.simplify(getTolerance(level));
+		}
+		return levels[level];
+	}
+	
+	/**
+	 * @param ptCount
+	 * @param scale
+	 * @return the coarsest level that stays within a pixel tolerance at the scale, or -1
+	 * if the pts shouldn't be simplified
+	 */
+	public static int getLevel(int ptCount, double scale) {
+		double tolerance = PIXEL_TOLERANCE / scale;		// error allowed, in shape units
+		
+		if (ptCount < MIN_PTS || tolerance < 1) {
+			return -1;
+		}
+		int level = 31 - Integer.numberOfLeadingZeros((int)Math.min(tolerance, Integer.MAX_VALUE));
+		return Math.min(level, LEVEL_COUNT - 1);
+	}
+	
+	/**
+	 * @param level
+	 * @return the error that a level allows, in shape units
+	 */
+	public static double getTolerance(int level) {
+		return 1 << level;
+	}
+}
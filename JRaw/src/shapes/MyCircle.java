@@ -4,6 +4,8 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 
+import gfx.Decoration;
+
 /**
  * This class represents a basic circle.
  * @author DavidKramer
@@ -15,7 +17,11 @@ public class MyCircle extends MyRect {
 	//* 				  DRAWING METHODS					 *
 	//********************************************************
 	public void render(Graphics g) {
+		if (renderAsPixel(g, getRenderScale(g))) {	// too small to see any detail
+			return;
+		}
 		final Graphics2D g2d = (Graphics2D)g.create();
+		final Decoration decoration = getDecoration();
 		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		try {
 			if (decoration.hasStroke()) {
@@ -38,5 +44,19 @@ public class MyCircle extends MyRect {
 		}
 	}
 	
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
 	
+	/**
+	 * Works out the area and perimeter of the ellipse that fits the bounds. The perimeter
+	 * uses Ramanujan's approximation, since there isn't an exact formula.
+	 */
+	protected void updateGeometry() {
+		super.updateGeometry();
+		double a = width / 2.0;
+		double b = height / 2.0;
+		area = Math.PI * a * b;
+		perimeter = Math.PI * (3 * (a + b) - Math.sqrt((3 * a + b) * (a + 3 * b)));
+	}
 }
@@ -7,7 +7,9 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 
+import gfx.Decoration;
 import input.Mouse;
+import utils.Trace;
 
 public class MyLine extends MyShape {
 	private boolean showPts;			// should we draw the start and end pts?
@@ -25,6 +27,9 @@ public class MyLine extends MyShape {
 	//********************************************************
 	
 	public void render(Graphics g) {
+		if (renderAsPixel(g, getRenderScale(g))) {	// too small to see any detail
+			return;
+		}
 		final Graphics2D g2d = (Graphics2D)g.create();
 		
 		try {
@@ -35,6 +40,7 @@ public class MyLine extends MyShape {
 				g2d.fillOval(endPt.x, endPt.y, 10, 10);
 			}
 
+			final Decoration decoration = getDecoration();
 			g2d.setColor(decoration.getStrokeColor());
 			g2d.setStroke(decoration.getStroke());
 			
@@ -52,12 +58,13 @@ public class MyLine extends MyShape {
 	public void handleClick(Mouse mouse) {
 		if (!isConstructing) {
 			isConstructing = true;
-			startPt = mouse.getClickPt();
-			endPt = mouse.getClickPt();
+			startPt.setLocation(mouse.getClickPt());
+			endPt.setLocation(mouse.getClickPt());
+			invalidateGeometry();
 		} 
 		
 		if (canEdit) {
-			System.out.println("Let's try to edit this!");
+			Trace.debug("Let's try to edit this!");
 		}
 	}
 
@@ -73,12 +80,13 @@ public class MyLine extends MyShape {
 
 	public void handleDrag(Mouse mouse) {
 		if (!isConstructing) {
-			startPt = (Point)mouse.getDragPt().clone();
-			endPt = (Point)mouse.getDragPt().clone();
+			startPt.setLocation(mouse.getDragPt());
+			endPt.setLocation(mouse.getDragPt());
 			isConstructing = true;
 		} else {
-			endPt = (Point)mouse.getDragPt();
+			endPt.setLocation(mouse.getDragPt());
 		}
+		invalidateGeometry();
 	}
 	
 	//********************************************************
@@ -93,19 +101,13 @@ public class MyLine extends MyShape {
 	 */
 	public void move(Point p) {
 		if ((oldStartPt == null || oldEndPt == null) && !isMoving) {
-			oldStartPt = startPt;
-			oldEndPt = endPt;
+			saveOldPts();
 		}
-		
-		Point newStartPt = new Point(oldStartPt.x + p.x, oldStartPt.y + p.y);
-		Point newEndPt = new Point(oldEndPt.x + p.x, oldEndPt.y + p.y);
-
 		isMoving = true;
-		startPt = newStartPt;
-		endPt = newEndPt;
-		
-		System.out.println("Old Start: " + oldStartPt + "Old End Pt: " + oldEndPt);
-		System.out.println("Start Pt: " + startPt + " End Pt: " + endPt);
+		startPt.setLocation(oldStartPt.x + p.x, oldStartPt.y + p.y);
+		endPt.setLocation(oldEndPt.x + p.x, oldEndPt.y + p.y);
+		invalidateGeometry();
+		fireShapeChanged();
 	}
 	
 	/**
@@ -113,11 +115,11 @@ public class MyLine extends MyShape {
 	 */
 	public void update() {
 		if (!isMoving && !isResizing) {
-			oldStartPt = startPt;
-			oldEndPt = endPt;
-			System.out.println("Shape Updated!");
+			saveOldPts();
+			Trace.debug("Shape Updated!");
 		}
 		updateBoundingBox();
+		fireShapeChanged();
 	}
 	
 	/**
@@ -127,12 +129,13 @@ public class MyLine extends MyShape {
 	 */
 	public void resize(Point p, int direction) {
 		if ((oldStartPt == null || oldEndPt == null)) {
-			oldStartPt = startPt;
-			oldEndPt = endPt;
+			saveOldPts();
 		}
 		
-		Point newStartPt = new Point(oldStartPt.x, oldStartPt.y);
-		Point newEndPt = new Point(oldEndPt.x, oldEndPt.y);
+		Point newStartPt = startPt;		// the pts are changed in place
+		Point newEndPt = endPt;
+		newStartPt.setLocation(oldStartPt);
+		newEndPt.setLocation(oldEndPt);
 		
 		isSelected = true;
 		isResizing = true;
@@ -167,9 +170,28 @@ public class MyLine extends MyShape {
 			newEndPt.y += p.y;
 			break;
 		}	
-		
-		startPt = newStartPt;
-		endPt = newEndPt;
+		invalidateGeometry();
+		fireShapeChanged();
+	}
+	
+	//********************************************************
+	//* 			       MUTATOR METHODS				     *
+	//********************************************************
+	
+	/**
+	 * Sets the start and end pts of the line. Unlike setStartPt() and setEndPt(),
+	 * the pts are kept in the order they are given, so that the direction of
+	 * the line is kept.
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
+	 */
+	public void setLine(int x1, int y1, int x2, int y2) {
+		startPt.setLocation(x1, y1);
+		endPt.setLocation(x2, y2);
+		invalidateGeometry();
+		update();
 	}
 	
 	//********************************************************
@@ -181,28 +203,16 @@ public class MyLine extends MyShape {
 	 * because of the the way the start and end pts are.
 	 */
 	protected void updateBoundingBox() {
-		int startX = Math.min(startPt.x, endPt.x);
-		int startY = Math.min(startPt.y, endPt.y);
-		int endX = Math.max(startPt.x, endPt.x);
-		int endY = Math.max(startPt.y, endPt.y);
-		
-		Point p1 = new Point(startX, startY);
-		Point p2 = new Point(endX, endY);
-		
-		boundBox.setStartPt(p1);
-		boundBox.setEndPt(p2);
+		Rectangle r = getBoundRect();
+		boundBox.setBounds(r.x, r.y, r.x + r.width, r.y + r.height);
 	}
 	
 	/**
-	 * Returns the bound rect of the object. Overridden for this shape because of
-	 * the way the start and end pts are.
+	 * A line doesn't enclose anything, so its perimeter is just its length.
 	 */
-	public Rectangle getBoundRect() {
-		int startX = Math.min(startPt.x, endPt.x);
-		int startY = Math.min(startPt.y, endPt.y);
-		
-		Point p1 = new Point(startX, startY);
-		boundRect.setBounds(p1.x, p1.y, getWidth(), getHeight());
-		return boundRect;
+	protected void updateGeometry() {
+		super.updateGeometry();
+		area = 0;
+		perimeter = startPt.distance(endPt);
 	}
 }
@@ -4,8 +4,10 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.geom.Path2D;
 import java.util.ArrayList;
 
+import gfx.Decoration;
 import input.Mouse;
 
 public class MyPath extends MyPoly {
@@ -15,10 +17,42 @@ public class MyPath extends MyPoly {
 	private boolean drawTest;
 	private AnchorPoint c1;
 	private AnchorPoint c2;
+	transient private Path2D.Float curvePath;		// every finished curve, drawn in one call
+	transient private int curveVersion;				// version of the path that curvePath was built at
+	transient private int curveCount;				// number of curves in curvePath
 	public MyPath() {
 		curves = new ArrayList<>();
 	}
 	
+	/**
+	 * Creates a finished path from its anchor pts and curves.
+	 * @param pts
+	 * @param curves
+	 */
+	public MyPath(VertexStore pts, ArrayList<MySpline> curves) {
+		super(pts);
+		this.curves = curves;
+		initFromPts(false);
+		showAnchorPts = true;
+	}
+	
+	public Object clone() {
+		MyPath path = (MyPath)super.clone();
+		path.curves = new ArrayList<>(curves.size());
+		
+		for (int i = 0; i < curves.size(); i++) {
+			MySpline curve = curves.get(i);
+			MySpline copy = new MySpline();
+			copy.setP0(new AnchorPoint(curve.getP0()));
+			copy.setC1(new ControlAnchorPoint(curve.getC1()));
+			copy.setC2(new ControlAnchorPoint(curve.getC2()));
+			copy.setP3(new AnchorPoint(curve.getP3()));
+			path.curves.add(copy);
+		}
+		path.curvePath = null;
+		return path;
+	}
+	
 	public void render(Graphics g) {
 //		if (isConstructing) {
 //			beginPt.render(g);
@@ -32,12 +66,16 @@ public class MyPath extends MyPoly {
 //			MySpline spline = curves.get(i);
 //			spline.render(g);
 //		}
+		if (!isConstructing && renderAsPixel(g, getRenderScale(g))) {	// too small to see any detail
+			return;
+		}
 		final Graphics2D g2d = (Graphics2D)g.create();
 		try {
+			g2d.setStroke(Decoration.HANDLE_STROKE);
+			g2d.draw(getCurvePath());	// in the color of g, like each curve on its own was
 			g2d.setColor(Color.BLUE);
-			for (int i = 0; i < anchorPts.size(); i++) {
-				AnchorPoint curPt = anchorPts.get(i);
-				if (i == anchorPts.size() - 1) {
+			for (int i = 0; i < pts.size(); i++) {
+				if (i == pts.size() - 1) {
 					if (drawTest) {
 						g2d.setColor(Color.BLUE);
 						c1.render(g);
@@ -49,10 +87,7 @@ public class MyPath extends MyPoly {
 						return;
 					}
 				}
-				if (!(i > curves.size() - 1)) {
-					curves.get(i).render(g);
-				}
-				curPt.render(g);
+				renderAnchorPt(g, i);
 //				if (isDraggingCurve) {
 //					activeSpline.render(g);
 //				}
@@ -78,11 +113,10 @@ public class MyPath extends MyPoly {
 			}
 			Point offsetPt = getOffsetPt(mouse);	//offset of mouse movement
 			
-			AnchorPoint p0 = anchorPts.get(anchorPts.size() - 2);
-			AnchorPoint p3 = anchorPts.get(anchorPts.size() - 1);
-			System.out.println("Last Pt: " + lastPt);
+			int last = pts.size() - 1;
+			AnchorPoint p0 = new AnchorPoint(pts.getX(last - 1), pts.getY(last - 1));	// handles of the pts being edited
+			AnchorPoint p3 = new AnchorPoint(pts.getX(last), pts.getY(last));
 			drawTest = true;
-			AnchorPoint lastPt = anchorPts.get(anchorPts.size() - 1);
 			c1 = new AnchorPoint(p0.x + offsetPt.x, p0.y + offsetPt.y);
 			c2 = new AnchorPoint(p3.x - offsetPt.x, p3.y - offsetPt.y);
 			activeSpline.setP0(p0);
@@ -104,7 +138,32 @@ public class MyPath extends MyPoly {
 		}
 	}
 	
+	/**
+	 * Builds one path out of every finished curve. The path is kept until the path
+	 * changes or a curve is added.
+	 * @return
+	 */
+	protected Path2D getCurvePath() {
+		if (curvePath == null) {
+			curvePath = new Path2D.Float();
+		} else if (curveVersion == version && curveCount == curves.size()) {
+			return curvePath;
+		}
+		curvePath.reset();
+		
+		for (int i = 0; i < curves.size(); i++) {
+			curves.get(i).appendTo(curvePath);
+		}
+		curveVersion = version;
+		curveCount = curves.size();
+		return curvePath;
+	}
+	
 	public void addCurve(MySpline curve) {
 		curves.add(curve);
 	}
+	
+	public ArrayList<MySpline> getCurves() {
+		return curves;
+	}
 }
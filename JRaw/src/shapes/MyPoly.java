@@ -7,9 +7,11 @@ import java.awt.Point;
 import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
-import java.util.ArrayList;
+import java.awt.geom.Path2D;
 
+import gfx.Decoration;
 import input.Mouse;
+import utils.Trace;
 
 /**
  * This class represents a polygonal shape that contains n-pts.
@@ -19,11 +21,16 @@ import input.Mouse;
 public class MyPoly extends MyShape {
 	private static final int MIN_PTS = 4;			// minimum of 4 pts to create a polygon
 	
-	protected ArrayList<AnchorPoint> anchorPts;
-	protected ArrayList<AnchorPoint> oldAnchorPts;
-	protected AnchorPoint beginPt;					// the first pt that gets added to begin construction
-	protected AnchorPoint lastPt;						// the last pt that we added
+	protected VertexStore pts;
+	protected VertexStore oldPts;					// pts before the current move / resize (empty if none)
+	protected Rectangle oldBoundRect;				// bounds of the old pts
+	protected AnchorPoint beginPt;					// handle of the first pt, while constructing the poly
 	protected AnchorPoint activePt;					// the active pt that is ready to be added
+	private AnchorPoint handle;						// draws the anchor pts, one at a time
+	transient private LevelOfDetail detail;			// simplified pts for drawing the poly small
+	transient private Path2D.Float path;			// outline of the poly, drawn in one call
+	transient private VertexStore pathPts;			// pts that the path was built from
+	transient private int pathVersion;				// version of the poly that the path was built at
 	
 	protected boolean showAnchorPts;
 	protected boolean isConstructing;					// are we actively adding pts to the polygon?
@@ -36,16 +43,16 @@ public class MyPoly extends MyShape {
 	
 	public MyPoly() {
 		super();
-		anchorPts = new ArrayList<>();
-		oldAnchorPts = new ArrayList<>();
-		lastPt = new AnchorPoint(0,0);	// default initialization
+		pts = new VertexStore();
+		oldPts = new VertexStore();
 		showAnchorPts = true;
 		isConstructing = false;
 	}
 	
-	public MyPoly(ArrayList<AnchorPoint> pts) {
+	public MyPoly(VertexStore pts) {
 		super();
-		anchorPts = pts;
+		this.pts = pts;
+		oldPts = new VertexStore(pts.size());
 	}
 	
 	//********************************************************
@@ -53,50 +60,115 @@ public class MyPoly extends MyShape {
 	//********************************************************
 
 	public void render(Graphics g) {
+		double scale = getRenderScale(g);
+		
+		if (!isConstructing && renderAsPixel(g, scale)) {	// too small to see any detail
+			return;
+		}
 		final Graphics2D g2d = (Graphics2D)g.create();
 		
 		try {
-			for (int i = 0; i < anchorPts.size(); i++) {
-				g2d.setColor(Color.BLUE);
-				AnchorPoint curPt = anchorPts.get(i);
-				
-				if (isConstructing && anchorPts.size() == 1) { // only added the start pt
-					g2d.drawLine(beginPt.x, beginPt.y, activePt.x, activePt.y);
-					if (showAnchorPts) {
-						beginPt.render(g2d);	
-					}
-					return;
+			g2d.setColor(Color.BLUE);
+			
+			if (isConstructing && pts.size() == 1) { // only added the start pt
+				g2d.drawLine(beginPt.x, beginPt.y, activePt.x, activePt.y);
+				if (showAnchorPts) {
+					beginPt.render(g2d);	
 				}
-				int j = i + 1;	// next index
+				return;
+			}
+			
+			Path2D outline = getPath(isConstructing || showAnchorPts ? pts : getDetailPts(scale));
+			
+			if (isClosed) {	// apply decoration to stroke if it is closed!
+				g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				final Decoration decoration = getDecoration();
 				
-				if (j > anchorPts.size() - 1) {
-					return;
+				if (decoration.hasFill()) {
+					g2d.setColor(decoration.getFillColor());
+					g2d.fill(outline);
 				}
-				
-				if (isClosed) {	// apply decoration to stroke if it is closed!
-					g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-					g2d.setColor(decoration.getStrokeColor());
-					g2d.setStroke(decoration.getStroke());
+				g2d.setColor(decoration.getStrokeColor());
+				g2d.setStroke(decoration.getStroke());
+			}
+			g2d.draw(outline);
+			
+			if (showAnchorPts) {
+				for (int i = 0; i < pts.size() - 1; i++) {
+					renderAnchorPt(g2d, i);	
 				}
-				AnchorPoint nextPt = anchorPts.get(j);
-				g2d.drawLine(curPt.x, curPt.y, nextPt.x, nextPt.y);
-				
+			}
+			
+			if (isConstructing && pts.size() > 1) {
+				int last = pts.size() - 1;
+				g2d.drawLine(pts.getX(last), pts.getY(last), activePt.x, activePt.y);
 				if (showAnchorPts) {
-					curPt.render(g2d);	
-				}
-				
-				if (isConstructing) {
-					lastPt = anchorPts.get(anchorPts.size() - 1);
-					g2d.drawLine(lastPt.x, lastPt.y, activePt.x, activePt.y);
-					if (showAnchorPts) {
-						lastPt.render(g2d);	
-					}
+					renderAnchorPt(g2d, last);
 				}
 			}
 		} finally {
 			g2d.dispose();
 		}
 	}
+	
+	/**
+	 * Builds the outline of the poly as one path, so it can be stroked and filled with
+	 * one call each. The path is kept until the poly changes or different pts are drawn.
+	 * @param drawPts the pts to build the path from (the pts, or a simplified copy)
+	 * @return
+	 */
+	protected Path2D getPath(VertexStore drawPts) {
+		if (path == null) {
+			path = new Path2D.Float(Path2D.WIND_EVEN_ODD, drawPts.size() + 1);
+		} else if (pathPts == drawPts && pathVersion == version) {
+			return path;
+		}
+		path.reset();
+		drawPts.appendTo(path);
+		
+		if (isClosed) {	// joins the last pt to the first, rather than leaving two ends
+			path.closePath();
+		}
+		pathPts = drawPts;
+		pathVersion = version;
+		return path;
+	}
+	
+	/**
+	 * @param scale size of one unit of the poly on screen
+	 * @return the pts to draw the poly with at a scale, which leaves out pts that 
+	 * couldn't be seen when the poly is small
+	 */
+	protected VertexStore getDetailPts(double scale) {
+		if (LevelOfDetail.getLevel(pts.size(), scale) < 0) {
+			return pts;
+		}
+		
+		if (detail == null) {
+			detail = new LevelOfDetail();
+		}
+		return detail.getPts(pts, version, scale);
+	}
+	
+	/**
+	 * Renders the anchor pt of pt i. The start pt has its own handle while the poly is
+	 * being constructed (so it can show that it's hovered), and every other pt is drawn
+	 * with one shared handle.
+	 * @param g
+	 * @param i
+	 */
+	protected void renderAnchorPt(Graphics g, int i) {
+		if (i == 0 && isConstructing && beginPt != null) {
+			beginPt.render(g);
+			return;
+		}
+		
+		if (handle == null) {
+			handle = new AnchorPoint(0, 0);
+		}
+		handle.setLocation(pts.getX(i), pts.getY(i));
+		handle.render(g);
+	}
 
 	//********************************************************
 	//* 			       MOUSE METHODS				     *
@@ -117,7 +189,7 @@ public class MyPoly extends MyShape {
 	}
 
 	public void handleRelease(Mouse mouse) {
-		System.out.println("Release operation does nothing in MyPoly");
+		Trace.debug("Release operation does nothing in MyPoly");
 	}
 	
 	public void handleMove(Mouse mouse) {
@@ -139,7 +211,25 @@ public class MyPoly extends MyShape {
 	}
 	
 	public void handleDrag(Mouse mouse) {
-		System.out.println("Drag Operation Not Yet Supported In MyPoly");
+		Trace.debug("Drag Operation Not Yet Supported In MyPoly");
+	}
+	
+	/**
+	 * Clones the poly along with its pts, so that changing the pts of the clone
+	 * doesn't change the pts of this poly.
+	 */
+	public Object clone() {
+		MyPoly poly = (MyPoly)super.clone();
+		poly.pts = pts.copy();
+		poly.oldPts = new VertexStore(pts.size());
+		poly.oldBoundRect = null;
+		poly.beginPt = beginPt != null ? new AnchorPoint(beginPt.x, beginPt.y) : null;
+		poly.handle = null;
+		poly.detail = null;
+		poly.path = null;
+		poly.pathPts = null;
+		poly.updateBoundingBox();
+		return poly;
 	}
 	
 	/**
@@ -149,27 +239,54 @@ public class MyPoly extends MyShape {
 	public static MyPoly createFromPoly(Polygon p) {
 		int[] xPts = p.xpoints;
 		int[] yPts = p.ypoints;
-		ArrayList<AnchorPoint> pts = new ArrayList<>();
+		VertexStore pts = new VertexStore(p.npoints + 1);
 		for (int i = 0; i < p.npoints; i++) {
-			pts.add(new AnchorPoint(xPts[i], yPts[i]));
+			pts.add(xPts[i], yPts[i]);
 		}
 		
 		MyPoly poly = new MyPoly(pts);
-		poly.addStartPt(new AnchorPoint(xPts[0], yPts[0]));
+		poly.addStartPt(new Point(xPts[0], yPts[0]));
 		poly.isClosed = true;
 		
 		return poly;
 	}
 	
+	/**
+	 * Creates a finished poly from a list of pts, such as one that has been read from 
+	 * a file. If the poly is closed, the last pt should be the same as the first pt.
+	 * @param pts
+	 * @param isClosed
+	 * @return
+	 */
+	public static MyPoly createFromPts(VertexStore pts, boolean isClosed) {
+		MyPoly poly = new MyPoly(pts);
+		poly.initFromPts(isClosed);
+		return poly;
+	}
+	
+	/**
+	 * Sets up the state of a poly whose pts have all been added already.
+	 * @param isClosed
+	 */
+	protected void initFromPts(boolean isClosed) {
+		beginPt = null;	// only needed while constructing
+		this.isClosed = isClosed;
+		didClose = isClosed;
+		showAnchorPts = !isClosed;
+		isConstructing = false;
+		invalidateGeometry();
+		updateBoundingBox();
+	}
+	
 	//********************************************************
 	//* 			  	   UTILITY METHODS			 	  	 *
 	//********************************************************
 	
 	protected boolean validateClose(Point p) {
-		if (anchorPts.size() >= MIN_PTS && beginPt.checkHover(p)) {
+		if (pts.size() >= MIN_PTS && beginPt.checkHover(p)) {
 			canClose = true;
 			return true;
-		} else if (anchorPts.size() >= MIN_PTS - 1 && beginPt.checkHover(activePt)) { // third pt is active pt
+		} else if (pts.size() >= MIN_PTS - 1 && beginPt.checkHover(activePt)) { // third pt is active pt
 			return true;
 		} else {
 			canClose = false;
@@ -179,20 +296,15 @@ public class MyPoly extends MyShape {
 	
 	/**
 	 * Determines if the point passed in matches any points that already exist in
-	 * the anchor points array. This is to prevent adding multiple same point values
+	 * the pts of the poly. This is to prevent adding multiple same point values
 	 * to a polygon shape.
 	 * @param p The point to check
 	 * @return
 	 */
-	protected boolean isDuplicatePt(AnchorPoint p) {
-		for (int i = 0; i < anchorPts.size(); i++) {
-			AnchorPoint pt = anchorPts.get(i);
-			if (anchorPts.size() > 2 && !canClose) {
-				if (pt.x == p.x && pt.y == p.y) {
-					System.out.println("Duplicate Pt. (Not added)");
-					return true;
-				}
-			}
+	protected boolean isDuplicatePt(Point p) {
+		if (pts.size() > 2 && !canClose && pts.indexOf(p.x, p.y) != -1) {
+			Trace.debug("Duplicate Pt. (Not added)");
+			return true;
 		}
 		return false;
 	}
@@ -205,20 +317,23 @@ public class MyPoly extends MyShape {
 	protected void addStartPt(Point p) {
 		beginPt = new AnchorPoint(p);
 		beginPt.displayActive(true); // make this pt red so it stands out as start pt
-		anchorPts.add(beginPt);
+		pts.add(p.x, p.y);
+		invalidateGeometry();
 		activePt = (AnchorPoint)beginPt.clone();	// initialize active pt to start
 		isConstructing = true;
 	}
 	
 	/**
-	 * Creates an array of existing pt values so that transformations can
-	 * reference them, without causing exponential movement to occur.
+	 * Copies the existing pt values so that transformations can reference them, 
+	 * without causing exponential movement to occur. The buffer is reused, and its
+	 * bounds are found once here rather than on every resize.
 	 */
 	protected void createAnchorPtBuffer() {
-		oldAnchorPts = new ArrayList<AnchorPoint>(anchorPts.size());
-		for (AnchorPoint pt : anchorPts) {
-			oldAnchorPts.add((AnchorPoint)pt.clone());
+		if (oldBoundRect == null) {
+			oldBoundRect = new Rectangle();
 		}
+		oldPts.copyFrom(pts);
+		oldPts.getBounds(oldBoundRect);
 	}
 
 	//********************************************************
@@ -226,13 +341,13 @@ public class MyPoly extends MyShape {
 	//********************************************************
 	
 	/**
-	 * Adds a new pt to the anchorpts array.
+	 * Adds a new pt to the poly.
 	 * @param p
 	 */
 	public void addPoint(Point p) {
-		AnchorPoint newPt = new AnchorPoint(p);
-		if (!isDuplicatePt(newPt)) {
-			anchorPts.add(newPt);
+		if (!isDuplicatePt(p)) {
+			pts.add(p.x, p.y);
+			invalidateGeometry();
 		}
 	}
 	
@@ -242,36 +357,33 @@ public class MyPoly extends MyShape {
 	 * construction of the polygon and hides anchor points.
 	 */
 	public void closePoly() {
-		AnchorPoint closePt = beginPt;
-		anchorPts.add(closePt);
+		pts.add(pts.getX(0), pts.getY(0));	// last pt is the same as the first
+		invalidateGeometry();
 		showAnchorPts = false;
 		didClose = true;
 		isClosed = true;
 		isConstructing = false;
-		anchorPts.get(0).displayActive(false);
+		beginPt.displayActive(false);
 		updateBoundingBox();
-		System.out.println("Poly closed. Construction complete");
+		Trace.debug("Poly closed. Construction complete");
 	}
 	
 	/**
 	 * Moves all the points in the polygon by Point p.
 	 */
 	public void move(Point p) {
-		if (oldAnchorPts == null || !isMoving) {	// creates a buffer of old anchor pts so we don't move exponentially
+		if (oldPts.isEmpty() || !isMoving) {	// creates a buffer of old anchor pts so we don't move exponentially
 			createAnchorPtBuffer();
 		}
-		
-		for (int i = 0; i < anchorPts.size(); i++) {
-			AnchorPoint oldPt = oldAnchorPts.get(i);	
-			AnchorPoint newPt = new AnchorPoint(oldPt.x + p.x, oldPt.y + p.y);
-			anchorPts.set(i, newPt);
-			isMoving = true;
-		}
+		pts.setTranslated(oldPts, p.x, p.y);
+		invalidateGeometry();
+		isMoving = true;
 		updateBoundingBox();
+		fireShapeChanged();
 	}
 	
 	public void resize(Point p, int direction) {
-		if (oldAnchorPts == null || !isResizing) {
+		if (oldPts.isEmpty() || !isResizing) {
 			createAnchorPtBuffer();
 		}
 		int xValue = 0;
@@ -313,38 +425,43 @@ public class MyPoly extends MyShape {
 		double xScale = 0;
 		double yScale = 0;
 		
-		for (int i = 0; i < oldAnchorPts.size(); i++) {
-			AnchorPoint curPt = oldAnchorPts.get(i);
-			xDist = Math.sqrt(Math.pow(curPt.x - xValue, 2));
-			yDist = Math.sqrt(Math.pow(curPt.y - yValue, 2));
+		for (int i = 0; i < oldPts.size(); i++) {
+			int x = oldPts.getX(i);
+			int y = oldPts.getY(i);
+			xDist = Math.abs(x - xValue);
+			yDist = Math.abs(y - yValue);
 			xScale = (xDist / xValue) * p.x;
 			yScale = (yDist / yValue) * p.y;
 			
-			System.out.println("[xDist: " + xDist + ", yDist: " + yDist + ", xScale: "
-								+ xScale + ", yScale: " + yScale + ", p.x: " + p.x
-								+ ", p.y: " + p.y);
-			
-			AnchorPoint newPt = new AnchorPoint(0, 0);
 			switch (direction) {
 			case RectHandle.NORTH:		// intentional fall through
 			case RectHandle.SOUTH:
-				newPt = new AnchorPoint(curPt.x, (int)(curPt.y + yScale));
+				pts.set(i, x, (int)(y + yScale));
 				break;
 			case RectHandle.EAST:		// intentional fall through
 			case RectHandle.WEST:
-				newPt = new AnchorPoint((int)(curPt.x + xScale), curPt.y);
+				pts.set(i, (int)(x + xScale), y);
 				break;
 			case RectHandle.NORTH_WEST:	// intentional fall through
 			case RectHandle.NORTH_EAST:
 			case RectHandle.SOUTH_WEST:
 			case RectHandle.SOUTH_EAST:
-				newPt = new AnchorPoint((int)(curPt.x + xScale), (int)(curPt.y + yScale));
+				pts.set(i, (int)(x + xScale), (int)(y + yScale));
 				break;
 			}
-			anchorPts.set(i, newPt);
-			isResizing = true;
-			updateBoundingBox();
 		}
+		isResizing = true;
+		invalidateGeometry();
+		updateBoundingBox();
+		fireShapeChanged();
+	}
+	
+	public void setGeometry(int[] coords) {
+		pts.setCoords(coords);
+		invalidateGeometry();
+		oldPts.clear();
+		updateBoundingBox();
+		fireShapeChanged();
 	}
 	
 	/**
@@ -352,11 +469,13 @@ public class MyPoly extends MyShape {
 	 * bounding box of the poly.
 	 */
 	public void update() {
-		System.out.println("Poly updated");
+		Trace.debug("Poly updated");
 		if (!isMoving && !isResizing) {
-			oldAnchorPts = null;	// clear old anchorpts so that any new manipulations act on new pts
+			oldPts.clear();	// clear old pts so that any new manipulations act on new pts
 		}
+		invalidateGeometry();	// the pts may have been changed through getPts()
 		updateBoundingBox();
+		fireShapeChanged();
 	}
 	
 	//********************************************************
@@ -368,35 +487,22 @@ public class MyPoly extends MyShape {
 	 * draw the bounding box.
 	 */
 	protected void updateBoundingBox() {		
-		int minX = anchorPts.get(0).x;
-		int minY = anchorPts.get(0).y;
-		int maxX = anchorPts.get(0).x;
-		int maxY = anchorPts.get(0).y;
+		Rectangle r = getBoundRect();
 		
-		for (int i = 0; i < anchorPts.size(); i++) {
-			if (anchorPts.get(i).x < minX) {
-				minX = anchorPts.get(i).x;
-			}
-			
-			if (anchorPts.get(i).x > maxX) {
-				maxX = anchorPts.get(i).x;
-			}
-			
-			if (anchorPts.get(i).y < minY) {
-				minY = anchorPts.get(i).y;
-			}
-			
-			if (anchorPts.get(i).y > maxY) {
-				maxY = anchorPts.get(i).y;
-			}
+		if (!pts.isEmpty()) {
+			boundBox.setBounds(r.x, r.y, r.x + r.width, r.y + r.height);
 		}
-		
-		Point p1 = new Point(minX, minY);
-		Point p2 = new Point(maxX, maxY);
-		
-		boundBox.setStartPt(p1);
-		boundBox.setEndPt(p2);
-		boundRect = new Rectangle(minX, minY, maxX - minX, maxY - minY);		
+	}
+	
+	/**
+	 * Works out the bounds, area and perimeter from the pts. Only a closed poly has an area.
+	 */
+	protected void updateGeometry() {
+		pts.getBounds(boundRect);	// empty at 0, 0 if nothing has been added yet (empty path)
+		width = boundRect.width;
+		height = boundRect.height;
+		area = isClosed ? pts.getArea() : 0;
+		perimeter = pts.getLength();
 	}
 
 	//********************************************************
@@ -404,22 +510,26 @@ public class MyPoly extends MyShape {
 	//********************************************************
 	
 	public String toString() {
-		String str = "Poly[nPts=" + anchorPts.size();
-		for (int i = 0; i < anchorPts.size(); i++) {
-			str += "" + anchorPts.get(i).toString() + ", ";
-		}
-		return str;
+		return "Poly[nPts=" + pts.size() + pts.toString();
 	}
 	
-	public Rectangle getBoundRect() {
-		if (boundRect == null) {
-			updateBoundingBox();
-		}
-		return boundRect;
+	public int getPtCount() {
+		return pts.size();
 	}
 	
-	public int getPtCount() {
-		return anchorPts.size();
+	public int[] getGeometry() {
+		return pts.toCoords();
+	}
+	
+	/**
+	 * @return the pts of the poly, which shouldn't be changed without updating the poly
+	 */
+	public VertexStore getPts() {
+		return pts;
+	}
+	
+	public boolean isClosed() {
+		return isClosed;
 	}
 
 	public boolean didClose() {
@@ -428,69 +538,33 @@ public class MyPoly extends MyShape {
 	
 	/**
 	 * 
-	 * @return The maximum x-value of the poly
+	 * @return The maximum x-value of the poly, before the current move / resize
 	 */
 	public int getMaxX() {
-		int maxX = oldAnchorPts.get(0).x;	// starting test pt
-		
-		for (int i = 0; i < oldAnchorPts.size(); i++) {
-			AnchorPoint testPt = oldAnchorPts.get(i);
-			
-			if (testPt.x > maxX) {
-				maxX = testPt.x;
-			}
-		}
-		return maxX;
+		return oldBoundRect.x + oldBoundRect.width;
 	}
 	
 	/**
 	 * 
-	 * @return The minimum x-value of the poly
+	 * @return The minimum x-value of the poly, before the current move / resize
 	 */
 	public int getMinX() {
-		int minX = oldAnchorPts.get(0).x;	// starting test pt
-		
-		for (int i = 0; i < oldAnchorPts.size(); i++) {
-			AnchorPoint testPt = oldAnchorPts.get(i);
-			
-			if (testPt.x < minX) {
-				minX = testPt.x;
-			}
-		}
-		return minX;
+		return oldBoundRect.x;
 	}
 	
 	/**
 	 * 
-	 * @return The maximum y-value of the poly
+	 * @return The maximum y-value of the poly, before the current move / resize
 	 */
 	public int getMaxY() {
-		int maxY = oldAnchorPts.get(0).y;	// starting test pt
-		
-		for (int i = 0; i < oldAnchorPts.size(); i++) {
-			AnchorPoint testPt = oldAnchorPts.get(i);
-			
-			if (testPt.y > maxY) {
-				maxY = testPt.y;
-			}
-		}
-		return maxY;
+		return oldBoundRect.y + oldBoundRect.height;
 	}
 	
 	/**
 	 * 
-	 * @return The minimum y-value of the poly
+	 * @return The minimum y-value of the poly, before the current move / resize
 	 */
 	public int getMinY() {
-		int minY = oldAnchorPts.get(0).y;	// starting test pt
-		
-		for (int i = 0; i < oldAnchorPts.size(); i++) {
-			AnchorPoint testPt = oldAnchorPts.get(i);
-			
-			if (testPt.y < minY) {
-				minY = testPt.y;
-			}
-		}
-		return minY;
+		return oldBoundRect.y;
 	}
 }
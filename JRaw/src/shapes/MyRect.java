@@ -6,6 +6,8 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 
+import gfx.Decoration;
+import gfx.Style;
 import input.Mouse;
 
 /**
@@ -14,13 +16,21 @@ import input.Mouse;
  *
  */
 public class MyRect extends MyShape {
+	/** Style of new rects, which are both stroked and filled */
+	public static final Style RECT_STYLE = Style.of(createDecoration());
 	
 	public MyRect() {
 		boundBox = new BoundingBox(startPt, endPt);
-		decoration.setStrokeColor(Color.BLACK);
-		decoration.setStroke(new BasicStroke(6.0f));
-		decoration.setHasFill(true);
-		decoration.setHasStroke(true);
+		style = RECT_STYLE;
+	}
+	
+	private static Decoration createDecoration() {
+		Decoration d = new Decoration();
+		d.setStrokeColor(Color.BLACK);
+		d.setStroke(new BasicStroke(6.0f));
+		d.setHasFill(true);
+		d.setHasStroke(true);
+		return d;
 	}
 	
 	//********************************************************
@@ -28,21 +38,17 @@ public class MyRect extends MyShape {
 	//********************************************************
 	
 	public void render(Graphics g) {
+		if (renderAsPixel(g, getRenderScale(g))) {	// too small to see any detail
+			return;
+		}
 		final Graphics2D g2d = (Graphics2D)g.create();
-		
-		int startX = (int)(startPt.x * SCALE_FACTOR);
-		int startY = (int)(startPt.y * SCALE_FACTOR);
-		int width = (int)(getWidth() * SCALE_FACTOR);
-		int height = (int)(getHeight() * SCALE_FACTOR);
+		final Decoration decoration = getDecoration();
 		
 		try {
 			if (decoration.hasStroke()) {
 				g2d.setColor(decoration.getStrokeColor());
 				g2d.setStroke(decoration.getStroke());
-//				g2d.drawRect(startPt.x, startPt.y, getWidth(), getHeight());
-			
-				
-				g2d.drawRect(startX, startY, width, height);
+				g2d.drawRect(startPt.x, startPt.y, getWidth(), getHeight());
 			}
 			
 //			if (decoration.hasGradient()) { // GRADIENT DEMO!!
@@ -62,8 +68,7 @@ public class MyRect extends MyShape {
 			
 			if (decoration.hasFill()) {
 				g2d.setColor(decoration.getFillColor());
-//				g2d.fillRect(startPt.x, startPt.y, getWidth(), getHeight());
-				g2d.fillRect(startX, startY, width, height);
+				g2d.fillRect(startPt.x, startPt.y, getWidth(), getHeight());
 			}
 			
 			if (boundBox.isVisible() && isSelected) {
@@ -104,7 +109,6 @@ public class MyRect extends MyShape {
 		isDragging = false;
 		isMoving = false;
 		isResizing = false;
-		System.out.println("Mouse released!");
 		if (getWidth() > 0 && getHeight() > 0) { 
 			canMove = true;
 		}
@@ -140,9 +144,7 @@ public class MyRect extends MyShape {
 	
 	private void dragShape(Mouse mouse) {
 		isDragging = true;
-		startPt = mouse.getClickPt();
-		endPt = mouse.getDragPt();
-		checkPoints();
+		checkPoints(mouse.getClickPt(), mouse.getDragPt());
 	}
 	
 	private void constrainXPts() {
@@ -1,13 +1,18 @@
 package shapes;
 
+import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.io.Serializable;
 
 import gfx.Decoration;
+import gfx.Style;
 import input.Mouse;
 import menus.ShapePopupMenu;
+import utils.Trace;
 
 /**
  * This is the base class for which all other shapes will inherit from. This class enforces basic
@@ -17,7 +22,14 @@ import menus.ShapePopupMenu;
  *
  */
 public abstract class MyShape implements Serializable, Cloneable {
-	public static double SCALE_FACTOR = 1.0;
+	/** Rendering hint that holds the scale (as a Double) that the canvas is drawing shapes at */
+	public static final RenderingHints.Key KEY_RENDER_SCALE = new RenderingHints.Key(1) {
+		public boolean isCompatibleValue(Object value) {
+			return value instanceof Double;
+		}
+	};
+	/** Style of new shapes, until they are given one */
+	public static final Style DEFAULT_STYLE = Style.of(new Decoration());
 	
 	protected Point oldStartPt;
 	protected Point oldEndPt;
@@ -26,12 +38,14 @@ public abstract class MyShape implements Serializable, Cloneable {
 	
 	protected Rectangle boundRect;
 	protected BoundingBox boundBox;
-	protected Decoration decoration;
+	protected Style style;					// shared handle to the (frozen) decoration of the shape
 	
-	protected double area;
+	protected double area;					// cached geometry, only valid at geometryVersion
 	protected double perimeter;
 	protected int width;
 	protected int height;
+	protected int version = 1;				// bumped whenever the geometry of the shape changes
+	transient private int geometryVersion;	// version that the cached geometry was computed at
 	protected int zIndex;					// stacking index of the shape
 	
 	protected boolean isDragging;			// are we dragging out the shape right now?
@@ -45,6 +59,7 @@ public abstract class MyShape implements Serializable, Cloneable {
 	protected static boolean constrainY;
 	
 	protected ShapePopupMenu shapeMenu;		// the context menu of the shape
+	transient protected ShapeObserver observer;	// notified when the shape changes (if on the canvas)
 	
 	/**
 	 * Default constructor creates an empty shape.
@@ -54,7 +69,7 @@ public abstract class MyShape implements Serializable, Cloneable {
 		endPt = new Point(0, 0);
 		boundRect = new Rectangle();
 		boundBox = new BoundingBox(new Point(0, 0), new Point(0, 0)); // default initialization
-		decoration = new Decoration();
+		style = DEFAULT_STYLE;
 	}
 	
 	/**
@@ -64,22 +79,47 @@ public abstract class MyShape implements Serializable, Cloneable {
 	 * @param endPt
 	 */
 	public MyShape(Point startPt, Point endPt) {
-		this.startPt = startPt;
-		this.endPt = endPt;
+		this.startPt = new Point(startPt);
+		this.endPt = new Point(endPt);
 		boundRect = new Rectangle();
-		decoration = new Decoration();
+		style = DEFAULT_STYLE;
 		checkPoints();
 	}
 	
+	/**
+	 * Constructs a placeholder shape that only knows its bounds and style. This 
+	 * avoids building a bounding box for shapes that may never be interacted with.
+	 * @param bounds
+	 * @param style
+	 */
+	protected MyShape(Rectangle bounds, Style style) {
+		startPt = new Point(bounds.x, bounds.y);
+		endPt = new Point(bounds.x + bounds.width, bounds.y + bounds.height);
+		boundRect = new Rectangle(bounds);
+		this.style = style;
+	}
+	
 	/**
 	 * Provides the capability of duplicating shapes by making an exact
-	 * clone of a shape that is already exisitng.
+	 * clone of a shape that is already exisitng. The clone shares the style of the shape,
+	 * which is frozen.
 	 */
 	public Object clone() {
 		try {
-			return (MyShape)super.clone();
+			MyShape shape = (MyShape)super.clone();
+			shape.startPt = new Point(startPt);	// pts are changed in place, so they can't be shared
+			shape.endPt = new Point(endPt);
+			shape.oldStartPt = oldStartPt != null ? new Point(oldStartPt) : null;
+			shape.oldEndPt = oldEndPt != null ? new Point(oldEndPt) : null;
+			shape.boundRect = new Rectangle(boundRect);
+			shape.observer = null;	// the clone isn't on the canvas (yet)
+			
+			if (boundBox != null) {
+				shape.boundBox = new BoundingBox(new Point(startPt), new Point(endPt));
+			}
+			return shape;
 		} catch (CloneNotSupportedException e) {
-			System.out.println("Clone not supported!");		// this should never be thrown!
+			Trace.error("Clone not supported!", e);		// this should never be thrown!
 		}
 		return null;
 	}
@@ -90,6 +130,34 @@ public abstract class MyShape implements Serializable, Cloneable {
 	
 	public abstract void render(Graphics g);
 	
+	/**
+	 * Draws the shape as a single pixel if all of it (stroke and all) would be smaller than
+	 * a pixel on screen, since none of its detail could be seen anyway. Selected shapes are
+	 * always drawn in full, so that their bounding box still shows.
+	 * @param g
+	 * @param scale size of one unit of the shape on screen, from getRenderScale()
+	 * @return true if the shape was drawn as a pixel (or not at all), so it shouldn't be
+	 * drawn again
+	 */
+	protected boolean renderAsPixel(Graphics g, double scale) {
+		Rectangle r = getBoundRect();
+		Decoration decoration = getDecoration();
+		float strokeWidth = decoration.hasStroke() ? decoration.getStrokeWidth() : 0;
+		
+		if (isSelected || (Math.max(r.width, r.height) + strokeWidth) * scale >= 1) {
+			return false;
+		}
+		
+		if (decoration.hasStroke() || decoration.hasFill()) {
+			int size = (int)Math.ceil(1 / scale);	// one pixel, in shape units
+			Color color = g.getColor();
+			g.setColor(decoration.hasStroke() ? decoration.getStrokeColor() : decoration.getFillColor());
+			g.fillRect(r.x, r.y, size, size);
+			g.setColor(color);
+		}
+		return true;
+	}
+	
 	//********************************************************
 	//* 			   ABSTRACT MOUSE METHODS				 *
 	//********************************************************
@@ -104,15 +172,13 @@ public abstract class MyShape implements Serializable, Cloneable {
 	//********************************************************
 	
 	public void update() {
-		System.out.println("Is Resizing? I shouldn't be but I " + isResizing);
-		System.out.println("Am I moving? " + isMoving);
 		if (!isMoving && !isResizing) {
-			oldStartPt = startPt;
-			oldEndPt = endPt;
-			System.out.println("Shape Updated!");
+			saveOldPts();
+			Trace.debug("Shape Updated!");
 		}
 		checkPoints();
 		updateBoundingBox();
+		fireShapeChanged();
 	}
 	
 	/**
@@ -122,14 +188,11 @@ public abstract class MyShape implements Serializable, Cloneable {
 	 */
 	public void move(Point p) {
 		if ((oldStartPt == null || oldEndPt == null) && !isMoving) {
-			oldStartPt = startPt;
-			oldEndPt = endPt;
+			saveOldPts();
 		}
-
-		Point newStartPt = new Point(oldStartPt.x + p.x, oldStartPt.y + p.y);
-		Point newEndPt = new Point(oldEndPt.x + p.x, oldEndPt.y + p.y);
-		checkPoints(newStartPt, newEndPt);
+		checkPoints(oldStartPt.x + p.x, oldStartPt.y + p.y, oldEndPt.x + p.x, oldEndPt.y + p.y);
 		isMoving = true;		
+		fireShapeChanged();
 	}
 	
 	/**
@@ -139,72 +202,134 @@ public abstract class MyShape implements Serializable, Cloneable {
 	 */
 	public void resize(Point p, int direction) {
 		if ((oldStartPt == null || oldEndPt == null)) {
-			oldStartPt = startPt;
-			oldEndPt = endPt;
+			saveOldPts();
 		}
-		Point newStartPt = new Point(oldStartPt.x, oldStartPt.y);
-		Point newEndPt = new Point(oldEndPt.x, oldEndPt.y);
+		int x1 = oldStartPt.x;
+		int y1 = oldStartPt.y;
+		int x2 = oldEndPt.x;
+		int y2 = oldEndPt.y;
 		
 		isSelected = true;
 		isResizing = true;
 		
 		switch (direction) {
 		case RectHandle.NORTH:
-			newStartPt.y += p.y;
+			y1 += p.y;
 			break;
 		case RectHandle.SOUTH:
-			newEndPt.y += p.y;
+			y2 += p.y;
 			break;
 		case RectHandle.EAST:
-			newEndPt.x += p.x;
+			x2 += p.x;
 			break;
 		case RectHandle.WEST:
-			newStartPt.x += p.x;
+			x1 += p.x;
 			break;
 		case RectHandle.NORTH_EAST:
-			newStartPt.y += p.y;
-			newEndPt.x += p.x;
+			y1 += p.y;
+			x2 += p.x;
 			break;
 		case RectHandle.NORTH_WEST:
-			newStartPt.x += p.x;
-			newStartPt.y += p.y;
+			x1 += p.x;
+			y1 += p.y;
 			break;
 		case RectHandle.SOUTH_EAST:
-			newEndPt.x += p.x;
-			newEndPt.y += p.y;
+			x2 += p.x;
+			y2 += p.y;
 			break;
 		case RectHandle.SOUTH_WEST:
-			newStartPt.x += p.x;
-			newEndPt.y += p.y;
+			x1 += p.x;
+			y2 += p.y;
 			break;
 		}	
-		checkPoints(newStartPt, newEndPt);
+		checkPoints(x1, y1, x2, y2);
+		fireShapeChanged();
+	}
+	
+	/**
+	 * Moves the shape by dx and dy right away, which unlike move() doesn't depend on
+	 * where the shape was when a drag started.
+	 * @param dx
+	 * @param dy
+	 */
+	public void translate(int dx, int dy) {
+		int[] coords = getGeometry();
+		
+		for (int i = 0; i < coords.length; i += 2) {
+			coords[i] += dx;
+			coords[i + 1] += dy;
+		}
+		setGeometry(coords);
+	}
+	
+	/**
+	 * Resizes the shape in one step, the same as dragging the resize handle in direction
+	 * by dx and dy from where the shape is now would. Whether the shape is selected is
+	 * left alone.
+	 * @param dx
+	 * @param dy
+	 * @param direction
+	 */
+	public void resizeBy(int dx, int dy, int direction) {
+		boolean wasSelected = isSelected;
+		saveOldPts();
+		resize(new Point(dx, dy), direction);
+		isResizing = false;
+		isSelected = wasSelected;
+		update();
+	}
+	
+	/**
+	 * Sets the pts that define the shape, as returned by getGeometry().
+	 * @param coords
+	 */
+	public void setGeometry(int[] coords) {
+		startPt.setLocation(coords[0], coords[1]);
+		endPt.setLocation(coords[2], coords[3]);
+		invalidateGeometry();
+		saveOldPts();
+		updateBoundingBox();
+		fireShapeChanged();
 	}
 	
 	//********************************************************
 	//* 				  UTILITY METHODS					 *
 	//********************************************************
 	
+	/**
+	 * Lets the observer of the shape (if any) know that the shape has changed.
+	 */
+	protected void fireShapeChanged() {
+		if (observer != null) {
+			observer.shapeChanged(this);
+		}
+	}
+	
 	protected void updateBoundingBox() {
 		if (getWidth() != 0 && getHeight() != 0) {
-			boundBox.setStartPt(startPt);
-			boundBox.setEndPt(endPt);
-			System.out.println("Bounding Box Updated!");
+			boundBox.setBounds(startPt.x, startPt.y, endPt.x, endPt.y);
 		}
 	}
 	
+	/**
+	 * Remembers where the start and end pts are now, so that a move or resize can be
+	 * applied relative to them. The old pts are reused once they exist.
+	 */
+	protected void saveOldPts() {
+		if (oldStartPt == null || oldEndPt == null) {
+			oldStartPt = new Point();
+			oldEndPt = new Point();
+		}
+		oldStartPt.setLocation(startPt);
+		oldEndPt.setLocation(endPt);
+	}
+	
 	/**
 	 * Checks to make sure that the start and end points of the shape are correct, in that
 	 * the end point should never be less than start point, and vice versa.
 	 */
 	protected void checkPoints() {
-		int startX = Math.min(startPt.x, endPt.x);
-		int startY = Math.min(startPt.y, endPt.y);
-		int endX = Math.max(startPt.x, endPt.x);
-		int endY = Math.max(startPt.y, endPt.y);
-		
-		startPt = new Point(startX, startY);
-		endPt = new Point(endX, endY);	
+		checkPoints(startPt.x, startPt.y, endPt.x, endPt.y);
 	}
 	
 	/**
@@ -213,19 +338,74 @@ public abstract class MyShape implements Serializable, Cloneable {
 	 * allows you to specify 2 points to compare.
 	 */
 	protected void checkPoints(Point p1, Point p2) {
-		int startX = Math.min(p1.x, p2.x);
-		int startY = Math.min(p1.y, p2.y);
-		int endX = Math.max(p1.x, p2.x);
-		int endY = Math.max(p1.y, p2.y);
-		
-		startPt = new Point(startX, startY);
-		endPt = new Point(endX, endY);
+		checkPoints(p1.x, p1.y, p2.x, p2.y);
+	}
+	
+	/**
+	 * Sets the start pt to the smaller and the end pt to the larger of two pts, in place.
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
+	 */
+	protected void checkPoints(int x1, int y1, int x2, int y2) {
+		startPt.setLocation(Math.min(x1, x2), Math.min(y1, y2));
+		endPt.setLocation(Math.max(x1, x2), Math.max(y1, y2));
+		invalidateGeometry();
+	}
+	
+	/**
+	 * Marks the cached bounds, extents, area and perimeter as out of date. Anything that
+	 * changes the pts of the shape has to call this.
+	 */
+	protected void invalidateGeometry() {
+		version++;
+	}
+	
+	/**
+	 * Works out the geometry again if the shape has changed since it was last cached.
+	 */
+	protected final void validateGeometry() {
+		if (geometryVersion != version) {
+			updateGeometry();
+			geometryVersion = version;
+		}
+	}
+	
+	/**
+	 * Works out the bounds, extents, area and perimeter of the shape from its pts.
+	 */
+	protected void updateGeometry() {
+		width = Math.abs(endPt.x - startPt.x);
+		height = Math.abs(endPt.y - startPt.y);
+		boundRect.setBounds(Math.min(startPt.x, endPt.x), Math.min(startPt.y, endPt.y), width, height);
+		area = (double)width * height;
+		perimeter = 2.0 * (width + height);
 	}
 	
 	//********************************************************
 	//* 			  STATIC UTILITY METHODS				 *
 	//********************************************************
 	
+	/**
+	 * Uses the KEY_RENDER_SCALE hint if the canvas has set one, so that it doesn't have to 
+	 * copy the transform of g for every shape.
+	 * @param g
+	 * @return how big one unit of a shape is on screen when it's drawn with g
+	 */
+	public static double getRenderScale(Graphics g) {
+		if (!(g instanceof Graphics2D)) {
+			return 1.0;
+		}
+		final Graphics2D g2d = (Graphics2D)g;
+		Object hint = g2d.getRenderingHint(KEY_RENDER_SCALE);
+		
+		if (hint instanceof Double) {
+			return (Double)hint;
+		}
+		return Math.sqrt(Math.abs(g2d.getTransform().getDeterminant()));
+	}
+	
 	/**
 	 * Returns a new point that is the distance between the current drag point and the
 	 * starting click point of the mouse.
@@ -233,10 +413,20 @@ public abstract class MyShape implements Serializable, Cloneable {
 	 * @return
 	 */
 	public static Point getOffsetPt(Mouse mouse) {
-		int x = mouse.getDragPt().x - mouse.getClickPt().x;
-		int y = mouse.getDragPt().y - mouse.getClickPt().y;
-		
-		return new Point(x, y);
+		return getOffsetPt(mouse, new Point());
+	}
+	
+	/**
+	 * Sets Point p to the distance between the current drag point and the starting
+	 * click point of the mouse, so that a drag doesn't need a new point for every event.
+	 * @param mouse
+	 * @param p
+	 * @return p
+	 */
+	public static Point getOffsetPt(Mouse mouse, Point p) {
+		p.x = mouse.getDragPt().x - mouse.getClickPt().x;
+		p.y = mouse.getDragPt().y - mouse.getClickPt().y;
+		return p;
 	}
 	
 	//********************************************************
@@ -244,17 +434,30 @@ public abstract class MyShape implements Serializable, Cloneable {
 	//********************************************************
 	
 	public void setStartPt(Point startPt) {
-		this.startPt = startPt;
+		this.startPt.setLocation(startPt);
 		checkPoints();
+		fireShapeChanged();
 	}
 	
 	public void setEndPt(Point endPt) {
-		this.endPt = endPt;
+		this.endPt.setLocation(endPt);
 		checkPoints();
+		fireShapeChanged();
 	}
 	
+	/**
+	 * Gives the shape a private style with a frozen copy of decoration (or decoration
+	 * itself, if it is already frozen). Once the shape is on a canvas, the style is
+	 * interned so that it is shared with the shapes that look the same.
+	 * @param decoration
+	 */
 	public void setDecoration(Decoration decoration) {
-		this.decoration = decoration;
+		setStyle(Style.of(decoration));
+	}
+	
+	public void setStyle(Style style) {
+		this.style = style;
+		fireShapeChanged();
 	}
 	
 	public void setIsSelected(boolean b) {
@@ -269,6 +472,10 @@ public abstract class MyShape implements Serializable, Cloneable {
 		isResizing = b;
 	}
 	
+	public void setObserver(ShapeObserver observer) {
+		this.observer = observer;
+	}
+	
 	public void setZIndex(int z) {
 		zIndex = z;
 	}
@@ -289,6 +496,13 @@ public abstract class MyShape implements Serializable, Cloneable {
 	//* 				  ACCESSOR METHODS					 *
 	//********************************************************
 	
+	/**
+	 * @return a copy of the pts that define the shape, as x, y pairs
+	 */
+	public int[] getGeometry() {
+		return new int[] { startPt.x, startPt.y, endPt.x, endPt.y };
+	}
+	
 	public Point getStartPt() {
 		return startPt;
 	}
@@ -301,29 +515,52 @@ public abstract class MyShape implements Serializable, Cloneable {
 		return boundBox;
 	}
 	
+	/**
+	 * @return the decoration of the style of the shape, which is frozen, so it can't be
+	 * changed. Give the shape a new (changed) copy of it instead.
+	 */
 	public Decoration getDecoration() {
-		return decoration;
+		return style.getDecoration();
 	}
 	
+	public Style getStyle() {
+		return style;
+	}
+	
+	/**
+	 * @return the cached bounds of the shape, which shouldn't be changed
+	 */
 	public Rectangle getBoundRect() {
-		boundRect.setBounds(startPt.x, startPt.y, getWidth(), getHeight());	
+		validateGeometry();
 		return boundRect;
 	}
 	
 	public double getArea() {
-		return area = width * height;
+		validateGeometry();
+		return area;
 	}
 	
 	public double getPerimeter() {
-		return perimeter = (width + width) + (height + height);
+		validateGeometry();
+		return perimeter;
 	}
 	
 	public int getWidth() {
-		return width = Math.abs(endPt.x - startPt.x);
+		validateGeometry();
+		return width;
 	}
 	
 	public int getHeight() {
-		return height = Math.abs(endPt.y - startPt.y);
+		validateGeometry();
+		return height;
+	}
+	
+	/**
+	 * @return a number that changes whenever the geometry of the shape changes, so that
+	 * anything derived from it can tell when it's out of date
+	 */
+	public int getVersion() {
+		return version;
 	}
 	
 	public int getZIndex() {
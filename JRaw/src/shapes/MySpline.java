@@ -1,11 +1,13 @@
 package shapes;
 
-import java.awt.BasicStroke;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Path2D;
 import java.io.Serializable;
 
+import gfx.Decoration;
+
 /**
  * Represents a simple cubic spine that has 2 ctrl pts and a start 
  * and end pt.
@@ -19,6 +21,7 @@ public class MySpline implements Serializable {
 	private AnchorPoint p3;
 	private Point2D pFinal;
 	private double t;
+	transient private CubicCurve2D.Double curve;	// reused to draw the spline
 	
 	public MySpline() {	// default point initialization
 		p0 = new AnchorPoint(0, 0);
@@ -28,26 +31,31 @@ public class MySpline implements Serializable {
 	}
 	
 	public void render(Graphics g) {
-		final Graphics2D g2d = (Graphics2D)g.create();
 		if (c1 == null && c2 == null) {
 			return;
 		}
-		CubicCurve2D.Double curve = new CubicCurve2D.Double(p0.x, p0.y, c1.x, c1.y,		// curve that will render
-															c2.x, c2.y, p3.x, p3.y);
+		final Graphics2D g2d = (Graphics2D)g.create();
+		
 		try {
-			for (t = 0; t < 1; t += .01) {
-//				calcPFinal();
-//				int x = (int)pFinal.getX();
-//				int y = (int)pFinal.getY();
-//				g2d.fillRect((int)pFinal.getX(), (int)pFinal.getY(), 2, 2);
-				g2d.setStroke(new BasicStroke(2.0f));
-				g2d.draw(curve);
-			}
+			g2d.setStroke(Decoration.HANDLE_STROKE);
+			g2d.draw(getCurve());
 		} finally {
 			g2d.dispose();
 		}
 	}
 	
+	/**
+	 * Adds the spline to a path, starting a new piece of the path at p0.
+	 * @param path
+	 */
+	public void appendTo(Path2D path) {
+		if (c1 == null && c2 == null) {
+			return;
+		}
+		path.moveTo(p0.x, p0.y);
+		path.curveTo(c1.x, c1.y, c2.x, c2.y, p3.x, p3.y);
+	}
+	
 	//********************************************************
 	//* 				  MUTATOR METHODS					 *
 	//********************************************************
@@ -88,6 +96,17 @@ public class MySpline implements Serializable {
 		return p3;
 	}
 	
+	/**
+	 * @return the curve through the pts of the spline, which is reused between calls
+	 */
+	public CubicCurve2D getCurve() {
+		if (curve == null) {
+			curve = new CubicCurve2D.Double();
+		}
+		curve.setCurve(p0.x, p0.y, c1.x, c1.y, c2.x, c2.y, p3.x, p3.y);
+		return curve;
+	}
+	
 	/**
 	 * Calculates the value of a point on the curve from 0 <= t <= 1
 	 * and sets the value of pFinal.
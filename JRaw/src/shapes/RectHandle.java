@@ -1,12 +1,14 @@
 package shapes;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Stroke;
+
+import gfx.Decoration;
 
 public class RectHandle extends Rectangle {
 
@@ -44,18 +46,32 @@ public class RectHandle extends Rectangle {
 	//********************************************************
 	
 	public void render(Graphics g) {
-		final Graphics2D g2d = (Graphics2D)g.create();
-		try {
-			g2d.setColor(COLOR);
-			g2d.setStroke(new BasicStroke(2.0f));
-			g2d.drawRect(x, y, WIDTH, HEIGHT);	// outer rectangle outline
-			g2d.setColor(Color.WHITE);
-			g2d.fillRect(x, y, WIDTH, HEIGHT);	// inner rectangle
-			g2d.setColor(COLOR);
-			g2d.fillRect(x + 1, y + 1, WIDTH - 2, HEIGHT - 2);
-		} finally {
-			g2d.dispose();
-		}
+		final Graphics2D g2d = (Graphics2D)g;	// drawn straight onto g, which is put back after
+		Color oldColor = g2d.getColor();
+		Stroke oldStroke = g2d.getStroke();
+		
+		g2d.setColor(COLOR);
+		g2d.setStroke(Decoration.HANDLE_STROKE);
+		g2d.drawRect(x, y, WIDTH, HEIGHT);	// outer rectangle outline
+		g2d.setColor(Color.WHITE);
+		g2d.fillRect(x, y, WIDTH, HEIGHT);	// inner rectangle
+		g2d.setColor(COLOR);
+		g2d.fillRect(x + 1, y + 1, WIDTH - 2, HEIGHT - 2);
+		g2d.setColor(oldColor);
+		g2d.setStroke(oldStroke);
+	}
+	
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Moves the handle so that it is centered on x, y.
+	 * @param x
+	 * @param y
+	 */
+	public void setCenter(int x, int y) {
+		setLocation(x - OFFSET, y - OFFSET);
 	}
 	
 	//********************************************************
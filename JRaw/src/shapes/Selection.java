@@ -7,9 +7,21 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import commands.CloneCommand;
+import commands.DeleteCommand;
+import commands.History;
+import commands.MoveCommand;
+import commands.ResizeCommand;
+import gfx.Canvas;
+import gfx.Decoration;
+import gfx.Style;
 import input.Mouse;
+import jfr.HitTestEvent;
+import utils.Trace;
 
 /**
  * This class allows the user to drag with their mouse a rectangular selection marquee 
@@ -20,23 +32,46 @@ import input.Mouse;
  *
  */
 public class Selection extends MyRect {
+	private static final BasicStroke SELECTED_STROKE = new BasicStroke(2.0f);
+	private static final Style MARQUEE_STYLE = createStyle(Color.GRAY, new BasicStroke(1.0f, BasicStroke.CAP_BUTT,
+														   BasicStroke.JOIN_MITER, 2.0f, new float[] { 3.0f }, 0.0f));
+	private static final Style SELECTED_STYLE = createStyle(Color.BLUE, SELECTED_STROKE);
+	private static final int MIN_CHUNK_SIZE = 1024;		// fewest shapes that a worker decodes at once
+	
+	private static int parallelThreshold = Integer.getInteger("jraw.selection.parallelThreshold", 20000);
+	
 	private ArrayList<MyShape> selectedShapes;
 	private ArrayList<MyShape> clonedShapes;			// temporary array stores cloned shapes
-	private ArrayList<MyShape> canvasShapes;
+	private List<MyShape> canvasShapes;
+	private ArrayList<MyShape> hitShapes;				// reusable buffer for spatial index queries
+	private ArrayList<LazyShape> undecodedShapes;		// reusable buffer of hit shapes still to decode
+	private Canvas canvas;
+	
+	private ResizeCommand resizeCommand;				// resize in progress, for the undo history
+	private Point dragOffset;							// how far the selection has been dragged
+	private Point offsetPt;								// reused for the offset of every drag event
 	
 	private boolean didClear;
 	private boolean hasShapes;
 	private boolean isCloning;
 	private int shapeCount;
 	
-	public Selection() {
-		float dash[] = { 3.0f };
-		BasicStroke stroke = new BasicStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 2.0f, dash, 0.0f);
-		decoration.setStrokeColor(Color.GRAY);
-		decoration.setStroke(stroke);
+	public Selection(Canvas canvas) {
+		this.canvas = canvas;
+		style = MARQUEE_STYLE;
 		canvasShapes = new ArrayList<>();
 		selectedShapes = new ArrayList<>();
 		clonedShapes = new ArrayList<>();
+		hitShapes = new ArrayList<>();
+		undecodedShapes = new ArrayList<>();
+		offsetPt = new Point();
+	}
+	
+	private static Style createStyle(Color strokeColor, BasicStroke stroke) {
+		Decoration d = (Decoration)RECT_STYLE.getDecoration().clone();
+		d.setStrokeColor(strokeColor);
+		d.setStroke(stroke);
+		return Style.of(d);
 	}
 	
 	//********************************************************
@@ -45,6 +80,7 @@ public class Selection extends MyRect {
 	
 	public void render(Graphics g) {
 		final Graphics2D g2d = (Graphics2D)g.create();
+		final Decoration decoration = getDecoration();
 		try {
 			if(!didClear) {
 				g2d.setColor(decoration.getStrokeColor());
@@ -64,7 +100,6 @@ public class Selection extends MyRect {
 	public void handleClick(Mouse mouse) {
 		if (!hasShapes) {	// no shapes to begin with, check if click pt hits any shapes
 			checkShapes(mouse.getClickPt());
-			System.out.println("Checking shapes!");
 			if (hasShapes) {
 				canMove = true; // we can then move
 			}
@@ -86,6 +121,8 @@ public class Selection extends MyRect {
 	}
 	
 	public void handleRelease(Mouse mouse) {
+		canvas.setIsDragging(false);	// the drag is over, so the canvas can tidy up
+		
 		if (isDragging) {
 			checkShapes();
 			if (!hasShapes) {
@@ -96,7 +133,9 @@ public class Selection extends MyRect {
 		} else if (isMoving || isResizing) {
 			updateShapes();
 			updateBoundingBox();
+			recordChanges();
 		}
+		resizeCommand = null;
 		
 		if (isCloning) {
 //			selectedShapes = clonedShapes;
@@ -128,10 +167,13 @@ public class Selection extends MyRect {
 	public void handleDrag(Mouse mouse) {
 		if (hasShapes) {
 			if (canResize) {
-				Point p = getOffsetPt(mouse);
+				Point p = getOffsetPt(mouse, offsetPt);
+				canvas.setIsDragging(true);
 				resizeShapes(p, boundBox.getActiveHandle().getResizeDirection());
 			} else if (canMove) {
-				Point p = getOffsetPt(mouse);
+				Point p = getOffsetPt(mouse, offsetPt);
+				canvas.setIsDragging(true);
+				dragOffset = p;
 				if (isCloning) {
 					cloneSelectedShapes(p); // clone and move shapes
 					updateBoundingBox();
@@ -155,13 +197,20 @@ public class Selection extends MyRect {
 	 * Clears out the selection.
 	 */
 	public void clearSelection() {
-		for (int i = 0; i < canvasShapes.size(); i++) {
-			MyShape shape = canvasShapes.get(i);
+		for (int i = 0; i < selectedShapes.size(); i++) {
+			MyShape shape = selectedShapes.get(i);
 			
 			shape.setIsSelected(false);
 			shape.getBoundingBox().setVisible(false);
 		}
-		System.out.println("Selection Cleared!");
+		
+		for (int i = 0; i < clonedShapes.size(); i++) {
+			MyShape shape = clonedShapes.get(i);
+			
+			shape.setIsSelected(false);
+			shape.getBoundingBox().setVisible(false);
+		}
+		Trace.debug("Selection Cleared!");
 		hasShapes = false;
 		selectedShapes.clear();
 		didClear = true;
@@ -174,9 +223,7 @@ public class Selection extends MyRect {
 	 */
 	private void dragSelection(Mouse mouse) {
 		isDragging = true;
-		startPt = mouse.getClickPt();
-		endPt = mouse.getDragPt();
-		checkPoints();
+		checkPoints(mouse.getClickPt(), mouse.getDragPt());
 	}
 	
 	//********************************************************
@@ -204,7 +251,7 @@ public class Selection extends MyRect {
 				MyShape shape = selectedShapes.get(i);
 				MyShape cloneShape = (MyShape)shape.clone();
 				clonedShapes.add(cloneShape);
-				canvasShapes.add(cloneShape);	// then add to canvas!
+				canvas.addShape(cloneShape);	// then add to canvas!
 			}
 		} else {
 			for (int i = 0; i < clonedShapes.size(); i++) { // move cloned shapes
@@ -221,7 +268,11 @@ public class Selection extends MyRect {
 	 * @param direction
 	 */
 	private void resizeShapes(Point p, int direction) {
+		if (!isResizing) {	// remember what the shapes looked like before
+			resizeCommand = new ResizeCommand(selectedShapes, direction);
+		}
 		isResizing = true;
+		dragOffset = p;
 		for (int i = 0; i < selectedShapes.size(); i++) {
 			MyShape shape = selectedShapes.get(i);
 			shape.resize(p, direction);
@@ -250,57 +301,54 @@ public class Selection extends MyRect {
 		}
 	}
 	
+	/**
+	 * Adds the move, resize or clone that was just finished to the undo history. 
+	 * The whole drag is recorded as one command.
+	 */
+	private void recordChanges() {
+		History history = canvas.getHistory();
+		
+		if (isCloning && clonedShapes.size() > 0) {
+			history.record(new CloneCommand(canvas, clonedShapes));
+		} else if (isResizing && resizeCommand != null && dragOffset != null) {
+			resizeCommand.captureAfter(dragOffset);
+			if (resizeCommand.didChange()) {
+				history.record(resizeCommand);
+			}
+		} else if (isMoving && dragOffset != null && (dragOffset.x != 0 || dragOffset.y != 0)) {
+			history.record(new MoveCommand(selectedShapes, dragOffset.x, dragOffset.y));
+		}
+		dragOffset = null;
+	}
+	
 	//********************************************************
 	//* 				  UTILITY METHODS					 *
 	//********************************************************
 	
+	/**
+	 * Fits the selection around the selected (or cloned) shapes. This runs on every drag
+	 * event, so the extents are found from the cached bounds of each shape without
+	 * creating any objects.
+	 */
 	protected void updateBoundingBox() {
-		if (hasShapes) {
-			ArrayList<Integer> xPts = new ArrayList<>();
-			ArrayList<Integer> yPts = new ArrayList<>();
+		ArrayList<MyShape> shapes = isCloning & clonedShapes.size() > 0 ? clonedShapes : selectedShapes;
+		
+		if (hasShapes && !shapes.isEmpty()) {
+			int minX = Integer.MAX_VALUE;
+			int minY = Integer.MAX_VALUE;
+			int maxX = Integer.MIN_VALUE;
+			int maxY = Integer.MIN_VALUE;
 			
-			if (isCloning & clonedShapes.size() > 0) {  // update bounding box based on cloned shapes
-				for (int i = 0; i < clonedShapes.size(); i++) {
-					System.out.println("Checking cloned shapes!");
-					xPts.add(clonedShapes.get(i).getStartPt().x);
-					xPts.add(clonedShapes.get(i).getEndPt().x);
-					yPts.add(clonedShapes.get(i).getStartPt().y);
-					yPts.add(clonedShapes.get(i).getEndPt().y);
-				}
-			} else {
-				for (int i = 0; i < selectedShapes.size(); i++) {
-					System.out.println("Checking selected shapes");
-					if (selectedShapes.get(i) instanceof MyPoly) {	// use bound box from poly rather than start/end pts
-						Rectangle r = selectedShapes.get(i).getBoundRect();
-						xPts.add(r.x);
-						xPts.add(r.width + r.x);
-						yPts.add(r.y);
-						yPts.add(r.height + r.y);
-					} else {
-						xPts.add(selectedShapes.get(i).getStartPt().x);
-						xPts.add(selectedShapes.get(i).getEndPt().x);
-						yPts.add(selectedShapes.get(i).getStartPt().y);
-						yPts.add(selectedShapes.get(i).getEndPt().y);	
-					}
-				}	
+			for (int i = 0; i < shapes.size(); i++) {
+				Rectangle r = shapes.get(i).getBoundRect();
+				minX = Math.min(minX, r.x);
+				minY = Math.min(minY, r.y);
+				maxX = Math.max(maxX, r.x + r.width);
+				maxY = Math.max(maxY, r.y + r.height);
 			}
-			
-			Integer minX = Collections.min(xPts);
-			Integer maxX = Collections.max(xPts);
-			Integer minY = Collections.min(yPts);
-			Integer maxY = Collections.max(yPts);
-			
-			System.out.println("MinX " + minX + "MinY " + minY + "MaxX" + maxX + "MaxY " + maxY);
-			
-			Point newStartPt = new Point(minX, minY);
-			Point newEndPt = new Point(maxX, maxY);
-			
-			startPt = newStartPt;
-			endPt = newEndPt;
-			decoration.setStrokeColor(Color.BLUE);
-			decoration.setStroke(new BasicStroke(2.0f));
-			boundBox.setStartPt(newStartPt);
-			boundBox.setEndPt(newEndPt);	
+			checkPoints(minX, minY, maxX, maxY);
+			style = SELECTED_STYLE;
+			boundBox.setBounds(minX, minY, maxX, maxY);
 			boundBox.setVisible(true);
 		}
 	}
@@ -308,46 +356,99 @@ public class Selection extends MyRect {
 	/**
 	 * Checks to see if any canvas shapes are contained within the boundaries of
 	 * the active selection. If they are, they are added to the selection shapes
-	 * array.
+	 * array. The spatial index only finds shapes that are inside of the selection,
+	 * so the shapes it finds just have to be loaded (if they haven't been yet) and
+	 * selected.
 	 */
 	private void checkShapes() {
-		for (int i = 0; i < canvasShapes.size(); i++) {
-			MyShape shape = canvasShapes.get(i);
+		HitTestEvent event = new HitTestEvent();
+		event.begin();
+		canvas.getShapeIndex().searchContained(getBoundRect(), hitShapes);
+		int candidates = hitShapes.size();
+		boolean isParallel = candidates >= parallelThreshold && decodeInParallel();
+		
+		for (int i = 0; i < hitShapes.size(); i++) {
+			MyShape shape = hitShapes.get(i);
 			
-			if (getBoundRect().contains(shape.getBoundRect())) { // one or more shapes contained in dragged area
-				selectedShapes.add(shape);
-				shape.getBoundingBox().setVisible(false);
-				shape.setIsSelected(true);
-			} else {
-				shape.setIsSelected(false);
+			if (shape instanceof LazyShape) {	// selected shapes have to be loaded
+				shape = ((LazyShape)shape).materialize();
+			}
+			if (shape != null) {	// or it couldn't be read
+				selectShape(shape);
 			}
 		}
+		hitShapes.clear();
 		hasShapes = selectedShapes.size() > 0 ? true : false;
+		commitHitTest(event, isParallel ? "parallel area" : "area", candidates);
+	}
+	
+	/**
+	 * Decodes the shapes found by the spatial index that haven't been loaded yet across
+	 * the fork/join pool. The workers only decode the shapes, and checkShapes() then swaps
+	 * them in on this (the event) thread, in z-order.
+	 * @return false if there weren't enough shapes left to decode to be worth splitting up
+	 */
+	private boolean decodeInParallel() {
+		for (int i = 0; i < hitShapes.size(); i++) {
+			MyShape shape = hitShapes.get(i);
+			
+			if (shape instanceof LazyShape && !((LazyShape)shape).isMaterialized()) {
+				undecodedShapes.add((LazyShape)shape);
+			}
+		}
+		
+		try {
+			if (undecodedShapes.size() < parallelThreshold) {
+				return false;
+			}
+			ForkJoinPool pool = ForkJoinPool.commonPool();
+			int chunkSize = Math.max(MIN_CHUNK_SIZE, undecodedShapes.size() / (pool.getParallelism() * 4));
+			pool.invoke(new DecodeTask(undecodedShapes, 0, undecodedShapes.size(), chunkSize));
+			return true;
+		} finally {
+			undecodedShapes.clear();
+		}
+	}
+	
+	private void selectShape(MyShape shape) {
+		selectedShapes.add(shape);
+		shape.getBoundingBox().setVisible(false);
+		shape.setIsSelected(true);
 	}
 	
 	/**
 	 * Checks to see if any canvas shapes contain Point p (generally from a mouse click pt).
-	 * If it does, is added to the selection shape array. This method stops searching once
-	 * one shape that contains the Point p has been found. This is to prevent selecting
-	 * shapes that overlap.
+	 * If it does, is added to the selection shape array. Only the top most shape that 
+	 * contains the Point p is selected. This is to prevent selecting shapes that overlap.
 	 * @param p
 	 */
 	private void checkShapes(Point p) {
 		if (canvasShapes.size() > 0) { // there has to be shapes to check!
-		for (int i = canvasShapes.size() - 1; i >= 0; i--) { // reversed to find the highest z-index shape first
-			MyShape shape = canvasShapes.get(i);
-			if (shape.getBoundRect().contains(p)) {
+			HitTestEvent event = new HitTestEvent();
+			event.begin();
+			MyShape shape = canvas.getShapeIndex().hitTest(p);	// highest z-index shape
+			
+			if (shape instanceof LazyShape) {
+				shape = ((LazyShape)shape).materialize();
+			}
+			
+			if (shape != null) {
 				selectedShapes.add(shape);
 				shape.getBoundingBox().setVisible(false);
 				shape.setIsSelected(true);
 				hasShapes = true;
-				break;	// once we have found one shape, break out (so we don't select overlapping shapes)
-			} else {
-				shape.setIsSelected(false);
-				shape.getBoundingBox().setVisible(false);
 			}
+			updateBoundingBox();	
+			commitHitTest(event, "point", shape != null ? 1 : 0);
 		}
-		updateBoundingBox();	
+	}
+	
+	private void commitHitTest(HitTestEvent event, String operation, int candidates) {
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.candidates = candidates;
+			event.shapeCount = selectedShapes.size();
+			event.commit();
 		}
 	}
 	
@@ -355,16 +456,12 @@ public class Selection extends MyRect {
 	 * Deletes all shapes that are contained in the active selection.
 	 */
 	public void deleteSelectedShapes() {
-		for (int i = 0; i < selectedShapes.size(); i++) {
-			MyShape shape = selectedShapes.get(i);
-			canvasShapes.remove(shape);
-			shape = null;
-		}
+		canvas.getHistory().execute(new DeleteCommand(canvas, selectedShapes));
 		clearSelection();
 	}
 	
 	public void sendShapesFront() {	//TODO implement send shapes to front
-		System.out.println("Should send shapes to front but isn't implemented yet!");
+		Trace.debug("Should send shapes to front but isn't implemented yet!");
 		int[] shapeIndexes = new int[selectedShapes.size()];
 		
 		for (int i = 0; i < selectedShapes.size(); i++) {
@@ -372,7 +469,7 @@ public class Selection extends MyRect {
 		}
 		
 		for (int i : shapeIndexes) {
-			System.out.println("Shape indexes: " + i);
+			if (Trace.DEBUG) Trace.debug("Shape indexes: " + i);
 		}
 	}
 	
@@ -380,10 +477,19 @@ public class Selection extends MyRect {
 	//* 				  MUTATOR METHODS					 *
 	//********************************************************
 	
-	public void setCanvasShapes(ArrayList<MyShape> shapes) {
+	public void setCanvasShapes(List<MyShape> shapes) {
 		canvasShapes = shapes;
 	}
 	
+	/**
+	 * Sets how many shapes a marquee has to find before they are checked in parallel.
+	 * This can also be set with the jraw.selection.parallelThreshold system property.
+	 * @param n
+	 */
+	public static void setParallelThreshold(int n) {
+		parallelThreshold = n;
+	}
+	
 	public void setIsCloning(boolean b) {
 		isCloning = true;
 	}
@@ -400,6 +506,10 @@ public class Selection extends MyRect {
 		return isCloning;
 	}
 	
+	public Canvas getCanvas() {
+		return canvas;
+	}
+	
 	public ArrayList<MyShape> getSelectedShapes() {
 		return selectedShapes;
 	}
@@ -408,4 +518,38 @@ public class Selection extends MyRect {
 		return shapeCount = selectedShapes.size();
 	}
 	
+	//********************************************************
+	//* 				   TASK CLASSES						 *
+	//********************************************************
+	
+	/**
+	 * Decodes a range of placeholder shapes, splitting the range in half until it is
+	 * small enough. Only the placeholders themselves are touched.
+	 */
+	private static class DecodeTask extends RecursiveAction {
+		private ArrayList<LazyShape> shapes;
+		private int start;
+		private int end;
+		private int chunkSize;
+		
+		public DecodeTask(ArrayList<LazyShape> shapes, int start, int end, int chunkSize) {
+			this.shapes = shapes;
+			this.start = start;
+			this.end = end;
+			this.chunkSize = chunkSize;
+		}
+		
+		protected void compute() {
+			if (end - start > chunkSize) {
+				int mid = (start + end) >>> 1;
+				invokeAll(new DecodeTask(shapes, start, mid, chunkSize),
+						  new DecodeTask(shapes, mid, end, chunkSize));
+				return;
+			}
+			
+			for (int i = start; i < end; i++) {
+				shapes.get(i).decode();		// the event thread swaps it in
+			}
+		}
+	}
 }
@@ -0,0 +1,25 @@
+package shapes;
+
+/**
+ * Receives notifications whenever a shape that has been committed to the canvas
+ * is moved, resized or otherwise updated, so that anything keeping track of the
+ * shape (such as the spatial index) can stay up to date.
+ * @author DavidKramer
+ *
+ */
+public interface ShapeObserver {
+
+	/**
+	 * Called after the geometry of a shape has changed.
+	 * @param shape the shape that changed
+	 */
+	public void shapeChanged(MyShape shape);
+	
+	/**
+	 * Called when a placeholder for a shape that hadn't been loaded yet is replaced
+	 * by the real shape.
+	 * @param placeholder the placeholder shape
+	 * @param shape the real shape
+	 */
+	public void shapeMaterialized(MyShape placeholder, MyShape shape);
+}
@@ -0,0 +1,325 @@
+package shapes;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import gfx.Decoration;
+import gfx.Style;
+import utils.Trace;
+
+/**
+ * This class is an immutable copy of the geometry and decoration of a shape at the time
+ * it was taken. A snapshot of records can be handed to another thread (to be saved, for
+ * example) while the user keeps editing the real shapes on the event thread.
+ * @author DavidKramer
+ *
+ */
+public final class ShapeRecord {
+	public static final byte TYPE_RECT = 1;
+	public static final byte TYPE_CIRCLE = 2;
+	public static final byte TYPE_LINE = 3;
+	public static final byte TYPE_POLY = 4;
+	public static final byte TYPE_PATH = 5;
+	private static final int RECORD_BYTES = 48;		// header and fields of a record
+	private static final int RECT_BYTES = 32;		// its bounds
+	private static final int ARRAY_BYTES = 16;		// header of an int array
+	private static final int BUFFER_BYTES = 64;		// a view of a mapped buffer
+
+	private final byte type;
+	private final int zIndex;
+	private final Decoration decoration;	// frozen, so it is shared with the shape
+	private final Rectangle bounds;
+	private final int[] coords;				// x, y pairs of the start / end pts or anchor pts
+	private final int[] curves;				// 8 ints (p0, c1, c2, p3) per curve of a path
+	private final boolean isClosed;
+	private final ByteBuffer encoded;		// encoded record of a shape that was never loaded
+	private final LazyShape.Decoder decoder;	// decodes the encoded record
+
+	private ShapeRecord(byte type, int zIndex, Decoration decoration, Rectangle bounds, int[] coords,
+						int[] curves, boolean isClosed, ByteBuffer encoded, LazyShape.Decoder decoder) {
+		this.type = type;
+		this.zIndex = zIndex;
+		this.decoration = decoration;
+		this.bounds = bounds;
+		this.coords = coords;
+		this.curves = curves;
+		this.isClosed = isClosed;
+		this.encoded = encoded;
+		this.decoder = decoder;
+	}
+
+	//********************************************************
+	//* 			  STATIC UTILITY METHODS				 *
+	//********************************************************
+
+	/**
+	 * Takes a snapshot of a list of shapes. This must be called on the thread that edits
+	 * the shapes (the event thread), but the snapshot can then be used from any thread.
+	 * @param shapes
+	 * @return an unmodifiable list of records, in the same order as the shapes
+	 */
+	public static List<ShapeRecord> snapshot(List<MyShape> shapes) {
+		ArrayList<ShapeRecord> records = new ArrayList<>(shapes.size());
+
+		for (int i = 0; i < shapes.size(); i++) {
+			records.add(of(shapes.get(i)));
+		}
+		return Collections.unmodifiableList(records);
+	}
+
+	/**
+	 * Takes a snapshot of a single shape. The decoration of the shape is frozen, so the
+	 * record just shares it rather than copying it.
+	 * @param shape
+	 * @return
+	 */
+	public static ShapeRecord of(MyShape shape) {
+		if (shape instanceof LazyShape && ((LazyShape)shape).isMaterialized()) {
+			shape = ((LazyShape)shape).getShape();
+		}
+
+		Decoration decoration = shape.getDecoration();
+		Rectangle bounds = new Rectangle(shape.getBoundRect());
+
+		if (shape instanceof LazyShape) {	// keep the encoded record, rather than loading it
+			LazyShape lazy = (LazyShape)shape;
+			ByteBuffer encoded = lazy.getRecord().asReadOnlyBuffer();
+			return new ShapeRecord(encoded.get(0), shape.getZIndex(), decoration, bounds, null, null, false,
+								   encoded, lazy.getDecoder());
+		}
+
+		byte type = getType(shape);
+		int[] coords;
+		int[] curves = null;
+		boolean isClosed = false;
+
+		switch (type) {
+		case TYPE_POLY:
+			MyPoly poly = (MyPoly)shape;
+			coords = poly.getGeometry();
+			isClosed = poly.isClosed();
+			break;
+		case TYPE_PATH:
+			MyPath path = (MyPath)shape;
+			coords = path.getGeometry();
+			curves = new int[path.getCurves().size() * 8];
+			for (int i = 0; i < path.getCurves().size(); i++) {
+				MySpline curve = path.getCurves().get(i);
+				setCoord(curves, i * 4, curve.getP0());
+				setCoord(curves, i * 4 + 1, curve.getC1());
+				setCoord(curves, i * 4 + 2, curve.getC2());
+				setCoord(curves, i * 4 + 3, curve.getP3());
+			}
+			break;
+		default:
+			coords = new int[4];
+			setCoord(coords, 0, shape.getStartPt());
+			setCoord(coords, 1, shape.getEndPt());
+			break;
+		}
+		return new ShapeRecord(type, shape.getZIndex(), decoration, bounds, coords, curves, isClosed, null, null);
+	}
+
+	/**
+	 * @param shape
+	 * @return the record type for the type of shape
+	 */
+	public static byte getType(MyShape shape) {
+		if (shape instanceof MyCircle) {	// check sub classes first
+			return TYPE_CIRCLE;
+		} else if (shape instanceof MyRect) {
+			return TYPE_RECT;
+		} else if (shape instanceof MyLine) {
+			return TYPE_LINE;
+		} else if (shape instanceof MyPath) {
+			return TYPE_PATH;
+		} else if (shape instanceof MyPoly) {
+			return TYPE_POLY;
+		}
+		throw new IllegalArgumentException("No record type for shape " + shape.getClass().getName());
+	}
+
+	private static void setCoord(int[] coords, int i, Point p) {
+		coords[i * 2] = p.x;
+		coords[i * 2 + 1] = p.y;
+	}
+
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
+
+	/**
+	 * @param decoration
+	 * @return a copy of the record with another (frozen) decoration, which shares everything
+	 * else with this one
+	 */
+	public ShapeRecord withDecoration(Decoration decoration) {
+		return new ShapeRecord(type, zIndex, decoration.toFrozen(), bounds, coords, curves, isClosed,
+							   encoded, decoder);
+	}
+
+	/**
+	 * Builds a new shape from the record. The shape belongs to nobody (it has no observer and
+	 * isn't on any canvas), so it can be built and rendered on a worker thread while the real
+	 * shape is being edited on the event thread.
+	 * @param style style for the new shape, which must have the decoration of the record
+	 * @return the new shape, or null if its encoded record couldn't be read
+	 */
+	public MyShape toShape(Style style) {
+		MyShape shape;
+
+		if (isEncoded()) {
+			try {
+				shape = decoder.decode(getEncoded());
+			} catch (IOException e) {
+				Trace.error("Couldn't decode shape record", e);
+				return null;
+			}
+		} else {
+			switch (type) {
+			case TYPE_RECT:		// intentional fall through
+			case TYPE_CIRCLE:
+				shape = type == TYPE_RECT ? new MyRect() : new MyCircle();
+				shape.setGeometry(new int[] { getX(0), getY(0), getX(1), getY(1) });
+				break;
+			case TYPE_LINE:
+				MyLine line = new MyLine();
+				line.setLine(getX(0), getY(0), getX(1), getY(1));
+				shape = line;
+				break;
+			case TYPE_POLY:
+				shape = MyPoly.createFromPts(getPts(), isClosed);
+				break;
+			default:
+				ArrayList<MySpline> pathCurves = new ArrayList<>(getCurveCount());
+				for (int i = 0; i < getCurveCount(); i++) {
+					MySpline curve = new MySpline();
+					curve.setP0(new AnchorPoint(getCurveX(i, 0), getCurveY(i, 0)));
+					curve.setC1(new ControlAnchorPoint(getCurveX(i, 1), getCurveY(i, 1)));
+					curve.setC2(new ControlAnchorPoint(getCurveX(i, 2), getCurveY(i, 2)));
+					curve.setP3(new AnchorPoint(getCurveX(i, 3), getCurveY(i, 3)));
+					pathCurves.add(curve);
+				}
+				shape = new MyPath(getPts(), pathCurves);
+				break;
+			}
+		}
+		shape.setStyle(style);
+		shape.setZIndex(zIndex);
+		return shape;
+	}
+
+	private VertexStore getPts() {
+		VertexStore pts = new VertexStore(getPtCount());
+		for (int i = 0; i < getPtCount(); i++) {
+			pts.add(getX(i), getY(i));
+		}
+		return pts;
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public byte getType() {
+		return type;
+	}
+
+	public int getZIndex() {
+		return zIndex;
+	}
+
+	/**
+	 * @return the decoration of the shape, which is shared and must not be changed
+	 */
+	public Decoration getDecoration() {
+		return decoration;
+	}
+
+	/**
+	 * @return a copy of the bounds of the shape
+	 */
+	public Rectangle getBounds() {
+		return new Rectangle(bounds);
+	}
+
+	/**
+	 * @param r
+	 * @param pad
+	 * @return true if the bounds of the shape, grown by pad on each side, intersect Rectangle r
+	 */
+	public boolean intersects(Rectangle r, int pad) {
+		return bounds.x - pad < r.x + r.width && r.x < bounds.x + bounds.width + pad
+			&& bounds.y - pad < r.y + r.height && r.y < bounds.y + bounds.height + pad;
+	}
+
+	public int getPtCount() {
+		return coords != null ? coords.length / 2 : 0;
+	}
+
+	public int getX(int i) {
+		return coords[i * 2];
+	}
+
+	public int getY(int i) {
+		return coords[i * 2 + 1];
+	}
+
+	public int getCurveCount() {
+		return curves != null ? curves.length / 8 : 0;
+	}
+
+	/**
+	 * @param curve
+	 * @param i which pt of the curve (0 = p0, 1 = c1, 2 = c2, 3 = p3)
+	 * @return
+	 */
+	public int getCurveX(int curve, int i) {
+		return curves[curve * 8 + i * 2];
+	}
+
+	public int getCurveY(int curve, int i) {
+		return curves[curve * 8 + i * 2 + 1];
+	}
+
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	/**
+	 * @return roughly how many bytes of heap the record takes up, not counting its shared
+	 * decoration, or the file that an encoded record is mapped from
+	 */
+	public int getByteSize() {
+		int size = RECORD_BYTES + RECT_BYTES;
+		if (coords != null) {
+			size += ARRAY_BYTES + coords.length * 4;
+		}
+		if (curves != null) {
+			size += ARRAY_BYTES + curves.length * 4;
+		}
+		if (encoded != null) {
+			size += BUFFER_BYTES;
+		}
+		return size;
+	}
+
+	/**
+	 * @return true if the shape was never loaded, and only its encoded record is known
+	 */
+	public boolean isEncoded() {
+		return encoded != null;
+	}
+
+	/**
+	 * @return a read only view of the encoded record of a shape that was never loaded
+	 */
+	public ByteBuffer getEncoded() {
+		return encoded.duplicate();
+	}
+}
@@ -0,0 +1,202 @@
+package shapes;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * This class is an immutable list of shape records that can be changed cheaply by making
+ * a new list that shares almost all of its structure with the old one. The records are
+ * kept in a tree of arrays 32 wide, so changing a record only copies the arrays on the path
+ * down to it, and adding a record to the end usually only copies the last (tail) array.
+ * Since no list is ever changed in place, a list can be handed to any thread and read
+ * there without locking, however much the canvas changes after it.
+ * @author DavidKramer
+ *
+ */
+public final class ShapeVector extends AbstractList<ShapeRecord> implements RandomAccess {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;		// records (or children) per array
+	private static final int MASK = WIDTH - 1;
+	private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+	public static final ShapeVector EMPTY = new ShapeVector(0, BITS, EMPTY_NODE, new Object[0]);
+
+	private final int size;
+	private final int shift;						// BITS times the depth of the tree
+	private final Object[] root;					// every record but the ones in the tail
+	private final Object[] tail;					// last (up to WIDTH) records, kept out of the tree
+
+	private ShapeVector(int size, int shift, Object[] root, Object[] tail) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	//********************************************************
+	//* 			  STATIC UTILITY METHODS				 *
+	//********************************************************
+
+	/**
+	 * Builds a vector out of a list of records all at once, which is faster than adding
+	 * them one at a time.
+	 * @param records
+	 * @return
+	 */
+	public static ShapeVector of(List<ShapeRecord> records) {
+		int size = records.size();
+
+		if (size == 0) {
+			return EMPTY;
+		}
+		int tailOffset = getTailOffset(size);
+		Object[] tail = new Object[size - tailOffset];
+		for (int i = 0; i < tail.length; i++) {
+			tail[i] = records.get(tailOffset + i);
+		}
+
+		Object[] nodes = new Object[tailOffset / WIDTH];	// full leaves, then their parents
+		for (int i = 0; i < nodes.length; i++) {
+			Object[] leaf = new Object[WIDTH];
+			for (int j = 0; j < WIDTH; j++) {
+				leaf[j] = records.get(i * WIDTH + j);
+			}
+			nodes[i] = leaf;
+		}
+
+		int shift = BITS;
+		int count = nodes.length;
+		while (count > WIDTH) {
+			int parents = (count + MASK) / WIDTH;
+			for (int i = 0; i < parents; i++) {
+				Object[] parent = new Object[WIDTH];
+				System.arraycopy(nodes, i * WIDTH, parent, 0, Math.min(WIDTH, count - i * WIDTH));
+				nodes[i] = parent;
+			}
+			count = parents;
+			shift += BITS;
+		}
+		Object[] root = new Object[WIDTH];
+		System.arraycopy(nodes, 0, root, 0, count);
+		return new ShapeVector(size, shift, root, tail);
+	}
+
+	/**
+	 * @param size
+	 * @return index of the first record in the tail of a vector with size records
+	 */
+	private static int getTailOffset(int size) {
+		return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+	}
+
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
+
+	/**
+	 * @param i
+	 * @param record
+	 * @return a vector with record i replaced by record
+	 */
+	public ShapeVector with(int i, ShapeRecord record) {
+		checkIndex(i);
+
+		if (i >= getTailOffset(size)) {
+			Object[] newTail = tail.clone();
+			newTail[i & MASK] = record;
+			return new ShapeVector(size, shift, root, newTail);
+		}
+		return new ShapeVector(size, shift, with(shift, root, i, record), tail);
+	}
+
+	private static Object[] with(int level, Object[] node, int i, ShapeRecord record) {
+		Object[] copy = node.clone();
+
+		if (level == 0) {
+			copy[i & MASK] = record;
+		} else {
+			int child = (i >>> level) & MASK;
+			copy[child] = with(level - BITS, (Object[])node[child], i, record);
+		}
+		return copy;
+	}
+
+	/**
+	 * @param record
+	 * @return a vector with record added to the end
+	 */
+	public ShapeVector plus(ShapeRecord record) {
+		if (size - getTailOffset(size) < WIDTH) {	// room in the tail
+			Object[] newTail = new Object[tail.length + 1];
+			System.arraycopy(tail, 0, newTail, 0, tail.length);
+			newTail[tail.length] = record;
+			return new ShapeVector(size + 1, shift, root, newTail);
+		}
+
+		Object[] newRoot;
+		int newShift = shift;
+
+		if ((size >>> BITS) > (1 << shift)) {		// the tree is full, so it gets a level deeper
+			newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			newRoot[1] = newPath(shift, tail);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root, tail);
+		}
+		return new ShapeVector(size + 1, newShift, newRoot, new Object[] { record });
+	}
+
+	/**
+	 * Copies the path down to where the full tail goes in the tree, and puts it there.
+	 */
+	private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+		int child = ((size - 1) >>> level) & MASK;
+		Object[] copy = parent.clone();
+
+		if (level == BITS) {
+			copy[child] = tailNode;
+		} else {
+			Object[] node = (Object[])parent[child];
+			copy[child] = node != null ? pushTail(level - BITS, node, tailNode) : newPath(level - BITS, tailNode);
+		}
+		return copy;
+	}
+
+	private static Object[] newPath(int level, Object[] node) {
+		if (level == 0) {
+			return node;
+		}
+		Object[] path = new Object[WIDTH];
+		path[0] = newPath(level - BITS, node);
+		return path;
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public ShapeRecord get(int i) {
+		checkIndex(i);
+
+		if (i >= getTailOffset(size)) {
+			return (ShapeRecord)tail[i & MASK];
+		}
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[])node[(i >>> level) & MASK];
+		}
+		return (ShapeRecord)node[i & MASK];
+	}
+
+	public int size() {
+		return size;
+	}
+}
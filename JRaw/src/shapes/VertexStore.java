@@ -0,0 +1,347 @@
+package shapes;
+
+import java.awt.Rectangle;
+import java.awt.geom.Path2D;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * This class stores the pts of a poly or path as two growable arrays of x and y values,
+ * rather than as one object per pt. Moving or resizing a shape writes the new values in
+ * place, so editing a poly with thousands of pts doesn't create any garbage.
+ * @author DavidKramer
+ *
+ */
+public class VertexStore implements Serializable {
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private int[] xs;
+	private int[] ys;
+	private int size;
+
+	public VertexStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public VertexStore(int capacity) {
+		xs = new int[Math.max(capacity, 1)];
+		ys = new int[xs.length];
+	}
+
+	/**
+	 * Creates a store from x, y pairs, such as those returned by MyShape.getGeometry().
+	 * @param coords
+	 */
+	public static VertexStore fromCoords(int[] coords) {
+		VertexStore store = new VertexStore(coords.length / 2);
+
+		for (int i = 0; i < coords.length / 2; i++) {
+			store.add(coords[i * 2], coords[i * 2 + 1]);
+		}
+		return store;
+	}
+
+	//********************************************************
+	//* 				  MUTATOR METHODS					 *
+	//********************************************************
+
+	public void add(int x, int y) {
+		if (size == xs.length) {
+			ensureCapacity(size * 2);
+		}
+		xs[size] = x;
+		ys[size] = y;
+		size++;
+	}
+
+	public void set(int i, int x, int y) {
+		checkIndex(i);
+		xs[i] = x;
+		ys[i] = y;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public void ensureCapacity(int capacity) {
+		if (capacity > xs.length) {
+			xs = Arrays.copyOf(xs, capacity);
+			ys = Arrays.copyOf(ys, capacity);
+		}
+	}
+
+	/**
+	 * Makes this store hold the same pts as another one. The arrays are only reallocated
+	 * if they are too small, so a store can be reused as a buffer.
+	 * @param other
+	 */
+	public void copyFrom(VertexStore other) {
+		ensureCapacity(other.size);
+		System.arraycopy(other.xs, 0, xs, 0, other.size);
+		System.arraycopy(other.ys, 0, ys, 0, other.size);
+		size = other.size;
+	}
+
+	/**
+	 * Sets every pt to the matching pt of another store of the same size, offset by dx, dy.
+	 * @param other
+	 * @param dx
+	 * @param dy
+	 */
+	public void setTranslated(VertexStore other, int dx, int dy) {
+		int n = Math.min(size, other.size);
+
+		for (int i = 0; i < n; i++) {
+			xs[i] = other.xs[i] + dx;
+			ys[i] = other.ys[i] + dy;
+		}
+	}
+
+	/**
+	 * Sets the pts from x, y pairs, such as those returned by MyShape.getGeometry().
+	 * @param coords
+	 */
+	public void setCoords(int[] coords) {
+		int n = Math.min(size, coords.length / 2);
+
+		for (int i = 0; i < n; i++) {
+			xs[i] = coords[i * 2];
+			ys[i] = coords[i * 2 + 1];
+		}
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	public int getX(int i) {
+		checkIndex(i);
+		return xs[i];
+	}
+
+	public int getY(int i) {
+		checkIndex(i);
+		return ys[i];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return the index of the first pt at x, y, or -1 if there is none
+	 */
+	public int indexOf(int x, int y) {
+		for (int i = 0; i < size; i++) {
+			if (xs[i] == x && ys[i] == y) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Sets Rectangle r to the smallest rectangle that contains every pt.
+	 * @param r
+	 * @return r, which is left empty at 0, 0 if there are no pts
+	 */
+	public Rectangle getBounds(Rectangle r) {
+		if (size == 0) {
+			r.setBounds(0, 0, 0, 0);
+			return r;
+		}
+		int minX = xs[0];
+		int minY = ys[0];
+		int maxX = minX;
+		int maxY = minY;
+
+		for (int i = 1; i < size; i++) {
+			int x = xs[i];
+			int y = ys[i];
+
+			if (x < minX) {
+				minX = x;
+			} else if (x > maxX) {
+				maxX = x;
+			}
+
+			if (y < minY) {
+				minY = y;
+			} else if (y > maxY) {
+				maxY = y;
+			}
+		}
+		r.setBounds(minX, minY, maxX - minX, maxY - minY);
+		return r;
+	}
+
+	/**
+	 * @return the total length of the segments between consecutive pts
+	 */
+	public double getLength() {
+		double length = 0;
+
+		for (int i = 1; i < size; i++) {
+			double dx = xs[i] - xs[i - 1];
+			double dy = ys[i] - ys[i - 1];
+			length += Math.sqrt(dx * dx + dy * dy);
+		}
+		return length;
+	}
+
+	/**
+	 * Finds the area enclosed by the pts with the shoelace formula. The pts are treated
+	 * as a closed ring, so the last pt doesn't have to repeat the first one.
+	 * @return the area, which is 0 if there are fewer than 3 pts
+	 */
+	public double getArea() {
+		if (size < 3) {
+			return 0;
+		}
+		long sum = 0;
+
+		for (int i = 0, j = size - 1; i < size; j = i++) {
+			sum += (long)xs[j] * ys[i] - (long)xs[i] * ys[j];
+		}
+		return Math.abs(sum) / 2.0;
+	}
+
+	/**
+	 * Simplifies the pts with the Douglas-Peucker algorithm, which keeps the first and last
+	 * pts and only the pts in between that are needed to stay within the tolerance.
+	 * @param tolerance the furthest that the simplified line may be from any pt
+	 * @return a new store with the kept pts, in order
+	 */
+	public VertexStore simplify(double tolerance) {
+		if (size < 3) {
+			return copy();
+		}
+		boolean[] keep = new boolean[size];
+		int[] ranges = new int[size];		// first / last pairs of the ranges left to check
+		int count = 0;
+		double maxDist = tolerance * tolerance;
+
+		keep[0] = true;
+		keep[size - 1] = true;
+		ranges[count++] = 0;
+		ranges[count++] = size - 1;
+
+		while (count > 0) {
+			int last = ranges[--count];
+			int first = ranges[--count];
+			int index = -1;
+			double dist = maxDist;
+
+			for (int i = first + 1; i < last; i++) {
+				double d = getSegmentDistSq(xs[i], ys[i], xs[first], ys[first], xs[last], ys[last]);
+
+				if (d > dist) {
+					dist = d;
+					index = i;
+				}
+			}
+
+			if (index != -1) {	// split the range at the pt that is furthest off
+				keep[index] = true;
+
+				if (index - first > 1) {
+					ranges[count++] = first;
+					ranges[count++] = index;
+				}
+				if (last - index > 1) {
+					ranges[count++] = index;
+					ranges[count++] = last;
+				}
+			}
+		}
+
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (keep[i]) {
+				kept++;
+			}
+		}
+
+		VertexStore store = new VertexStore(kept);
+		for (int i = 0; i < size; i++) {
+			if (keep[i]) {
+				store.add(xs[i], ys[i]);
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * @return the squared distance from pt x, y to the segment from x1, y1 to x2, y2
+	 */
+	private static double getSegmentDistSq(int x, int y, int x1, int y1, int x2, int y2) {
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		double lengthSq = dx * dx + dy * dy;
+		double t = lengthSq == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / lengthSq;
+		t = Math.max(0, Math.min(1, t));
+
+		double ex = x - (x1 + t * dx);
+		double ey = y - (y1 + t * dy);
+		return ex * ex + ey * ey;
+	}
+
+	/**
+	 * Adds the pts to a path as one connected line, starting a new piece of the path.
+	 * @param path
+	 */
+	public void appendTo(Path2D path) {
+		if (size == 0) {
+			return;
+		}
+		path.moveTo(xs[0], ys[0]);
+
+		for (int i = 1; i < size; i++) {
+			path.lineTo(xs[i], ys[i]);
+		}
+	}
+
+	/**
+	 * @return the pts as x, y pairs
+	 */
+	public int[] toCoords() {
+		int[] coords = new int[size * 2];
+
+		for (int i = 0; i < size; i++) {
+			coords[i * 2] = xs[i];
+			coords[i * 2 + 1] = ys[i];
+		}
+		return coords;
+	}
+
+	public VertexStore copy() {
+		VertexStore store = new VertexStore(size);
+		store.copyFrom(this);
+		return store;
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+	}
+
+	public String toString() {
+		StringBuilder str = new StringBuilder("[");
+
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				str.append(", ");
+			}
+			str.append('(').append(xs[i]).append(", ").append(ys[i]).append(')');
+		}
+		return str.append(']').toString();
+	}
+}
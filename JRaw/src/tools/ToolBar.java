@@ -32,6 +32,7 @@ public class ToolBar extends JToolBar {
 	private Tool lineTool;
 	private Tool penTool;
 	private Tool dimensionTool;
+	private Tool handTool;
 	private Tool zoomTool;
 	
 	private FillStrokeButton fillStrokeBtn;
@@ -61,6 +62,7 @@ public class ToolBar extends JToolBar {
 		lineTool = new Tool(this, Tool.TOOL_LINE, "res/icons/line_32_32.gif");
 		penTool = new Tool(this, Tool.TOOL_PEN, "res/icons/pen_32_32.gif");
 		dimensionTool = new Tool(this, Tool.TOOL_DIMENSION, "res/icons/dimension_32_32.gif");
+		handTool = new Tool(this, Tool.TOOL_HAND, "res/icons/hand_32_32.gif");
 		zoomTool = new Tool(this, Tool.TOOL_ZOOM, "res/icons/zoom_32_32.gif");
 		
 		polyTool.setCursor("res/cursors/penCursor.png", "pen");
@@ -71,6 +73,8 @@ public class ToolBar extends JToolBar {
 //		zoomTool.setEnabled(false);
 		
 		selectTool.setToolTipText("Click on shapes or drag a rectangular marquee");
+		handTool.setToolTipText("Drag to pan around the canvas");
+		zoomTool.setToolTipText("Click to zoom in, or alt-click to zoom out");
 		tools.add(selectTool);
 		tools.add(rectTool);
 		tools.add(circleTool);
@@ -78,6 +82,7 @@ public class ToolBar extends JToolBar {
 		tools.add(lineTool);
 		tools.add(penTool);
 		tools.add(dimensionTool);
+		tools.add(handTool);
 		tools.add(zoomTool);
 		
 		fillStrokeBtn = new FillStrokeButton(canvas);
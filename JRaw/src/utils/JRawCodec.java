@@ -0,0 +1,712 @@
+package utils;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import gfx.Decoration;
+import gfx.Style;
+import legacy.LegacyInputStream;
+import shapes.AnchorPoint;
+import shapes.ControlAnchorPoint;
+import shapes.LazyShape;
+import shapes.MyCircle;
+import shapes.MyLine;
+import shapes.MyPath;
+import shapes.MyPoly;
+import shapes.MyRect;
+import shapes.MyShape;
+import shapes.MySpline;
+import shapes.ShapeRecord;
+import shapes.VertexStore;
+
+/**
+ * This class reads and writes the binary .jraw (version 2) file format. A file starts with
+ * a header, followed by a table of every distinct decoration (style) used in the document,
+ * followed by one tagged record per shape that only holds the primitive coordinates of the
+ * shape and the index of its style. Files that were saved with Java serialization by older
+ * versions of JRaw can still be read.
+ *
+ * <pre>
+ * header:  int magic ('JRAW'), short version, short flags
+ * styles:  int count, then per style: byte flags, int fill rgba, int stroke rgba, byte cap,
+ *          byte join, float stroke width, [gradient: float x1, y1, int rgba1, float x2, y2,
+ *          int rgba2, byte cyclic]
+ * shapes:  int count, then per shape: byte tag, int style, int z-index, then
+ *          rect / circle / line: int x1, y1, x2, y2
+ *          poly: byte closed, int n, n * (int x, y)
+ *          path: int n, n * (int x, y), int curves, curves * 4 * (int x, y)
+ * toc:     per shape: long offset, int style, int z-index, int x, y, width, height
+ * trailer: long toc offset, int magic
+ * </pre>
+ * The table of contents (TOC) is only there if FLAG_TOC is set. It lets a file be memory
+ * mapped and loaded lazily, since the bounds of every shape are known without reading
+ * the shape records themselves.
+ * @author DavidKramer
+ *
+ */
+public class JRawCodec {
+	public static final int MAGIC = 0x4A524157;			// 'JRAW'
+	public static final short VERSION = 2;
+	public static final short FLAG_TOC = 1;				// file ends with a table of contents
+
+	// Shape Record Tags
+	public static final byte TAG_RECT = ShapeRecord.TYPE_RECT;
+	public static final byte TAG_CIRCLE = ShapeRecord.TYPE_CIRCLE;
+	public static final byte TAG_LINE = ShapeRecord.TYPE_LINE;
+	public static final byte TAG_POLY = ShapeRecord.TYPE_POLY;
+	public static final byte TAG_PATH = ShapeRecord.TYPE_PATH;
+
+	// Style Flags
+	private static final int STYLE_HAS_FILL = 1;
+	private static final int STYLE_HAS_STROKE = 1 << 1;
+	private static final int STYLE_HAS_GRADIENT = 1 << 2;
+	private static final int STYLE_FILL_COLOR = 1 << 3;		// fill color isn't null
+	private static final int STYLE_STROKE_COLOR = 1 << 4;	// stroke color isn't null
+	private static final int STYLE_GRADIENT = 1 << 5;		// gradient isn't null
+
+	private static final int LEGACY_MAGIC = 0xACED;			// java serialization stream
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int TOC_ENTRY_SIZE = 32;
+	private static final int TRAILER_SIZE = 12;
+	private static final int RECORD_HEADER_SIZE = 9;	// tag, style, z-index
+	private static final int STYLE_SIZE = 15;			// smallest style, without a gradient
+	private static final int PT_SIZE = 8;
+	private static final int CURVE_SIZE = 4 * PT_SIZE;
+	private static final int PROGRESS_INTERVAL = 1024;	// records written between progress updates
+
+	//********************************************************
+	//* 				   WRITE METHODS					 *
+	//********************************************************
+
+	/**
+	 * Writes shapes to a file in the .jraw format. This must be called on the thread
+	 * that edits the shapes. Use writeSnapshot() to write from another thread.
+	 * @param filename
+	 * @param shapes
+	 * @throws IOException
+	 */
+	public static void write(String filename, List<MyShape> shapes) throws IOException {
+		writeSnapshot(filename, ShapeRecord.snapshot(shapes), null);
+	}
+
+	/**
+	 * Writes a snapshot of shapes to a file in the .jraw format. The snapshot is written
+	 * to a temporary file first, which then atomically replaces the file. This way a file
+	 * is never left half written, and a file that is still memory mapped (because some of
+	 * its shapes haven't been loaded yet) is never overwritten while it is being read.
+	 * @param filename
+	 * @param records
+	 * @param progress notified as records are written (may be null)
+	 * @throws IOException
+	 */
+	public static void writeSnapshot(String filename, List<ShapeRecord> records, Progress progress) throws IOException {
+		Path path = Paths.get(filename).toAbsolutePath();
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				write(channel, records, progress);
+				channel.force(false);	// make sure the data is on disk before it replaces the file
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of shapes to a channel in the .jraw format.
+	 * @param channel
+	 * @param records
+	 * @param progress notified as records are written (may be null)
+	 * @throws IOException
+	 */
+	public static void write(WritableByteChannel channel, List<ShapeRecord> records, Progress progress) throws IOException {
+		ChannelWriter out = new ChannelWriter(channel);
+
+		// build the style table, so each distinct decoration is only written once
+		HashMap<Decoration, Integer> styleIndexes = new HashMap<>();
+		ArrayList<Decoration> styles = new ArrayList<>();
+		int[] shapeStyles = new int[records.size()];
+
+		for (int i = 0; i < records.size(); i++) {
+			Decoration d = records.get(i).getDecoration();
+			Integer index = styleIndexes.get(d);
+
+			if (index == null) {
+				index = styles.size();
+				styleIndexes.put(d, index);
+				styles.add(d);
+			}
+			shapeStyles[i] = index;
+		}
+
+		out.putInt(MAGIC);
+		out.putShort(VERSION);
+		out.putShort(FLAG_TOC);
+
+		out.putInt(styles.size());
+		for (int i = 0; i < styles.size(); i++) {
+			writeStyle(out, styles.get(i));
+		}
+
+		long[] offsets = new long[records.size()];
+		out.putInt(records.size());
+		for (int i = 0; i < records.size(); i++) {
+			offsets[i] = out.position();
+			writeShape(out, records.get(i), shapeStyles[i]);
+
+			if (progress != null && (i % PROGRESS_INTERVAL == 0 || i == records.size() - 1)) {
+				progress.update(i + 1, records.size());
+			}
+		}
+
+		long tocOffset = out.position();
+		for (int i = 0; i < records.size(); i++) {
+			ShapeRecord record = records.get(i);
+			Rectangle r = record.getBounds();
+			out.putLong(offsets[i]);
+			out.putInt(shapeStyles[i]);
+			out.putInt(record.getZIndex());
+			out.putInt(r.x);
+			out.putInt(r.y);
+			out.putInt(r.width);
+			out.putInt(r.height);
+		}
+		out.putLong(tocOffset);
+		out.putInt(MAGIC);
+		out.flush();
+	}
+
+	private static void writeStyle(ChannelWriter out, Decoration d) throws IOException {
+		GradientPaint gradient = d.getGradient();
+		int flags = 0;
+		flags |= d.hasFill() ? STYLE_HAS_FILL : 0;
+		flags |= d.hasStroke() ? STYLE_HAS_STROKE : 0;
+		flags |= d.hasGradient() ? STYLE_HAS_GRADIENT : 0;
+		flags |= d.getFillColor() != null ? STYLE_FILL_COLOR : 0;
+		flags |= d.getStrokeColor() != null ? STYLE_STROKE_COLOR : 0;
+		flags |= gradient != null ? STYLE_GRADIENT : 0;
+
+		out.putByte(flags);
+		out.putInt(d.getFillColor() != null ? d.getFillColor().getRGB() : 0);
+		out.putInt(d.getStrokeColor() != null ? d.getStrokeColor().getRGB() : 0);
+		out.putByte(d.getCap());
+		out.putByte(d.getJoin());
+		out.putFloat(d.getStrokeWidth());
+
+		if (gradient != null) {
+			out.putFloat((float)gradient.getPoint1().getX());
+			out.putFloat((float)gradient.getPoint1().getY());
+			out.putInt(gradient.getColor1().getRGB());
+			out.putFloat((float)gradient.getPoint2().getX());
+			out.putFloat((float)gradient.getPoint2().getY());
+			out.putInt(gradient.getColor2().getRGB());
+			out.putByte(gradient.isCyclic() ? 1 : 0);
+		}
+	}
+
+	private static void writeShape(ChannelWriter out, ShapeRecord record, int style) throws IOException {
+		out.putByte(record.getType());
+		out.putInt(style);
+		out.putInt(record.getZIndex());
+
+		if (record.isEncoded()) {	// copy the record as is, without decoding it
+			ByteBuffer encoded = record.getEncoded();
+			encoded.position(RECORD_HEADER_SIZE);
+			out.putBytes(encoded);
+			return;
+		}
+
+		switch (record.getType()) {
+		case TAG_RECT:		// intentional fall through
+		case TAG_CIRCLE:
+		case TAG_LINE:
+			writePts(out, record, false);
+			break;
+		case TAG_POLY:
+			out.putByte(record.isClosed() ? 1 : 0);
+			writePts(out, record, true);
+			break;
+		case TAG_PATH:
+			writePts(out, record, true);
+			out.putInt(record.getCurveCount());
+			for (int i = 0; i < record.getCurveCount(); i++) {
+				for (int j = 0; j < 4; j++) {
+					out.putInt(record.getCurveX(i, j));
+					out.putInt(record.getCurveY(i, j));
+				}
+			}
+			break;
+		}
+	}
+
+	private static void writePts(ChannelWriter out, ShapeRecord record, boolean withCount) throws IOException {
+		if (withCount) {
+			out.putInt(record.getPtCount());
+		}
+		for (int i = 0; i < record.getPtCount(); i++) {
+			out.putInt(record.getX(i));
+			out.putInt(record.getY(i));
+		}
+	}
+
+	/**
+	 * Receives progress updates while a snapshot is written. Updates are sent from the
+	 * thread doing the writing.
+	 */
+	public interface Progress {
+		public void update(int written, int total);
+	}
+
+	//********************************************************
+	//* 				    READ METHODS					 *
+	//********************************************************
+
+	/**
+	 * Reads shapes from a .jraw file. Both the binary format and the older java
+	 * serialization format are supported.
+	 * @param filename
+	 * @return the shapes in the file
+	 * @throws IOException if the file can't be read, or is corrupt or cut short
+	 */
+	public static ArrayList<MyShape> read(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ChannelReader in = new ChannelReader(channel);
+
+			if (in.peekShort() == (short)LEGACY_MAGIC) {
+				return readLegacy(filename);
+			}
+			return read(in);
+		}
+	}
+
+	/**
+	 * Reads shapes in the .jraw format from a channel, from its position to its end. The
+	 * size of the channel is what every count in the file is checked against.
+	 * @param channel
+	 * @return
+	 * @throws IOException
+	 */
+	public static ArrayList<MyShape> read(SeekableByteChannel channel) throws IOException {
+		return read(new ChannelReader(channel));
+	}
+
+	private static ArrayList<MyShape> read(ChannelReader in) throws IOException {
+		if (in.getInt() != MAGIC) {
+			throw new IOException("Not a JRaw file!");
+		}
+
+		short version = in.getShort();
+		if (version > VERSION) {
+			throw new IOException("Unsupported JRaw file version: " + version);
+		}
+		short flags = in.getShort();
+
+		int styleCount = in.getCount(STYLE_SIZE);
+		Style[] styles = new Style[styleCount];		// shared by every shape of the style
+		for (int i = 0; i < styleCount; i++) {
+			styles[i] = Style.of(readStyle(in));
+		}
+
+		int shapeCount = in.getCount(RECORD_HEADER_SIZE);
+		ArrayList<MyShape> shapes = new ArrayList<>(shapeCount);
+		for (int i = 0; i < shapeCount; i++) {
+			shapes.add(readShape(in, styles));
+		}
+
+		if ((flags & FLAG_TOC) != 0 && in.remaining() != (long)shapeCount * TOC_ENTRY_SIZE + TRAILER_SIZE) {
+			throw new StreamCorruptedException("Corrupt JRaw file, the table of contents is cut short");
+		}
+		return shapes;
+	}
+
+	private static Decoration readStyle(ChannelReader in) throws IOException {
+		int flags = in.getByte();
+		int fill = in.getInt();
+		int stroke = in.getInt();
+
+		Decoration d = new Decoration((flags & STYLE_FILL_COLOR) != 0 ? new Color(fill, true) : null,
+									  (flags & STYLE_STROKE_COLOR) != 0 ? new Color(stroke, true) : null,
+									  Decoration.DEFAULT_STROKE);
+		d.setHasFill((flags & STYLE_HAS_FILL) != 0);
+		d.setHasStroke((flags & STYLE_HAS_STROKE) != 0);
+		d.setHasGradient((flags & STYLE_HAS_GRADIENT) != 0);
+		int cap = in.getByte();
+		int join = in.getByte();
+		float width = in.getFloat();
+
+		if (cap < BasicStroke.CAP_BUTT || cap > BasicStroke.CAP_SQUARE || join < BasicStroke.JOIN_MITER
+				|| join > BasicStroke.JOIN_BEVEL || !(width >= 0) || Float.isInfinite(width)) {
+			throw new StreamCorruptedException("Corrupt JRaw style");
+		}
+		d.setCapType(cap);
+		d.setJoinType(join);
+		d.setStrokeWidth(width);
+
+		if ((flags & STYLE_GRADIENT) != 0) {
+			float x1 = in.getFloat();
+			float y1 = in.getFloat();
+			Color c1 = new Color(in.getInt(), true);
+			float x2 = in.getFloat();
+			float y2 = in.getFloat();
+			Color c2 = new Color(in.getInt(), true);
+			boolean cyclic = in.getByte() != 0;
+			d.setGradient(new GradientPaint(x1, y1, c1, x2, y2, c2, cyclic));
+		}
+		return d;
+	}
+
+	private static MyShape readShape(ChannelReader in, Style[] styles) throws IOException {
+		byte tag = in.getByte();
+		int style = in.getInt();
+		int zIndex = in.getInt();
+		MyShape shape;
+
+		switch (tag) {
+		case TAG_RECT:		// intentional fall through
+		case TAG_CIRCLE:
+			shape = tag == TAG_RECT ? new MyRect() : new MyCircle();
+			Point start = new Point(in.getInt(), in.getInt());
+			shape.setStartPt(start);	// checked against the (0, 0) end pt, so it is set again below
+			shape.setEndPt(new Point(in.getInt(), in.getInt()));
+			shape.setStartPt(new Point(start));
+			shape.update();
+			break;
+		case TAG_LINE:
+			MyLine line = new MyLine();
+			line.setLine(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+			shape = line;
+			break;
+		case TAG_POLY:
+			boolean isClosed = in.getByte() != 0;
+			shape = MyPoly.createFromPts(readPts(in), isClosed);
+			break;
+		case TAG_PATH:
+			VertexStore pts = readPts(in);
+			int curveCount = in.getCount(CURVE_SIZE);
+			ArrayList<MySpline> curves = new ArrayList<>(curveCount);
+			for (int i = 0; i < curveCount; i++) {
+				MySpline curve = new MySpline();
+				curve.setP0(new AnchorPoint(in.getInt(), in.getInt()));
+				curve.setC1(new ControlAnchorPoint(in.getInt(), in.getInt()));
+				curve.setC2(new ControlAnchorPoint(in.getInt(), in.getInt()));
+				curve.setP3(new AnchorPoint(in.getInt(), in.getInt()));
+				curves.add(curve);
+			}
+			shape = new MyPath(pts, curves);
+			break;
+		default:
+			throw new IOException("Unknown shape record: " + tag);
+		}
+
+		if (style < 0 || style >= styles.length) {
+			throw new IOException("Unknown style: " + style);
+		}
+		shape.setStyle(styles[style]);
+		shape.setZIndex(zIndex);
+		return shape;
+	}
+
+	private static VertexStore readPts(ChannelReader in) throws IOException {
+		int count = in.getCount(PT_SIZE);
+		VertexStore pts = new VertexStore(count);
+		for (int i = 0; i < count; i++) {
+			pts.add(in.getInt(), in.getInt());
+		}
+		return pts;
+	}
+
+	/**
+	 * Memory maps a .jraw file and reads only its styles and table of contents. Each shape
+	 * is returned as a LazyShape placeholder that decodes the real shape from the mapped
+	 * file the first time it is needed, so opening a file doesn't depend on how big the
+	 * shapes in it are. Files without a table of contents (or that are too large to map)
+	 * are read normally. The table of contents is checked against the file before any
+	 * placeholders are made.
+	 * @param filename
+	 * @return
+	 * @throws IOException
+	 */
+	public static ArrayList<MyShape> map(String filename) throws IOException {
+		ByteBuffer buffer;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size < 8 + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+				return read(filename);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);	// stays valid after close
+		}
+
+		if (buffer.getInt(0) != MAGIC || (buffer.getShort(6) & FLAG_TOC) == 0
+				|| buffer.getInt(buffer.limit() - 4) != MAGIC) {
+			return read(filename);
+		}
+
+		ChannelReader in = new ChannelReader(buffer.duplicate());
+		in.getInt();
+		short version = in.getShort();
+		if (version > VERSION) {
+			throw new IOException("Unsupported JRaw file version: " + version);
+		}
+		in.getShort();
+
+		int styleCount = in.getCount(STYLE_SIZE);
+		Style[] styles = new Style[styleCount];		// shared by every shape of the style
+		for (int i = 0; i < styleCount; i++) {
+			styles[i] = Style.of(readStyle(in));
+		}
+		int shapeCount = in.getCount(RECORD_HEADER_SIZE + TOC_ENTRY_SIZE);
+		long recordsStart = buffer.limit() - in.remaining();
+
+		long tocOffset = buffer.getLong(buffer.limit() - TRAILER_SIZE);
+		if (tocOffset < recordsStart || tocOffset + (long)shapeCount * TOC_ENTRY_SIZE != buffer.limit() - TRAILER_SIZE) {
+			throw new StreamCorruptedException("Corrupt JRaw table of contents");
+		}
+
+		LazyShape.Decoder decoder = record -> readShape(new ChannelReader(record), styles);
+		ArrayList<MyShape> shapes = new ArrayList<>(shapeCount);
+		Rectangle bounds = new Rectangle();
+		int toc = (int)tocOffset;
+
+		for (int i = 0; i < shapeCount; i++) {
+			int entry = toc + i * TOC_ENTRY_SIZE;
+			long offset = buffer.getLong(entry);
+			long end = i + 1 < shapeCount ? buffer.getLong(entry + TOC_ENTRY_SIZE) : toc;
+			int style = buffer.getInt(entry + 8);
+
+			if (offset < recordsStart || end > toc || end - offset < RECORD_HEADER_SIZE) {
+				throw new StreamCorruptedException("Corrupt JRaw table of contents, entry " + i);
+			}
+			if (style < 0 || style >= styles.length) {
+				throw new IOException("Unknown style: " + style);
+			}
+			bounds.setBounds(buffer.getInt(entry + 16), buffer.getInt(entry + 20),
+							 buffer.getInt(entry + 24), buffer.getInt(entry + 28));
+
+			LazyShape shape = new LazyShape(buffer, (int)offset, (int)(end - offset), bounds, styles[style], decoder);
+			shape.setZIndex(buffer.getInt(entry + 12));
+			shape.setLoadIndex(i);
+			shapes.add(shape);
+		}
+		return shapes;
+	}
+
+	/**
+	 * Reads a file that was written with java serialization by an older version of JRaw.
+	 * @param filename
+	 * @return
+	 * @throws IOException
+	 */
+	private static ArrayList<MyShape> readLegacy(String filename) throws IOException {
+		try (LegacyInputStream is = new LegacyInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+			return is.readShapes();
+		}
+	}
+
+	//********************************************************
+	//* 				   CHANNEL CLASSES					 *
+	//********************************************************
+
+	/**
+	 * Buffers writes to a channel.
+	 */
+	private static class ChannelWriter {
+		private WritableByteChannel channel;
+		private ByteBuffer buffer;
+		private long flushed;		// bytes written to the channel so far
+
+		public ChannelWriter(WritableByteChannel channel) {
+			this.channel = channel;
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+
+		/**
+		 * @return the number of bytes that have been written, including buffered bytes
+		 */
+		public long position() {
+			return flushed + buffer.position();
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		public void putByte(int b) throws IOException {
+			ensure(1);
+			buffer.put((byte)b);
+		}
+
+		public void putShort(short s) throws IOException {
+			ensure(2);
+			buffer.putShort(s);
+		}
+
+		public void putInt(int i) throws IOException {
+			ensure(4);
+			buffer.putInt(i);
+		}
+
+		public void putFloat(float f) throws IOException {
+			ensure(4);
+			buffer.putFloat(f);
+		}
+
+		public void putLong(long l) throws IOException {
+			ensure(8);
+			buffer.putLong(l);
+		}
+
+		/**
+		 * Writes the remaining bytes of a buffer.
+		 * @param src
+		 * @throws IOException
+		 */
+		public void putBytes(ByteBuffer src) throws IOException {
+			if (src.remaining() > buffer.remaining()) {
+				flush();
+			}
+
+			if (src.remaining() > buffer.remaining()) {		// too big to buffer
+				while (src.hasRemaining()) {
+					flushed += channel.write(src);
+				}
+			} else {
+				buffer.put(src);
+			}
+		}
+
+		public void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				flushed += channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Buffers reads from a channel, and knows how much is left to read, so that counts
+	 * read from a corrupt file can be caught before anything is made for them.
+	 */
+	private static class ChannelReader {
+		private ReadableByteChannel channel;
+		private ByteBuffer buffer;
+		private long unread;		// bytes of the channel that haven't been buffered yet
+
+		public ChannelReader(SeekableByteChannel channel) throws IOException {
+			this.channel = channel;
+			unread = Math.max(0, channel.size() - channel.position());
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.flip();	// start out empty
+		}
+
+		/**
+		 * Reads straight from a buffer that already holds all of the data.
+		 * @param buffer
+		 */
+		public ChannelReader(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Makes sure that the buffer has at least the specified number of bytes left to read.
+		 */
+		private void require(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				if (channel == null) {
+					throw new EOFException("Unexpected end of JRaw file");
+				}
+				buffer.compact();
+				while (buffer.position() < bytes) {
+					int read = channel.read(buffer);
+					
+					if (read < 0) {
+						throw new EOFException("Unexpected end of JRaw file");
+					}
+					unread -= read;
+				}
+				buffer.flip();
+			}
+		}
+
+		/**
+		 * @return how many bytes are left to read
+		 */
+		public long remaining() {
+			return unread + buffer.remaining();
+		}
+
+		/**
+		 * Reads the count of something that is stored next, such as pts or shapes.
+		 * @param itemSize fewest bytes that each item takes up
+		 * @return the count
+		 * @throws StreamCorruptedException if the count is negative, or there aren't
+		 * enough bytes left for that many items
+		 */
+		public int getCount(int itemSize) throws IOException {
+			int count = getInt();
+
+			if (count < 0 || (long)count * itemSize > remaining()) {
+				throw new StreamCorruptedException("Corrupt JRaw file, bad count: " + count);
+			}
+			return count;
+		}
+
+		public short peekShort() throws IOException {
+			require(2);
+			return buffer.getShort(buffer.position());
+		}
+
+		public byte getByte() throws IOException {
+			require(1);
+			return buffer.get();
+		}
+
+		public short getShort() throws IOException {
+			require(2);
+			return buffer.getShort();
+		}
+
+		public int getInt() throws IOException {
+			require(4);
+			return buffer.getInt();
+		}
+
+		public float getFloat() throws IOException {
+			require(4);
+			return buffer.getFloat();
+		}
+	}
+}
@@ -1,22 +1,36 @@
 package utils;
 
+import java.awt.Frame;
+import java.awt.Window;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import gfx.Canvas;
+import jfr.FileEvent;
+import main.JRaw;
 import shapes.MyShape;
+import shapes.ShapeRecord;
 
 public class JRawIO {
+	// saves run one at a time, in the order they were started
+	private static final ExecutorService SAVE_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "JRaw Save");
+		t.setPriority(Thread.NORM_PRIORITY - 1);
+		return t;
+	});
+	
 	private Canvas canvas;
 	
 	private JFileChooser chooser;
@@ -33,7 +47,6 @@ public class JRawIO {
 		int openValue = chooser.showOpenDialog(null);
 		
 		if (openValue == JFileChooser.APPROVE_OPTION) {
-			System.out.println("File: " + chooser.getSelectedFile().getAbsolutePath() + ".jraw");
 			String filename = chooser.getSelectedFile().getAbsolutePath();
 			readFile(filename);
 		} else {
@@ -45,7 +58,6 @@ public class JRawIO {
 		int saveValue = chooser.showSaveDialog(null);
 		
 		if (saveValue == JFileChooser.APPROVE_OPTION) {
-			System.out.println("File: " + chooser.getSelectedFile().getAbsolutePath() + ".jraw");
 			String filename = chooser.getSelectedFile().getAbsolutePath() + ".jraw";
 			writeFile(filename);
 		} else {
@@ -53,44 +65,116 @@ public class JRawIO {
 		}
 	}
 	
+	/**
+	 * Saves the canvas shapes in the background. A snapshot of the shapes is taken right
+	 * away (on the event thread), so the user can keep drawing while it is written.
+	 * @param filename
+	 */
 	public void writeFile(String filename) {
+		if (Trace.INFO) Trace.info("Writing " + filename);
+		List<ShapeRecord> snapshot = canvas.getSnapshot();
+		SAVE_EXECUTOR.execute(new SaveTask(filename, snapshot));
+	}
+	
+	
+	public void readFile(String filename) {
+		FileEvent event = new FileEvent();
+		event.begin();
 		try {
-			System.out.println("Write file filename: " + filename);
-			File f = new File(filename);
-			ObjectOutputStream os = new ObjectOutputStream(new FileOutputStream(filename));
-			ArrayList<MyShape> canvasShapes = canvas.getShapes();
-			os.writeObject(canvasShapes);
-			os.close();
+			ArrayList<MyShape> shapes = JRawCodec.map(filename);	// shapes are loaded as they're needed
+			if (Trace.INFO) Trace.info("Read " + shapes.size() + " shapes from " + filename);
 			
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+			canvas.addShapes(shapes);
+			canvas.repaint();
+			showFileName(filename);
+			commitFileEvent(event, FileEvent.READ, filename, shapes.size());
 		} catch (IOException e) {
-			e.printStackTrace();
+			Trace.error("Couldn't read " + filename + ": " + e.getMessage());
 		}
+	}
+	
+	/**
+	 * Shows which file the canvas was last read from or saved to in the title of its window.
+	 * This has to be called on the event thread.
+	 * @param filename
+	 */
+	private void showFileName(String filename) {
+		Window window = SwingUtilities.getWindowAncestor(canvas);
 		
-		System.out.println("Done writing!");
+		if (window instanceof Frame) {
+			((Frame)window).setTitle(new File(filename).getName() + " - " + JRaw.TITLE);
+		}
 	}
 	
-	public void readFile(String filename) {
-		try {
-			ObjectInputStream is = new ObjectInputStream(new FileInputStream(filename));
-			ArrayList<MyShape> shapes = new ArrayList<>();
-			shapes = (ArrayList<MyShape>)is.readObject();
-			System.out.println("Shapes: " + shapes);
-			
-			for (int i = 0; i < shapes.size(); i++) {
-				canvas.addShape(shapes.get(i));
-			}
-			canvas.repaint();
+	/**
+	 * Records a read or write of a file in the flight recording, if one is running.
+	 * @param event
+	 * @param operation FileEvent.READ or FileEvent.WRITE
+	 * @param filename
+	 * @param shapeCount
+	 */
+	private static void commitFileEvent(FileEvent event, String operation, String filename, int shapeCount) {
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.path = filename;
+			event.shapeCount = shapeCount;
+			event.bytes = new File(filename).length();
+			event.commit();
+		}
+	}
+	
+	//********************************************************
+	//* 				   SAVE TASK CLASS					 *
+	//********************************************************
+	
+	/**
+	 * Writes a snapshot of shapes on a background thread, and shows the progress of the
+	 * save in a progress monitor (for saves that take long enough to need one).
+	 */
+	private class SaveTask extends SwingWorker<Void, Void> {
+		private String filename;
+		private List<ShapeRecord> snapshot;
+		private ProgressMonitor monitor;
+		
+		public SaveTask(String filename, List<ShapeRecord> snapshot) {
+			this.filename = filename;
+			this.snapshot = snapshot;
+			monitor = new ProgressMonitor(canvas, "Saving " + new File(filename).getName(), null, 0, 100);
+			monitor.setMillisToDecideToPopup(250);
 			
-		} catch (FileNotFoundException e) {
-			System.out.println(e.getMessage());
-		} catch (IOException e) {
-			System.out.println(e.getMessage());
-		} catch (ClassNotFoundException e) {
-			System.out.println(e.getMessage());
-		} 
+			addPropertyChangeListener(e -> {	// called on the event thread
+				if ("progress".equals(e.getPropertyName())) {
+					monitor.setProgress((Integer)e.getNewValue());
+				}
+			});
+		}
+		
+		protected Void doInBackground() throws IOException {
+			FileEvent event = new FileEvent();
+			event.begin();
+			JRawCodec.writeSnapshot(filename, snapshot, (written, total) -> {
+				setProgress((int)(written * 100L / total));	// as a long, so big saves don't overflow
+			});
+			commitFileEvent(event, FileEvent.WRITE, filename, snapshot.size());
+			return null;
+		}
 		
-		System.out.println("Done reading!");
+		/**
+		 * Lets the user know how the save went. This is called on the event thread.
+		 */
+		protected void done() {
+			monitor.close();
+			try {
+				get();
+				if (Trace.INFO) Trace.info("Done writing " + filename);
+				showFileName(filename);
+			} catch (InterruptedException e) {
+				Trace.error("Interrupted while writing " + filename, e);
+			} catch (ExecutionException e) {
+				Trace.error("Couldn't save " + filename, e.getCause());
+				JOptionPane.showMessageDialog(canvas, "Couldn't save " + filename + ": " 
+											  + e.getCause().getMessage());
+			}
+		}
 	}
 }
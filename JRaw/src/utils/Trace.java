@@ -0,0 +1,185 @@
+package utils;
+
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class keeps a trace of what the application has been doing, for debugging. Traces
+ * are kept in a ring buffer of the last few messages, which can be dumped after something
+ * goes wrong. Errors are also printed to stderr, and the rest can be printed to the console
+ * as they happen with the jraw.trace.console property. The trace level is set once at
+ * startup with the jraw.trace property (off, error, info or debug), and the ERROR, INFO and
+ * DEBUG flags are constants, so that a trace written as
+ * <pre>
+ * if (Trace.DEBUG) Trace.debug("Shape moved to " + pt);
+ * </pre>
+ * costs nothing at all when it is turned off, not even building the message.
+ * @author DavidKramer
+ *
+ */
+public final class Trace {
+	public static final int LEVEL_OFF = 0;
+	public static final int LEVEL_ERROR = 1;
+	public static final int LEVEL_INFO = 2;
+	public static final int LEVEL_DEBUG = 3;
+	private static final String[] LEVEL_NAMES = { "OFF", "ERROR", "INFO", "DEBUG" };
+
+	public static final int LEVEL = parseLevel(System.getProperty("jraw.trace", "error"));
+	public static final boolean ERROR = LEVEL >= LEVEL_ERROR;
+	public static final boolean INFO = LEVEL >= LEVEL_INFO;
+	public static final boolean DEBUG = LEVEL >= LEVEL_DEBUG;
+	public static final boolean CONSOLE = Boolean.getBoolean("jraw.trace.console");	// print info and debug too?
+	public static final int CAPACITY = Math.max(1, Integer.getInteger("jraw.trace.buffer", 1024));
+
+	private static final long[] times = new long[CAPACITY];
+	private static final int[] levels = new int[CAPACITY];
+	private static final String[] threads = new String[CAPACITY];
+	private static final String[] messages = new String[CAPACITY];
+	private static long count;									// messages traced so far
+
+	private Trace() {}
+
+	//********************************************************
+	//* 				  TRACING METHODS					 *
+	//********************************************************
+
+	public static void error(String message) {
+		if (ERROR) {
+			trace(LEVEL_ERROR, message);
+		}
+	}
+
+	/**
+	 * Traces message along with the stack trace of e.
+	 * @param message
+	 * @param e
+	 */
+	public static void error(String message, Throwable e) {
+		if (ERROR) {
+			trace(LEVEL_ERROR, message + ": " + e);
+			e.printStackTrace();
+		}
+	}
+
+	public static void info(String message) {
+		if (INFO) {
+			trace(LEVEL_INFO, message);
+		}
+	}
+
+	public static void debug(String message) {
+		if (DEBUG) {
+			trace(LEVEL_DEBUG, message);
+		}
+	}
+
+	/**
+	 * Adds message to the ring buffer, over the oldest message if it is full.
+	 * @param level
+	 * @param message
+	 */
+	private static void trace(int level, String message) {
+		long time = System.currentTimeMillis();
+		String thread = Thread.currentThread().getName();
+
+		synchronized (Trace.class) {
+			int i = (int)(count++ % CAPACITY);
+			times[i] = time;
+			levels[i] = level;
+			threads[i] = thread;
+			messages[i] = message;
+		}
+
+		if (level == LEVEL_ERROR) {		// errors are always shown
+			System.err.println(format(time, level, thread, message));
+		} else if (CONSOLE) {
+			System.out.println(format(time, level, thread, message));
+		}
+	}
+
+	//********************************************************
+	//* 				  UTILITY METHODS					 *
+	//********************************************************
+
+	/**
+	 * Prints every message in the ring buffer to out, oldest first.
+	 * @param out
+	 */
+	public static void dump(PrintStream out) {
+		List<String> entries = getEntries();
+		out.println("---- JRaw trace (last " + entries.size() + " of " + getCount() + " messages) ----");
+		for (String entry : entries) {
+			out.println(entry);
+		}
+	}
+
+	/**
+	 * Dumps the trace to stderr if the application dies of an exception that nothing
+	 * caught, after the usual stack trace.
+	 */
+	public static void dumpOnCrash() {
+		Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+
+		Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+			if (handler != null) {
+				handler.uncaughtException(thread, e);
+			} else {
+				System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+				e.printStackTrace();
+			}
+			dump(System.err);
+		});
+	}
+
+	/**
+	 * Throws away every message in the ring buffer.
+	 */
+	public static synchronized void clear() {
+		count = 0;
+		for (int i = 0; i < CAPACITY; i++) {
+			messages[i] = null;
+			threads[i] = null;
+		}
+	}
+
+	private static String format(long time, int level, String thread, String message) {
+		return new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(time)) + " "
+			 + LEVEL_NAMES[level] + " [" + thread + "] " + message;
+	}
+
+	private static int parseLevel(String name) {
+		for (int i = 0; i < LEVEL_NAMES.length; i++) {
+			if (LEVEL_NAMES[i].equalsIgnoreCase(name.trim())) {
+				return i;
+			}
+		}
+		return LEVEL_ERROR;
+	}
+
+	//********************************************************
+	//* 				  ACCESSOR METHODS					 *
+	//********************************************************
+
+	/**
+	 * @return every message in the ring buffer, oldest first, formatted for printing
+	 */
+	public static synchronized List<String> getEntries() {
+		int size = (int)Math.min(count, CAPACITY);
+		ArrayList<String> entries = new ArrayList<>(size);
+		for (long n = count - size; n < count; n++) {
+			int i = (int)(n % CAPACITY);
+			entries.add(format(times[i], levels[i], threads[i], messages[i]));
+		}
+		return entries;
+	}
+
+	/**
+	 * @return how many messages have been traced, including ones that no longer fit in the buffer
+	 */
+	public static synchronized long getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,255 @@
+package commands;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import gfx.Canvas;
+import gfx.Decoration;
+import gfx.Style;
+import shapes.MyLine;
+import shapes.MyPoly;
+import shapes.MyRect;
+import shapes.MyShape;
+import shapes.RectHandle;
+import shapes.VertexStore;
+
+/**
+ * Tests that every command can be undone and redone any number of times, and ends up
+ * exactly where it started each way.
+ * @author DavidKramer
+ *
+ */
+public class CommandTest {
+	private static final int[] HANDLES = { RectHandle.NORTH, RectHandle.SOUTH, RectHandle.EAST, RectHandle.WEST,
+										   RectHandle.NORTH_EAST, RectHandle.NORTH_WEST, RectHandle.SOUTH_EAST,
+										   RectHandle.SOUTH_WEST };
+
+	private Canvas canvas;
+	private ArrayList<MyShape> shapes;			// on the canvas, from back to front
+
+	@BeforeEach
+	public void setUp() {
+		canvas = new Canvas();
+		shapes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			MyRect rect = new MyRect();
+			rect.setGeometry(new int[] { i * 20, i * 10, i * 20 + 50, i * 10 + 40 });
+			shapes.add(rect);
+			canvas.addShape(rect);
+		}
+	}
+
+	//********************************************************
+	//* 				    TEST METHODS					 *
+	//********************************************************
+
+	@Test
+	public void movesBackAndForth() {
+		List<MyShape> moved = Arrays.asList(rect(0, 0, 30, 30), line(5, 5, 60, -20), poly(0, 0, 40, 0, 20, 30, 0, 0));
+		int[][] before = geometry(moved);
+		for (MyShape shape : moved) {
+			shape.translate(15, -7);
+		}
+		MoveCommand command = new MoveCommand(moved, 15, -7);
+		checkRoundTrips(command, moved, before, geometry(moved));
+	}
+
+	/**
+	 * Resizes rects, lines and polys with every handle, by offsets that sometimes turn
+	 * rects inside out, the same way that dragging the selection does.
+	 */
+	@Test
+	public void resizesBackAndForth() {
+		Random random = new Random(3);
+
+		for (int i = 0; i < 200; i++) {
+			List<MyShape> resized = Arrays.asList(rect(10, 20, 110, 90), line(200, 10, 50, 150),
+												  poly(0, 0, 100, 0, 50, 80, 0, 0));
+			int handle = HANDLES[random.nextInt(HANDLES.length)];
+			Point offset = new Point(random.nextInt(300) - 150, random.nextInt(300) - 150);
+			int[][] before = geometry(resized);
+
+			ResizeCommand command = new ResizeCommand(resized, handle);
+			for (int step = 1; step <= 3; step++) {		// a few drag events
+				for (MyShape shape : resized) {
+					shape.resize(new Point(offset.x * step / 3, offset.y * step / 3), handle);
+				}
+			}
+			for (MyShape shape : resized) {
+				shape.setIsResizing(false);
+				shape.update();
+			}
+			command.captureAfter(offset);
+			checkRoundTrips(command, resized, before, geometry(resized));
+		}
+	}
+
+	/**
+	 * A rect that was resized without being turned inside out is resized back by the
+	 * offset, so the command doesn't hold on to its pts.
+	 */
+	@Test
+	public void storesOnlyResizeOffset() {
+		List<MyShape> rects = Arrays.asList(rect(0, 0, 100, 100), rect(200, 200, 300, 300));
+		ResizeCommand command = new ResizeCommand(rects, RectHandle.SOUTH_EAST);
+		for (MyShape shape : rects) {
+			shape.resizeBy(10, 20, RectHandle.SOUTH_EAST);
+		}
+		command.captureAfter(new Point(10, 20));
+
+		ResizeCommand empty = new ResizeCommand(new ArrayList<>(rects), RectHandle.SOUTH_EAST);
+		empty.captureAfter(new Point(0, 0));
+		assertFalse(empty.didChange());
+		assertEquals(empty.getSize(), command.getSize());
+	}
+
+	@Test
+	public void deletesAndRestoresOrder() {
+		List<MyShape> before = new ArrayList<>(canvas.getShapes());
+		long[] orders = orders(before);
+		List<MyShape> deleted = Arrays.asList(shapes.get(7), shapes.get(2), shapes.get(5));
+
+		DeleteCommand command = new DeleteCommand(canvas, deleted);
+		command.execute();
+		List<MyShape> after = new ArrayList<>(before);
+		after.removeAll(deleted);
+		assertEquals(after, canvas.getShapes());
+
+		for (int i = 0; i < 3; i++) {
+			command.undo();
+			assertEquals(before, canvas.getShapes());
+			assertArrayEquals(orders, orders(canvas.getShapes()));
+			command.execute();
+			assertEquals(after, canvas.getShapes());
+			assertEquals(-1, canvas.getShapeOrder(shapes.get(2)));
+		}
+	}
+
+	@Test
+	public void addsAndRemoves() {
+		List<MyShape> before = new ArrayList<>(canvas.getShapes());
+		MyShape added = rect(500, 500, 520, 530);
+		canvas.addShape(added);
+		List<MyShape> after = new ArrayList<>(canvas.getShapes());
+		long order = canvas.getShapeOrder(added);
+
+		AddCommand command = new CloneCommand(canvas, Arrays.asList(added));
+		for (int i = 0; i < 3; i++) {
+			command.undo();
+			assertEquals(before, canvas.getShapes());
+			command.execute();
+			assertEquals(after, canvas.getShapes());
+			assertEquals(order, canvas.getShapeOrder(added));
+		}
+	}
+
+	@Test
+	public void decoratesBackAndForth() {
+		List<MyShape> decorated = shapes.subList(0, 4);
+		Style[] before = styles(decorated);
+		DecorateCommand command = new DecorateCommand(decorated);
+		for (MyShape shape : decorated) {
+			shape.setDecoration(decoration(Color.ORANGE));
+		}
+		command.captureAfter();
+		Style[] after = styles(decorated);
+		assertSame(after[0], after[3]);		// interned by the canvas
+
+		for (int i = 0; i < 3; i++) {
+			command.undo();
+			assertArrayEquals(before, styles(decorated));
+			command.execute();
+			assertArrayEquals(after, styles(decorated));
+		}
+	}
+
+	@Test
+	public void restylesBackAndForth() {
+		Style style = shapes.get(0).getStyle();
+		Decoration before = style.getDecoration();
+		RestyleCommand command = new RestyleCommand(canvas, style, decoration(Color.CYAN));
+
+		for (int i = 0; i < 3; i++) {
+			command.execute();
+			assertEquals(Color.CYAN, shapes.get(9).getDecoration().getFillColor());	// every shape of the style
+			assertSame(style, shapes.get(9).getStyle());
+			command.undo();
+			assertSame(before, style.getDecoration());
+		}
+	}
+
+	//********************************************************
+	//* 				   UTILITY METHODS					 *
+	//********************************************************
+
+	private static void checkRoundTrips(Command command, List<MyShape> shapes, int[][] before, int[][] after) {
+		for (int i = 0; i < 3; i++) {
+			command.undo();
+			assertArrayEquals(before, geometry(shapes), command.getName() + " undo " + i);
+			command.execute();
+			assertArrayEquals(after, geometry(shapes), command.getName() + " redo " + i);
+		}
+	}
+
+	private static int[][] geometry(List<MyShape> shapes) {
+		int[][] coords = new int[shapes.size()][];
+		for (int i = 0; i < shapes.size(); i++) {
+			coords[i] = shapes.get(i).getGeometry();
+		}
+		return coords;
+	}
+
+	private long[] orders(List<MyShape> shapes) {
+		long[] orders = new long[shapes.size()];
+		for (int i = 0; i < shapes.size(); i++) {
+			orders[i] = canvas.getShapeOrder(shapes.get(i));
+		}
+		return orders;
+	}
+
+	private static Style[] styles(List<MyShape> shapes) {
+		Style[] styles = new Style[shapes.size()];
+		for (int i = 0; i < shapes.size(); i++) {
+			styles[i] = shapes.get(i).getStyle();
+		}
+		return styles;
+	}
+
+	private static Decoration decoration(Color fill) {
+		Decoration d = new Decoration(fill, Color.BLACK, Decoration.DEFAULT_STROKE);
+		d.setHasFill(true);
+		return d;
+	}
+
+	private static MyRect rect(int x1, int y1, int x2, int y2) {
+		MyRect rect = new MyRect();
+		rect.setGeometry(new int[] { x1, y1, x2, y2 });
+		return rect;
+	}
+
+	private static MyLine line(int x1, int y1, int x2, int y2) {
+		MyLine line = new MyLine();
+		line.setLine(x1, y1, x2, y2);
+		return line;
+	}
+
+	private static MyPoly poly(int... coords) {
+		VertexStore pts = new VertexStore(coords.length / 2);
+		for (int i = 0; i < coords.length; i += 2) {
+			pts.add(coords[i], coords[i + 1]);
+		}
+		return MyPoly.createFromPts(pts, true);
+	}
+}
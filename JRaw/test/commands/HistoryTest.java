@@ -0,0 +1,105 @@
+package commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the undo and redo stacks of History, and that it forgets the oldest commands
+ * once it holds on to too much memory.
+ * @author DavidKramer
+ *
+ */
+public class HistoryTest {
+	private StringBuilder log = new StringBuilder();	// what the commands have done, in order
+
+	@Test
+	public void undoesAndRedoesInOrder() {
+		History history = new History();
+		history.execute(new LogCommand("a", 10));
+		history.execute(new LogCommand("b", 10));
+		history.record(new LogCommand("c", 10));	// already done
+		assertEquals("+a+b", log.toString());
+		assertEquals("c", history.getUndoName());
+
+		assertTrue(history.undo());
+		assertTrue(history.undo());
+		assertEquals("+a+b-c-b", log.toString());
+		assertEquals("a", history.getUndoName());
+		assertEquals("b", history.getRedoName());
+
+		assertTrue(history.redo());
+		assertTrue(history.undo());
+		assertTrue(history.undo());
+		assertFalse(history.undo());
+		assertFalse(history.canUndo());
+		assertNull(history.getUndoName());
+		assertEquals("+a+b-c-b+b-b-a", log.toString());
+	}
+
+	@Test
+	public void forgetsRedoAfterNewCommand() {
+		History history = new History();
+		history.execute(new LogCommand("a", 10));
+		history.execute(new LogCommand("b", 20));
+		history.undo();
+		assertTrue(history.canRedo());
+
+		history.execute(new LogCommand("c", 40));
+		assertFalse(history.canRedo());
+		assertFalse(history.redo());
+		assertEquals(50, history.getSize());
+	}
+
+	@Test
+	public void trimsOldestCommands() {
+		History history = new History();
+		history.setMaxSize(100);
+
+		for (int i = 0; i < 10; i++) {
+			history.record(new LogCommand("c" + i, 30));
+		}
+		assertEquals(3, history.getUndoCount());
+		assertEquals(90, history.getSize());
+
+		history.record(new LogCommand("big", 500));		// the most recent command is always kept
+		assertEquals(1, history.getUndoCount());
+		assertEquals("big", history.getUndoName());
+
+		history.clear();
+		assertEquals(0, history.getSize());
+		assertFalse(history.canUndo());
+	}
+
+	/**
+	 * A command that only writes down what it does, and says it is a certain size.
+	 */
+	private class LogCommand extends Command {
+		private String name;
+		private long size;
+
+		public LogCommand(String name, long size) {
+			this.name = name;
+			this.size = size;
+		}
+
+		public void execute() {
+			log.append('+').append(name);
+		}
+
+		public void undo() {
+			log.append('-').append(name);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getSize() {
+			return size;
+		}
+	}
+}
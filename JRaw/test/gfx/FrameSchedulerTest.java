@@ -0,0 +1,93 @@
+package gfx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that FrameScheduler runs each task once per frame however many times it is asked
+ * for, and no more often than its frame rate.
+ * @author DavidKramer
+ *
+ */
+public class FrameSchedulerTest {
+	private static final long TIMEOUT = 5;		// seconds to wait for a frame
+
+	@Test
+	public void mergesRequestsIntoOneFrame() throws Exception {
+		FrameScheduler scheduler = new FrameScheduler(60);
+		AtomicInteger runs = new AtomicInteger();
+		AtomicInteger otherRuns = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(1);
+		Runnable task = runs::incrementAndGet;
+
+		SwingUtilities.invokeAndWait(() -> {	// so the frame can't start in between
+			for (int i = 0; i < 10; i++) {
+				scheduler.requestFrame(task);
+			}
+			scheduler.requestFrame(otherRuns::incrementAndGet);
+			scheduler.requestFrame(done::countDown);
+		});
+		assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+		SwingUtilities.invokeAndWait(() -> {});		// let the frame finish
+
+		assertEquals(1, runs.get());
+		assertEquals(1, otherRuns.get());
+		assertEquals(1, scheduler.getFrameCount());
+	}
+
+	/**
+	 * A task that asks for another frame while it runs is run again on the next frame,
+	 * rather than straight away, and frames are at least a frame time apart.
+	 */
+	@Test
+	public void putsOffRequestsToNextFrame() throws Exception {
+		FrameScheduler scheduler = new FrameScheduler(20);	// 50 ms frames
+		long[] times = new long[3];
+		AtomicInteger runs = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(1);
+
+		Runnable task = new Runnable() {
+			public void run() {
+				int run = runs.getAndIncrement();
+				times[run] = System.nanoTime();
+
+				if (run + 1 < times.length) {
+					scheduler.requestFrame(this);
+				} else {
+					done.countDown();
+				}
+			}
+		};
+		scheduler.requestFrame(task);
+		assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+
+		assertEquals(times.length, runs.get());
+		assertEquals(times.length, scheduler.getFrameCount());
+		for (int i = 1; i < times.length; i++) {
+			long millis = (times[i] - times[i - 1]) / 1000000;
+			assertTrue(millis >= 45, "frame " + i + " came after " + millis + " ms");
+		}
+	}
+
+	@Test
+	public void keepsRunningAfterFailedTask() throws Exception {
+		FrameScheduler scheduler = new FrameScheduler(60);
+		CountDownLatch done = new CountDownLatch(1);
+
+		SwingUtilities.invokeAndWait(() -> {
+			scheduler.requestFrame(() -> {
+				throw new IllegalStateException("expected by the test");
+			});
+			scheduler.requestFrame(done::countDown);
+		});
+		assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+	}
+}
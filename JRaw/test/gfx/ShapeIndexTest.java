@@ -0,0 +1,193 @@
+package gfx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import shapes.MyRect;
+import shapes.MyShape;
+
+/**
+ * Tests the R-tree of ShapeIndex by making random changes to it and checking every query
+ * against a linear scan of the same shapes.
+ * @author DavidKramer
+ *
+ */
+public class ShapeIndexTest {
+	private static final int SIZE = 2000;		// width and height of the area the shapes are in
+
+	private ShapeIndex index;
+	private ArrayList<MyShape> shapes;		// indexed shapes, from back to front
+	private Random random;
+
+	//********************************************************
+	//* 				    TEST METHODS					 *
+	//********************************************************
+
+	/**
+	 * A bulk loaded tree used to have nodes with too few children, so removing shapes from
+	 * it orphaned empty nodes and crashed.
+	 */
+	@Test
+	public void removesFromBulkLoadedTree() {
+		for (int n : new int[] { 17, 100, 257, 773, 4096, 10000 }) {
+			setUp(43, n, true);
+			while (!shapes.isEmpty()) {
+				index.remove(shapes.remove(random.nextInt(shapes.size())));
+				if (shapes.size() % 50 == 0) {
+					checkQueries();
+				}
+			}
+			assertEquals(0, index.size());
+		}
+	}
+
+	@Test
+	public void matchesLinearScanAfterBulkLoad() {
+		for (long seed = 0; seed < 20; seed++) {
+			setUp(seed, 17 + new Random(seed).nextInt(1500), true);
+			mutate(400);
+		}
+	}
+
+	@Test
+	public void matchesLinearScanAfterInserts() {
+		for (long seed = 0; seed < 10; seed++) {
+			setUp(seed, 17 + new Random(seed).nextInt(1500), false);
+			mutate(400);
+		}
+	}
+
+	@Test
+	public void keepsStackingOrder() {
+		setUp(7, 200, true);
+		MyShape bottom = shapes.remove(0);
+		index.remove(bottom);
+		index.insert(bottom, 0);	// put back underneath every other shape
+		shapes.add(0, bottom);
+		checkQueries();
+
+		MyShape top = shapes.get(shapes.size() - 1);
+		Rectangle r = top.getBoundRect();
+		assertSame(top, index.hitTest(new Point(r.x, r.y)));
+	}
+
+	//********************************************************
+	//* 				   UTILITY METHODS					 *
+	//********************************************************
+
+	private void setUp(long seed, int n, boolean bulkLoad) {
+		random = new Random(seed);
+		index = new ShapeIndex();
+		shapes = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			shapes.add(createShape());
+		}
+
+		if (bulkLoad) {
+			index.insertAll(shapes);
+		} else {
+			for (int i = 0; i < shapes.size(); i++) {
+				index.insert(shapes.get(i));
+			}
+		}
+		checkQueries();
+	}
+
+	/**
+	 * Randomly adds, removes, moves and drags shapes, and checks the index after each step.
+	 */
+	private void mutate(int steps) {
+		for (int step = 0; step < steps; step++) {
+			int op = random.nextInt(10);
+
+			if (op < 3 && !shapes.isEmpty()) {
+				index.remove(shapes.remove(random.nextInt(shapes.size())));
+			} else if (op < 5) {
+				MyShape shape = createShape();
+				index.insert(shape);
+				shapes.add(shape);
+			} else if (op < 8 && !shapes.isEmpty()) {
+				MyShape shape = shapes.get(random.nextInt(shapes.size()));
+				shape.setGeometry(createGeometry());
+				index.update(shape);
+			} else if (!shapes.isEmpty()) {	// drag a few shapes, then commit
+				for (int i = 0; i < 5; i++) {
+					MyShape shape = shapes.get(random.nextInt(shapes.size()));
+					shape.setGeometry(createGeometry());
+					index.updateLazily(shape);
+				}
+				checkQueries();
+				index.commitUpdates();
+			}
+			assertEquals(shapes.size(), index.size());
+
+			if (step % 20 == 0) {
+				checkQueries();
+			}
+		}
+		checkQueries();
+	}
+
+	private void checkQueries() {
+		for (int i = 0; i < 20; i++) {
+			int x = random.nextInt(SIZE) - 100;
+			int y = random.nextInt(SIZE) - 100;
+			Rectangle r = new Rectangle(x, y, random.nextInt(SIZE / 2), random.nextInt(SIZE / 2));
+
+			ArrayList<MyShape> found = new ArrayList<>();
+			index.searchIntersecting(r, found);
+			assertEquals(scan(r, false), found);
+
+			found.clear();
+			index.searchContained(r, found);
+			assertEquals(scan(r, true), found);
+
+			Point p = new Point(x, y);
+			assertSame(scanHit(p), index.hitTest(p));
+		}
+	}
+
+	private ArrayList<MyShape> scan(Rectangle r, boolean contained) {
+		ArrayList<MyShape> found = new ArrayList<>();
+		for (int i = 0; i < shapes.size(); i++) {
+			Rectangle b = shapes.get(i).getBoundRect();
+			boolean intersects = b.x <= r.x + r.width && r.x <= b.x + b.width
+					&& b.y <= r.y + r.height && r.y <= b.y + b.height;
+			boolean inside = b.x >= r.x && b.y >= r.y && b.x + b.width <= r.x + r.width
+					&& b.y + b.height <= r.y + r.height;
+
+			if (intersects && (!contained || inside)) {
+				found.add(shapes.get(i));
+			}
+		}
+		return found;
+	}
+
+	private MyShape scanHit(Point p) {
+		for (int i = shapes.size() - 1; i >= 0; i--) {
+			if (shapes.get(i).getBoundRect().contains(p)) {
+				return shapes.get(i);
+			}
+		}
+		return null;
+	}
+
+	private MyShape createShape() {
+		MyRect rect = new MyRect();
+		rect.setGeometry(createGeometry());
+		return rect;
+	}
+
+	private int[] createGeometry() {
+		int x = random.nextInt(SIZE);
+		int y = random.nextInt(SIZE);
+		return new int[] { x, y, x + random.nextInt(120), y + random.nextInt(120) };
+	}
+}
@@ -0,0 +1,100 @@
+package gfx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+
+import org.junit.jupiter.api.Test;
+
+import shapes.MyRect;
+
+/**
+ * Tests that StyleTable gives shapes that look the same one shared style, both on its own
+ * and as the canvas uses it.
+ * @author DavidKramer
+ *
+ */
+public class StyleTableTest {
+
+	@Test
+	public void internsEqualDecorations() {
+		StyleTable table = new StyleTable();
+		Style red = table.intern(decoration(Color.RED));
+
+		assertSame(red, table.intern(decoration(Color.RED)));
+		assertSame(red, table.intern(Style.of(decoration(Color.RED))));
+		assertSame(red, table.intern(red));
+		assertNotSame(red, table.intern(decoration(Color.BLUE)));
+		assertSame(table, red.getTable());
+		assertEquals(2, table.size());
+	}
+
+	/**
+	 * Changing a decoration after it was interned mustn't change the style it was
+	 * interned to.
+	 */
+	@Test
+	public void copiesDecorations() {
+		StyleTable table = new StyleTable();
+		Decoration d = decoration(Color.RED);
+		Style style = table.intern(d);
+		d.setFillColor(Color.GREEN);
+
+		assertEquals(Color.RED, style.getDecoration().getFillColor());
+		assertSame(style, table.intern(decoration(Color.RED)));
+	}
+
+	@Test
+	public void restylesInPlace() {
+		StyleTable table = new StyleTable();
+		Style style = table.intern(decoration(Color.RED));
+		table.restyle(style, decoration(Color.BLUE));
+
+		assertEquals(Color.BLUE, style.getDecoration().getFillColor());
+		assertSame(style, table.intern(decoration(Color.BLUE)));
+		assertNotSame(style, table.intern(decoration(Color.RED)));
+		assertThrows(IllegalArgumentException.class, () -> table.restyle(Style.of(decoration(Color.RED)), decoration(Color.BLUE)));
+	}
+
+	/**
+	 * When a restyled style looks like another style, both stay as they are, and new
+	 * shapes go to the one that was there first.
+	 */
+	@Test
+	public void keepsRestyledStylesApart() {
+		StyleTable table = new StyleTable();
+		Style red = table.intern(decoration(Color.RED));
+		Style blue = table.intern(decoration(Color.BLUE));
+		table.restyle(blue, decoration(Color.RED));
+
+		assertSame(red, table.intern(decoration(Color.RED)));
+		assertEquals(Color.RED, blue.getDecoration().getFillColor());
+		assertTrue(table.getStyles().contains(red));
+	}
+
+	@Test
+	public void sharesStylesOnCanvas() {
+		Canvas canvas = new Canvas();
+		MyRect r1 = new MyRect();
+		MyRect r2 = new MyRect();
+		r1.setDecoration(decoration(Color.RED));
+		r2.setDecoration(decoration(Color.RED));
+		canvas.addShape(r1);
+		canvas.addShape(r2);
+		assertSame(r1.getStyle(), r2.getStyle());
+
+		r2.setDecoration(decoration(Color.BLUE));	// a shape on the canvas is interned as it changes
+		assertSame(canvas.getStyles().intern(decoration(Color.BLUE)), r2.getStyle());
+		assertNotSame(r1.getStyle(), r2.getStyle());
+	}
+
+	private static Decoration decoration(Color fill) {
+		Decoration d = new Decoration(fill, Color.BLACK, Decoration.DEFAULT_STROKE);
+		d.setHasFill(true);
+		return d;
+	}
+}
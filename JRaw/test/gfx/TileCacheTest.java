@@ -0,0 +1,173 @@
+package gfx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import shapes.MyRect;
+
+/**
+ * Tests that TileCache only renders the tiles that are out of date, and that what it
+ * draws always catches up with the shapes, whether tiles are rendered on the drawing
+ * thread or by workers.
+ * @author DavidKramer
+ *
+ */
+public class TileCacheTest {
+	private static final int VIEW_SIZE = 2 * TileCache.TILE_SIZE;	// a view of 2 x 2 tiles
+	private static final int TILES = 4;
+	private static final long TIMEOUT = 5000;		// milliseconds to wait for workers
+
+	private Canvas canvas;
+	private TileCache cache;
+	private MyRect rect;
+	private BufferedImage view;
+
+	@BeforeEach
+	public void setUp() {
+		canvas = new Canvas();
+		canvas.setBackground(Color.WHITE);
+		rect = new MyRect();
+		rect.setGeometry(new int[] { 10, 10, 100, 100 });
+		Decoration d = new Decoration(Color.RED, Color.RED, Decoration.DEFAULT_STROKE);
+		d.setHasFill(true);
+		d.setHasStroke(false);
+		rect.setDecoration(d);
+		canvas.addShape(rect);
+
+		cache = new TileCache(canvas);
+		cache.setThreadCount(0);
+		view = new BufferedImage(VIEW_SIZE, VIEW_SIZE, BufferedImage.TYPE_INT_RGB);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		cache.setThreadCount(0);	// stops the workers
+	}
+
+	//********************************************************
+	//* 				    TEST METHODS					 *
+	//********************************************************
+
+	@Test
+	public void rendersOnlyOutOfDateTiles() {
+		render();
+		assertEquals(TILES, cache.getRenderedCount());
+		assertEquals(0, cache.getCopiedCount());
+
+		render();
+		assertEquals(0, cache.getRenderedCount());
+		assertEquals(TILES, cache.getCopiedCount());
+
+		cache.invalidate(new Rectangle(300, 300, 10, 10));
+		render();
+		assertEquals(1, cache.getRenderedCount());
+		assertEquals(TILES - 1, cache.getCopiedCount());
+
+		cache.invalidate(new Rectangle(250, 250, 10, 10));		// where four tiles meet
+		render();
+		assertEquals(TILES, cache.getRenderedCount());
+
+		cache.invalidateAll();
+		render();
+		assertEquals(TILES, cache.getRenderedCount());
+		assertEquals(TILES, cache.getTileCount());
+	}
+
+	@Test
+	public void showsShapesAfterInvalidate() {
+		render();
+		assertColor(Color.RED, 50, 50);
+		assertColor(Color.WHITE, 350, 50);
+
+		Rectangle before = new Rectangle(rect.getBoundRect());
+		rect.translate(300, 0);
+		render();
+		assertColor(Color.RED, 50, 50);		// the tiles are still cached
+
+		cache.invalidate(before);
+		cache.invalidate(rect.getBoundRect());
+		render();
+		assertColor(Color.WHITE, 50, 50);
+		assertColor(Color.RED, 350, 50);
+	}
+
+	/**
+	 * Jobs that were started before their tile changed again are thrown away, so the
+	 * workers always end up drawing the shapes as they are now.
+	 */
+	@Test
+	public void dropsOutOfDateJobs() {
+		cache.setThreadCount(2);
+		renderUntilDone();
+		assertColor(Color.RED, 50, 50);
+
+		for (int i = 0; i < 20; i++) {	// change the shape again while jobs are running
+			Rectangle before = new Rectangle(rect.getBoundRect());
+			rect.translate(i % 2 == 0 ? 300 : -300, 0);
+			cache.invalidate(before);
+			cache.invalidate(rect.getBoundRect());
+			render();
+		}
+		renderUntilDone();
+		assertColor(Color.RED, 50, 50);
+		assertColor(Color.WHITE, 350, 50);
+		assertEquals(0, cache.getPendingCount());
+	}
+
+	@Test
+	public void staysWithinBudget() {
+		cache.setBudget(TILES * TileCache.BYTES_PER_TILE);
+		render();
+		canvas.getView().pan(-VIEW_SIZE, 0);	// four new tiles
+		render();
+		assertEquals(TILES, cache.getTileCount());
+		assertEquals(TILES, cache.getRenderedCount());
+	}
+
+	//********************************************************
+	//* 				   UTILITY METHODS					 *
+	//********************************************************
+
+	private void render() {
+		Graphics2D g = view.createGraphics();
+		try {
+			cache.render(g, new Rectangle(0, 0, VIEW_SIZE, VIEW_SIZE));
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Renders until the workers are done with every tile in view.
+	 */
+	private void renderUntilDone() {
+		long end = System.currentTimeMillis() + TIMEOUT;
+
+		while (System.currentTimeMillis() < end) {
+			render();
+			if (cache.getPendingCount() == 0 && cache.getCopiedCount() == TILES) {
+				return;
+			}
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		fail("Tiles weren't rendered in time");
+	}
+
+	private void assertColor(Color color, int x, int y) {
+		assertEquals(color.getRGB(), view.getRGB(x, y), "color at " + x + ", " + y);
+	}
+}
@@ -0,0 +1,131 @@
+package shapes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ShapeVector by making the same changes to it and to an ArrayList, and checking
+ * that they hold the same records, and that older vectors never change.
+ * @author DavidKramer
+ *
+ */
+public class ShapeVectorTest {
+	private static final int[] SIZES = { 0, 1, 31, 32, 33, 64, 1024, 1056, 1057, 5000, 32 * 1024 + 33 };
+
+	private Random random = new Random(5);
+	private ShapeRecord[] records = createRecords(64);
+
+	//********************************************************
+	//* 				    TEST METHODS					 *
+	//********************************************************
+
+	@Test
+	public void buildsFromList() {
+		for (int size : SIZES) {
+			ArrayList<ShapeRecord> list = createList(size);
+			ShapeVector vector = ShapeVector.of(list);
+			assertEquals(list, vector, "size " + size);
+		}
+	}
+
+	@Test
+	public void addsToEnd() {
+		ArrayList<ShapeRecord> list = new ArrayList<>();
+		ShapeVector vector = ShapeVector.EMPTY;
+
+		for (int size : SIZES) {
+			while (list.size() < size) {
+				ShapeRecord record = records[random.nextInt(records.length)];
+				list.add(record);
+				vector = vector.plus(record);
+			}
+			assertEquals(list, vector, "size " + size);
+		}
+	}
+
+	@Test
+	public void replacesRecords() {
+		for (int size : SIZES) {
+			ArrayList<ShapeRecord> list = createList(size);
+			ShapeVector vector = ShapeVector.of(list);
+
+			for (int i = 0; i < Math.min(size, 200); i++) {
+				int index = random.nextInt(size);
+				ShapeRecord record = records[random.nextInt(records.length)];
+				list.set(index, record);
+				vector = vector.with(index, record);
+			}
+			assertEquals(list, vector, "size " + size);
+		}
+	}
+
+	/**
+	 * Vectors share structure, so changing one must leave every vector that it was made
+	 * from as it was.
+	 */
+	@Test
+	public void keepsOlderVersions() {
+		ArrayList<ArrayList<ShapeRecord>> lists = new ArrayList<>();
+		ArrayList<ShapeVector> vectors = new ArrayList<>();
+		ArrayList<ShapeRecord> list = createList(1000);
+		ShapeVector vector = ShapeVector.of(list);
+
+		for (int step = 0; step < 300; step++) {
+			ShapeRecord record = records[random.nextInt(records.length)];
+
+			if (random.nextBoolean() || list.isEmpty()) {
+				list.add(record);
+				vector = vector.plus(record);
+			} else {
+				int index = random.nextInt(list.size());
+				list.set(index, record);
+				vector = vector.with(index, record);
+			}
+			lists.add(new ArrayList<>(list));
+			vectors.add(vector);
+		}
+		for (int i = 0; i < vectors.size(); i++) {
+			assertEquals(lists.get(i), vectors.get(i), "version " + i);
+		}
+	}
+
+	@Test
+	public void checksIndexes() {
+		ShapeVector vector = ShapeVector.of(createList(40));
+		assertThrows(IndexOutOfBoundsException.class, () -> vector.get(40));
+		assertThrows(IndexOutOfBoundsException.class, () -> vector.get(-1));
+		assertThrows(IndexOutOfBoundsException.class, () -> vector.with(40, records[0]));
+		assertSame(ShapeVector.EMPTY, ShapeVector.of(new ArrayList<>()));
+	}
+
+	//********************************************************
+	//* 				   UTILITY METHODS					 *
+	//********************************************************
+
+	private ArrayList<ShapeRecord> createList(int size) {
+		ArrayList<ShapeRecord> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(records[random.nextInt(records.length)]);
+		}
+		return list;
+	}
+
+	/**
+	 * @return distinct records, which are told apart by identity
+	 */
+	private ShapeRecord[] createRecords(int count) {
+		ShapeRecord[] records = new ShapeRecord[count];
+		for (int i = 0; i < count; i++) {
+			MyRect rect = new MyRect();
+			rect.setGeometry(new int[] { i, i, i + 10, i + 20 });
+			records[i] = ShapeRecord.of(rect);
+		}
+		return records;
+	}
+}
@@ -0,0 +1,339 @@
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Point;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gfx.Decoration;
+import shapes.AnchorPoint;
+import shapes.ControlAnchorPoint;
+import shapes.LazyShape;
+import shapes.MyCircle;
+import shapes.MyLine;
+import shapes.MyPath;
+import shapes.MyPoly;
+import shapes.MyRect;
+import shapes.MyShape;
+import shapes.MySpline;
+import shapes.VertexStore;
+
+/**
+ * Tests reading and writing documents with JRawCodec, both in the .jraw format and in the
+ * java serialization format of older versions of JRaw.
+ * @author DavidKramer
+ *
+ */
+public class JRawCodecTest {
+	@TempDir
+	Path dir;
+
+	//********************************************************
+	//* 				   LEGACY DOCUMENTS					 *
+	//********************************************************
+
+	/**
+	 * legacy.jraw was saved by the last version of JRaw that wrote documents with java
+	 * serialization. It holds a rect, a moved and selected circle, a line, a closed and an
+	 * open poly and a path with two curves. The rect and the closed poly share a decoration.
+	 */
+	@Test
+	public void readsLegacyDocument() throws Exception {
+		ArrayList<MyShape> shapes = JRawCodec.read(Paths.get(getClass().getResource("legacy.jraw").toURI()).toString());
+		assertEquals(6, shapes.size());
+
+		MyShape rect = shapes.get(0);
+		assertEquals(MyRect.class, rect.getClass());
+		assertArrayEquals(new int[] { 10, 20, 110, 80 }, rect.getGeometry());
+		Decoration d = rect.getDecoration();
+		assertEquals(Color.RED, d.getFillColor());
+		assertEquals(Color.BLUE, d.getStrokeColor());
+		assertTrue(d.hasFill());
+		assertTrue(d.hasStroke());
+		assertEquals(3.0f, d.getStrokeWidth());
+		assertEquals(BasicStroke.CAP_ROUND, d.getCap());
+		assertEquals(BasicStroke.JOIN_BEVEL, d.getJoin());
+
+		MyShape circle = shapes.get(1);
+		assertEquals(MyCircle.class, circle.getClass());
+		assertArrayEquals(new int[] { 160, 155, 220, 235 }, circle.getGeometry());
+		assertEquals(new Color(10, 20, 30, 128), circle.getDecoration().getFillColor());
+		assertTrue(circle.getDecoration().hasGradient());
+		assertFalse(circle.isSelected());
+
+		MyShape line = shapes.get(2);
+		assertEquals(MyLine.class, line.getClass());
+		assertArrayEquals(new int[] { 300, 40, 20, 300 }, line.getGeometry());
+		assertEquals(Color.MAGENTA, line.getDecoration().getStrokeColor());
+		assertEquals(8.5f, line.getDecoration().getStrokeWidth());
+
+		MyPoly poly = (MyPoly)shapes.get(3);
+		assertEquals(MyPoly.class, poly.getClass());
+		assertTrue(poly.isClosed());
+		assertArrayEquals(new int[] { 50, 400, 150, 420, 120, 500, 40, 480, 50, 400 }, poly.getGeometry());
+		assertSame(rect.getStyle(), poly.getStyle());
+
+		MyPoly open = (MyPoly)shapes.get(4);
+		assertFalse(open.isClosed());
+		assertArrayEquals(new int[] { 400, 10, 450, 60, 500, 15 }, open.getGeometry());
+
+		MyPath path = (MyPath)shapes.get(5);
+		assertArrayEquals(new int[] { 300, 300, 400, 300, 450, 380 }, path.getGeometry());
+		assertEquals(2, path.getCurves().size());
+		assertArrayEquals(new int[] { 300, 300, 320, 250, 380, 250, 400, 300 }, curvePts(path.getCurves().get(0)));
+		assertArrayEquals(new int[] { 400, 300, 440, 310, 460, 340, 450, 380 }, curvePts(path.getCurves().get(1)));
+		assertEquals(Color.ORANGE, path.getDecoration().getStrokeColor());
+
+		for (int i = 0; i < shapes.size(); i++) {
+			assertEquals(i, shapes.get(i).getZIndex());
+		}
+	}
+
+	//********************************************************
+	//* 				  ROUND TRIP METHODS				 *
+	//********************************************************
+
+	@Test
+	public void roundTripsRect() throws Exception {
+		MyRect rect = new MyRect();
+		rect.setGeometry(new int[] { -30, 15, 40, 90 });
+		roundTrip(rect);
+	}
+
+	@Test
+	public void roundTripsCircle() throws Exception {
+		MyCircle circle = new MyCircle();
+		circle.setGeometry(new int[] { 5, -60, 25, -10 });
+		roundTrip(circle);
+	}
+
+	@Test
+	public void roundTripsLine() throws Exception {
+		MyLine line = new MyLine();
+		line.setLine(200, 10, -20, 150);	// end pt before the start pt
+		roundTrip(line);
+	}
+
+	@Test
+	public void roundTripsPoly() throws Exception {
+		roundTrip(MyPoly.createFromPts(pts(0, 0, 100, 0, 50, 80, 0, 0), true));
+		roundTrip(MyPoly.createFromPts(pts(10, 10, -40, 60, 90, 30), false));
+	}
+
+	@Test
+	public void roundTripsPath() throws Exception {
+		ArrayList<MySpline> curves = new ArrayList<>();
+		curves.add(curve(0, 0, 20, -40, 60, -40, 80, 0));
+		curves.add(curve(80, 0, 100, 30, 130, 30, 150, 10));
+		roundTrip(new MyPath(pts(0, 0, 80, 0, 150, 10), curves));
+	}
+
+	/**
+	 * Writes a shape, reads it back both eagerly and through a memory mapped file, and
+	 * checks that nothing about it changed.
+	 */
+	private void roundTrip(MyShape shape) throws Exception {
+		Decoration d = new Decoration(new Color(1, 2, 3, 4), Color.GREEN, Decoration.DEFAULT_STROKE);
+		d.setHasFill(true);
+		d.setHasGradient(true);
+		d.setGradient(new GradientPaint(1.0f, 2.0f, Color.RED, 30.0f, 40.0f, Color.BLUE, true));
+		d.setStrokeWidth(2.5f);
+		d.setCapType(BasicStroke.CAP_SQUARE);
+		d.setJoinType(BasicStroke.JOIN_MITER);
+		shape.setDecoration(d);
+		shape.setZIndex(7);
+
+		String filename = dir.resolve("shape.jraw").toString();
+		JRawCodec.write(filename, new ArrayList<>(Arrays.asList(shape)));
+
+		for (ArrayList<MyShape> shapes : Arrays.asList(JRawCodec.read(filename), JRawCodec.map(filename))) {
+			assertEquals(1, shapes.size());
+			MyShape copy = shapes.get(0);
+			assertArrayEquals(shape.getGeometry(), copy.getGeometry());
+			assertEquals(shape.getDecoration(), copy.getDecoration());
+			assertEquals(7, copy.getZIndex());
+
+			if (copy instanceof LazyShape) {
+				copy = ((LazyShape)copy).materialize();
+			}
+			assertEquals(shape.getClass(), copy.getClass());
+			if (shape instanceof MyPoly) {
+				assertEquals(((MyPoly)shape).isClosed(), ((MyPoly)copy).isClosed());
+			}
+			if (shape instanceof MyPath) {
+				ArrayList<MySpline> curves = ((MyPath)shape).getCurves();
+				ArrayList<MySpline> copies = ((MyPath)copy).getCurves();
+				assertEquals(curves.size(), copies.size());
+				for (int i = 0; i < curves.size(); i++) {
+					assertArrayEquals(curvePts(curves.get(i)), curvePts(copies.get(i)));
+				}
+			}
+		}
+	}
+
+	//********************************************************
+	//* 				   CORRUPT FILES					 *
+	//********************************************************
+
+	/**
+	 * A file that was cut short anywhere can't be read, whether or not it is mapped.
+	 */
+	@Test
+	public void rejectsTruncatedFile() throws Exception {
+		byte[] bytes = writeDocument();
+
+		for (int length = 0; length < bytes.length; length++) {
+			String filename = save(Arrays.copyOf(bytes, length));
+			assertThrows(IOException.class, () -> JRawCodec.read(filename), "length " + length);
+			assertThrows(IOException.class, () -> JRawCodec.map(filename), "length " + length);
+		}
+	}
+
+	@Test
+	public void rejectsBadCounts() throws Exception {
+		byte[] bytes = writeDocument();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int poly = (int)buffer.getLong((int)buffer.getLong(bytes.length - 12));	// from the table of contents
+		int styleCount = 8;
+		int shapeCount = poly - 4;
+		int ptCount = poly + 9 + 1;		// after the record header and whether it is closed
+
+		for (int offset : new int[] { styleCount, shapeCount, ptCount }) {
+			for (int count : new int[] { -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 1 << 28 }) {
+				byte[] corrupt = bytes.clone();
+				ByteBuffer.wrap(corrupt).putInt(offset, count);
+				String filename = save(corrupt);
+				assertThrows(StreamCorruptedException.class, () -> JRawCodec.read(filename), offset + ": " + count);
+				if (offset != ptCount) {	// which is only read once the shape is loaded
+					assertThrows(StreamCorruptedException.class, () -> JRawCodec.map(filename), offset + ": " + count);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void rejectsBadTableOfContents() throws Exception {
+		byte[] bytes = writeDocument();
+		int trailer = bytes.length - 12;
+		long tocOffset = ByteBuffer.wrap(bytes).getLong(trailer);
+
+		for (long offset : new long[] { -1, 0, tocOffset - 1, tocOffset + 1, Long.MAX_VALUE }) {
+			byte[] corrupt = bytes.clone();
+			ByteBuffer.wrap(corrupt).putLong(trailer, offset);
+			String filename = save(corrupt);
+			assertThrows(StreamCorruptedException.class, () -> JRawCodec.map(filename), "toc at " + offset);
+		}
+		for (long offset : new long[] { -1, 0, Integer.MAX_VALUE + 1L, tocOffset, tocOffset - 8 }) {
+			byte[] corrupt = bytes.clone();
+			ByteBuffer.wrap(corrupt).putLong((int)tocOffset + 32, offset);	// the second shape
+			String filename = save(corrupt);
+			assertThrows(StreamCorruptedException.class, () -> JRawCodec.map(filename), "shape at " + offset);
+		}
+	}
+
+	/**
+	 * Random damage to a file either still reads, or fails with an IOException, but never
+	 * with anything that whoever is reading the file wouldn't expect.
+	 */
+	@Test
+	public void survivesRandomDamage() throws Exception {
+		byte[] bytes = writeDocument();
+		Random random = new Random(11);
+
+		for (int i = 0; i < 500; i++) {
+			byte[] corrupt = bytes.clone();
+			for (int j = random.nextInt(4); j >= 0; j--) {
+				corrupt[random.nextInt(corrupt.length)] = (byte)random.nextInt(256);
+			}
+			String filename = save(corrupt);
+
+			try {
+				JRawCodec.read(filename);
+			} catch (IOException e) {
+				// expected
+			}
+			try {
+				for (MyShape shape : JRawCodec.map(filename)) {
+					if (shape instanceof LazyShape) {	// not if the file couldn't be mapped
+						((LazyShape)shape).decode();	// which logs the shapes it can't read
+					}
+				}
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * @return the bytes of a file with a poly, a rect and a path in it, which use two styles
+	 */
+	private byte[] writeDocument() throws Exception {
+		MyPoly poly = MyPoly.createFromPts(pts(0, 0, 100, 0, 50, 80, 0, 0), true);
+		MyRect rect = new MyRect();
+		rect.setGeometry(new int[] { -30, 15, 40, 90 });
+		rect.setDecoration(new Decoration(Color.RED, Color.BLUE, Decoration.DEFAULT_STROKE));
+		ArrayList<MySpline> curves = new ArrayList<>();
+		curves.add(curve(0, 0, 20, -40, 60, -40, 80, 0));
+		MyPath path = new MyPath(pts(0, 0, 80, 0), curves);
+
+		String filename = dir.resolve("document.jraw").toString();
+		JRawCodec.write(filename, new ArrayList<>(Arrays.asList(poly, rect, path)));
+		return Files.readAllBytes(dir.resolve("document.jraw"));
+	}
+
+	private String save(byte[] bytes) throws Exception {
+		Path path = dir.resolve("corrupt.jraw");
+		Files.write(path, bytes);
+		return path.toString();
+	}
+
+	//********************************************************
+	//* 				   UTILITY METHODS					 *
+	//********************************************************
+
+	private static VertexStore pts(int... coords) {
+		VertexStore pts = new VertexStore(coords.length / 2);
+		for (int i = 0; i < coords.length; i += 2) {
+			pts.add(coords[i], coords[i + 1]);
+		}
+		return pts;
+	}
+
+	private static MySpline curve(int... coords) {
+		MySpline curve = new MySpline();
+		curve.setP0(new AnchorPoint(coords[0], coords[1]));
+		curve.setC1(new ControlAnchorPoint(coords[2], coords[3]));
+		curve.setC2(new ControlAnchorPoint(coords[4], coords[5]));
+		curve.setP3(new AnchorPoint(coords[6], coords[7]));
+		return curve;
+	}
+
+	private static int[] curvePts(MySpline curve) {
+		Point[] pts = { curve.getP0(), curve.getC1(), curve.getC2(), curve.getP3() };
+		int[] coords = new int[pts.length * 2];
+		for (int i = 0; i < pts.length; i++) {
+			coords[i * 2] = pts[i].x;
+			coords[i * 2 + 1] = pts[i].y;
+		}
+		return coords;
+	}
+}
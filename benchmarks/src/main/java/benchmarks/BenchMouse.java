@@ -0,0 +1,35 @@
+package benchmarks;
+
+import java.awt.Point;
+
+import input.Mouse;
+
+/**
+ * Mouse whose pts are set directly, rather than by mouse events.
+ * @author DavidKramer
+ *
+ */
+public class BenchMouse extends Mouse {
+	private Point clickPt = new Point();
+	private Point dragPt = new Point();
+	
+	public BenchMouse() {
+		super(null);
+	}
+	
+	public void setClickPt(int x, int y) {
+		clickPt.setLocation(x, y);
+	}
+	
+	public void setDragPt(int x, int y) {
+		dragPt.setLocation(x, y);
+	}
+	
+	public Point getClickPt() {
+		return clickPt;
+	}
+	
+	public Point getDragPt() {
+		return dragPt;
+	}
+}
@@ -0,0 +1,20 @@
+package benchmarks;
+
+import gfx.Canvas;
+import shapes.Selection;
+
+/**
+ * Selection that gives the benchmarks access to its bounding box update.
+ * @author DavidKramer
+ *
+ */
+public class BenchSelection extends Selection {
+	public BenchSelection(Canvas canvas) {
+		super(canvas);
+		setCanvasShapes(canvas.getShapes());
+	}
+	
+	public void updateBounds() {
+		updateBoundingBox();
+	}
+}
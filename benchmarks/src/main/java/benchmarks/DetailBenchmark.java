@@ -0,0 +1,106 @@
+package benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shapes.MyPoly;
+import shapes.MyShape;
+import shapes.VertexStore;
+
+/**
+ * Draws a grid of large, detailed polys zoomed out by different amounts, which is where
+ * drawing simplified pts (or a single pixel) pays off.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DetailBenchmark {
+	public static final int WIDTH = 1920;
+	public static final int HEIGHT = 1080;
+	public static final int GRID_SIZE = 10;			// polys across and down
+	public static final int RADIUS = 500;
+	
+	@Param({ "10000" })
+	public int ptCount;
+	
+	@Param({ "1.0", "0.1", "0.01", "0.001" })
+	public double zoom;
+	
+	private ArrayList<MyShape> polys;
+	private BufferedImage image;
+	private Graphics2D g;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		polys = new ArrayList<>();
+		
+		for (int row = 0; row < GRID_SIZE; row++) {
+			for (int col = 0; col < GRID_SIZE; col++) {
+				polys.add(createContour(RADIUS + col * RADIUS * 2, RADIUS + row * RADIUS * 2));
+			}
+		}
+		
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		g = image.createGraphics();
+		g.scale(zoom, zoom);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		g.dispose();
+	}
+	
+	/**
+	 * Creates a closed, wavy outline like a traced contour, whose pts are close together.
+	 * @param cx
+	 * @param cy
+	 * @return
+	 */
+	private MyPoly createContour(int cx, int cy) {
+		VertexStore pts = new VertexStore(ptCount + 1);
+		
+		for (int i = 0; i < ptCount; i++) {
+			double angle = Math.PI * 2 * i / ptCount;
+			double r = RADIUS * (0.8 + 0.1 * Math.sin(angle * 5) + 0.02 * Math.sin(angle * 97));
+			pts.add(cx + (int)(Math.cos(angle) * r), cy + (int)(Math.sin(angle) * r));
+		}
+		pts.add(pts.getX(0), pts.getY(0));
+		return MyPoly.createFromPts(pts, true);
+	}
+	
+	//********************************************************
+	//* 				  BENCHMARK METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Draws every poly at the zoom.
+	 */
+	@Benchmark
+	public BufferedImage render() {
+		for (int i = 0; i < polys.size(); i++) {
+			polys.get(i).render(g);
+		}
+		return image;
+	}
+}
@@ -0,0 +1,131 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Random;
+
+import gfx.Decoration;
+import gfx.Style;
+import shapes.MyCircle;
+import shapes.MyLine;
+import shapes.MyPoly;
+import shapes.MyRect;
+import shapes.MyShape;
+import shapes.VertexStore;
+
+/**
+ * This class generates documents of random shapes for the benchmarks. The same seed always
+ * generates the same document, so that runs can be compared with each other.
+ * @author DavidKramer
+ *
+ */
+public class DocumentGenerator {
+	public static final long DEFAULT_SEED = 0x4A524157L;
+	public static final int MAX_SIZE = 200;			// largest width / height of a shape
+	public static final int STYLE_COUNT = 16;		// number of distinct decorations to pick from
+	
+	private Random random;
+	private int width;
+	private int height;
+	private Style[] styles;				// shared by the shapes, like the styles of a file
+	
+	public DocumentGenerator(long seed, int width, int height) {
+		random = new Random(seed);
+		this.width = width;
+		this.height = height;
+		initStyles();
+	}
+	
+	private void initStyles() {
+		styles = new Style[STYLE_COUNT];
+		
+		for (int i = 0; i < styles.length; i++) {
+			Decoration d = new Decoration();
+			d.setFillColor(new Color(random.nextInt(0xFFFFFF)));
+			d.setStrokeColor(new Color(random.nextInt(0xFFFFFF)));
+			d.setStrokeWidth(1 + random.nextInt(8));
+			d.setHasFill(random.nextInt(4) != 0);
+			d.setHasStroke(true);
+			styles[i] = Style.of(d);
+		}
+	}
+	
+	//********************************************************
+	//* 				 GENERATOR METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Generates a mix of rects, circles, lines and polys spread over the whole area.
+	 * @param count
+	 * @return
+	 */
+	public ArrayList<MyShape> generate(int count) {
+		ArrayList<MyShape> shapes = new ArrayList<>(count);
+		
+		for (int i = 0; i < count; i++) {
+			MyShape shape;
+			
+			switch (random.nextInt(4)) {
+			case 0:
+				shape = setBounds(new MyRect());
+				break;
+			case 1:
+				shape = setBounds(new MyCircle());
+				break;
+			case 2:
+				shape = createLine();
+				break;
+			default:
+				shape = createPoly(3 + random.nextInt(8));
+				break;
+			}
+			shape.setStyle(styles[random.nextInt(styles.length)]);
+			shape.setZIndex(i);
+			shapes.add(shape);
+		}
+		return shapes;
+	}
+	
+	/**
+	 * Generates a closed poly with a given number of pts, around a random center.
+	 * @param ptCount
+	 * @return
+	 */
+	public MyPoly createPoly(int ptCount) {
+		int cx = randomX();
+		int cy = randomY();
+		int radius = 10 + random.nextInt(MAX_SIZE / 2);
+		VertexStore pts = new VertexStore(ptCount + 1);
+		
+		for (int i = 0; i < ptCount; i++) {
+			double angle = Math.PI * 2 * i / ptCount;
+			double r = radius * (0.5 + random.nextDouble() / 2);
+			pts.add(cx + (int)(Math.cos(angle) * r), cy + (int)(Math.sin(angle) * r));
+		}
+		pts.add(pts.getX(0), pts.getY(0));	// closed polys end where they begin
+		return MyPoly.createFromPts(pts, true);
+	}
+	
+	private MyShape setBounds(MyShape shape) {
+		int x = randomX();
+		int y = randomY();
+		shape.setGeometry(new int[] { x, y, x + 1 + random.nextInt(MAX_SIZE), y + 1 + random.nextInt(MAX_SIZE) });
+		return shape;
+	}
+	
+	private MyLine createLine() {
+		MyLine line = new MyLine();
+		int x = randomX();
+		int y = randomY();
+		line.setLine(x, y, x + random.nextInt(MAX_SIZE * 2) - MAX_SIZE, y + random.nextInt(MAX_SIZE * 2) - MAX_SIZE);
+		return line;
+	}
+	
+	private int randomX() {
+		return random.nextInt(Math.max(1, width - MAX_SIZE));
+	}
+	
+	private int randomY() {
+		return random.nextInt(Math.max(1, height - MAX_SIZE));
+	}
+}
@@ -0,0 +1,139 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gfx.Canvas;
+import shapes.RectHandle;
+
+/**
+ * Drags a selection of shapes around, one mouse event at a time, the same way that the
+ * selection manager does. Run it with -prof gc to see the bytes allocated per event, or
+ * run main() to check that a drag doesn't allocate anything once it is under way.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DragBenchmark {
+	public static final int SIZE = 2000;			// width and height of the document
+	public static final int WARMUP_EVENTS = 200000;
+	public static final int EVENTS = 100000;
+
+	@Param({ "1000" })
+	public int shapeCount;
+
+	@Param({ "MOVE", "RESIZE" })
+	public String dragMode;
+
+	private Canvas canvas;
+	private BenchSelection selection;
+	private BenchMouse mouse;
+	private int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		canvas = new Canvas();
+		canvas.setSize(SIZE, SIZE);
+		canvas.addShapes(new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, SIZE, SIZE).generate(shapeCount));
+		canvas.repaintDamage();
+
+		mouse = new BenchMouse();
+		selection = new BenchSelection(canvas);
+		canvas.setSelection(selection);
+		canvas.setHasSelection(true);
+
+		mouse.setClickPt(-SIZE, -SIZE);		// select every shape, even ones that stick out
+		mouse.setDragPt(SIZE * 2, SIZE * 2);
+		selection.handleDrag(mouse);
+		selection.handleRelease(mouse);
+
+		if ("RESIZE".equals(dragMode)) {	// grab the south east handle
+			selection.getBoundingBox().updateRectHandles();
+			RectHandle handle = selection.getBoundingBox().getHandles().get(6);
+			mouse.setClickPt((int)handle.getCenterX(), (int)handle.getCenterY());
+		} else {
+			mouse.setClickPt(SIZE / 2, SIZE / 2);
+		}
+		selection.handleClick(mouse);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		selection.handleRelease(mouse);
+	}
+
+	//********************************************************
+	//* 				  BENCHMARK METHODS					 *
+	//********************************************************
+
+	/**
+	 * Handles one mouse drag event: moves (or resizes) every selected shape, fits the
+	 * selection around them, and works out what has to be repainted.
+	 */
+	@Benchmark
+	public int dragEvent() {
+		step++;
+		mouse.setDragPt(mouse.getClickPt().x + (step & 63), mouse.getClickPt().y + ((step >> 6) & 63));
+		selection.handleDrag(mouse);
+		canvas.repaintDamage();
+		return step;
+	}
+
+	//********************************************************
+	//* 				    MAIN METHOD						 *
+	//********************************************************
+
+	/**
+	 * Measures how many bytes the thread allocates per drag event, once the drag is under
+	 * way, and fails if it is anything but zero.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		boolean failed = false;
+
+		for (String mode : new String[] { "MOVE", "RESIZE" }) {
+			DragBenchmark benchmark = new DragBenchmark();
+			benchmark.shapeCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+			benchmark.dragMode = mode;
+			benchmark.setUp();
+
+			for (int i = 0; i < WARMUP_EVENTS; i++) {
+				benchmark.dragEvent();
+			}
+
+			long before = threads.getThreadAllocatedBytes(thread);
+			for (int i = 0; i < EVENTS; i++) {
+				benchmark.dragEvent();
+			}
+			long bytes = threads.getThreadAllocatedBytes(thread) - before;
+
+			benchmark.tearDown();
+			System.out.printf("%s %d shapes: %d bytes in %d drag events (%.2f bytes/event)%n",
+							  mode, benchmark.shapeCount, bytes, EVENTS, (double)bytes / EVENTS);
+			failed |= bytes > 0;
+		}
+		System.exit(failed ? 1 : 0);
+	}
+}
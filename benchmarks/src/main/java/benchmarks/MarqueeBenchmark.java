@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gfx.Canvas;
+import shapes.Selection;
+
+/**
+ * Drags a marquee over the whole document, so that every shape is checked and selected.
+ * A parallelThreshold of Integer.MAX_VALUE always loads the shapes on one thread. Only
+ * shapes that haven't been decoded yet are split across threads, and generated shapes
+ * never need to be, so both thresholds should take the same time here.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MarqueeBenchmark {
+	public static final int SIZE = 20000;			// width and height of the document
+	
+	@Param({ "10000", "200000" })
+	public int shapeCount;
+	
+	@Param({ "20000", "2147483647" })
+	public int parallelThreshold;
+	
+	private Canvas canvas;
+	private BenchSelection selection;
+	private BenchMouse mouse;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		Selection.setParallelThreshold(parallelThreshold);
+		canvas = new Canvas();
+		canvas.addShapes(new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, SIZE, SIZE).generate(shapeCount));
+		selection = new BenchSelection(canvas);
+		mouse = new BenchMouse();
+		mouse.setClickPt(-SIZE, -SIZE);
+		mouse.setDragPt(SIZE * 2, SIZE * 2);
+	}
+	
+	//********************************************************
+	//* 				  BENCHMARK METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Drags out a marquee around every shape and releases it.
+	 */
+	@Benchmark
+	public int selectAll() {
+		selection.clearSelection();
+		selection.handleDrag(mouse);
+		selection.handleRelease(mouse);
+		return selection.getSelectedShapes().size();
+	}
+}
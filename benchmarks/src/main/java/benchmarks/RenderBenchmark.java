@@ -0,0 +1,104 @@
+package benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gfx.Canvas;
+import gfx.TileCache;
+
+/**
+ * Renders a whole frame of the canvas into an offscreen image. The full frame is what
+ * the user waits on after opening a document or scrolling, and the cached frame is what
+ * every repaint costs in layered mode.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+	public static final int WIDTH = 1920;
+	public static final int HEIGHT = 1080;
+	
+	@Param({ "1000", "10000", "100000" })
+	public int shapeCount;
+	
+	@Param({ "DIRECT", "LAYERED", "TILED", "ASYNC" })
+	public String renderMode;
+	
+	private Canvas canvas;
+	private BufferedImage image;
+	private Graphics2D g;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		canvas = new Canvas();
+		canvas.setSize(WIDTH, HEIGHT);
+		setRenderMode(canvas, renderMode);
+		canvas.addShapes(new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, WIDTH, HEIGHT).generate(shapeCount));
+		
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		g = image.createGraphics();
+		g.setClip(0, 0, WIDTH, HEIGHT);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		g.dispose();
+	}
+	
+	/**
+	 * Sets the render mode of a canvas by name. TILED renders tiles on the calling thread,
+	 * so that each frame is complete, while ASYNC renders them on the tile workers, so a 
+	 * frame only costs what the event thread would spend on it.
+	 * @param canvas
+	 * @param name DIRECT, LAYERED, TILED or ASYNC
+	 */
+	public static void setRenderMode(Canvas canvas, String name) {
+		if ("LAYERED".equals(name)) {
+			canvas.setRenderMode(Canvas.RENDER_LAYERED);
+		} else if ("TILED".equals(name) || "ASYNC".equals(name)) {
+			canvas.setRenderMode(Canvas.RENDER_TILED);
+			canvas.getTileCache().setThreadCount("ASYNC".equals(name) ? TileCache.DEFAULT_THREADS : 0);
+		} else {
+			canvas.setRenderMode(Canvas.RENDER_DIRECT);
+		}
+	}
+	
+	/**
+	 * Renders every shape, as if nothing had been cached yet.
+	 */
+	@Benchmark
+	public BufferedImage renderFull() {
+		canvas.redraw();
+		canvas.render(g);
+		return image;
+	}
+	
+	/**
+	 * Renders a frame where nothing has changed since the last one.
+	 */
+	@Benchmark
+	public BufferedImage renderCached() {
+		canvas.render(g);
+		return image;
+	}
+}
@@ -0,0 +1,122 @@
+package benchmarks;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gfx.Canvas;
+import shapes.Selection;
+
+/**
+ * Hit-tests the canvas shapes the way the selection tool does: clicking on a shape,
+ * dragging out a marquee, and dragging the selected shapes around.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SelectionBenchmark {
+	public static final int SIZE = 5000;			// width and height of the document
+	public static final int MARQUEE_SIZE = 1000;
+	public static final int CLICK_COUNT = 1024;		// number of click pts to cycle through
+	
+	@Param({ "1000", "10000", "100000" })
+	public int shapeCount;
+	
+	private Canvas canvas;
+	private BenchSelection selection;
+	private BenchSelection marquee;					// selection that holds every shape in the marquee
+	private BenchMouse mouse;
+	private Point[] clickPts;
+	private int next;
+	private int dragCount;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		canvas = new Canvas();
+		canvas.addShapes(new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, SIZE, SIZE).generate(shapeCount));
+		mouse = new BenchMouse();
+		
+		selection = new BenchSelection(canvas);
+		
+		Random random = new Random(DocumentGenerator.DEFAULT_SEED);
+		clickPts = new Point[CLICK_COUNT];
+		for (int i = 0; i < clickPts.length; i++) {
+			clickPts[i] = new Point(random.nextInt(SIZE), random.nextInt(SIZE));
+		}
+		
+		marquee = new BenchSelection(canvas);
+		selectArea(marquee, 0, 0, MARQUEE_SIZE, MARQUEE_SIZE);
+	}
+	
+	private void selectArea(Selection s, int x, int y, int width, int height) {
+		s.clearSelection();
+		mouse.setClickPt(x, y);
+		mouse.setDragPt(x + width, y + height);
+		s.handleDrag(mouse);
+		s.handleRelease(mouse);
+	}
+	
+	//********************************************************
+	//* 				  BENCHMARK METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Clicks on the top most shape under a pt.
+	 */
+	@Benchmark
+	public int clickSelect() {
+		Point p = clickPts[next++ & (CLICK_COUNT - 1)];
+		selection.clearSelection();
+		mouse.setClickPt(p.x, p.y);
+		selection.handleClick(mouse);
+		return selection.getShapeCount();
+	}
+	
+	/**
+	 * Drags out a marquee and selects every shape inside of it.
+	 */
+	@Benchmark
+	public int marqueeSelect() {
+		Point p = clickPts[next++ & (CLICK_COUNT - 1)];
+		selectArea(selection, p.x, p.y, MARQUEE_SIZE, MARQUEE_SIZE);
+		return selection.getSelectedShapes().size();
+	}
+	
+	/**
+	 * Fits the bounding box around every shape in the marquee.
+	 */
+	@Benchmark
+	public BenchSelection updateBoundingBox() {
+		marquee.updateBounds();
+		return marquee;
+	}
+	
+	/**
+	 * Moves the shapes in the marquee one step of a drag.
+	 */
+	@Benchmark
+	public BenchSelection dragSelected() {
+		mouse.setClickPt(0, 0);
+		mouse.setDragPt(dragCount & 15, dragCount++ & 15);
+		marquee.handleDrag(mouse);
+		return marquee;
+	}
+}
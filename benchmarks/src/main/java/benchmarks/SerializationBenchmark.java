@@ -0,0 +1,124 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gfx.Canvas;
+import shapes.MyShape;
+import shapes.ShapeRecord;
+import shapes.ShapeVector;
+import utils.JRawCodec;
+
+/**
+ * Writes and reads .jraw files, the same way that saving and opening a document does.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SerializationBenchmark {
+	@Param({ "1000", "10000", "100000" })
+	public int shapeCount;
+	
+	private ArrayList<MyShape> shapes;
+	private File readFile;		// file that is only ever read
+	private File writeFile;		// file that is written over by each save
+	private Canvas canvas;		// canvas with its own copy of the shapes, for incremental snapshots
+	private int step;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		shapes = new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, 5000, 5000).generate(shapeCount);
+		readFile = File.createTempFile("jraw-read", ".jraw");
+		writeFile = File.createTempFile("jraw-write", ".jraw");
+		JRawCodec.write(readFile.getPath(), shapes);
+		
+		canvas = new Canvas();
+		canvas.addShapes(new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, 5000, 5000).generate(shapeCount));
+		canvas.getSnapshot();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		readFile.delete();
+		writeFile.delete();
+	}
+	
+	//********************************************************
+	//* 				  BENCHMARK METHODS					 *
+	//********************************************************
+	
+	/**
+	 * Takes a snapshot and writes it, which is all of the work of a save.
+	 */
+	@Benchmark
+	public File write() throws IOException {
+		JRawCodec.write(writeFile.getPath(), shapes);
+		return writeFile;
+	}
+	
+	/**
+	 * Only takes the snapshot, which is the part of a save that blocks the event thread.
+	 */
+	@Benchmark
+	public List<ShapeRecord> snapshot() {
+		return ShapeRecord.snapshot(shapes);
+	}
+	
+	/**
+	 * Moves one shape and takes a snapshot of the canvas, which only copies that shape and
+	 * shares the rest with the last snapshot.
+	 */
+	@Benchmark
+	public ShapeVector snapshotChanged() {
+		MyShape shape = canvas.getShapes().get(step++ % shapeCount);
+		shape.translate((step & 1) == 0 ? 1 : -1, 0);
+		return canvas.getSnapshot();
+	}
+	
+	/**
+	 * Reads and decodes every shape in the file.
+	 */
+	@Benchmark
+	public List<MyShape> read() throws IOException {
+		return JRawCodec.read(readFile.getPath());
+	}
+	
+	/**
+	 * Maps the file and only reads the table of contents, as opening a document does.
+	 */
+	@Benchmark
+	public List<MyShape> map() throws IOException {
+		return JRawCodec.map(readFile.getPath());
+	}
+	
+	/**
+	 * Writes the shapes and then reads all of them back.
+	 */
+	@Benchmark
+	public List<MyShape> roundTrip() throws IOException {
+		JRawCodec.write(writeFile.getPath(), shapes);
+		return JRawCodec.read(writeFile.getPath());
+	}
+}
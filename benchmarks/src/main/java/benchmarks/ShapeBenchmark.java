@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shapes.MyPoly;
+import shapes.MyRect;
+import shapes.MyShape;
+import shapes.RectHandle;
+
+/**
+ * Moves and resizes single shapes, which happens for every selected shape on every
+ * mouse drag event.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ShapeBenchmark {
+	@Param({ "8", "64", "512" })
+	public int ptCount;
+	
+	private MyRect rect;
+	private BenchPoly poly;
+	private Point offset;
+	private int step;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		DocumentGenerator generator = new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, 5000, 5000);
+		rect = new MyRect();
+		rect.setGeometry(new int[] { 100, 100, 300, 200 });
+		poly = new BenchPoly(generator.createPoly(ptCount));
+		offset = new Point();
+	}
+	
+	private Point nextOffset() {
+		step++;
+		offset.setLocation(step & 31, (step >> 5) & 31);
+		return offset;
+	}
+	
+	//********************************************************
+	//* 				  BENCHMARK METHODS					 *
+	//********************************************************
+	
+	@Benchmark
+	public MyShape moveRect() {
+		rect.move(nextOffset());
+		return rect;
+	}
+	
+	@Benchmark
+	public MyShape resizeRect() {
+		rect.resize(nextOffset(), RectHandle.SOUTH_EAST);
+		return rect;
+	}
+	
+	@Benchmark
+	public MyShape movePoly() {
+		poly.move(nextOffset());
+		return poly;
+	}
+	
+	@Benchmark
+	public MyShape resizePoly() {
+		poly.resize(nextOffset(), RectHandle.SOUTH_EAST);
+		return poly;
+	}
+	
+	@Benchmark
+	public MyShape updatePolyBoundingBox() {
+		poly.updateBounds();
+		return poly;
+	}
+	
+	//********************************************************
+	//* 				  BENCHMARK CLASSES					 *
+	//********************************************************
+	
+	/**
+	 * Gives the benchmarks access to the bounding box update of a poly.
+	 */
+	public static class BenchPoly extends MyPoly {
+		public BenchPoly(MyPoly poly) {
+			super(poly.getPts().copy());
+			initFromPts(poly.isClosed());
+			updateBoundingBox();
+		}
+		
+		public void updateBounds() {
+			updateBoundingBox();
+		}
+	}
+}
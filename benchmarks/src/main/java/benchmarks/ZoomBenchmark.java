@@ -0,0 +1,116 @@
+package benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gfx.Canvas;
+
+/**
+ * Pans and zooms the canvas view one step at a time, rendering a frame after each step,
+ * the same way that the hand tool and the mouse wheel do.
+ * @author DavidKramer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ZoomBenchmark {
+	public static final int WIDTH = 1920;
+	public static final int HEIGHT = 1080;
+	public static final int PAN_STEP = 8;			// pixels per hand tool drag event
+	public static final double ZOOM_STEP = 1.1;		// zoom per notch of the mouse wheel
+	public static final long POLL_NANOS = 100000;	// wait between frames while tiles are rendering
+
+	@Param({ "10000", "100000" })
+	public int shapeCount;
+
+	@Param({ "DIRECT", "LAYERED", "TILED", "ASYNC" })
+	public String renderMode;
+
+	private Canvas canvas;
+	private BufferedImage image;
+	private Graphics2D g;
+	private Point cursor;
+	private int step;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		canvas = new Canvas();
+		canvas.setSize(WIDTH, HEIGHT);
+		RenderBenchmark.setRenderMode(canvas, renderMode);
+		canvas.addShapes(new DocumentGenerator(DocumentGenerator.DEFAULT_SEED, WIDTH * 2, HEIGHT * 2).generate(shapeCount));
+		cursor = new Point(WIDTH / 2, HEIGHT / 2);
+
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		g = image.createGraphics();
+		g.setClip(0, 0, WIDTH, HEIGHT);
+		canvas.render(g);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		g.dispose();
+	}
+
+	//********************************************************
+	//* 				  BENCHMARK METHODS					 *
+	//********************************************************
+
+	/**
+	 * Pans the view back and forth by a few pixels, and renders the frame.
+	 */
+	@Benchmark
+	public BufferedImage pan() {
+		int dx = (step++ & 64) == 0 ? -PAN_STEP : PAN_STEP;
+		canvas.pan(dx, -dx / 2);
+		canvas.render(g);
+		return image;
+	}
+
+	/**
+	 * Zooms in or out by one notch of the mouse wheel around the middle of the view, and
+	 * renders the frame.
+	 */
+	@Benchmark
+	public BufferedImage zoom() {
+		double factor = (step++ & 8) == 0 ? 1 / ZOOM_STEP : ZOOM_STEP;
+		canvas.zoomAt(factor, cursor);
+		canvas.render(g);
+		return image;
+	}
+
+	/**
+	 * Zooms by one notch like zoom(), but keeps rendering frames until every tile has been
+	 * rendered. With ASYNC this measures how long the full quality frame takes to arrive,
+	 * rather than how long the event thread is kept busy.
+	 */
+	@Benchmark
+	public BufferedImage zoomSettled() {
+		zoom();
+		while (canvas.getTileCache().getPendingCount() > 0) {
+			LockSupport.parkNanos(POLL_NANOS);
+			canvas.render(g);
+		}
+		return image;
+	}
+}